@@ -176,5 +176,14 @@ public class ControlMessageManagerTest {
         public long getDispatchTimeLimit() {
             return 0;
         }
+
+        @Override
+        public void setDispatchLaneCount(int count) {
+        }
+
+        @Override
+        public int getDispatchLaneCount() {
+            return 1;
+        }
     }
 }
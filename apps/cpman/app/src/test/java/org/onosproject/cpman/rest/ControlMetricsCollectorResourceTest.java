@@ -192,6 +192,12 @@ public class ControlMetricsCollectorResourceTest extends ResourceTest {
             return null;
         }
 
+        @Override
+        public Histogram createLatencyHistogram(MetricsComponent component,
+                                                MetricsFeature feature, String metricName) {
+            return null;
+        }
+
         @Override
         public Timer createTimer(MetricsComponent component,
                                  MetricsFeature feature, String metricName) {
@@ -85,6 +85,12 @@ public class InfluxDbMetricsReporterTest {
             return null;
         }
 
+        @Override
+        public Histogram createLatencyHistogram(MetricsComponent component,
+                                                MetricsFeature feature, String metricName) {
+            return null;
+        }
+
         @Override
         public Timer createTimer(MetricsComponent component,
                                  MetricsFeature feature, String metricName) {
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.cli.net;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Snapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.karaf.shell.commands.Command;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.cli.AbstractShellCommand;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Prints the time intents spend in each stage of their processing.
+ */
+@Command(scope = "onos", name = "intent-latency",
+        description = "Prints the time intents spend in each stage of their processing")
+public class IntentLatencyCommand extends AbstractShellCommand {
+
+    private static final String PREFIX = "IntentManager.Latency.";
+    private static final String FMT = "%-12s count=%d, p50=%.3f, p90=%.3f, p99=%.3f, max=%.3f (ms)";
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    @Override
+    protected void execute() {
+        MetricsService metricsService = get(MetricsService.class);
+        SortedMap<String, Histogram> histograms =
+                new TreeMap<>(metricsService.getHistograms((name, metric) -> name.startsWith(PREFIX)));
+
+        if (outputJson()) {
+            ObjectMapper mapper = new ObjectMapper();
+            ObjectNode result = mapper.createObjectNode();
+            histograms.forEach((name, histogram) -> {
+                Snapshot snapshot = histogram.getSnapshot();
+                result.putObject(name.substring(PREFIX.length()))
+                        .put("count", histogram.getCount())
+                        .put("p50", millis(snapshot.getMedian()))
+                        .put("p90", millis(snapshot.getValue(0.9)))
+                        .put("p99", millis(snapshot.get99thPercentile()))
+                        .put("max", millis(snapshot.getMax()));
+            });
+            print("%s", result);
+        } else if (histograms.isEmpty()) {
+            print("No intent latency metrics are available.");
+        } else {
+            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                Snapshot snapshot = entry.getValue().getSnapshot();
+                print(FMT, entry.getKey().substring(PREFIX.length()), entry.getValue().getCount(),
+                      millis(snapshot.getMedian()), millis(snapshot.getValue(0.9)),
+                      millis(snapshot.get99thPercentile()), millis(snapshot.getMax()));
+            }
+        }
+    }
+
+    private static double millis(double nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
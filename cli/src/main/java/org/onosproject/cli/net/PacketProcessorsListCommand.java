@@ -30,7 +30,8 @@ import static org.onosproject.net.packet.PacketProcessor.DIRECTOR_MAX;
         description = "Lists packet processors")
 public class PacketProcessorsListCommand extends AbstractShellCommand {
 
-    private static final String FMT = "priority=%s, class=%s, packets=%d, avgNanos=%d";
+    private static final String FMT =
+            "priority=%s, class=%s, packets=%d, avgNanos=%d, p50Nanos=%d, p99Nanos=%d";
 
     @Override
     protected void execute() {
@@ -46,7 +47,25 @@ public class PacketProcessorsListCommand extends AbstractShellCommand {
     private void print(PacketProcessorEntry entry) {
         print(FMT, priorityFormat(entry.priority()),
               entry.processor().getClass().getName(),
-              entry.invocations(), entry.averageNanos());
+              entry.invocations(), entry.averageNanos(),
+              percentile(entry.latencyHistogram(), 0.5),
+              percentile(entry.latencyHistogram(), 0.99));
+    }
+
+    // Returns the upper bound of the histogram bucket holding the percentile.
+    private long percentile(long[] histogram, double fraction) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen > 0 && seen >= fraction * total) {
+                return 1L << i;
+            }
+        }
+        return 0;
     }
 
     private String priorityFormat(int priority) {
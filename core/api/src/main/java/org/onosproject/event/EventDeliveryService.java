@@ -35,4 +35,20 @@ public interface EventDeliveryService extends EventDispatcher, EventSinkRegistry
      */
     long getDispatchTimeLimit();
 
+    /**
+     * Sets the number of lanes over which events are dispatched. Events
+     * destined for the same sink are always dispatched in order via the
+     * same lane.
+     *
+     * @param count number of dispatch lanes; must be greater than 0
+     */
+    void setDispatchLaneCount(int count);
+
+    /**
+     * Returns the number of lanes over which events are dispatched.
+     *
+     * @return number of dispatch lanes
+     */
+    int getDispatchLaneCount();
+
 }
@@ -23,7 +23,7 @@ import static com.google.common.base.MoreObjects.toStringHelper;
  */
 public class DefaultTypedFlowEntry extends DefaultFlowEntry
     implements TypedStoredFlowEntry {
-    private FlowLiveType liveType;
+    private volatile FlowLiveType liveType;
 
     /**
      * Creates a typed flow entry from flow rule and its statistics, with default flow live type(IMMEDIATE_FLOW).
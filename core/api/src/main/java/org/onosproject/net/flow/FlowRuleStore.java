@@ -15,8 +15,12 @@
  */
 package org.onosproject.net.flow;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
+import com.google.common.collect.Maps;
 import org.onosproject.net.DeviceId;
 import org.onosproject.store.Store;
 
@@ -48,6 +52,27 @@ public interface FlowRuleStore extends Store<FlowRuleBatchEvent, FlowRuleStoreDe
      */
     Iterable<FlowEntry> getFlowEntries(DeviceId deviceId);
 
+    /**
+     * Reconciles the flow entries stored for a device with the flow entries
+     * reported by the device. Each reported entry is passed to the handler
+     * along with the stored entry equal to it, or null if there is none.
+     *
+     * @param deviceId the device ID
+     * @param reported flow entries reported by the device
+     * @param handler  receives each reported entry and its stored entry
+     * @return the stored flow entries which the device did not report
+     */
+    default Collection<FlowEntry> reconcileFlowEntries(DeviceId deviceId,
+                                                       Iterable<FlowEntry> reported,
+                                                       BiConsumer<FlowEntry, FlowEntry> handler) {
+        Map<FlowEntry, FlowEntry> stored = Maps.newHashMap();
+        getFlowEntries(deviceId).forEach(f -> stored.put(f, f));
+        for (FlowEntry entry : reported) {
+            handler.accept(entry, stored.remove(entry));
+        }
+        return stored.keySet();
+    }
+
     /**
      * // TODO: Better description of method behavior.
      * Stores a new flow rule without generating events.
@@ -55,4 +55,16 @@ public interface PacketProcessorEntry {
      * @return average time in nanos
      */
     long averageNanos();
+
+    /**
+     * Returns the distribution of the time spent processing packets. The
+     * count at index i is the number of invocations which took less than
+     * 2^i nanoseconds, but no less than 2^(i-1); the last index also counts
+     * all longer invocations.
+     *
+     * @return invocation counts by processing time
+     */
+    default long[] latencyHistogram() {
+        return new long[0];
+    }
 }
@@ -133,4 +133,16 @@ public interface ResourceStore extends Store<ResourceEvent, ResourceStoreDelegat
      * whose type is the specified class.
      */
     <T> Collection<Resource> getAllocatedResources(DiscreteResourceId parent, Class<T> cls);
+
+    /**
+     * Returns a set of the child resources of the specified parent which are not
+     * allocated and whose type is the specified class.
+     *
+     * @param parent ID of the parent of the resources to be returned
+     * @param cls class instance of the children
+     * @param <T> type of the resource
+     * @return a set of the available child resources of the specified parent and
+     * whose type is the specified class
+     */
+    <T> Set<Resource> getAvailableResources(DiscreteResourceId parent, Class<T> cls);
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.topology;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Statistics of the shortest path cache of a topology snapshot.
+ */
+public final class PathCacheStatistics {
+
+    private static final PathCacheStatistics EMPTY = new PathCacheStatistics(0, 0, 0);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long size;
+
+    private PathCacheStatistics(long hitCount, long missCount, long size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.size = size;
+    }
+
+    /**
+     * Returns path cache statistics with the given values.
+     *
+     * @param hitCount  number of path requests served from the cache
+     * @param missCount number of path requests that required a search
+     * @param size      number of shortest path trees currently cached
+     * @return path cache statistics
+     */
+    public static PathCacheStatistics of(long hitCount, long missCount, long size) {
+        return new PathCacheStatistics(hitCount, missCount, size);
+    }
+
+    /**
+     * Returns path cache statistics for a topology without a path cache.
+     *
+     * @return empty path cache statistics
+     */
+    public static PathCacheStatistics empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the number of path requests served from the cache.
+     *
+     * @return hit count
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of path requests that required a path search.
+     *
+     * @return miss count
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of path requests served from the cache; 1.0 if
+     * there were no requests yet.
+     *
+     * @return hit rate
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Returns the number of shortest path trees currently cached.
+     *
+     * @return cache size
+     */
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hitCount, missCount, size);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof PathCacheStatistics) {
+            final PathCacheStatistics other = (PathCacheStatistics) obj;
+            return this.hitCount == other.hitCount &&
+                    this.missCount == other.missCount &&
+                    this.size == other.size;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("hitCount", hitCount)
+                .add("missCount", missCount)
+                .add("size", size)
+                .toString();
+    }
+}
@@ -164,6 +164,15 @@ public interface TopologyService
     Set<DisjointPath> getDisjointPaths(Topology topology, DeviceId src, DeviceId dst,
                                        LinkWeight weight, Map<Link, Object> riskProfile);
 
+    /**
+     * Returns statistics of the shortest path cache of the specified
+     * topology.
+     *
+     * @param topology topology descriptor
+     * @return path cache statistics
+     */
+    PathCacheStatistics getPathCacheStatistics(Topology topology);
+
     /**
      * Indicates whether the specified connection point is part of the network
      * infrastructure or part of network edge.
@@ -166,6 +166,14 @@ public interface TopologyStore extends Store<TopologyEvent, TopologyStoreDelegat
                                        Map<Link, Object> riskProfile);
 
 
+    /**
+     * Returns statistics of the shortest path cache of the given topology.
+     *
+     * @param topology topology descriptor
+     * @return path cache statistics
+     */
+    PathCacheStatistics getPathCacheStatistics(Topology topology);
+
     /**
      * Indicates whether the given connect point is part of the network fabric.
      *
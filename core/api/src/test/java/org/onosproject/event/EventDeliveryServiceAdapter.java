@@ -31,6 +31,16 @@ public class EventDeliveryServiceAdapter implements EventDeliveryService {
         return 0;
     }
 
+    @Override
+    public void setDispatchLaneCount(int count) {
+
+    }
+
+    @Override
+    public int getDispatchLaneCount() {
+        return 0;
+    }
+
     @Override
     public void post(Event event) {
 
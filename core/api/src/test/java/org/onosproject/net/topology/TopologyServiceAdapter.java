@@ -73,6 +73,11 @@ public class TopologyServiceAdapter implements TopologyService {
         return null;
     }
 
+    @Override
+    public PathCacheStatistics getPathCacheStatistics(Topology topology) {
+        return PathCacheStatistics.empty();
+    }
+
     @Override
     public boolean isInfrastructure(Topology topology, ConnectPoint connectPoint) {
         return false;
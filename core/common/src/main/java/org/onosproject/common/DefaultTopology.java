@@ -18,10 +18,15 @@ package org.onosproject.common;
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSetMultimap.Builder;
+import com.google.common.collect.Sets;
 import org.onlab.graph.DijkstraGraphSearch;
 import org.onlab.graph.DisjointPathPair;
 import org.onlab.graph.GraphPathSearch;
@@ -45,6 +50,7 @@ import org.onosproject.net.topology.DefaultTopologyVertex;
 import org.onosproject.net.topology.GraphDescription;
 import org.onosproject.net.topology.HopCountLinkWeight;
 import org.onosproject.net.topology.LinkWeight;
+import org.onosproject.net.topology.PathCacheStatistics;
 import org.onosproject.net.topology.Topology;
 import org.onosproject.net.topology.TopologyCluster;
 import org.onosproject.net.topology.TopologyEdge;
@@ -53,10 +59,16 @@ import org.onosproject.net.topology.TopologyVertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -78,9 +90,26 @@ public class DefaultTopology extends AbstractModel implements Topology {
     private static final DijkstraGraphSearch<TopologyVertex, TopologyEdge> DIJKSTRA = new DijkstraGraphSearch<>();
     private static final TarjanGraphSearch<TopologyVertex, TopologyEdge> TARJAN = new TarjanGraphSearch<>();
     private static final SuurballeGraphSearch<TopologyVertex, TopologyEdge> SUURBALLE = new SuurballeGraphSearch<>();
+    private static final LinkWeight NO_INDIRECT_LINKS = new NoIndirectLinksWeight();
+
+    private static final int DEFAULT_PATH_CACHE_SIZE = 128;
 
     private static LinkWeight defaultLinkWeight = null;
     private static GraphPathSearch<TopologyVertex, TopologyEdge> defaultGraphPathSearch = null;
+    private static int pathCacheSize = DEFAULT_PATH_CACHE_SIZE;
+
+    // Whether link weights of a class define equality, so that the shortest
+    // path trees searched with equal weights can be shared.
+    private static final ClassValue<Boolean> COMPARABLE_WEIGHTS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
 
     private final long time;
     private final long creationTime;
@@ -89,12 +118,15 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     private final LinkWeight hopCountWeight;
 
-    private final Supplier<SccResult<TopologyVertex, TopologyEdge>> clusterResults;
+    private final Supplier<ClusterSets> clusterResults;
     private final Supplier<ImmutableMap<ClusterId, TopologyCluster>> clusters;
     private final Supplier<ImmutableSet<ConnectPoint>> infrastructurePoints;
+    private final Supplier<BroadcastTrees> broadcastTrees;
     private final Supplier<ImmutableSetMultimap<ClusterId, ConnectPoint>> broadcastSets;
     private final Function<ConnectPoint, Boolean> broadcastFunction;
     private final Supplier<ClusterIndexes> clusterIndexes;
+    private final int shortestPathTreeLimit;
+    private final Cache<TreeKey, Result<TopologyVertex, TopologyEdge>> shortestPathTrees;
 
     /**
      * Sets the default link-weight to be used when computing paths. If null is
@@ -119,6 +151,19 @@ public class DefaultTopology extends AbstractModel implements Topology {
         defaultGraphPathSearch = graphPathSearch;
     }
 
+    /**
+     * Sets the maximum number of shortest path trees cached by each topology
+     * created from now on. If 0 is specified, paths are searched on-demand
+     * for every request.
+     *
+     * @param size maximum number of cached shortest path trees
+     */
+    public static void setPathCacheSize(int size) {
+        checkArgument(size >= 0, "Path cache size must not be negative");
+        log.info("Setting new path cache size to {}", size);
+        pathCacheSize = size;
+    }
+
 
     /**
      * Creates a topology descriptor attributed to the specified provider.
@@ -129,6 +174,29 @@ public class DefaultTopology extends AbstractModel implements Topology {
      */
     public DefaultTopology(ProviderId providerId, GraphDescription description,
                            Function<ConnectPoint, Boolean> broadcastFunction) {
+        this(providerId, description, broadcastFunction, null);
+    }
+
+    /**
+     * Creates a topology descriptor attributed to the specified provider,
+     * deriving its clusters and broadcast trees from those of the previous
+     * topology wherever the differences between the two graphs allow.
+     * Clusters are only searched anew if they lost devices or links, and
+     * broadcast trees are only recomputed if a tree link was lost or a new
+     * link provides a shorter path. If new links may have merged clusters,
+     * everything is computed from scratch. Unlike for topologies computed
+     * from scratch, the clusters and broadcast sets are computed eagerly and
+     * are thus accounted for in the {@link #computeCost() compute cost}.
+     *
+     * @param providerId        identity of the provider
+     * @param description       data describing the new topology
+     * @param broadcastFunction broadcast point function
+     * @param previous          previous topology; null to compute all
+     *                          topology data from scratch
+     */
+    public DefaultTopology(ProviderId providerId, GraphDescription description,
+                           Function<ConnectPoint, Boolean> broadcastFunction,
+                           DefaultTopology previous) {
         super(providerId);
         this.broadcastFunction = broadcastFunction;
         this.time = description.timestamp();
@@ -138,14 +206,32 @@ public class DefaultTopology extends AbstractModel implements Topology {
         this.graph = new DefaultTopologyGraph(description.vertexes(),
                                               description.edges());
 
-        this.clusterResults = Suppliers.memoize(() -> searchForClusters());
+        this.hopCountWeight = new HopCountLinkWeight(graph.getVertexes().size());
+
+        GraphDelta delta = previous == null ? null : new GraphDelta(previous.graph, graph);
+        ClusterSets patchedClusters = delta == null ? null : patchClusters(previous, delta);
+        if (patchedClusters != null) {
+            this.clusterResults = Suppliers.ofInstance(patchedClusters);
+        } else {
+            this.clusterResults = Suppliers.memoize(() -> searchForClusters());
+        }
         this.clusters = Suppliers.memoize(() -> buildTopologyClusters());
 
         this.clusterIndexes = Suppliers.memoize(() -> buildIndexes());
 
-        this.hopCountWeight = new HopCountLinkWeight(graph.getVertexes().size());
+        if (patchedClusters != null) {
+            this.broadcastTrees = Suppliers.ofInstance(patchBroadcastTrees(previous, delta));
+        } else {
+            this.broadcastTrees = Suppliers.memoize(() -> buildBroadcastTrees());
+        }
         this.broadcastSets = Suppliers.memoize(() -> buildBroadcastSets());
         this.infrastructurePoints = Suppliers.memoize(() -> findInfrastructurePoints());
+        this.shortestPathTreeLimit = pathCacheSize;
+        this.shortestPathTrees = shortestPathTreeLimit == 0 ? null :
+                CacheBuilder.newBuilder().maximumSize(shortestPathTreeLimit).recordStats().build();
+        if (patchedClusters != null) {
+            broadcastSets.get();
+        }
         this.computeCost = Math.max(0, System.nanoTime() - time);
     }
 
@@ -329,7 +415,10 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     /**
      * Computes on-demand the set of shortest paths between source and
-     * destination devices.
+     * destination devices. Paths are served from the path cache if the link
+     * weight is the default one or defines equality; paths for other link
+     * weights, such as those created for a single request, are searched
+     * directly.
      *
      * @param src    source device
      * @param dst    destination device
@@ -345,6 +434,10 @@ public class DefaultTopology extends AbstractModel implements Topology {
             return ImmutableSet.of();
         }
 
+        if (isCacheable(weight)) {
+            return treePaths(shortestPathTree(srcV, weight), dstV);
+        }
+
         GraphPathSearch.Result<TopologyVertex, TopologyEdge> result =
                 graphPathSearch().search(graph, srcV, dstV, weight, ALL_PATHS);
         ImmutableSet.Builder<Path> builder = ImmutableSet.builder();
@@ -354,6 +447,101 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return builder.build();
     }
 
+    /**
+     * Computes the shortest path trees rooted at the topology devices using
+     * the given link weight, in parallel, so that subsequent path requests
+     * are served from the path cache. No more trees than the path cache can
+     * hold are computed, and none if paths for the link weight are not
+     * cached.
+     *
+     * @param weight link weight function
+     */
+    public void precomputePaths(LinkWeight weight) {
+        if (!isCacheable(weight)) {
+            return;
+        }
+        graph.getVertexes().stream()
+                .limit(shortestPathTreeLimit)
+                .collect(Collectors.toList())
+                .parallelStream()
+                .forEach(vertex -> shortestPathTree(vertex, weight));
+    }
+
+    /**
+     * Computes the shortest path trees rooted at the topology devices using
+     * the default link weight.
+     */
+    public void precomputePaths() {
+        precomputePaths(linkWeight());
+    }
+
+    /**
+     * Returns statistics of the shortest path cache of this topology.
+     *
+     * @return path cache statistics
+     */
+    public PathCacheStatistics getPathCacheStatistics() {
+        if (shortestPathTrees == null) {
+            return PathCacheStatistics.empty();
+        }
+        CacheStats stats = shortestPathTrees.stats();
+        return PathCacheStatistics.of(stats.hitCount(), stats.missCount(), shortestPathTrees.size());
+    }
+
+    // Shortest path trees are only worth caching for link weights that later
+    // requests can look up again.
+    private boolean isCacheable(LinkWeight weight) {
+        return shortestPathTrees != null &&
+                (weight == null || weight == linkWeight() || COMPARABLE_WEIGHTS.get(weight.getClass()));
+    }
+
+    // Returns the shortest path tree rooted at the given vertex, searching
+    // for it unless already cached.
+    private Result<TopologyVertex, TopologyEdge> shortestPathTree(TopologyVertex src, LinkWeight weight) {
+        try {
+            return shortestPathTrees.get(new TreeKey(src, weight),
+                                         () -> graphPathSearch().search(graph, src, null, weight, ALL_PATHS));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to compute shortest path tree", e.getCause());
+        }
+    }
+
+    // Builds all shortest paths to the destination by walking the parent
+    // edges of the shortest path tree back to its root.
+    private Set<Path> treePaths(Result<TopologyVertex, TopologyEdge> tree, TopologyVertex dst) {
+        Double cost = tree.costs().get(dst);
+        if (cost == null || dst.equals(tree.src())) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<Path> builder = ImmutableSet.builder();
+        Set<TopologyVertex> visited = new HashSet<>();
+        visited.add(dst);
+        addTreePaths(tree, dst, new ArrayDeque<>(), visited, cost, builder);
+        return builder.build();
+    }
+
+    private void addTreePaths(Result<TopologyVertex, TopologyEdge> tree, TopologyVertex vertex,
+                              Deque<Link> links, Set<TopologyVertex> visited, double cost,
+                              ImmutableSet.Builder<Path> builder) {
+        if (vertex.equals(tree.src())) {
+            builder.add(new DefaultPath(CORE_PROVIDER_ID, ImmutableList.copyOf(links), cost));
+            return;
+        }
+        Set<TopologyEdge> parents = tree.parents().get(vertex);
+        if (parents == null) {
+            return;
+        }
+        for (TopologyEdge edge : parents) {
+            // Zero-cost links may tie vertexes into loops; never revisit.
+            if (visited.add(edge.src())) {
+                links.addFirst(edge.link());
+                addTreePaths(tree, edge.src(), links, visited, cost, builder);
+                links.removeFirst();
+                visited.remove(edge.src());
+            }
+        }
+    }
+
     /**
      * /**
      * Returns the set of pre-computed shortest disjoint path pairs between source and
@@ -485,14 +673,98 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     // Searches for SCC clusters in the network topology graph using Tarjan
     // algorithm.
-    private SccResult<TopologyVertex, TopologyEdge> searchForClusters() {
-        return TARJAN.search(graph, new NoIndirectLinksWeight());
+    private ClusterSets searchForClusters() {
+        SccResult<TopologyVertex, TopologyEdge> result = TARJAN.search(graph, NO_INDIRECT_LINKS);
+        return new ClusterSets(result.clusterVertexes(), result.clusterEdges());
+    }
+
+    // Derives the clusters from those of the previous topology, searching
+    // anew only those clusters which lost devices or links; returns null if
+    // added links may have merged clusters, requiring a full search.
+    private ClusterSets patchClusters(DefaultTopology previous, GraphDelta delta) {
+        Map<DeviceId, TopologyCluster> previousClusters = previous.clustersByDevice();
+        for (TopologyEdge edge : delta.addedEdges) {
+            if (NO_INDIRECT_LINKS.weight(edge) >= 0 &&
+                    !sameCluster(previousClusters, edge)) {
+                return null;
+            }
+        }
+
+        // Clusters may only split where devices or traversable links went
+        // away; clusters whose links changed otherwise keep their devices.
+        Set<Integer> split = new HashSet<>();
+        Set<Integer> changed = new HashSet<>();
+        for (TopologyVertex vertex : delta.removedVertexes) {
+            split.add(previousClusters.get(vertex.deviceId()).id().index());
+        }
+        for (TopologyEdge edge : delta.removedEdges) {
+            if (sameCluster(previousClusters, edge)) {
+                int index = previousClusters.get(edge.src().deviceId()).id().index();
+                changed.add(index);
+                if (NO_INDIRECT_LINKS.weight(edge) >= 0) {
+                    split.add(index);
+                }
+            }
+        }
+        for (TopologyEdge edge : delta.addedEdges) {
+            if (sameCluster(previousClusters, edge)) {
+                changed.add(previousClusters.get(edge.src().deviceId()).id().index());
+            }
+        }
+
+        ClusterSets previousSets = previous.clusterResults.get();
+        List<Set<TopologyVertex>> vertexes = new ArrayList<>();
+        List<Set<TopologyEdge>> edges = new ArrayList<>();
+        for (int i = 0; i < previousSets.clusterVertexes().size(); i++) {
+            Set<TopologyVertex> vertexSet = previousSets.clusterVertexes().get(i);
+            if (split.contains(i)) {
+                Set<TopologyVertex> remaining = new HashSet<>(vertexSet);
+                remaining.removeAll(delta.removedVertexes);
+                if (!remaining.isEmpty()) {
+                    TopologyGraph subgraph = new DefaultTopologyGraph(remaining, clusterEdges(remaining));
+                    SccResult<TopologyVertex, TopologyEdge> result = TARJAN.search(subgraph, NO_INDIRECT_LINKS);
+                    vertexes.addAll(result.clusterVertexes());
+                    edges.addAll(result.clusterEdges());
+                }
+            } else if (changed.contains(i)) {
+                vertexes.add(vertexSet);
+                edges.add(clusterEdges(vertexSet));
+            } else {
+                vertexes.add(vertexSet);
+                edges.add(previousSets.clusterEdges().get(i));
+            }
+        }
+        for (TopologyVertex vertex : delta.addedVertexes) {
+            Set<TopologyVertex> vertexSet = ImmutableSet.of(vertex);
+            vertexes.add(vertexSet);
+            edges.add(clusterEdges(vertexSet));
+        }
+        return new ClusterSets(vertexes, edges);
+    }
+
+    // Indicates whether both ends of the edge belonged to the same cluster.
+    private static boolean sameCluster(Map<DeviceId, TopologyCluster> clusters, TopologyEdge edge) {
+        TopologyCluster cluster = clusters.get(edge.src().deviceId());
+        return cluster != null && cluster == clusters.get(edge.dst().deviceId());
+    }
+
+    // Returns the graph edges which connect the specified vertexes.
+    private ImmutableSet<TopologyEdge> clusterEdges(Set<TopologyVertex> vertexSet) {
+        ImmutableSet.Builder<TopologyEdge> builder = ImmutableSet.builder();
+        for (TopologyVertex vertex : vertexSet) {
+            for (TopologyEdge edge : graph.getEdgesFrom(vertex)) {
+                if (vertexSet.contains(edge.dst())) {
+                    builder.add(edge);
+                }
+            }
+        }
+        return builder.build();
     }
 
     // Builds the topology clusters and returns the id-cluster bindings.
     private ImmutableMap<ClusterId, TopologyCluster> buildTopologyClusters() {
         ImmutableMap.Builder<ClusterId, TopologyCluster> clusterBuilder = ImmutableMap.builder();
-        SccResult<TopologyVertex, TopologyEdge> results = clusterResults.get();
+        ClusterSets results = clusterResults.get();
 
         // Extract both vertexes and edges from the results; the lists form
         // pairs along the same index.
@@ -530,37 +802,87 @@ public class DefaultTopology extends AbstractModel implements Topology {
     // Processes a map of broadcast sets for each cluster.
     private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets() {
         Builder<ClusterId, ConnectPoint> builder = ImmutableSetMultimap.builder();
-        for (TopologyCluster cluster : clusters.get().values()) {
-            addClusterBroadcastSet(cluster, builder);
+        for (Map.Entry<TopologyVertex, TopologyEdge> entry : broadcastTrees.get().parents.entrySet()) {
+            // Use the back-link source and destinations to add to the
+            // broadcast set.
+            ClusterId id = clustersByDevice().get(entry.getKey().deviceId()).id();
+            Link link = entry.getValue().link();
+            builder.put(id, link.src());
+            builder.put(id, link.dst());
         }
         return builder.build();
     }
 
-    // Finds all broadcast points for the cluster. These are those connection
-    // points which lie along the shortest paths between the cluster root and
-    // all other devices within the cluster.
-    private void addClusterBroadcastSet(TopologyCluster cluster, Builder<ClusterId, ConnectPoint> builder) {
-        // Use the graph root search results to build the broadcast set.
-        Result<TopologyVertex, TopologyEdge> result = DIJKSTRA.search(graph, cluster.root(), null, hopCountWeight, 1);
-        for (Map.Entry<TopologyVertex, Set<TopologyEdge>> entry : result.parents().entrySet()) {
-            TopologyVertex vertex = entry.getKey();
+    // Computes the broadcast trees of all clusters.
+    private BroadcastTrees buildBroadcastTrees() {
+        BroadcastTrees trees = new BroadcastTrees();
+        for (TopologyCluster cluster : clusters.get().values()) {
+            addClusterBroadcastTree(cluster, trees);
+        }
+        return trees;
+    }
 
-            // Ignore any parents that lead outside the cluster.
-            if (clustersByDevice().get(vertex.deviceId()) != cluster) {
-                continue;
+    // Derives the broadcast trees from those of the previous topology,
+    // recomputing only the trees of clusters whose devices changed, which
+    // lost a tree link or which gained a link providing a shorter path.
+    private BroadcastTrees patchBroadcastTrees(DefaultTopology previous, GraphDelta delta) {
+        BroadcastTrees previousTrees = previous.broadcastTrees.get();
+        Set<TopologyVertex> stale = new HashSet<>();
+        for (TopologyEdge edge : delta.removedEdges) {
+            if (edge.equals(previousTrees.parents.get(edge.dst()))) {
+                stale.add(edge.dst());
+            }
+        }
+        for (TopologyEdge edge : delta.addedEdges) {
+            Double srcCost = previousTrees.costs.get(edge.src());
+            Double dstCost = previousTrees.costs.get(edge.dst());
+            if (srcCost == null || dstCost == null ||
+                    srcCost + hopCountWeight.weight(edge) < dstCost) {
+                stale.add(edge.dst());
+            }
+        }
+
+        Map<DeviceId, TopologyCluster> previousClusters = previous.clustersByDevice();
+        ClusterSets previousSets = previous.clusterResults.get();
+        BroadcastTrees trees = new BroadcastTrees();
+        for (TopologyCluster cluster : clusters.get().values()) {
+            Set<TopologyVertex> vertexSet = clusterResults.get().clusterVertexes().get(cluster.id().index());
+            TopologyCluster previousCluster = previousClusters.get(cluster.root().deviceId());
+            boolean reusable = previousCluster != null &&
+                    previousSets.clusterVertexes().get(previousCluster.id().index()).equals(vertexSet) &&
+                    vertexSet.stream().noneMatch(stale::contains);
+            if (reusable) {
+                for (TopologyVertex vertex : vertexSet) {
+                    TopologyEdge parent = previousTrees.parents.get(vertex);
+                    if (parent != null) {
+                        trees.parents.put(vertex, parent);
+                    }
+                    trees.costs.put(vertex, previousTrees.costs.get(vertex));
+                }
+            } else {
+                addClusterBroadcastTree(cluster, trees);
             }
+        }
+        return trees;
+    }
+
+    // Finds the broadcast tree of the cluster. It is formed by the links
+    // which lie along the shortest paths between the cluster root and all
+    // other devices within the cluster.
+    private void addClusterBroadcastTree(TopologyCluster cluster, BroadcastTrees trees) {
+        // Use the graph root search results to build the broadcast tree.
+        Result<TopologyVertex, TopologyEdge> result = DIJKSTRA.search(graph, cluster.root(), null, hopCountWeight, 1);
+        for (TopologyVertex vertex : clusterResults.get().clusterVertexes().get(cluster.id().index())) {
+            trees.costs.put(vertex, result.costs().get(vertex));
 
             // Ignore any back-link sets that are empty.
-            Set<TopologyEdge> parents = entry.getValue();
-            if (parents.isEmpty()) {
+            Set<TopologyEdge> parents = result.parents().get(vertex);
+            if (parents == null || parents.isEmpty()) {
                 continue;
             }
 
-            // Use the first back-link source and destinations to add to the
-            // broadcast set.
-            Link link = parents.iterator().next().link();
-            builder.put(cluster.id(), link.src());
-            builder.put(cluster.id(), link.dst());
+            // Use the first back-link as the tree link to the vertex.
+            trees.parents.put(vertex, parents.iterator().next());
         }
     }
 
@@ -614,6 +936,80 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return defaultLinkWeight != null ? defaultLinkWeight : hopCountWeight;
     }
 
+    // Shortest path tree cache key; link weights not defining equality are
+    // told apart by identity.
+    private static final class TreeKey {
+        private final TopologyVertex src;
+        private final LinkWeight weight;
+
+        private TreeKey(TopologyVertex src, LinkWeight weight) {
+            this.src = src;
+            this.weight = weight;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * src.hashCode() + Objects.hashCode(weight);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof TreeKey) {
+                final TreeKey other = (TreeKey) obj;
+                return Objects.equals(this.src, other.src) && Objects.equals(this.weight, other.weight);
+            }
+            return false;
+        }
+    }
+
+    // Vertexes and edges of each cluster, ordered by cluster index.
+    private static final class ClusterSets {
+        private final List<Set<TopologyVertex>> clusterVertexes;
+        private final List<Set<TopologyEdge>> clusterEdges;
+
+        private ClusterSets(List<Set<TopologyVertex>> clusterVertexes,
+                            List<Set<TopologyEdge>> clusterEdges) {
+            this.clusterVertexes = clusterVertexes;
+            this.clusterEdges = clusterEdges;
+        }
+
+        private int clusterCount() {
+            return clusterVertexes.size();
+        }
+
+        private List<Set<TopologyVertex>> clusterVertexes() {
+            return clusterVertexes;
+        }
+
+        private List<Set<TopologyEdge>> clusterEdges() {
+            return clusterEdges;
+        }
+    }
+
+    // Tree links and hop-count costs of every vertex from its cluster root.
+    private static final class BroadcastTrees {
+        private final Map<TopologyVertex, TopologyEdge> parents = new HashMap<>();
+        private final Map<TopologyVertex, Double> costs = new HashMap<>();
+    }
+
+    // Vertexes and edges added and removed between two topology graphs.
+    private static final class GraphDelta {
+        private final Set<TopologyVertex> addedVertexes;
+        private final Set<TopologyVertex> removedVertexes;
+        private final Set<TopologyEdge> addedEdges;
+        private final Set<TopologyEdge> removedEdges;
+
+        private GraphDelta(TopologyGraph previous, TopologyGraph current) {
+            addedVertexes = Sets.difference(current.getVertexes(), previous.getVertexes()).immutableCopy();
+            removedVertexes = Sets.difference(previous.getVertexes(), current.getVertexes()).immutableCopy();
+            addedEdges = Sets.difference(current.getEdges(), previous.getEdges()).immutableCopy();
+            removedEdges = Sets.difference(previous.getEdges(), current.getEdges()).immutableCopy();
+        }
+    }
+
     // Link weight for preventing traversal over indirect links.
     private static class NoIndirectLinksWeight implements LinkWeight {
         @Override
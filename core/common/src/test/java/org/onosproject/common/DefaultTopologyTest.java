@@ -32,7 +32,9 @@ import org.onosproject.net.topology.DefaultGraphDescription;
 import org.onosproject.net.topology.DefaultTopologyVertex;
 import org.onosproject.net.topology.GraphDescription;
 import org.onosproject.net.topology.LinkWeight;
+import org.onosproject.net.topology.PathCacheStatistics;
 import org.onosproject.net.topology.TopologyCluster;
+import org.onosproject.net.topology.TopologyEdge;
 import org.onosproject.net.topology.TopologyVertex;
 
 import java.util.Set;
@@ -109,6 +111,110 @@ public class DefaultTopologyTest {
         assertEquals("incorrect path count", 1, paths.size());
     }
 
+    @Test
+    public void pathCache() {
+        assertEquals("incorrect path count", 2, dt.getPaths(D1, D3).size());
+        assertEquals("incorrect path count", 1, dt.getPaths(D1, D2).size());
+        assertEquals("incorrect path count", 1, dt.getPaths(D1, D3, WEIGHT).size());
+        assertEquals("incorrect path count", 1, dt.getPaths(D3, D2).size());
+
+        PathCacheStatistics stats = dt.getPathCacheStatistics();
+        assertEquals("incorrect hit count", 1, stats.hitCount());
+        assertEquals("incorrect miss count", 2, stats.missCount());
+        assertEquals("incorrect cache size", 2, stats.size());
+    }
+
+    @Test
+    public void pathCacheWithRequestWeights() {
+        // like the intent compilers, create a new weight for every request
+        for (int i = 0; i < 3; i++) {
+            assertEquals("incorrect path count", 1, dt.getPaths(D1, D3, new RequestWeight()).size());
+        }
+        dt.precomputePaths(new RequestWeight());
+        PathCacheStatistics stats = dt.getPathCacheStatistics();
+        assertEquals("incorrect miss count", 0, stats.missCount());
+        assertEquals("incorrect cache size", 0, stats.size());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("incorrect path count", 1, dt.getPaths(D1, D3, new ComparableWeight()).size());
+        }
+        stats = dt.getPathCacheStatistics();
+        assertEquals("incorrect hit count", 2, stats.hitCount());
+        assertEquals("incorrect miss count", 1, stats.missCount());
+        assertEquals("incorrect cache size", 1, stats.size());
+    }
+
+    private static class RequestWeight implements LinkWeight {
+        @Override
+        public double weight(TopologyEdge edge) {
+            return WEIGHT.weight(edge);
+        }
+    }
+
+    private static final class ComparableWeight extends RequestWeight {
+        @Override
+        public int hashCode() {
+            return ComparableWeight.class.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof ComparableWeight;
+        }
+    }
+
+    @Test
+    public void incrementalCompute() {
+        // Loss of a link which keeps the cluster intact
+        assertSameAsFull(of(link("1", 1, "2", 1), link("2", 1, "1", 1),
+                            link("3", 2, "2", 2), link("2", 2, "3", 2),
+                            link("1", 3, "4", 3), link("4", 3, "1", 3),
+                            link("4", 4, "3", 4)));
+
+        // Loss of links which splits the cluster
+        assertSameAsFull(of(link("1", 1, "2", 1), link("2", 1, "1", 1),
+                            link("3", 2, "2", 2), link("2", 2, "3", 2),
+                            link("1", 3, "4", 3), link("4", 3, "1", 3)));
+
+        // New links which merge clusters
+        assertSameAsFull(of(link("1", 1, "2", 1), link("2", 1, "1", 1),
+                            link("3", 2, "2", 2), link("2", 2, "3", 2),
+                            link("1", 3, "4", 3), link("4", 3, "1", 3),
+                            link("3", 4, "4", 4), link("4", 4, "3", 4),
+                            link("4", 5, "5", 5), link("5", 5, "4", 5)));
+
+        // New link within the cluster
+        assertSameAsFull(of(link("1", 1, "2", 1), link("2", 1, "1", 1),
+                            link("3", 2, "2", 2), link("2", 2, "3", 2),
+                            link("1", 3, "4", 3), link("4", 3, "1", 3),
+                            link("3", 4, "4", 4), link("4", 4, "3", 4),
+                            link("1", 6, "3", 6), link("3", 6, "1", 6)));
+    }
+
+    // Checks that a topology derived from the one under test has the same
+    // clusters and broadcast set sizes as one computed from scratch.
+    private void assertSameAsFull(Set<Link> links) {
+        Set<Device> devices = of(device("1"), device("2"), device("3"),
+                                 device("4"), device("5"));
+        GraphDescription description =
+                new DefaultGraphDescription(System.nanoTime(), System.currentTimeMillis(), devices, links);
+        DefaultTopology full = new DefaultTopology(PID, description);
+        DefaultTopology incremental = new DefaultTopology(PID, description, null, dt);
+
+        assertEquals("incorrect cluster count", full.clusterCount(), incremental.clusterCount());
+        for (Device device : devices) {
+            TopologyCluster fullCluster = full.getCluster(device.id());
+            TopologyCluster cluster = incremental.getCluster(device.id());
+            assertEquals("incorrect cluster devices",
+                         full.getClusterDevices(fullCluster), incremental.getClusterDevices(cluster));
+            assertEquals("incorrect cluster links",
+                         full.getClusterLinks(fullCluster), incremental.getClusterLinks(cluster));
+            assertEquals("incorrect root node", fullCluster.root(), cluster.root());
+            assertEquals("incorrect broadcast set size",
+                         full.broadcastSetSize(fullCluster.id()), incremental.broadcastSetSize(cluster.id()));
+        }
+    }
+
     @Test
     public void pointRelated() {
         assertTrue("should be infrastructure point",
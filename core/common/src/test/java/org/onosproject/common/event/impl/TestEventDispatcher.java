@@ -45,4 +45,13 @@ public class TestEventDispatcher extends DefaultEventSinkRegistry
     public long getDispatchTimeLimit() {
         return 0;
     }
+
+    @Override
+    public void setDispatchLaneCount(int count) {
+    }
+
+    @Override
+    public int getDispatchLaneCount() {
+        return 1;
+    }
 }
@@ -30,6 +30,7 @@ import org.onosproject.net.provider.ProviderId;
 import org.onosproject.net.topology.ClusterId;
 import org.onosproject.net.topology.GraphDescription;
 import org.onosproject.net.topology.LinkWeight;
+import org.onosproject.net.topology.PathCacheStatistics;
 import org.onosproject.net.topology.Topology;
 import org.onosproject.net.topology.TopologyCluster;
 import org.onosproject.net.topology.TopologyEvent;
@@ -138,6 +139,11 @@ public class SimpleTopologyStore
         return defaultTopology(topology).getDisjointPaths(src, dst, weight, riskProfile);
     }
 
+    @Override
+    public PathCacheStatistics getPathCacheStatistics(Topology topology) {
+        return defaultTopology(topology).getPathCacheStatistics();
+    }
+
     @Override
     public boolean isInfrastructure(Topology topology, ConnectPoint connectPoint) {
         return defaultTopology(topology).isInfrastructure(connectPoint);
@@ -18,7 +18,12 @@ package org.onosproject.event.impl;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.SharedExecutors;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.DefaultEventSinkRegistry;
@@ -27,6 +32,8 @@ import org.onosproject.event.EventDeliveryService;
 import org.onosproject.event.EventSink;
 import org.slf4j.Logger;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Stopwatch;
 
 import java.util.TimerTask;
@@ -35,6 +42,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
@@ -45,6 +54,13 @@ import static org.onosproject.security.AppPermission.Type.EVENT_WRITE;
 import static org.slf4j.LoggerFactory.getLogger;
 /**
  * Simple implementation of an event dispatching service.
+ * <p>
+ * Events are dispatched over one or more lanes, each drained by its own
+ * thread. All events of a given class are handled by the same lane, which
+ * preserves the order in which each sink observes its events and guarantees
+ * that a sink is never invoked concurrently, while a slow sink only stalls
+ * the events that share its lane.
+ * </p>
  */
 @Component(immediate = true)
 @Service
@@ -53,41 +69,58 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
     private final Logger log = getLogger(getClass());
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
     private boolean executionTimeLimit = false;
 
     // Default number of millis a sink can take to process an event.
     private static final long DEFAULT_EXECUTE_MS = 5_000; // ms
     private static final long WATCHDOG_MS = 250; // ms
 
-    private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    // Default number of dispatch lanes; one lane retains the strict
+    // system-wide event ordering of the single dispatch loop.
+    private static final int DEFAULT_DISPATCH_LANES = 1;
 
-    private final ExecutorService executor =
-            newSingleThreadExecutor(groupedThreads("onos/event", "dispatch-%d", log));
+    private static final String METRICS_COMPONENT = "EventDispatcher";
 
     @SuppressWarnings("unchecked")
     private static final Event KILL_PILL = new AbstractEvent(null, 0) {
     };
 
-    private DispatchLoop dispatchLoop;
+    private volatile DispatchLane[] lanes = new DispatchLane[0];
+    // Held for reading while an event is queued and for writing while the
+    // lanes are swapped, so that no event is queued behind a kill-pill
+    private final ReadWriteLock lanesLock = new ReentrantReadWriteLock();
+    private int laneCount = DEFAULT_DISPATCH_LANES;
+    private volatile boolean active = false;
     private long maxProcessMillis = DEFAULT_EXECUTE_MS;
 
     // Means to detect long-running sinks
     private TimerTask watchdog;
-    private EventSink lastSink;
-    private final Stopwatch stopwatch = Stopwatch.createUnstarted();
-    private Future<?> dispatchFuture;
 
     @Override
     public void post(Event event) {
-        if (!events.add(event)) {
-            log.error("Unable to post event {}", event);
+        lanesLock.readLock().lock();
+        try {
+            DispatchLane[] current = lanes;
+            if (current.length == 0 || !current[laneIndex(event, current.length)].events.add(event)) {
+                log.error("Unable to post event {}", event);
+            }
+        } finally {
+            lanesLock.readLock().unlock();
         }
     }
 
+    // Selects the lane responsible for the sink of the given event.
+    private static int laneIndex(Event event, int laneCount) {
+        return laneCount == 1 ? 0 : Math.floorMod(event.getClass().hashCode(), laneCount);
+    }
+
     @Activate
-    public void activate() {
-        dispatchLoop = new DispatchLoop();
-        dispatchFuture = executor.submit(dispatchLoop);
+    public synchronized void activate() {
+        swapLanes(createLanes(laneCount, new DispatchLane[0]));
+        active = true;
 
         if (maxProcessMillis != 0) {
             startWatchdog();
@@ -97,13 +130,40 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
     }
 
     @Deactivate
-    public void deactivate() {
-        dispatchLoop.stop();
+    public synchronized void deactivate() {
+        active = false;
         stopWatchdog();
-        post(KILL_PILL);
+        swapLanes(new DispatchLane[0]);
         log.info("Stopped");
     }
 
+    // Creates and starts the given number of lanes; the new lanes will not
+    // start dispatching until the retired ones have been drained.
+    private DispatchLane[] createLanes(int count, DispatchLane[] retired) {
+        DispatchLane[] created = new DispatchLane[count];
+        for (int i = 0; i < count; i++) {
+            created[i] = new DispatchLane(i, retired);
+            created[i].start();
+        }
+        return created;
+    }
+
+    // Replaces the current lanes and tells the retired ones to drain; as no
+    // event can be posted meanwhile, the kill-pill is the last event of each
+    // retired lane and every later event goes to the new lanes.
+    private void swapLanes(DispatchLane[] created) {
+        lanesLock.writeLock().lock();
+        try {
+            DispatchLane[] retired = lanes;
+            lanes = created;
+            for (DispatchLane lane : retired) {
+                lane.shutdown();
+            }
+        } finally {
+            lanesLock.writeLock().unlock();
+        }
+    }
+
     private void startWatchdog() {
         log.info("Starting watchdog task");
         watchdog = new Watchdog();
@@ -138,55 +198,122 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         return maxProcessMillis;
     }
 
-    // Auxiliary event dispatching loop that feeds off the events queue.
-    private class DispatchLoop implements Runnable {
-        private volatile boolean stopped;
+    @Override
+    public synchronized void setDispatchLaneCount(int count) {
+        checkPermission(EVENT_WRITE);
+        checkArgument(count > 0, "Lane count must be greater than 0");
+        if (count == laneCount) {
+            return;
+        }
+        laneCount = count;
 
-        @Override
-        public void run() {
-            stopped = false;
-            log.info("Dispatch loop initiated");
-            while (!stopped) {
+        if (active) {
+            // Retire the current lanes, letting them drain the events they
+            // already hold before the new lanes take over.
+            swapLanes(createLanes(count, lanes));
+            log.info("Event dispatch lane count set to {}", count);
+        }
+    }
+
+    @Override
+    public synchronized int getDispatchLaneCount() {
+        checkPermission(EVENT_READ);
+        return laneCount;
+    }
+
+    // Single lane of event dispatching, fed by its own events queue.
+    private class DispatchLane {
+        private final int index;
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+        private final ExecutorService executor;
+        private final Stopwatch stopwatch = Stopwatch.createUnstarted();
+
+        private DispatchLane[] retired;
+        private DispatchLoop dispatchLoop;
+        private Future<?> dispatchFuture;
+        private EventSink lastSink;
+
+        private MetricsFeature laneMetrics;
+        private Timer dispatchTimer;
+
+        DispatchLane(int index, DispatchLane[] retired) {
+            this.index = index;
+            this.retired = retired;
+            this.executor = newSingleThreadExecutor(
+                    groupedThreads("onos/event", "dispatch-" + index + "-%d", log));
+        }
+
+        synchronized void start() {
+            if (metricsService != null) {
+                MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+                laneMetrics = component.registerFeature("lane-" + index);
+                dispatchTimer = metricsService.createTimer(component, laneMetrics, "Dispatch");
+                metricsService.registerMetric(component, laneMetrics, "QueueDepth",
+                                              (Gauge<Integer>) events::size);
+            }
+            dispatchLoop = new DispatchLoop(this);
+            dispatchFuture = executor.submit(dispatchLoop);
+        }
+
+        // Cancels the current dispatch loop and submits a new one.
+        synchronized void restart() {
+            dispatchLoop.stop();
+            dispatchLoop = new DispatchLoop(this);
+            dispatchFuture.cancel(true);
+            dispatchFuture = executor.submit(dispatchLoop);
+        }
+
+        void shutdown() {
+            removeMetrics();
+            events.add(KILL_PILL);
+            executor.shutdown();
+        }
+
+        // Waits for the retired lanes to dispatch their remaining events.
+        void awaitRetired() {
+            DispatchLane[] pending = retired;
+            retired = null;
+            if (pending == null) {
+                return;
+            }
+            long waitMillis = maxProcessMillis != 0 ? maxProcessMillis : DEFAULT_EXECUTE_MS;
+            for (DispatchLane lane : pending) {
                 try {
-                    // Fetch the next event and if it is the kill-pill, bail
-                    Event event = events.take();
-                    if (event == KILL_PILL) {
-                        break;
+                    if (!lane.executor.awaitTermination(waitMillis, TimeUnit.MILLISECONDS)) {
+                        log.warn("Retired dispatch lane {} did not drain in time", lane.index);
+                        lane.executor.shutdownNow();
                     }
-                    process(event);
                 } catch (InterruptedException e) {
-                    log.warn("Dispatch loop interrupted");
-                } catch (Exception | Error e) {
-                    log.warn("Error encountered while dispatching event:", e);
+                    Thread.currentThread().interrupt();
+                    return;
                 }
             }
-            log.info("Dispatch loop terminated");
         }
 
         // Locate the sink for the event class and use it to process the event
         @SuppressWarnings("unchecked")
-        private void process(Event event) {
+        void process(Event event) {
             EventSink sink = getSink(event.getClass());
             if (sink != null) {
                 lastSink = sink;
+                Timer.Context context = dispatchTimer != null ? dispatchTimer.time() : null;
                 stopwatch.start();
-                sink.process(event);
-                stopwatch.reset();
+                try {
+                    sink.process(event);
+                } finally {
+                    stopwatch.reset();
+                    if (context != null) {
+                        context.stop();
+                    }
+                }
             } else {
                 log.warn("No sink registered for event class {}",
                          event.getClass().getName());
             }
         }
 
-        void stop() {
-            stopped = true;
-        }
-    }
-
-    // Monitors event sinks to make sure none take too long to execute.
-    private class Watchdog extends TimerTask {
-        @Override
-        public void run() {
+        // Checks whether the sink currently being run has exceeded its time limit.
+        void checkTimeLimit() {
             long elapsedTimeMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
             if (elapsedTimeMillis > maxProcessMillis) {
                 stopwatch.reset();
@@ -197,10 +324,61 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                 lastSink.onProcessLimit();
 
                 // Cancel the old dispatch loop and submit a new one.
-                dispatchLoop.stop();
-                dispatchLoop = new DispatchLoop();
-                dispatchFuture.cancel(true);
-                dispatchFuture = executor.submit(dispatchLoop);
+                restart();
+            }
+        }
+
+        private void removeMetrics() {
+            if (metricsService != null && laneMetrics != null) {
+                MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+                metricsService.removeMetric(component, laneMetrics, "Dispatch");
+                metricsService.removeMetric(component, laneMetrics, "QueueDepth");
+            }
+        }
+    }
+
+    // Auxiliary event dispatching loop that feeds off a lane's events queue.
+    private class DispatchLoop implements Runnable {
+        private final DispatchLane lane;
+        private volatile boolean stopped;
+
+        DispatchLoop(DispatchLane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public void run() {
+            stopped = false;
+            log.info("Dispatch loop initiated for lane {}", lane.index);
+            lane.awaitRetired();
+            while (!stopped) {
+                try {
+                    // Fetch the next event and if it is the kill-pill, bail
+                    Event event = lane.events.take();
+                    if (event == KILL_PILL) {
+                        break;
+                    }
+                    lane.process(event);
+                } catch (InterruptedException e) {
+                    log.warn("Dispatch loop interrupted");
+                } catch (Exception | Error e) {
+                    log.warn("Error encountered while dispatching event:", e);
+                }
+            }
+            log.info("Dispatch loop terminated for lane {}", lane.index);
+        }
+
+        void stop() {
+            stopped = true;
+        }
+    }
+
+    // Monitors event sinks to make sure none take too long to execute.
+    private class Watchdog extends TimerTask {
+        @Override
+        public void run() {
+            for (DispatchLane lane : lanes) {
+                lane.checkTimeLimit();
             }
         }
     }
@@ -65,6 +65,7 @@ import org.onosproject.net.provider.AbstractProviderService;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
 import java.util.List;
@@ -444,36 +445,14 @@ public class FlowRuleManager
 
         private void pushFlowMetricsInternal(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
                                              boolean useMissingFlow) {
-            Map<FlowEntry, FlowEntry> storedRules = Maps.newHashMap();
-            store.getFlowEntries(deviceId).forEach(f -> storedRules.put(f, f));
-
-            for (FlowEntry rule : flowEntries) {
-                try {
-                    FlowEntry storedRule = storedRules.remove(rule);
-                    if (storedRule != null) {
-                        if (storedRule.exactMatch(rule)) {
-                            // we both have the rule, let's update some info then.
-                            flowAdded(rule);
-                        } else {
-                            // the two rules are not an exact match - remove the
-                            // switch's rule and install our rule
-                            extraneousFlow(rule);
-                            flowMissing(storedRule);
-                        }
-                    } else {
-                        // the device has a rule the store does not have
-                        if (!allowExtraneousRules) {
-                            extraneousFlow(rule);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.debug("Can't process added or extra rule {}", e.getMessage());
-                }
-            }
+            // the store matches the reported rules against its own in place
+            // and only hands back the stored rules the switch did not report
+            Collection<FlowEntry> missingRules =
+                    store.reconcileFlowEntries(deviceId, flowEntries, this::reconcileFlow);
 
             // DO NOT reinstall
             if (useMissingFlow) {
-                for (FlowEntry rule : storedRules.keySet()) {
+                for (FlowEntry rule : missingRules) {
                     try {
                         // there are rules in the store that aren't on the switch
                         log.debug("Adding rule in store, but not on switch {}", rule);
@@ -485,6 +464,29 @@ public class FlowRuleManager
             }
         }
 
+        private void reconcileFlow(FlowEntry rule, FlowEntry storedRule) {
+            try {
+                if (storedRule != null) {
+                    if (storedRule.exactMatch(rule)) {
+                        // we both have the rule, let's update some info then.
+                        flowAdded(rule);
+                    } else {
+                        // the two rules are not an exact match - remove the
+                        // switch's rule and install our rule
+                        extraneousFlow(rule);
+                        flowMissing(storedRule);
+                    }
+                } else {
+                    // the device has a rule the store does not have
+                    if (!allowExtraneousRules) {
+                        extraneousFlow(rule);
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("Can't process added or extra rule {}", e.getMessage());
+            }
+        }
+
         @Override
         public void batchOperationCompleted(long batchId, CompletedBatchOperation operation) {
             store.batchOperationComplete(FlowRuleBatchEvent.completed(
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.codahale.metrics.Counter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+import org.onosproject.net.Link;
+import org.onosproject.net.NetworkResource;
+import org.onosproject.net.Path;
+import org.onosproject.net.device.DeviceService;
+import org.onosproject.net.host.HostService;
+import org.onosproject.net.intent.ConnectivityIntent;
+import org.onosproject.net.intent.Constraint;
+import org.onosproject.net.intent.HostToHostIntent;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.intent.Key;
+import org.onosproject.net.intent.PathIntent;
+import org.onosproject.net.intent.PointToPointIntent;
+import org.onosproject.net.link.LinkService;
+import org.onosproject.net.resource.ResourceQueryService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cache of the installable intents most recently compiled for point to point
+ * and host to host intents.
+ * <p>
+ * Each entry records the network elements its installables depend on: the
+ * links they traverse, the devices those links and the intent end-points are
+ * on and the locations of the end-point hosts. An entry is reused only while
+ * all the links are active, all the devices are available, no end-point
+ * host has moved and the paths, as recorded from the path intents produced
+ * while compiling, still satisfy the intent constraints, in which
+ * case recompiling the intent would not find the current path broken, and
+ * both path computation and flow rule generation are skipped. As links added
+ * or updated may provide better paths, all entries are dropped when that
+ * happens.
+ * </p>
+ */
+final class CompiledIntentCache {
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // Incremented whenever all entries are dropped, so that compilations
+    // started before are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter skipped = new Counter();
+    private final Counter compiled = new Counter();
+
+    private final LinkService linkService;
+    private final DeviceService deviceService;
+    private final HostService hostService;
+    private final ResourceQueryService resourceService;
+
+    /**
+     * Compiler of intents, reporting every intent produced along the way.
+     */
+    @FunctionalInterface
+    interface Compiler {
+        /**
+         * Compiles the given intent recursively.
+         *
+         * @param intent               intent to compile
+         * @param previousInstallables previous intent installables
+         * @param compiledIntents      consumer of the compiled intents
+         * @return installable intents
+         */
+        List<Intent> compile(Intent intent, List<Intent> previousInstallables,
+                             Consumer<Intent> compiledIntents);
+    }
+
+    /**
+     * Creates a cache validating its entries against the given services.
+     *
+     * @param linkService     link service
+     * @param deviceService   device service
+     * @param hostService     host service
+     * @param resourceService resource service used to validate constraints
+     */
+    CompiledIntentCache(LinkService linkService, DeviceService deviceService,
+                        HostService hostService, ResourceQueryService resourceService) {
+        this.linkService = linkService;
+        this.deviceService = deviceService;
+        this.hostService = hostService;
+        this.resourceService = resourceService;
+    }
+
+    /**
+     * Returns the installables of the given intent, reusing those compiled
+     * before unless the network elements they depend on have changed.
+     *
+     * @param intent               intent to compile
+     * @param previousInstallables previous intent installables
+     * @param compiler             compiler used on cache misses
+     * @return installable intents
+     */
+    List<Intent> compile(Intent intent, List<Intent> previousInstallables,
+                         Compiler compiler) {
+        if (!(intent instanceof PointToPointIntent || intent instanceof HostToHostIntent)) {
+            return compiler.compile(intent, previousInstallables, compiled -> { });
+        }
+
+        Entry entry = entries.get(intent.key());
+        if (entry != null && entry.intentId.equals(intent.id()) && isValid(entry)
+                && checkPaths(entry, ((ConnectivityIntent) intent).constraints())) {
+            skipped.inc();
+            return entry.installables;
+        }
+
+        long compileGeneration = generation.get();
+        List<Intent> compiledIntents = new ArrayList<>();
+        List<Intent> installables = compiler.compile(intent, previousInstallables, compiledIntents::add);
+        compiled.inc();
+        if (generation.get() == compileGeneration) {
+            entries.put(intent.key(), new Entry(intent, installables, compiledIntents));
+        }
+        return installables;
+    }
+
+    /**
+     * Drops the entry of the specified intent, if any.
+     *
+     * @param key intent key
+     */
+    void invalidate(Key key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Drops all entries.
+     */
+    void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of compilations skipped by reusing cached results.
+     *
+     * @return skipped compilation counter
+     */
+    Counter skippedCompilations() {
+        return skipped;
+    }
+
+    /**
+     * Returns the number of compilations carried out on cache misses.
+     *
+     * @return compilation counter
+     */
+    Counter compilations() {
+        return compiled;
+    }
+
+    private boolean isValid(Entry entry) {
+        for (Link link : entry.links) {
+            Link current = linkService.getLink(link.src(), link.dst());
+            if (current == null || current.state() != Link.State.ACTIVE) {
+                return false;
+            }
+        }
+        for (DeviceId deviceId : entry.devices) {
+            if (!deviceService.isAvailable(deviceId)) {
+                return false;
+            }
+        }
+        for (Map.Entry<HostId, HostLocation> location : entry.hostLocations.entrySet()) {
+            Host host = hostService.getHost(location.getKey());
+            if (host == null || !Objects.equals(host.location(), location.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Validates the paths against the constraints like the compilers do for
+    // the paths they find, as the resources they need may have been taken.
+    private boolean checkPaths(Entry entry, List<Constraint> constraints) {
+        for (Path path : entry.paths) {
+            for (Constraint constraint : constraints) {
+                if (!constraint.validate(path, resourceService::isAvailable)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Installables of an intent along with the network elements they depend on.
+    private final class Entry {
+        private final IntentId intentId;
+        private final List<Intent> installables;
+        private final List<Path> paths;
+        private final Set<Link> links;
+        private final Set<DeviceId> devices;
+        private final Map<HostId, HostLocation> hostLocations;
+
+        private Entry(Intent intent, List<Intent> installables, List<Intent> compiledIntents) {
+            this.intentId = intent.id();
+            this.installables = ImmutableList.copyOf(installables);
+
+            // Installables such as flow rule intents no longer carry their
+            // paths, so the paths are taken from the intermediate path intents
+            ImmutableList.Builder<Path> paths = ImmutableList.builder();
+            ImmutableSet.Builder<Link> links = ImmutableSet.builder();
+            ImmutableSet.Builder<DeviceId> devices = ImmutableSet.builder();
+            ImmutableMap.Builder<HostId, HostLocation> hostLocations = ImmutableMap.builder();
+            for (Intent compiled : compiledIntents) {
+                if (compiled instanceof PathIntent) {
+                    Path path = ((PathIntent) compiled).path();
+                    paths.add(path);
+                    path.links().forEach(link -> addLink(link, links, devices));
+                }
+            }
+            for (Intent installable : installables) {
+                for (NetworkResource resource : installable.resources()) {
+                    if (resource instanceof Link) {
+                        addLink((Link) resource, links, devices);
+                    }
+                }
+            }
+            if (intent instanceof PointToPointIntent) {
+                PointToPointIntent p2p = (PointToPointIntent) intent;
+                devices.add(p2p.ingressPoint().deviceId(), p2p.egressPoint().deviceId());
+            } else {
+                HostToHostIntent h2h = (HostToHostIntent) intent;
+                for (HostId hostId : ImmutableSet.of(h2h.one(), h2h.two())) {
+                    Host host = hostService.getHost(hostId);
+                    if (host != null) {
+                        hostLocations.put(hostId, host.location());
+                        devices.add(host.location().deviceId());
+                    }
+                }
+            }
+            this.paths = paths.build();
+            this.links = links.build();
+            this.devices = devices.build();
+            this.hostLocations = hostLocations.build();
+        }
+
+        private void addLink(Link link, ImmutableSet.Builder<Link> links,
+                             ImmutableSet.Builder<DeviceId> devices) {
+            // Edge links are covered by the locations of the hosts
+            if (link.type() != Link.Type.EDGE) {
+                links.add(link);
+                devices.add(link.src().deviceId(), link.dst().deviceId());
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 // TODO: consider a better name
 class CompilerRegistry {
@@ -72,6 +73,20 @@ class CompilerRegistry {
      * @return result of compilation
      */
     List<Intent> compile(Intent intent, List<Intent> previousInstallables) {
+        return compile(intent, previousInstallables, compiled -> { });
+    }
+
+    /**
+     * Compiles an intent recursively, handing every intent produced along the
+     * way, intermediate or installable, to the given consumer.
+     *
+     * @param intent intent
+     * @param previousInstallables previous intent installables
+     * @param compiledIntents consumer of the compiled intents
+     * @return result of compilation
+     */
+    List<Intent> compile(Intent intent, List<Intent> previousInstallables,
+                         Consumer<Intent> compiledIntents) {
         if (intent.isInstallable()) {
             return ImmutableList.of(intent);
         }
@@ -80,7 +95,8 @@ class CompilerRegistry {
         // FIXME: get previous resources
         List<Intent> installable = new ArrayList<>();
         for (Intent compiled : getCompiler(intent).compile(intent, previousInstallables)) {
-            installable.addAll(compile(compiled, previousInstallables));
+            compiledIntents.accept(compiled);
+            installable.addAll(compile(compiled, previousInstallables, compiledIntents));
         }
         return installable;
     }
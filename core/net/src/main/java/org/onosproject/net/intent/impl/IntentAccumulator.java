@@ -15,20 +15,29 @@
  */
 package org.onosproject.net.intent.impl;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.onlab.util.AbstractAccumulator;
 import org.onosproject.net.intent.IntentBatchDelegate;
 import org.onosproject.net.intent.IntentData;
 import org.onosproject.net.intent.Key;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
- * An accumulator for building batches of intent operations. Only one batch should
- * be in process per instance at a time.
+ * An accumulator for building batches of intent operations. Several batches
+ * may be in process at a time, but no two of them operate on the same intent
+ * key; operations on keys which are still being processed are held back until
+ * the batch processing them completes, so that operations on each key are
+ * processed in order.
  */
 public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
@@ -42,41 +51,101 @@ public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
     private final IntentBatchDelegate delegate;
 
-    private volatile boolean ready;
+    // Latest operations not yet handed to the delegate, in arrival order
+    private final Map<Key, IntentData> pending = Maps.newLinkedHashMap();
+    // Keys of the operations in batches currently being processed
+    private final Set<Key> inFlightKeys = Sets.newHashSet();
+    private int inFlightBatches;
+    private volatile int maxInFlightBatches;
 
     /**
-     * Creates an intent operation accumulator.
+     * Creates an intent operation accumulator which processes one batch at
+     * a time.
      *
      * @param delegate the intent batch delegate
      */
     protected IntentAccumulator(IntentBatchDelegate delegate) {
+        this(delegate, 1);
+    }
+
+    /**
+     * Creates an intent operation accumulator.
+     *
+     * @param delegate           the intent batch delegate
+     * @param maxInFlightBatches maximum number of batches processed at a time
+     */
+    protected IntentAccumulator(IntentBatchDelegate delegate, int maxInFlightBatches) {
         super(TIMER, DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
         this.delegate = delegate;
-        // Assume that the delegate is ready for work at the start
-        ready = true; //TODO validate the assumption that delegate is ready
+        setMaxInFlightBatches(maxInFlightBatches);
+    }
+
+    /**
+     * Sets the maximum number of batches processed at a time.
+     *
+     * @param maxInFlightBatches maximum number of batches
+     */
+    public void setMaxInFlightBatches(int maxInFlightBatches) {
+        checkArgument(maxInFlightBatches > 0, "Maximum number of batches must be positive");
+        this.maxInFlightBatches = maxInFlightBatches;
+        dispatch();
     }
 
     @Override
     public void processItems(List<IntentData> items) {
-        ready = false;
-        delegate.execute(reduce(items));
+        synchronized (pending) {
+            // Later operations on a key supersede the earlier ones
+            for (IntentData op : items) {
+                pending.remove(op.key());
+                pending.put(op.key(), op);
+            }
+        }
+        dispatch();
     }
 
-    private Collection<IntentData> reduce(List<IntentData> ops) {
-        Map<Key, IntentData> map = Maps.newHashMap();
-        for (IntentData op : ops) {
-            map.put(op.key(), op);
+    // Hands the pending operations on keys not being processed to the
+    // delegate, in as many batches as allowed.
+    private void dispatch() {
+        List<Collection<IntentData>> batches = Lists.newArrayList();
+        synchronized (pending) {
+            while (inFlightBatches < maxInFlightBatches) {
+                List<IntentData> batch = Lists.newArrayList();
+                Iterator<IntentData> it = pending.values().iterator();
+                while (it.hasNext() && batch.size() < maxItems()) {
+                    IntentData op = it.next();
+                    if (!inFlightKeys.contains(op.key())) {
+                        it.remove();
+                        batch.add(op);
+                    }
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                batch.forEach(op -> inFlightKeys.add(op.key()));
+                inFlightBatches++;
+                batches.add(batch);
+            }
         }
-        //TODO check the version... or maybe store will handle this.
-        return map.values();
+        batches.forEach(delegate::execute);
     }
 
     @Override
     public boolean isReady() {
-        return ready;
+        synchronized (pending) {
+            return inFlightBatches < maxInFlightBatches;
+        }
     }
 
-    public void ready() {
-        ready = true;
+    /**
+     * Notifies the accumulator that the given batch has been processed.
+     *
+     * @param batch batch of operations previously handed to the delegate
+     */
+    public void ready(Collection<IntentData> batch) {
+        synchronized (pending) {
+            batch.forEach(op -> inFlightKeys.remove(op.key()));
+            inFlightBatches--;
+        }
+        dispatch();
     }
 }
@@ -57,6 +57,7 @@ class IntentInstaller {
     private ObjectiveTrackerService trackerService;
     private FlowRuleService flowRuleService;
     private FlowObjectiveService flowObjectiveService;
+    private IntentLatencyMetrics latencyMetrics;
 
     private enum Direction {
         ADD,
@@ -70,13 +71,16 @@ class IntentInstaller {
      * @param trackerService       objective tracking service
      * @param flowRuleService      flow rule service
      * @param flowObjectiveService flow objective service
+     * @param latencyMetrics       intent latency metrics
      */
     void init(IntentStore intentStore, ObjectiveTrackerService trackerService,
-              FlowRuleService flowRuleService, FlowObjectiveService flowObjectiveService) {
+              FlowRuleService flowRuleService, FlowObjectiveService flowObjectiveService,
+              IntentLatencyMetrics latencyMetrics) {
         this.store = intentStore;
         this.trackerService = trackerService;
         this.flowRuleService = flowRuleService;
         this.flowObjectiveService = flowObjectiveService;
+        this.latencyMetrics = latencyMetrics;
     }
 
 
@@ -92,13 +96,16 @@ class IntentInstaller {
      * @param toInstall   optional intent to install
      */
     void apply(Optional<IntentData> toUninstall, Optional<IntentData> toInstall) {
+        long applied = System.nanoTime();
+
         // Hook for handling success
         Consumer<OperationContext> successConsumer = (ctx) -> {
+            latencyMetrics.recordAck(System.nanoTime() - applied);
             if (toInstall.isPresent()) {
                 IntentData installData = toInstall.get();
                 log.debug("Completed installing: {}", installData.key());
                 installData.setState(INSTALLED);
-                store.write(installData);
+                write(installData);
             } else if (toUninstall.isPresent()) {
                 IntentData uninstallData = toUninstall.get();
                 log.debug("Completed withdrawing: {}", uninstallData.key());
@@ -111,12 +118,13 @@ class IntentInstaller {
                         uninstallData.setState(WITHDRAWN);
                         break;
                 }
-                store.write(uninstallData);
+                write(uninstallData);
             }
         };
 
         // Hook for handling errors
         Consumer<OperationContext> errorConsumer = (ctx) -> {
+            latencyMetrics.recordAck(System.nanoTime() - applied);
             // if toInstall was cause of error, then recompile (manage/increment counter, when exceeded -> CORRUPT)
             if (toInstall.isPresent()) {
                 IntentData installData = toInstall.get();
@@ -124,7 +132,7 @@ class IntentInstaller {
                          installData.key(), installData.intent(), ctx.error());
                 installData.setState(CORRUPT);
                 installData.incrementErrorCount();
-                store.write(installData);
+                write(installData);
             }
             // if toUninstall was cause of error, then CORRUPT (another job will clean this up)
             if (toUninstall.isPresent()) {
@@ -133,7 +141,7 @@ class IntentInstaller {
                          uninstallData.key(), uninstallData.intent(), ctx.error());
                 uninstallData.setState(CORRUPT);
                 uninstallData.incrementErrorCount();
-                store.write(uninstallData);
+                write(uninstallData);
             }
         };
 
@@ -145,6 +153,12 @@ class IntentInstaller {
         context.apply();
     }
 
+    private void write(IntentData data) {
+        long start = System.nanoTime();
+        store.write(data);
+        latencyMetrics.recordStoreWrite(System.nanoTime() - start);
+    }
+
     // ------ Utilities to support FlowRule vs. FlowObjective behavior -------
 
     // Creates the context appropriate for tracking operations of the
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.codahale.metrics.Histogram;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+
+/**
+ * Histograms of the time, in nanoseconds, intents spend in each stage of
+ * their processing. They are published through the metrics service as
+ * {@code IntentManager.Latency.<stage>}.
+ * <p>
+ * Recording a measurement neither allocates nor locks, so the histograms
+ * may stay enabled in production.
+ * </p>
+ */
+final class IntentLatencyMetrics {
+
+    static final String COMPONENT = "IntentManager";
+    static final String FEATURE = "Latency";
+
+    static final String ACCUMULATE = "accumulate";
+    static final String COMPILE = "compile";
+    static final String STORE_WRITE = "storeWrite";
+    static final String INSTALL = "install";
+    static final String ACK = "ack";
+
+    private final Histogram accumulate;
+    private final Histogram compile;
+    private final Histogram storeWrite;
+    private final Histogram install;
+    private final Histogram ack;
+
+    /**
+     * Creates the latency histograms with the given metrics service.
+     *
+     * @param metricsService metrics service
+     */
+    IntentLatencyMetrics(MetricsService metricsService) {
+        MetricsComponent component = metricsService.registerComponent(COMPONENT);
+        MetricsFeature feature = component.registerFeature(FEATURE);
+        accumulate = metricsService.createLatencyHistogram(component, feature, ACCUMULATE);
+        compile = metricsService.createLatencyHistogram(component, feature, COMPILE);
+        storeWrite = metricsService.createLatencyHistogram(component, feature, STORE_WRITE);
+        install = metricsService.createLatencyHistogram(component, feature, INSTALL);
+        ack = metricsService.createLatencyHistogram(component, feature, ACK);
+    }
+
+    /**
+     * Records the time an intent operation waited from its submission until
+     * its batch started being processed.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    void recordAccumulate(long nanos) {
+        accumulate.update(nanos);
+    }
+
+    /**
+     * Records the time taken to compile an intent.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    void recordCompile(long nanos) {
+        compile.update(nanos);
+    }
+
+    /**
+     * Records the time taken to write intent data to the store.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    void recordStoreWrite(long nanos) {
+        storeWrite.update(nanos);
+    }
+
+    /**
+     * Records the time taken to issue the flow operations of an intent.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    void recordInstall(long nanos) {
+        install.update(nanos);
+    }
+
+    /**
+     * Records the time from issuing the flow operations of an intent until
+     * they were acknowledged as succeeded or failed.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    void recordAck(long nanos) {
+        ack.update(nanos);
+    }
+
+    /**
+     * Removes the histograms from the given metrics service.
+     *
+     * @param metricsService metrics service
+     */
+    void unregister(MetricsService metricsService) {
+        MetricsComponent component = metricsService.registerComponent(COMPONENT);
+        MetricsFeature feature = component.registerFeature(FEATURE);
+        for (String name : new String[] {ACCUMULATE, COMPILE, STORE_WRITE, INSTALL, ACK}) {
+            metricsService.removeMetric(component, feature, name);
+        }
+    }
+}
@@ -23,13 +23,18 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.CoreService;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.event.AbstractListenerManager;
+import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.flow.FlowRuleService;
 import org.onosproject.net.flowobjective.FlowObjectiveService;
+import org.onosproject.net.host.HostService;
 import org.onosproject.net.intent.Intent;
 import org.onosproject.net.intent.IntentBatchDelegate;
 import org.onosproject.net.intent.IntentCompiler;
@@ -44,8 +49,12 @@ import org.onosproject.net.intent.IntentStoreDelegate;
 import org.onosproject.net.intent.Key;
 import org.onosproject.net.intent.impl.phase.FinalIntentProcessPhase;
 import org.onosproject.net.intent.impl.phase.IntentProcessPhase;
+import org.onosproject.net.link.LinkEvent;
+import org.onosproject.net.link.LinkListener;
+import org.onosproject.net.link.LinkService;
 import org.osgi.service.component.ComponentContext;
 import org.onosproject.net.resource.ResourceService;
+import org.onosproject.store.service.WallClockTimestamp;
 import org.slf4j.Logger;
 
 import java.util.Collection;
@@ -55,13 +64,16 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.Executors.newFixedThreadPool;
-import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.intent.IntentState.*;
 import static org.onosproject.net.intent.constraint.PartialFailureConstraint.intentAllowsPartialFailure;
@@ -85,6 +97,9 @@ public class IntentManager
     private static final String INTENT_NULL = "Intent cannot be null";
     private static final String INTENT_ID_NULL = "Intent key cannot be null";
 
+    private static final String METRICS_COMPONENT = "IntentManager";
+    private static final String METRICS_FEATURE_COMPILATION = "Compilation";
+
     private static final EnumSet<IntentState> RECOMPILE
             = EnumSet.of(INSTALL_REQ, FAILED, WITHDRAW_REQ);
     private static final EnumSet<IntentState> WITHDRAW
@@ -99,9 +114,16 @@ public class IntentManager
     private static final int DEFAULT_NUM_THREADS = 12;
     @Property(name = "numThreads",
             intValue = DEFAULT_NUM_THREADS,
-            label = "Number of worker threads")
+            label = "Number of worker threads and of intent batches processed at a time")
     private int numThreads = DEFAULT_NUM_THREADS;
 
+    private static final boolean DEFAULT_USE_COMPILED_INTENT_CACHE = false;
+    @Property(name = "useCompiledIntentCache",
+            boolValue = DEFAULT_USE_COMPILED_INTENT_CACHE,
+            label = "Indicates whether point to point and host to host intents whose " +
+                    "paths are intact reuse their previous compilation results")
+    private boolean useCompiledIntentCache = DEFAULT_USE_COMPILED_INTENT_CACHE;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected CoreService coreService;
 
@@ -123,8 +145,24 @@ public class IntentManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ComponentConfigService configService;
 
-    private ExecutorService batchExecutor;
-    private ExecutorService workerExecutor;
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected LinkService linkService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected DeviceService deviceService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected HostService hostService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
+    private volatile ExecutorService batchExecutor;
+    private volatile ExecutorService workerExecutor;
+
+    // modified() may swap the executors while batches are being submitted
+    private final Executor batchExecution = command -> executeOn(() -> batchExecutor, command);
+    private final Executor workerExecution = command -> executeOn(() -> workerExecutor, command);
 
     private final IntentInstaller intentInstaller = new IntentInstaller();
     private final CompilerRegistry compilerRegistry = new CompilerRegistry();
@@ -133,15 +171,19 @@ public class IntentManager
     private final IntentStoreDelegate testOnlyDelegate = new TestOnlyIntentStoreDelegate();
     private final TopologyChangeDelegate topoDelegate = new InternalTopoChangeDelegate();
     private final IntentBatchDelegate batchDelegate = new InternalBatchDelegate();
+    private final LinkListener linkListener = new InternalLinkListener();
     private IdGenerator idGenerator;
+    private CompiledIntentCache compiledIntents;
+    private IntentLatencyMetrics latencyMetrics;
 
-    private final IntentAccumulator accumulator = new IntentAccumulator(batchDelegate);
+    private final IntentAccumulator accumulator = new IntentAccumulator(batchDelegate, numThreads);
 
     @Activate
     public void activate() {
         configService.registerProperties(getClass());
 
-        intentInstaller.init(store, trackerService, flowRuleService, flowObjectiveService);
+        latencyMetrics = new IntentLatencyMetrics(metricsService);
+        intentInstaller.init(store, trackerService, flowRuleService, flowObjectiveService, latencyMetrics);
         if (skipReleaseResourcesOnWithdrawal) {
             store.setDelegate(testOnlyDelegate);
         } else {
@@ -149,16 +191,22 @@ public class IntentManager
         }
         trackerService.setDelegate(topoDelegate);
         eventDispatcher.addSink(IntentEvent.class, listenerRegistry);
-        batchExecutor = newSingleThreadExecutor(groupedThreads("onos/intent", "batch", log));
+        batchExecutor = newFixedThreadPool(numThreads, groupedThreads("onos/intent", "batch-%d", log));
         workerExecutor = newFixedThreadPool(numThreads, groupedThreads("onos/intent", "worker-%d", log));
         idGenerator = coreService.getIdGenerator("intent-ids");
         Intent.bindIdGenerator(idGenerator);
+        compiledIntents = new CompiledIntentCache(linkService, deviceService, hostService, resourceService);
+        linkService.addListener(linkListener);
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(METRICS_FEATURE_COMPILATION);
+        metricsService.registerMetric(component, feature, "skipped", compiledIntents.skippedCompilations());
+        metricsService.registerMetric(component, feature, "compiled", compiledIntents.compilations());
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
-        intentInstaller.init(null, null, null, null);
+        intentInstaller.init(null, null, null, null, latencyMetrics);
         if (skipReleaseResourcesOnWithdrawal) {
             store.unsetDelegate(testOnlyDelegate);
         } else {
@@ -170,6 +218,12 @@ public class IntentManager
         batchExecutor.shutdown();
         workerExecutor.shutdown();
         Intent.unbindIdGenerator(idGenerator);
+        linkService.removeListener(linkListener);
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(METRICS_FEATURE_COMPILATION);
+        metricsService.removeMetric(component, feature, "skipped");
+        metricsService.removeMetric(component, feature, "compiled");
+        latencyMetrics.unregister(metricsService);
         log.info("Stopped");
     }
 
@@ -204,8 +258,22 @@ public class IntentManager
             if (oldWorkerExecutor != null) {
                 oldWorkerExecutor.shutdown();
             }
+            ExecutorService oldBatchExecutor = batchExecutor;
+            batchExecutor = newFixedThreadPool(numThreads, groupedThreads("onos/intent", "batch-%d", log));
+            if (oldBatchExecutor != null) {
+                oldBatchExecutor.shutdown();
+            }
+            accumulator.setMaxInFlightBatches(numThreads);
             logConfig("Reconfigured number of worker threads");
         }
+
+        s = Tools.get(context.getProperties(), "useCompiledIntentCache");
+        boolean newUseCompiledIntentCache = isNullOrEmpty(s) ? useCompiledIntentCache : Boolean.parseBoolean(s.trim());
+        if (newUseCompiledIntentCache != useCompiledIntentCache) {
+            useCompiledIntentCache = newUseCompiledIntentCache;
+            log.info("Configured. Use of compiled intent cache is {}",
+                     useCompiledIntentCache ? "enabled" : "disabled");
+        }
     }
 
     private void logConfig(String prefix) {
@@ -309,6 +377,7 @@ public class IntentManager
         @Override
         public void notify(IntentEvent event) {
             post(event);
+            invalidateCompiledIntent(event);
             switch (event.type()) {
                 case WITHDRAWN:
                     // release resources allocated to withdrawn intent
@@ -347,6 +416,33 @@ public class IntentManager
         @Override
         public void notify(IntentEvent event) {
             post(event);
+            invalidateCompiledIntent(event);
+        }
+    }
+
+    // Drops the compilation results of intents which are no longer installed;
+    // they are compiled afresh, re-allocating their resources, if resubmitted.
+    private void invalidateCompiledIntent(IntentEvent event) {
+        switch (event.type()) {
+            case FAILED:
+            case WITHDRAWN:
+            case CORRUPT:
+            case PURGED:
+                compiledIntents.invalidate(event.subject().key());
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Drops all compilation results when links are added or updated, as
+    // they may provide better paths than those compiled.
+    private class InternalLinkListener implements LinkListener {
+        @Override
+        public void event(LinkEvent event) {
+            if (event.type() == LinkEvent.Type.LINK_ADDED || event.type() == LinkEvent.Type.LINK_UPDATED) {
+                compiledIntents.invalidateAll();
+            }
         }
     }
 
@@ -390,26 +486,20 @@ public class IntentManager
         public void execute(Collection<IntentData> operations) {
             log.debug("Execute {} operation(s).", operations.size());
             log.trace("Execute operations: {}", operations);
-
-            // batchExecutor is single-threaded, so only one batch is in flight at a time
-            CompletableFuture.runAsync(() -> {
-                // process intent until the phase reaches one of the final phases
-                List<CompletableFuture<IntentData>> futures = operations.stream()
-                        .map(x -> CompletableFuture.completedFuture(x)
-                                .thenApply(IntentManager.this::createInitialPhase)
-                                .thenApplyAsync(IntentProcessPhase::process, workerExecutor)
-                                .thenApply(FinalIntentProcessPhase::data)
-                                .exceptionally(e -> {
-                                    //FIXME
-                                    log.warn("Future failed: {}", e);
-                                    return null;
-                                })).collect(Collectors.toList());
-
-                // write multiple data to store in order
-                store.batchWrite(Tools.allOf(futures).join().stream()
-                                         .filter(Objects::nonNull)
-                                         .collect(Collectors.toList()));
-            }, batchExecutor).exceptionally(e -> {
+            recordAccumulateLatency(operations);
+
+            // the accumulator never hands out two batches with the same key at
+            // a time, so batches run concurrently while each key stays in order
+            CompletableFuture<Void> batch;
+            try {
+                batch = CompletableFuture.runAsync(() -> processBatch(operations), batchExecution);
+            } catch (RejectedExecutionException e) {
+                // only happens once the manager is deactivated; the batch
+                // has to be released from the accumulator all the same
+                batch = new CompletableFuture<>();
+                batch.completeExceptionally(e);
+            }
+            batch.exceptionally(e -> {
                 log.error("Error submitting batches:", e);
                 // FIXME incomplete Intents should be cleaned up
                 //       (transition to FAILED, etc.)
@@ -418,8 +508,60 @@ public class IntentManager
                 // TODO: maybe we should do more?
                 log.error("Walk the plank, matey...");
                 return null;
-            }).thenRun(accumulator::ready);
+            }).thenRun(() -> accumulator.ready(operations));
+
+        }
+
+        private void processBatch(Collection<IntentData> operations) {
+            // process intent until the phase reaches one of the final phases
+            List<CompletableFuture<IntentData>> futures = operations.stream()
+                    .map(x -> CompletableFuture.completedFuture(x)
+                            .thenApply(IntentManager.this::createInitialPhase)
+                            .thenApplyAsync(IntentProcessPhase::process, workerExecution)
+                            .thenApply(FinalIntentProcessPhase::data)
+                            .exceptionally(e -> {
+                                //FIXME
+                                log.warn("Future failed: {}", e);
+                                return null;
+                            })).collect(Collectors.toList());
+
+            // write multiple data to store in order
+            List<IntentData> updates = Tools.allOf(futures).join().stream()
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            long start = System.nanoTime();
+            store.batchWrite(updates);
+            latencyMetrics.recordStoreWrite(System.nanoTime() - start);
+        }
+    }
 
+    // Runs the command on the current executor, moving over to the replacement
+    // if the executor was shut down by a reconfiguration in the meantime.
+    private static void executeOn(Supplier<ExecutorService> current, Runnable command) {
+        ExecutorService executor = current.get();
+        while (true) {
+            try {
+                executor.execute(command);
+                return;
+            } catch (RejectedExecutionException e) {
+                ExecutorService replacement = current.get();
+                if (replacement == executor) {
+                    throw e;
+                }
+                executor = replacement;
+            }
+        }
+    }
+
+    // Records how long locally submitted operations waited to be processed;
+    // their versions are the wall clock times at which they were submitted.
+    private void recordAccumulateLatency(Collection<IntentData> operations) {
+        long now = System.currentTimeMillis();
+        for (IntentData op : operations) {
+            if (op.version() instanceof WallClockTimestamp) {
+                long waitMillis = now - ((WallClockTimestamp) op.version()).unixTimestamp();
+                latencyMetrics.recordAccumulate(TimeUnit.MILLISECONDS.toNanos(Math.max(waitMillis, 0)));
+            }
         }
     }
 
@@ -431,12 +573,22 @@ public class IntentManager
     private class InternalIntentProcessor implements IntentProcessor {
         @Override
         public List<Intent> compile(Intent intent, List<Intent> previousInstallables) {
-            return compilerRegistry.compile(intent, previousInstallables);
+            long start = System.nanoTime();
+            try {
+                if (useCompiledIntentCache) {
+                    return compiledIntents.compile(intent, previousInstallables, compilerRegistry::compile);
+                }
+                return compilerRegistry.compile(intent, previousInstallables);
+            } finally {
+                latencyMetrics.recordCompile(System.nanoTime() - start);
+            }
         }
 
         @Override
         public void apply(Optional<IntentData> toUninstall, Optional<IntentData> toInstall) {
+            long start = System.nanoTime();
             intentInstaller.apply(toUninstall, toInstall);
+            latencyMetrics.recordInstall(System.nanoTime() - start);
         }
     }
 
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.onosproject.net.intent.Key;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent inverted index of network resources, such as links, devices or
+ * ports, to the keys of the intents using them.
+ * <p>
+ * Updates to different resources do not contend with each other, and the
+ * entries of resources no longer used by any intent are dropped.
+ * </p>
+ *
+ * @param <R> type of resource
+ */
+final class IntentResourceIndex<R> {
+
+    private final Map<R, Set<Key>> intents = new ConcurrentHashMap<>();
+
+    /**
+     * Records that the specified intent uses the given resource.
+     *
+     * @param resource  resource
+     * @param intentKey intent key
+     */
+    void add(R resource, Key intentKey) {
+        intents.compute(resource, (r, keys) -> {
+            Set<Key> updated = keys == null ? Sets.newConcurrentHashSet() : keys;
+            updated.add(intentKey);
+            return updated;
+        });
+    }
+
+    /**
+     * Records that the specified intent no longer uses the given resource.
+     *
+     * @param resource  resource
+     * @param intentKey intent key
+     */
+    void remove(R resource, Key intentKey) {
+        intents.computeIfPresent(resource, (r, keys) -> {
+            keys.remove(intentKey);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Returns the keys of the intents using the given resource.
+     *
+     * @param resource resource
+     * @return snapshot of intent keys
+     */
+    Set<Key> intentsOf(R resource) {
+        Set<Key> keys = intents.get(resource);
+        return keys == null ? ImmutableSet.of() : ImmutableSet.copyOf(keys);
+    }
+
+    /**
+     * Returns the keys of the intents using any of the given resources.
+     *
+     * @param resources resources
+     * @return intent keys
+     */
+    Set<Key> intentsOf(Collection<? extends R> resources) {
+        Set<Key> result = new HashSet<>();
+        for (R resource : resources) {
+            Set<Key> keys = intents.get(resource);
+            if (keys != null) {
+                result.addAll(keys);
+            }
+        }
+        return result;
+    }
+}
@@ -48,6 +48,8 @@ public abstract class ConnectivityIntentCompiler<T extends ConnectivityIntent>
 
     private static final ProviderId PID = new ProviderId("core", "org.onosproject.core", true);
 
+    private static final LinkWeight UNCONSTRAINED_WEIGHT = new UnconstrainedLinkWeight();
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected IntentExtensionService intentManager;
 
@@ -59,12 +61,18 @@ public abstract class ConnectivityIntentCompiler<T extends ConnectivityIntent>
 
     /**
      * Returns an edge-weight capable of evaluating links on the basis of the
-     * specified constraints.
+     * specified constraints. Intents without constraints share one weight
+     * that defines equality, so the topology serves their paths from its
+     * shortest path tree cache and compilations from the same source reuse
+     * one search.
      *
      * @param constraints path constraints
      * @return edge-weight function
      */
     protected LinkWeight weight(List<Constraint> constraints) {
+        if (constraints == null || constraints.isEmpty()) {
+            return UNCONSTRAINED_WEIGHT;
+        }
         return new ConstraintBasedLinkWeight(constraints);
     }
 
@@ -107,6 +115,28 @@ public abstract class ConnectivityIntentCompiler<T extends ConnectivityIntent>
         return filtered.iterator().next();
     }
 
+    /**
+     * Edge-weight of paths without constraints, counting hops.
+     * All instances are equal.
+     */
+    private static final class UnconstrainedLinkWeight implements LinkWeight {
+
+        @Override
+        public double weight(TopologyEdge edge) {
+            return 1.0;
+        }
+
+        @Override
+        public int hashCode() {
+            return UnconstrainedLinkWeight.class.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof UnconstrainedLinkWeight;
+        }
+    }
+
     /**
      * Edge-weight capable of evaluating link cost using a set of constraints.
      */
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.packet.PacketContext;
+import org.slf4j.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Dispatches inbound packets to a fixed number of worker lanes.
+ * <p>
+ * Packets are assigned to lanes by the connect point they were received on,
+ * so packets from the same device port are processed in order while packets
+ * from different ports are processed in parallel. Each lane has a bounded
+ * queue; once it is full, new packets are either dropped or the submitting
+ * I/O thread blocks until space is available, pushing back on the device
+ * connection.
+ */
+final class PacketInPipeline {
+
+    private static final long DROP_LOG_INTERVAL = 10000;
+
+    private final Logger log = getLogger(getClass());
+
+    private final ThreadPoolExecutor[] lanes;
+    private final Consumer<PacketContext> processor;
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates and starts a packet pipeline.
+     *
+     * @param laneCount      number of worker lanes
+     * @param queueSize      maximum number of packets queued per lane
+     * @param dropOnOverflow true to drop packets when a lane is full, false
+     *                       to block the submitter instead
+     * @param processor      packet processing function run by the lanes
+     */
+    PacketInPipeline(int laneCount, int queueSize, boolean dropOnOverflow,
+                     Consumer<PacketContext> processor) {
+        checkArgument(laneCount > 0, "Lane count must be positive");
+        checkArgument(queueSize > 0, "Queue size must be positive");
+        this.processor = processor;
+        RejectedExecutionHandler overflowHandler = dropOnOverflow ? this::drop : this::block;
+        lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                                              new ArrayBlockingQueue<>(queueSize),
+                                              groupedThreads("onos/net/packet", "packet-in-" + i, log),
+                                              overflowHandler);
+        }
+    }
+
+    /**
+     * Submits a packet for processing.
+     *
+     * @param context packet context
+     */
+    void submit(PacketContext context) {
+        lane(context.inPacket().receivedFrom()).execute(() -> processor.accept(context));
+    }
+
+    private ThreadPoolExecutor lane(ConnectPoint connectPoint) {
+        int hash = connectPoint == null ? 0 : connectPoint.hashCode();
+        return lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+    }
+
+    private void drop(Runnable task, ThreadPoolExecutor lane) {
+        if (lane.isShutdown()) {
+            throw new RejectedExecutionException("Packet-in pipeline is shut down");
+        }
+        long count = dropped.incrementAndGet();
+        if (count % DROP_LOG_INTERVAL == 1) {
+            log.warn("Packet-in queue full; {} packets dropped so far", count);
+        }
+    }
+
+    private void block(Runnable task, ThreadPoolExecutor lane) {
+        if (lane.isShutdown()) {
+            throw new RejectedExecutionException("Packet-in pipeline is shut down");
+        }
+        try {
+            lane.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+    }
+
+    /**
+     * Returns the number of packets dropped because their lane was full.
+     *
+     * @return number of dropped packets
+     */
+    long droppedPackets() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of packets awaiting processing across all lanes.
+     *
+     * @return number of queued packets
+     */
+    int queuedPackets() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    /**
+     * Stops accepting packets; packets already queued are still processed.
+     */
+    void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -21,9 +21,13 @@ import com.google.common.collect.Lists;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.core.ApplicationId;
@@ -58,12 +62,17 @@ import org.onosproject.net.packet.PacketStore;
 import org.onosproject.net.packet.PacketStoreDelegate;
 import org.onosproject.net.provider.AbstractProviderRegistry;
 import org.onosproject.net.provider.AbstractProviderService;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
+import java.util.Dictionary;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onlab.util.Tools.groupedThreads;
@@ -86,11 +95,32 @@ public class PacketManager
             "Table Type cannot be null. For requesting packets without " +
                     "table hints, use other methods in the packetService API";
 
+    private static final int DEFAULT_PACKET_IN_LANES = 0;
+    private static final int DEFAULT_PACKET_IN_QUEUE_SIZE = 4096;
+    private static final boolean DEFAULT_PACKET_IN_DROP_ON_OVERFLOW = false;
+
+    @Property(name = "packetInLanes", intValue = DEFAULT_PACKET_IN_LANES,
+            label = "Number of worker lanes processing inbound packets; " +
+                    "0 processes them on the I/O thread that received them")
+    private int packetInLanes = DEFAULT_PACKET_IN_LANES;
+
+    @Property(name = "packetInQueueSize", intValue = DEFAULT_PACKET_IN_QUEUE_SIZE,
+            label = "Maximum number of inbound packets queued per worker lane")
+    private int packetInQueueSize = DEFAULT_PACKET_IN_QUEUE_SIZE;
+
+    @Property(name = "packetInDropOnOverflow", boolValue = DEFAULT_PACKET_IN_DROP_ON_OVERFLOW,
+            label = "Drop inbound packets when a worker lane is full instead of " +
+                    "blocking the I/O thread")
+    private boolean packetInDropOnOverflow = DEFAULT_PACKET_IN_DROP_ON_OVERFLOW;
+
     private final PacketStoreDelegate delegate = new InternalStoreDelegate();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected CoreService coreService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ClusterService clusterService;
 
@@ -108,6 +138,8 @@ public class PacketManager
 
     private ExecutorService eventHandlingExecutor;
 
+    private volatile PacketInPipeline packetInPipeline;
+
     private final DeviceListener deviceListener = new InternalDeviceListener();
 
     private final List<ProcessorEntry> processors = Lists.newCopyOnWriteArrayList();
@@ -118,7 +150,9 @@ public class PacketManager
     private NodeId localNodeId;
 
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        modified(context);
         eventHandlingExecutor = Executors.newSingleThreadExecutor(
                 groupedThreads("onos/net/packet", "event-handler", log));
         localNodeId = clusterService.getLocalNode().id();
@@ -132,12 +166,75 @@ public class PacketManager
 
     @Deactivate
     public void deactivate() {
+        cfgService.unregisterProperties(getClass(), false);
         store.unsetDelegate(delegate);
         deviceService.removeListener(deviceListener);
         eventHandlingExecutor.shutdown();
+        setPacketInPipeline(null);
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        Dictionary<?, ?> properties = context != null ? context.getProperties() : null;
+        int lanes = DEFAULT_PACKET_IN_LANES;
+        int queueSize = DEFAULT_PACKET_IN_QUEUE_SIZE;
+        boolean dropOnOverflow = DEFAULT_PACKET_IN_DROP_ON_OVERFLOW;
+        if (properties != null) {
+            lanes = Tools.getIntegerProperty(properties, "packetInLanes", DEFAULT_PACKET_IN_LANES);
+            queueSize = Tools.getIntegerProperty(properties, "packetInQueueSize",
+                                                 DEFAULT_PACKET_IN_QUEUE_SIZE);
+            dropOnOverflow = Tools.isPropertyEnabled(properties, "packetInDropOnOverflow",
+                                                     DEFAULT_PACKET_IN_DROP_ON_OVERFLOW);
+        }
+        if (queueSize <= 0) {
+            log.warn("Invalid packetInQueueSize {}; using {}", queueSize, DEFAULT_PACKET_IN_QUEUE_SIZE);
+            queueSize = DEFAULT_PACKET_IN_QUEUE_SIZE;
+        }
+        lanes = Math.max(lanes, 0);
+        if (lanes == packetInLanes && queueSize == packetInQueueSize
+                && dropOnOverflow == packetInDropOnOverflow
+                && (packetInPipeline != null) == (lanes > 0)) {
+            return;
+        }
+
+        packetInLanes = lanes;
+        packetInQueueSize = queueSize;
+        packetInDropOnOverflow = dropOnOverflow;
+        setPacketInPipeline(packetInLanes > 0 ?
+                new PacketInPipeline(packetInLanes, packetInQueueSize, packetInDropOnOverflow,
+                                     this::processPacketInline) : null);
+        log.info("Configured. Packet-in lanes: {}, queue size: {}, drop on overflow: {}",
+                 packetInLanes, packetInQueueSize, packetInDropOnOverflow);
+    }
+
+    // Replaces the packet-in pipeline; the old one finishes its queued packets.
+    private void setPacketInPipeline(PacketInPipeline pipeline) {
+        PacketInPipeline old = packetInPipeline;
+        packetInPipeline = pipeline;
+        if (old != null) {
+            old.shutdown();
+        }
+    }
+
+    /**
+     * Runs all packet processors, in priority order, on the given packet.
+     *
+     * @param context packet context
+     */
+    private void processPacketInline(PacketContext context) {
+        // TODO filter packets sent to processors based on registrations
+        for (ProcessorEntry entry : processors) {
+            try {
+                long start = System.nanoTime();
+                entry.processor().process(context);
+                entry.addNanos(System.nanoTime() - start);
+            } catch (Exception e) {
+                log.warn("Packet processor {} threw an exception", entry.processor(), e);
+            }
+        }
+    }
+
     @Override
     protected PacketProvider defaultProvider() {
         return defaultProvider;
@@ -366,15 +463,16 @@ public class PacketManager
 
         @Override
         public void processPacket(PacketContext context) {
-            // TODO filter packets sent to processors based on registrations
-            for (ProcessorEntry entry : processors) {
-                try {
-                    long start = System.nanoTime();
-                    entry.processor().process(context);
-                    entry.addNanos(System.nanoTime() - start);
-                } catch (Exception e) {
-                    log.warn("Packet processor {} threw an exception", entry.processor(), e);
-                }
+            PacketInPipeline pipeline = packetInPipeline;
+            if (pipeline == null) {
+                processPacketInline(context);
+                return;
+            }
+            try {
+                pipeline.submit(context);
+            } catch (RejectedExecutionException e) {
+                // pipeline was replaced while the packet was submitted
+                processPacketInline(context);
             }
         }
 
@@ -443,10 +541,13 @@ public class PacketManager
      * Entity for tracking stats for a packet processor.
      */
     private class ProcessorEntry implements PacketProcessorEntry {
+        private static final int HISTOGRAM_BUCKETS = 32;
+
         private final PacketProcessor processor;
         private final int priority;
-        private long invocations = 0;
-        private long nanos = 0;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
 
         public ProcessorEntry(PacketProcessor processor, int priority) {
             this.processor = processor;
@@ -465,22 +566,34 @@ public class PacketManager
 
         @Override
         public long invocations() {
-            return invocations;
+            return invocations.sum();
         }
 
         @Override
         public long totalNanos() {
-            return nanos;
+            return nanos.sum();
         }
 
         @Override
         public long averageNanos() {
-            return invocations > 0 ? nanos / invocations : 0;
+            long count = invocations.sum();
+            return count > 0 ? nanos.sum() / count : 0;
+        }
+
+        @Override
+        public long[] latencyHistogram() {
+            long[] counts = new long[HISTOGRAM_BUCKETS];
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+            }
+            return counts;
         }
 
         void addNanos(long nanos) {
-            this.nanos += nanos;
-            this.invocations++;
+            this.nanos.add(nanos);
+            this.invocations.increment();
+            int bucket = Long.SIZE - Long.numberOfLeadingZeros(Math.max(nanos, 0));
+            histogram.incrementAndGet(Math.min(bucket, HISTOGRAM_BUCKETS - 1));
         }
     }
 }
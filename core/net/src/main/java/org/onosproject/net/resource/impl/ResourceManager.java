@@ -40,6 +40,7 @@ import org.onosproject.net.resource.ResourceStoreDelegate;
 import org.slf4j.Logger;
 
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -165,10 +166,7 @@ public final class ResourceManager extends AbstractListenerManager<ResourceEvent
         checkNotNull(parent);
         checkNotNull(cls);
 
-        return store.getChildResources(parent, cls).stream()
-                // We access store twice in this method, then the store may be updated by others
-                .filter(store::isAvailable)
-                .collect(Collectors.toSet());
+        return store.getAvailableResources(parent, cls);
     }
 
     @Override
@@ -177,12 +175,11 @@ public final class ResourceManager extends AbstractListenerManager<ResourceEvent
         checkNotNull(parent);
         checkNotNull(cls);
 
-        return store.getChildResources(parent, cls).stream()
-                // We access store twice in this method, then the store may be updated by others
-                .filter(store::isAvailable)
+        // keep the order of the store, in which encodable values such as labels ascend
+        return store.getAvailableResources(parent, cls).stream()
                 .map(x -> x.valueAs(cls))
                 .flatMap(Tools::stream)
-                .collect(Collectors.toSet());
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
     @Override
@@ -21,8 +21,8 @@ import org.junit.Test;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.EventSink;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -76,6 +76,64 @@ public class CoreEventDispatcherTest {
         validate(prickleSink);
     }
 
+    @Test
+    public void postOverMultipleLanes() throws Exception {
+        dispatcher.setDispatchLaneCount(4);
+        assertEquals("incorrect lane count", 4, dispatcher.getDispatchLaneCount());
+        prickleSink.latch = new CountDownLatch(3);
+        gooSink.latch = new CountDownLatch(2);
+        dispatcher.post(new Prickle("a"));
+        dispatcher.post(new Goo("x"));
+        dispatcher.post(new Prickle("b"));
+        dispatcher.post(new Goo("y"));
+        dispatcher.post(new Prickle("c"));
+        prickleSink.latch.await(100, TimeUnit.MILLISECONDS);
+        gooSink.latch.await(100, TimeUnit.MILLISECONDS);
+        validate(prickleSink, "a", "b", "c");
+        validate(gooSink, "x", "y");
+    }
+
+    @Test
+    public void changeLaneCountRetainsOrder() throws Exception {
+        prickleSink.latch = new CountDownLatch(4);
+        dispatcher.post(new Prickle("a"));
+        dispatcher.post(new Prickle("b"));
+        dispatcher.setDispatchLaneCount(3);
+        dispatcher.post(new Prickle("c"));
+        dispatcher.setDispatchLaneCount(1);
+        dispatcher.post(new Prickle("d"));
+        prickleSink.latch.await(500, TimeUnit.MILLISECONDS);
+        validate(prickleSink, "a", "b", "c", "d");
+        validate(gooSink);
+    }
+
+    @Test
+    public void changeLaneCountWhilePosting() throws Exception {
+        int count = 1000;
+        prickleSink.latch = new CountDownLatch(count);
+        Thread poster = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                dispatcher.post(new Prickle(Integer.toString(i)));
+            }
+        });
+        poster.start();
+        for (int lanes = 2; poster.isAlive(); lanes = lanes % 4 + 1) {
+            dispatcher.setDispatchLaneCount(lanes);
+        }
+        poster.join();
+        prickleSink.latch.await(5, TimeUnit.SECONDS);
+        String[] expected = new String[count];
+        for (int i = 0; i < count; i++) {
+            expected[i] = Integer.toString(i);
+        }
+        validate(prickleSink, expected);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badLaneCount() {
+        dispatcher.setDispatchLaneCount(0);
+    }
+
     private void validate(Sink sink, String... strings) {
         int i = 0;
         assertEquals("incorrect event count", strings.length, sink.subjects.size());
@@ -105,7 +163,7 @@ public class CoreEventDispatcherTest {
     }
 
     private static class Sink {
-        final List<String> subjects = new ArrayList<>();
+        final List<String> subjects = new CopyOnWriteArrayList<>();
         CountDownLatch latch;
 
         protected void process(String subject) {
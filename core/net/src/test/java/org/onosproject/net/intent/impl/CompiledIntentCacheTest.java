@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.core.IdGenerator;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.Path;
+import org.onosproject.net.device.DeviceServiceAdapter;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.host.HostServiceAdapter;
+import org.onosproject.net.intent.Constraint;
+import org.onosproject.net.intent.FlowRuleIntent;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentTestsMocks.MockResourceService;
+import org.onosproject.net.intent.Key;
+import org.onosproject.net.intent.MockIdGenerator;
+import org.onosproject.net.intent.PathIntent;
+import org.onosproject.net.intent.PointToPointIntent;
+import org.onosproject.net.intent.ResourceContext;
+import org.onosproject.net.link.LinkServiceAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.connectPoint;
+import static org.onosproject.net.NetTestTools.createPath;
+
+/**
+ * Unit tests for the compiled intent cache.
+ */
+public class CompiledIntentCacheTest {
+
+    private final Path path = createPath("s1", "s2", "s3");
+    private final Set<Link> activeLinks = Sets.newHashSet(path.links());
+    private final AtomicInteger compilations = new AtomicInteger();
+    private final List<Path> validatedPaths = new ArrayList<>();
+    private boolean pathValid = true;
+
+    private IdGenerator idGenerator;
+    private CompiledIntentCache cache;
+
+    @Before
+    public void setUp() {
+        idGenerator = new MockIdGenerator();
+        Intent.bindIdGenerator(idGenerator);
+        cache = new CompiledIntentCache(new TestLinkService(), new DeviceServiceAdapter() {
+            @Override
+            public boolean isAvailable(DeviceId deviceId) {
+                return true;
+            }
+        }, new HostServiceAdapter(), MockResourceService.makeBandwidthResourceService(1000.0));
+    }
+
+    @After
+    public void tearDown() {
+        Intent.unbindIdGenerator(idGenerator);
+    }
+
+    private class TestLinkService extends LinkServiceAdapter {
+        @Override
+        public Link getLink(ConnectPoint src, ConnectPoint dst) {
+            return activeLinks.stream()
+                    .filter(link -> link.src().equals(src) && link.dst().equals(dst))
+                    .findFirst().orElse(null);
+        }
+    }
+
+    private PointToPointIntent intent() {
+        return PointToPointIntent.builder()
+                .appId(APP_ID)
+                .key(Key.of("s1-s3", APP_ID))
+                .selector(DefaultTrafficSelector.emptySelector())
+                .treatment(DefaultTrafficTreatment.emptyTreatment())
+                .ingressPoint(connectPoint("s1", 9))
+                .egressPoint(connectPoint("s3", 9))
+                .constraints(ImmutableList.of(new TestConstraint()))
+                .build();
+    }
+
+    // Constraint holding as long as the path is valid.
+    private class TestConstraint implements Constraint {
+        @Override
+        public double cost(Link link, ResourceContext context) {
+            return 1;
+        }
+
+        @Override
+        public boolean validate(Path path, ResourceContext context) {
+            validatedPaths.add(path);
+            return pathValid;
+        }
+    }
+
+    // Compiles like the production compilers, through a path intent into a
+    // flow rule intent that no longer carries the path.
+    private List<Intent> compile(Intent intent, List<Intent> previousInstallables,
+                                 Consumer<Intent> compiledIntents) {
+        compilations.incrementAndGet();
+        PathIntent pathIntent = PathIntent.builder()
+                .appId(APP_ID)
+                .selector(DefaultTrafficSelector.emptySelector())
+                .treatment(DefaultTrafficTreatment.emptyTreatment())
+                .path(path)
+                .build();
+        compiledIntents.accept(pathIntent);
+        FlowRuleIntent flowRuleIntent = new FlowRuleIntent(APP_ID, ImmutableList.of(),
+                                                           ImmutableList.copyOf(path.links()));
+        compiledIntents.accept(flowRuleIntent);
+        return ImmutableList.of(flowRuleIntent);
+    }
+
+    /**
+     * Tests that the installables of intents with intact paths are reused.
+     */
+    @Test
+    public void reuseIntactPath() {
+        PointToPointIntent intent = intent();
+        List<Intent> installables = cache.compile(intent, ImmutableList.of(), this::compile);
+        assertThat(cache.compile(intent, installables, this::compile), is(installables));
+        assertThat(compilations.get(), is(1));
+        assertThat(cache.skippedCompilations().getCount(), is(1L));
+        assertThat(cache.compilations().getCount(), is(1L));
+    }
+
+    /**
+     * Tests that intents whose paths are broken are recompiled.
+     */
+    @Test
+    public void recompileBrokenPath() {
+        PointToPointIntent intent = intent();
+        List<Intent> installables = cache.compile(intent, ImmutableList.of(), this::compile);
+        activeLinks.remove(path.links().get(1));
+        cache.compile(intent, installables, this::compile);
+        assertThat(compilations.get(), is(2));
+        assertThat(cache.skippedCompilations().getCount(), is(0L));
+    }
+
+    /**
+     * Tests that resubmitted and invalidated intents are recompiled.
+     */
+    @Test
+    public void recompileChangedIntent() {
+        PointToPointIntent intent = intent();
+        cache.compile(intent, ImmutableList.of(), this::compile);
+        PointToPointIntent resubmitted = intent();
+        cache.compile(resubmitted, ImmutableList.of(), this::compile);
+        assertThat(compilations.get(), is(2));
+
+        cache.invalidate(resubmitted.key());
+        cache.compile(resubmitted, ImmutableList.of(), this::compile);
+        assertThat(compilations.get(), is(3));
+    }
+
+    /**
+     * Tests that intents whose paths no longer satisfy their constraints
+     * are recompiled.
+     */
+    @Test
+    public void recompileConstraintViolation() {
+        PointToPointIntent intent = intent();
+        List<Intent> installables = cache.compile(intent, ImmutableList.of(), this::compile);
+        pathValid = false;
+        cache.compile(intent, installables, this::compile);
+        assertThat(compilations.get(), is(2));
+        assertThat(cache.skippedCompilations().getCount(), is(0L));
+    }
+
+    /**
+     * Tests that the constraints are validated against the paths recorded
+     * while compiling, although the installables are flow rule intents.
+     */
+    @Test
+    public void validateRecordedPaths() {
+        PointToPointIntent intent = intent();
+        List<Intent> installables = cache.compile(intent, ImmutableList.of(), this::compile);
+        assertThat(installables.get(0), is(instanceOf(FlowRuleIntent.class)));
+
+        cache.compile(intent, installables, this::compile);
+        assertThat(validatedPaths, is(ImmutableList.of(path)));
+        assertThat(compilations.get(), is(1));
+    }
+
+    /**
+     * Tests that all intents are recompiled once all entries are dropped,
+     * and that compilations in progress at that time are not cached.
+     */
+    @Test
+    public void recompileAfterInvalidateAll() {
+        PointToPointIntent intent = intent();
+        List<Intent> installables = cache.compile(intent, ImmutableList.of(), this::compile);
+        cache.invalidateAll();
+        cache.compile(intent, installables, this::compile);
+        assertThat(compilations.get(), is(2));
+
+        cache.invalidateAll();
+        cache.compile(intent, installables, (i, previous, compiledIntents) -> {
+            cache.invalidateAll();
+            return compile(i, previous, compiledIntents);
+        });
+        cache.compile(intent, installables, this::compile);
+        assertThat(compilations.get(), is(4));
+        assertThat(cache.skippedCompilations().getCount(), is(0L));
+    }
+}
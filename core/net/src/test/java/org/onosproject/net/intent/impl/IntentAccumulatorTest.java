@@ -33,9 +33,11 @@ import org.onosproject.net.intent.IntentTestsMocks.MockTimestamp;
 import org.onosproject.net.intent.MockIdGenerator;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 
 /**
  * Unit tests for the intent accumulator.
@@ -156,5 +158,34 @@ public class IntentAccumulatorTest {
         accumulator.processItems(intentDataItems);
     }
 
+    /**
+     * Tests that batches on disjoint keys are processed concurrently, while
+     * operations on keys being processed are held back until their batch
+     * completes.
+     */
+    @Test
+    public void checkConcurrentBatches() {
+        List<Collection<IntentData>> batches = Lists.newArrayList();
+        IntentAccumulator accumulator = new IntentAccumulator(batches::add, 2);
+
+        accumulator.processItems(ImmutableList.of(
+                new IntentData(intent1, IntentState.INSTALL_REQ, new MockTimestamp(1))));
+        accumulator.processItems(ImmutableList.of(
+                new IntentData(intent1, IntentState.WITHDRAW_REQ, new MockTimestamp(2)),
+                new IntentData(intent2, IntentState.INSTALL_REQ, new MockTimestamp(2))));
+        assertThat(batches, hasSize(2));
+        assertThat(batches.get(1), hasSize(1));
+        assertThat(accumulator.isReady(), is(false));
+
+        accumulator.processItems(ImmutableList.of(
+                new IntentData(intent3, IntentState.INSTALL_REQ, new MockTimestamp(3))));
+        assertThat(batches, hasSize(2));
+
+        accumulator.ready(batches.get(0));
+        assertThat(batches, hasSize(3));
+        assertThat(batches.get(2), hasSize(2));
+        assertThat(batches.get(2).iterator().next().state(), is(IntentState.WITHDRAW_REQ));
+    }
+
 
 }
@@ -28,6 +28,7 @@ import org.onlab.junit.TestUtils;
 import org.onlab.junit.TestUtils.TestUtilsException;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.event.Event;
+import org.onosproject.net.DefaultPort;
 import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.Link;
@@ -224,6 +225,41 @@ public class ObjectiveTrackerTest {
                    equalTo("0x333"));
     }
 
+    /**
+     * Tests that a port going down on a link used by an intent does not
+     * trigger recompilation before the link is removed from the topology.
+     *
+     * @throws InterruptedException if the latch wait fails.
+     */
+    @Test
+    public void testEventPortDownBeforeLinkRemoved() throws Exception {
+        final Link link = link("src", 1, "dst", 2);
+        final Key key = Key.of(0x444L, APP_ID);
+        Collection<NetworkResource> resources = ImmutableSet.of(link);
+        tracker.addTrackedResources(key, resources);
+
+        final Device device = device("dst");
+        final DeviceEvent deviceEvent =
+                new DeviceEvent(DeviceEvent.Type.PORT_UPDATED, device,
+                                new DefaultPort(device, PortNumber.portNumber(2), false));
+
+        deviceListener.event(deviceEvent);
+        assertThat(
+                delegate.latch.await(100, TimeUnit.MILLISECONDS),
+                is(false));
+
+        reasons.add(new LinkEvent(LinkEvent.Type.LINK_REMOVED, link));
+        listener.event(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_CHANGED, topology, reasons));
+        assertThat(
+                delegate.latch.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                is(true));
+
+        assertThat(delegate.intentIdsFromEvent, hasSize(1));
+        assertThat(delegate.compileAllFailedFromEvent, is(false));
+        assertThat(delegate.intentIdsFromEvent.get(0).toString(),
+                   equalTo("0x444"));
+    }
+
     /**
      * Tests a resource available event.
      *
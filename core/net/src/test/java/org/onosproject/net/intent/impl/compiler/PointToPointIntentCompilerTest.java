@@ -34,6 +34,7 @@ import org.onosproject.net.intent.PointToPointIntent;
 import org.onosproject.net.intent.constraint.BandwidthConstraint;
 import org.onosproject.net.intent.impl.PathNotFoundException;
 import org.onosproject.net.resource.ResourceService;
+import org.onosproject.net.topology.LinkWeight;
 
 import java.util.Collections;
 import java.util.List;
@@ -43,6 +44,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.fail;
 import static org.onosproject.net.DefaultEdgeLink.createEdgeLink;
 import static org.onosproject.net.DeviceId.deviceId;
@@ -264,4 +266,22 @@ public class PointToPointIntentCompilerTest extends AbstractIntentTest {
             assertThat(noPath.getMessage(), containsString("No path"));
         }
     }
+
+    /**
+     * Tests that intents without constraints share a link weight that the
+     * topology can cache paths for.
+     */
+    @Test
+    public void testUnconstrainedWeightShared() {
+        String[] hops = {"s1", "s2", "s3"};
+        PointToPointIntentCompiler compiler = makeCompiler(hops);
+
+        LinkWeight weight = compiler.weight(Collections.emptyList());
+        assertThat(compiler.weight(null), is(weight));
+        assertThat(makeCompiler(hops).weight(Collections.emptyList()), is(weight));
+
+        List<Constraint> constraints =
+                Collections.singletonList(new BandwidthConstraint(Bandwidth.bps(100.0)));
+        assertThat(compiler.weight(constraints), is(not(weight)));
+    }
 }
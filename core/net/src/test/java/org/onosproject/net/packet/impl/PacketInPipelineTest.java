@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Test;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.packet.DefaultInboundPacket;
+import org.onosproject.net.packet.DefaultPacketContext;
+import org.onosproject.net.packet.PacketContext;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the packet-in pipeline.
+ */
+public class PacketInPipelineTest {
+
+    private PacketInPipeline pipeline;
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    private static PacketContext packet(ConnectPoint receivedFrom, long time) {
+        return new DefaultPacketContext(time, new DefaultInboundPacket(receivedFrom, null, ByteBuffer.allocate(0)),
+                                        null, false) {
+            @Override
+            public void send() {
+            }
+        };
+    }
+
+    private static ConnectPoint connectPoint(int device, int port) {
+        return new ConnectPoint(DeviceId.deviceId("of:" + device), PortNumber.portNumber(port));
+    }
+
+    @Test
+    public void packetsOfAPortStayInOrder() throws InterruptedException {
+        int ports = 16;
+        int packetsPerPort = 1000;
+        Map<ConnectPoint, List<Long>> received = Maps.newConcurrentMap();
+        CountDownLatch done = new CountDownLatch(ports * packetsPerPort);
+        pipeline = new PacketInPipeline(4, 64, false, context -> {
+            received.computeIfAbsent(context.inPacket().receivedFrom(), cp -> Lists.newArrayList())
+                    .add(context.time());
+            done.countDown();
+        });
+
+        for (int i = 0; i < packetsPerPort; i++) {
+            for (int port = 0; port < ports; port++) {
+                pipeline.submit(packet(connectPoint(port % 3, port), i));
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(ports, received.size());
+        received.values().forEach(times -> {
+            assertEquals(packetsPerPort, times.size());
+            for (int i = 0; i < packetsPerPort; i++) {
+                assertEquals(i, (long) times.get(i));
+            }
+        });
+    }
+
+    @Test
+    public void dropsWhenFull() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline = new PacketInPipeline(1, 2, true, context -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        ConnectPoint cp = connectPoint(1, 1);
+        pipeline.submit(packet(cp, 0));
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i <= 5; i++) {
+            pipeline.submit(packet(cp, i));
+        }
+        assertEquals(2, pipeline.queuedPackets());
+        assertEquals(3, pipeline.droppedPackets());
+        release.countDown();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.benchmark;
+
+import org.onlab.util.Tools;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
+import org.onosproject.store.cluster.messaging.ClusterMessage;
+import org.onosproject.store.cluster.messaging.ClusterMessageHandler;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.cluster.messaging.MessagingException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Cluster communication service that delivers messages between nodes
+ * running in the same JVM.
+ * <p>
+ * Messages are still encoded and decoded, so that serialization costs are
+ * accounted for, but never leave the process. All instances sharing the
+ * same cluster map can reach each other.
+ */
+public final class LocalClusterCommunicationService implements ClusterCommunicationService {
+
+    private final NodeId localNodeId;
+    private final Map<NodeId, LocalClusterCommunicationService> cluster;
+    private final Map<MessageSubject, BiFunction<NodeId, byte[], CompletableFuture<byte[]>>> handlers =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates a communication service for a node and adds it to the cluster.
+     *
+     * @param localNodeId local node identifier
+     * @param cluster     communication services of all nodes, by node
+     */
+    public LocalClusterCommunicationService(NodeId localNodeId,
+                                            Map<NodeId, LocalClusterCommunicationService> cluster) {
+        this.localNodeId = localNodeId;
+        this.cluster = cluster;
+        cluster.put(localNodeId, this);
+    }
+
+    private CompletableFuture<byte[]> send(NodeId toNodeId, MessageSubject subject, byte[] payload) {
+        LocalClusterCommunicationService peer = cluster.get(toNodeId);
+        BiFunction<NodeId, byte[], CompletableFuture<byte[]>> handler =
+                peer == null ? null : peer.handlers.get(subject);
+        if (handler == null) {
+            return Tools.exceptionalFuture(new MessagingException.NoRemoteHandler());
+        }
+        return handler.apply(localNodeId, payload);
+    }
+
+    private <M> void sendToAll(M message, MessageSubject subject, Function<M, byte[]> encoder,
+                               boolean includeSelf) {
+        byte[] payload = encoder.apply(message);
+        cluster.keySet().stream()
+                .filter(nodeId -> includeSelf || !nodeId.equals(localNodeId))
+                .forEach(nodeId -> send(nodeId, subject, payload));
+    }
+
+    @Override
+    public <M> void broadcast(M message, MessageSubject subject, Function<M, byte[]> encoder) {
+        sendToAll(message, subject, encoder, false);
+    }
+
+    @Override
+    public <M> void broadcastIncludeSelf(M message, MessageSubject subject, Function<M, byte[]> encoder) {
+        sendToAll(message, subject, encoder, true);
+    }
+
+    @Override
+    public <M> CompletableFuture<Void> unicast(M message, MessageSubject subject,
+                                               Function<M, byte[]> encoder, NodeId toNodeId) {
+        return send(toNodeId, subject, encoder.apply(message)).thenApply(r -> null);
+    }
+
+    @Override
+    public <M> void multicast(M message, MessageSubject subject,
+                              Function<M, byte[]> encoder, Set<NodeId> nodes) {
+        byte[] payload = encoder.apply(message);
+        nodes.forEach(nodeId -> send(nodeId, subject, payload));
+    }
+
+    @Override
+    public <M, R> CompletableFuture<R> sendAndReceive(M message, MessageSubject subject,
+                                                      Function<M, byte[]> encoder,
+                                                      Function<byte[], R> decoder,
+                                                      NodeId toNodeId) {
+        return send(toNodeId, subject, encoder.apply(message)).thenApply(decoder);
+    }
+
+    @Override
+    public void addSubscriber(MessageSubject subject, ClusterMessageHandler subscriber,
+                              ExecutorService executor) {
+        handlers.put(subject, (sender, payload) -> CompletableFuture.supplyAsync(() -> {
+            ClusterMessage message = new ClusterMessage(sender, subject, payload);
+            subscriber.handle(message);
+            return message.response();
+        }, executor));
+    }
+
+    @Override
+    public <M, R> void addSubscriber(MessageSubject subject, Function<byte[], M> decoder,
+                                     Function<M, R> handler, Function<R, byte[]> encoder,
+                                     Executor executor) {
+        handlers.put(subject, (sender, payload) -> CompletableFuture.supplyAsync(
+                () -> encoder.apply(handler.apply(decoder.apply(payload))), executor));
+    }
+
+    @Override
+    public <M, R> void addSubscriber(MessageSubject subject, Function<byte[], M> decoder,
+                                     Function<M, CompletableFuture<R>> handler,
+                                     Function<R, byte[]> encoder) {
+        handlers.put(subject, (sender, payload) -> handler.apply(decoder.apply(payload)).thenApply(encoder));
+    }
+
+    @Override
+    public <M> void addSubscriber(MessageSubject subject, Function<byte[], M> decoder,
+                                  Consumer<M> handler, Executor executor) {
+        handlers.put(subject, (sender, payload) -> CompletableFuture.supplyAsync(() -> {
+            handler.accept(decoder.apply(payload));
+            return null;
+        }, executor));
+    }
+
+    @Override
+    public void removeSubscriber(MessageSubject subject) {
+        handlers.remove(subject);
+    }
+}
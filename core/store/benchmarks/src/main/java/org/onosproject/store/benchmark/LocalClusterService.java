@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.benchmark;
+
+import com.google.common.collect.ImmutableSet;
+import org.onlab.packet.IpAddress;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.cluster.DefaultControllerNode;
+import org.onosproject.cluster.NodeId;
+
+import java.util.Set;
+
+/**
+ * Cluster service describing a cluster of active nodes running in the same JVM.
+ */
+public final class LocalClusterService extends ClusterServiceAdapter {
+
+    private final ControllerNode localNode;
+    private final Set<ControllerNode> nodes;
+
+    /**
+     * Creates a cluster service for a node.
+     *
+     * @param localNodeId local node identifier
+     * @param nodeIds     identifiers of all nodes, including the local node
+     */
+    public LocalClusterService(NodeId localNodeId, Set<NodeId> nodeIds) {
+        this.localNode = node(localNodeId);
+        ImmutableSet.Builder<ControllerNode> builder = ImmutableSet.builder();
+        nodeIds.forEach(nodeId -> builder.add(node(nodeId)));
+        this.nodes = builder.build();
+    }
+
+    private static ControllerNode node(NodeId nodeId) {
+        return new DefaultControllerNode(nodeId, IpAddress.valueOf("127.0.0.1"));
+    }
+
+    @Override
+    public ControllerNode getLocalNode() {
+        return localNode;
+    }
+
+    @Override
+    public Set<ControllerNode> getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public ControllerNode getNode(NodeId nodeId) {
+        return nodes.stream().filter(node -> node.id().equals(nodeId)).findFirst().orElse(null);
+    }
+
+    @Override
+    public ControllerNode.State getState(NodeId nodeId) {
+        return getNode(nodeId) == null ? null : ControllerNode.State.ACTIVE;
+    }
+}
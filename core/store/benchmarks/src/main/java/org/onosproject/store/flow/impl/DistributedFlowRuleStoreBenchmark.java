@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.onlab.packet.MacAddress;
+import org.onosproject.cfg.ComponentConfigAdapter;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.core.IdGenerator;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.MastershipRole;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DeviceServiceAdapter;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleBatchEntry;
+import org.onosproject.net.flow.FlowRuleBatchEntry.FlowRuleOperation;
+import org.onosproject.net.flow.FlowRuleBatchOperation;
+import org.onosproject.store.benchmark.LocalClusterCommunicationService;
+import org.onosproject.store.benchmark.LocalClusterService;
+import org.onosproject.store.flow.ReplicaInfo;
+import org.onosproject.store.flow.ReplicaInfoEventListener;
+import org.onosproject.store.flow.ReplicaInfoService;
+import org.onosproject.store.persistence.PersistenceServiceAdapter;
+import org.onosproject.store.service.TestStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of storing flow rule batches for devices mastered by the local
+ * node of a single node in-JVM cluster.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class DistributedFlowRuleStoreBenchmark {
+
+    private static final NodeId LOCAL = new NodeId("node1");
+
+    @Param({"10"})
+    private int deviceCount;
+
+    @Param({"10000"})
+    private int flowsPerDevice;
+
+    @Param({"100"})
+    private int batchSize;
+
+    private DistributedFlowRuleStore store;
+    private DeviceId[] deviceIds;
+    private List<List<FlowRule>> rules;
+
+    @Setup
+    public void setUp() {
+        AtomicLong ids = new AtomicLong();
+        IdGenerator idGenerator = ids::incrementAndGet;
+
+        store = new DistributedFlowRuleStore();
+        store.clusterService = new LocalClusterService(LOCAL, ImmutableSet.of(LOCAL));
+        store.clusterCommunicator = new LocalClusterCommunicationService(LOCAL, Maps.newConcurrentMap());
+        store.mastershipService = new MastershipServiceAdapter() {
+            @Override
+            public NodeId getMasterFor(DeviceId deviceId) {
+                return LOCAL;
+            }
+
+            @Override
+            public MastershipRole getLocalRole(DeviceId deviceId) {
+                return MastershipRole.MASTER;
+            }
+        };
+        store.replicaInfoManager = new ReplicaInfoService() {
+            @Override
+            public ReplicaInfo getReplicaInfoFor(DeviceId deviceId) {
+                return new ReplicaInfo(LOCAL, ImmutableList.of());
+            }
+
+            @Override
+            public void addListener(ReplicaInfoEventListener listener) {
+            }
+
+            @Override
+            public void removeListener(ReplicaInfoEventListener listener) {
+            }
+        };
+        store.coreService = new CoreServiceAdapter() {
+            @Override
+            public IdGenerator getIdGenerator(String topic) {
+                return idGenerator;
+            }
+        };
+        store.configService = new ComponentConfigAdapter();
+        store.deviceService = new DeviceServiceAdapter();
+        store.persistenceService = new PersistenceServiceAdapter();
+        store.storageService = new TestStorageService();
+        store.activate(null);
+        store.setDelegate(event -> { });
+
+        deviceIds = new DeviceId[deviceCount];
+        rules = Lists.newArrayList();
+        for (int d = 0; d < deviceCount; d++) {
+            deviceIds[d] = DeviceId.deviceId(String.format("of:%016x", d + 1));
+            List<FlowRule> deviceRules = Lists.newArrayListWithCapacity(flowsPerDevice);
+            for (int f = 0; f < flowsPerDevice; f++) {
+                deviceRules.add(rule(deviceIds[d], f));
+            }
+            rules.add(deviceRules);
+            store.storeBatch(batch(d, 0, flowsPerDevice, idGenerator.getNewId()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.deactivate(null);
+    }
+
+    private static FlowRule rule(DeviceId deviceId, int index) {
+        return DefaultFlowRule.builder()
+                .forDevice(deviceId)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchInPort(PortNumber.portNumber(1))
+                                      .matchEthDst(MacAddress.valueOf(index))
+                                      .build())
+                .withTreatment(DefaultTrafficTreatment.builder()
+                                       .setOutput(PortNumber.portNumber(2))
+                                       .build())
+                .withPriority(100)
+                .fromApp(new DefaultApplicationId(1, "benchmark"))
+                .makePermanent()
+                .build();
+    }
+
+    private FlowRuleBatchOperation batch(int device, int from, int to, long id) {
+        List<FlowRuleBatchEntry> entries = Lists.newArrayListWithCapacity(to - from);
+        for (int f = from; f < to; f++) {
+            entries.add(new FlowRuleBatchEntry(FlowRuleOperation.ADD, rules.get(device).get(f)));
+        }
+        return new FlowRuleBatchOperation(entries, deviceIds[device], id);
+    }
+
+    /**
+     * Re-adds a batch of rules which are already stored, as happens when
+     * applications reinstall their flows.
+     */
+    @Benchmark
+    public void storeBatch() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int device = random.nextInt(deviceCount);
+        int from = random.nextInt(flowsPerDevice - batchSize + 1);
+        store.storeBatch(batch(device, from, from + batchSize, random.nextLong()));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.store.LogicalTimestamp;
+import org.onosproject.store.benchmark.LocalClusterCommunicationService;
+import org.onosproject.store.benchmark.LocalClusterService;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.serializers.StoreSerializer;
+import org.onosproject.store.service.EventuallyConsistentMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of the eventually consistent map: local reads and writes on a
+ * three node in-JVM cluster, and the digest computations of anti-entropy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class EventuallyConsistentMapBenchmark {
+
+    @Param({"1000", "100000"})
+    private int keyCount;
+
+    @Param({"10"})
+    private int staleKeyCount;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<EventuallyConsistentMap<String, String>> maps = Lists.newArrayList();
+    private EventuallyConsistentMap<String, String> map;
+    private String[] keys;
+
+    private MapDigestTree<String> localTree;
+    private MapValue<String>[] localValues;
+    private MapDigestTree<String> remoteTree;
+    private long[] remoteDigests;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key" + i;
+        }
+
+        Map<NodeId, LocalClusterCommunicationService> cluster = Maps.newConcurrentMap();
+        Set<NodeId> nodeIds = ImmutableSet.of(new NodeId("node1"), new NodeId("node2"), new NodeId("node3"));
+        for (NodeId nodeId : nodeIds) {
+            // periodic anti-entropy would only add noise to the measurements
+            maps.add(new EventuallyConsistentMapBuilderImpl<String, String>(
+                    new LocalClusterService(nodeId, nodeIds),
+                    new LocalClusterCommunicationService(nodeId, cluster),
+                    null)
+                    .withName("benchmark")
+                    .withSerializer(KryoNamespace.newBuilder().register(KryoNamespaces.API))
+                    .withTimestampProvider((k, v) -> new LogicalTimestamp(clock.incrementAndGet()))
+                    .withAntiEntropyPeriod(1, TimeUnit.HOURS)
+                    .build());
+        }
+        map = maps.get(0);
+        for (String key : keys) {
+            map.put(key, key);
+        }
+
+        StoreSerializer serializer = StoreSerializer.using(KryoNamespaces.API);
+        localTree = new MapDigestTree<>(serializer::encode);
+        remoteTree = new MapDigestTree<>(serializer::encode);
+        localValues = new MapValue[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            MapValue<String> value = new MapValue<>(keys[i], new LogicalTimestamp(i));
+            localValues[i] = value;
+            localTree.update(keys[i], null, value);
+            remoteTree.update(keys[i], null,
+                              i < staleKeyCount ? new MapValue<>(keys[i], new LogicalTimestamp(i + keyCount)) : value);
+        }
+        remoteDigests = remoteTree.bucketDigests();
+    }
+
+    @TearDown
+    public void tearDown() {
+        maps.forEach(EventuallyConsistentMap::destroy);
+        maps.clear();
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keyCount)];
+    }
+
+    @Benchmark
+    public String get() {
+        return map.get(randomKey());
+    }
+
+    @Benchmark
+    public void put() {
+        String key = randomKey();
+        map.put(key, key);
+    }
+
+    @Benchmark
+    public long[] antiEntropyAdvertisement() {
+        return localTree.bucketDigests();
+    }
+
+    @Benchmark
+    public Set<Integer> antiEntropyDiff() {
+        return localTree.diff(remoteDigests);
+    }
+
+    @Benchmark
+    public MapDigestTree<String> antiEntropyDigestUpdate() {
+        int i = ThreadLocalRandom.current().nextInt(keyCount);
+        MapValue<String> newValue = new MapValue<>(keys[i], new LogicalTimestamp(clock.incrementAndGet()));
+        localTree.update(keys[i], localValues[i], newValue);
+        localValues[i] = newValue;
+        return localTree;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.resources.impl;
+
+import com.google.common.collect.Lists;
+import io.atomix.copycat.Operation;
+import io.atomix.copycat.server.Commit;
+import org.onlab.util.Match;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.BatchUpdate;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Get;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.UpdateAndGet;
+import org.onosproject.store.service.Versioned;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of applying commands to the consistent map state machine,
+ * bypassing the Raft log.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class AtomixConsistentMapStateBenchmark {
+
+    @Param({"10000"})
+    private int keyCount;
+
+    @Param({"128"})
+    private int valueSize;
+
+    @Param({"64"})
+    private int batchSize;
+
+    private AtomixConsistentMapState state;
+    private String[] keys;
+    private byte[] value;
+    private long index;
+
+    @Setup
+    public void setUp() {
+        state = new AtomixConsistentMapState(new Properties());
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key" + i;
+        }
+        value = new byte[valueSize];
+        for (String key : keys) {
+            state.updateAndGet(commit(put(key)));
+        }
+    }
+
+    private UpdateAndGet put(String key) {
+        return new UpdateAndGet(key, value, Match.ANY, Match.ANY);
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keyCount)];
+    }
+
+    // Commit is implemented by the Copycat server; a proxy stands in for it
+    // so that the state machine can be driven without a log.
+    @SuppressWarnings("unchecked")
+    private <T extends Operation<?>> Commit<T> commit(T operation) {
+        long commitIndex = ++index;
+        return (Commit<T>) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {Commit.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "operation":
+                        case "command":
+                        case "query":
+                            return operation;
+                        case "index":
+                            return commitIndex;
+                        case "type":
+                            return operation.getClass();
+                        case "release":
+                            return true;
+                        case "references":
+                            return 1;
+                        case "acquire":
+                            return proxy;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "Commit[" + commitIndex + "]";
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    @Benchmark
+    public Versioned<byte[]> get() {
+        return state.get(commit(new Get(randomKey())));
+    }
+
+    @Benchmark
+    public MapEntryUpdateResult<String, byte[]> updateAndGet() {
+        return state.updateAndGet(commit(put(randomKey())));
+    }
+
+    @Benchmark
+    public List<MapEntryUpdateResult<String, byte[]>> batchUpdate() {
+        List<UpdateAndGet> updates = Lists.newArrayListWithCapacity(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            updates.add(put(randomKey()));
+        }
+        return state.batchUpdate(commit(new BatchUpdate(updates)));
+    }
+}
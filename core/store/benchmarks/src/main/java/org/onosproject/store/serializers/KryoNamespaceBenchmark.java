@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import org.onlab.packet.Ip4Prefix;
+import org.onlab.packet.MacAddress;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.provider.ProviderId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of serializing and deserializing common API types with the
+ * {@link KryoNamespaces#API} namespace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class KryoNamespaceBenchmark {
+
+    private static final DeviceId DID1 = DeviceId.deviceId("of:0000000000000001");
+    private static final DeviceId DID2 = DeviceId.deviceId("of:0000000000000002");
+
+    @Param({"DeviceId", "ConnectPoint", "DefaultLink", "DefaultFlowEntry"})
+    private String type;
+
+    private final KryoNamespace serializer = KryoNamespaces.API;
+    private Object object;
+    private byte[] bytes;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        ConnectPoint src = new ConnectPoint(DID1, PortNumber.portNumber(1));
+        ConnectPoint dst = new ConnectPoint(DID2, PortNumber.portNumber(2));
+        switch (type) {
+            case "DeviceId":
+                object = DID1;
+                break;
+            case "ConnectPoint":
+                object = src;
+                break;
+            case "DefaultLink":
+                object = DefaultLink.builder()
+                        .providerId(new ProviderId("of", "foo"))
+                        .src(src)
+                        .dst(dst)
+                        .type(Link.Type.DIRECT)
+                        .build();
+                break;
+            case "DefaultFlowEntry":
+                object = new DefaultFlowEntry(DefaultFlowRule.builder()
+                        .forDevice(DID1)
+                        .withSelector(DefaultTrafficSelector.builder()
+                                              .matchInPort(PortNumber.portNumber(1))
+                                              .matchEthDst(MacAddress.valueOf(1))
+                                              .matchEthType((short) 0x0800)
+                                              .matchIPDst(Ip4Prefix.valueOf("10.0.0.0/24"))
+                                              .build())
+                        .withTreatment(DefaultTrafficTreatment.builder()
+                                               .setOutput(PortNumber.portNumber(2))
+                                               .build())
+                        .withPriority(100)
+                        .fromApp(new DefaultApplicationId(1, "benchmark"))
+                        .makePermanent()
+                        .build());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown type " + type);
+        }
+        bytes = serializer.serialize(object);
+        buffer = ByteBuffer.allocate(64 * 1024);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(object);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    @Benchmark
+    public Object bufferRoundTrip() {
+        buffer.clear();
+        serializer.serialize(object, buffer);
+        buffer.flip();
+        return serializer.deserialize(buffer);
+    }
+}
@@ -34,6 +34,10 @@ import java.io.IOException;
 @Sharable
 public class MessageEncoder extends MessageToByteEncoder<InternalMessage> {
 
+    // preamble, id, ip version, port, type length, status and payload length
+    private static final int FIXED_HEADER_LENGTH = 4 + 8 + 1 + 4 + 4 + 4 + 4;
+    private static final int MAX_UTF8_BYTES_PER_CHAR = 3;
+
     private final int preamble;
 
     public MessageEncoder(int preamble) {
@@ -43,6 +47,20 @@ public class MessageEncoder extends MessageToByteEncoder<InternalMessage> {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    @Override
+    protected ByteBuf allocateBuffer(
+            ChannelHandlerContext context,
+            InternalMessage message,
+            boolean preferDirect) throws Exception {
+        // Size the buffer up front so that large payloads are copied into it
+        // exactly once rather than through a series of buffer expansions.
+        int size = FIXED_HEADER_LENGTH
+                + IpAddress.byteLength(message.sender().host().version())
+                + message.type().length() * MAX_UTF8_BYTES_PER_CHAR
+                + message.payload().length;
+        return preferDirect ? context.alloc().ioBuffer(size) : context.alloc().heapBuffer(size);
+    }
+
     @Override
     protected void encode(
             ChannelHandlerContext context,
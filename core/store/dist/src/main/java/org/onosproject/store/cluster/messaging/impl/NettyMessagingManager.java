@@ -41,6 +41,8 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
 
 import org.apache.commons.pool.KeyedPoolableObjectFactory;
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
@@ -127,6 +129,13 @@ public class NettyMessagingManager implements MessagingService {
     protected static final boolean TLS_DISABLED = false;
     protected boolean enableNettyTls = TLS_DISABLED;
 
+    protected static final boolean BATCHING_DISABLED = false;
+    protected static final long DEFAULT_BATCH_WINDOW_MICROS = 0;
+    protected static final int DEFAULT_BATCH_MAX_MESSAGES = 64;
+    protected boolean enableNettyBatching = BATCHING_DISABLED;
+    protected long batchWindowMicros = DEFAULT_BATCH_WINDOW_MICROS;
+    protected int batchMaxMessages = DEFAULT_BATCH_MAX_MESSAGES;
+
     protected String ksLocation;
     protected String tsLocation;
     protected char[] ksPwd;
@@ -139,6 +148,7 @@ public class NettyMessagingManager implements MessagingService {
     public void activate() throws Exception {
         ControllerNode localNode = clusterMetadataService.getLocalNode();
         getTlsParameters();
+        getBatchingParameters();
 
         if (started.get()) {
             log.warn("Already running at local endpoint: {}", localEp);
@@ -196,6 +206,21 @@ public class NettyMessagingManager implements MessagingService {
             }
         }
     }
+
+    private void getBatchingParameters() {
+        String tempString = System.getProperty("enableNettyBatching");
+        enableNettyBatching = Strings.isNullOrEmpty(tempString) ?
+                BATCHING_DISABLED : Boolean.parseBoolean(tempString);
+        tempString = System.getProperty("nettyBatchWindowMicros");
+        batchWindowMicros = Strings.isNullOrEmpty(tempString) ?
+                DEFAULT_BATCH_WINDOW_MICROS : Math.max(0, Long.parseLong(tempString));
+        tempString = System.getProperty("nettyBatchMaxMessages");
+        batchMaxMessages = Strings.isNullOrEmpty(tempString) ?
+                DEFAULT_BATCH_MAX_MESSAGES : Math.max(1, Integer.parseInt(tempString));
+        log.info("enableNettyBatching = {}, batchWindowMicros = {}, batchMaxMessages = {}",
+                 enableNettyBatching, batchWindowMicros, batchMaxMessages);
+    }
+
     private void initEventLoopGroup() {
         // try Epoll first and if that does work, use nio.
         try {
@@ -570,6 +595,10 @@ public class NettyMessagingManager implements MessagingService {
     private final class Connection {
         private final CompletableFuture<Channel> internalFuture;
 
+        // Batching state; only accessed from the channel's event loop
+        private int pendingWrites;
+        private boolean flushScheduled;
+
         public Connection(CompletableFuture<Channel> internalFuture) {
             this.internalFuture = internalFuture;
         }
@@ -584,19 +613,57 @@ public class NettyMessagingManager implements MessagingService {
         public void send(Object message, CompletableFuture<Void> future) {
             internalFuture.whenComplete((channel, throwable) -> {
                 if (throwable == null) {
-                    channel.writeAndFlush(message).addListener(channelFuture -> {
+                    GenericFutureListener<Future<? super Void>> listener = channelFuture -> {
                         if (!channelFuture.isSuccess()) {
                             future.completeExceptionally(channelFuture.cause());
                         } else {
                             future.complete(null);
                         }
-                    });
+                    };
+                    if (enableNettyBatching) {
+                        channel.eventLoop().execute(() -> batchWrite(channel, message, listener));
+                    } else {
+                        channel.writeAndFlush(message).addListener(listener);
+                    }
                 } else {
                     future.completeExceptionally(throwable);
                 }
             });
         }
 
+        /**
+         * Writes a message without flushing it, coalescing the flushes of all
+         * messages written within the batch window or until the batch size
+         * limit is reached. Must be called from the channel's event loop.
+         *
+         * @param channel channel to write to
+         * @param message the message to be sent
+         * @param listener listener notified upon completion of the write
+         */
+        private void batchWrite(Channel channel, Object message,
+                                GenericFutureListener<Future<? super Void>> listener) {
+            channel.write(message).addListener(listener);
+            if (++pendingWrites >= batchMaxMessages) {
+                flush(channel);
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                if (batchWindowMicros > 0) {
+                    channel.eventLoop().schedule(() -> flush(channel), batchWindowMicros, TimeUnit.MICROSECONDS);
+                } else {
+                    // Flush once the writes already queued on the event loop are done
+                    channel.eventLoop().execute(() -> flush(channel));
+                }
+            }
+        }
+
+        private void flush(Channel channel) {
+            if (pendingWrites > 0) {
+                pendingWrites = 0;
+                channel.flush();
+            }
+            flushScheduled = false;
+        }
+
         /**
          * Destroys a channel by closing its channel (if it exists) and
          * cancelling its future.
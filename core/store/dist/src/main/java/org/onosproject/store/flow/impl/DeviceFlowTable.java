@@ -0,0 +1,461 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Flow entries of a single device, indexed by the primitive flow id.
+ * <p>
+ * Entries live in an open addressing table with linear probing over parallel
+ * arrays of flow ids and slots, so that no per-entry map nodes or boxed keys
+ * are allocated. A slot holds either the only entry with that flow id or, in
+ * the rare case of entries sharing a flow id, an array of them. Like
+ * {@link org.onlab.util.ExtendedSet}, lookups return the stored entry equal to
+ * the given rule.
+ * <p>
+ * To reconcile the table with the entries reported by the device, entries are
+ * marked with the round of the last reconciliation which saw them, which
+ * spares copying the table on every statistics poll.
+ * </p>
+ */
+final class DeviceFlowTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] flowIds = new long[INITIAL_CAPACITY];
+    private Object[] slots = new Object[INITIAL_CAPACITY];
+    private int usedSlots;
+    private int size;
+
+    // reconciliation marks, parallel to the slots: the entry at a position of
+    // a slot is marked if the slot's round is current and the position's bit
+    // is set; entries are marked when added so that they aren't reported
+    // missing by a reconciliation in progress
+    private long[] markRounds = new long[INITIAL_CAPACITY];
+    private long[] markBits = new long[INITIAL_CAPACITY];
+    private long round;
+
+    /**
+     * Returns the stored entry equal to the specified rule.
+     *
+     * @param rule flow rule
+     * @return stored flow entry, or null if none
+     */
+    StoredFlowEntry get(FlowRule rule) {
+        lock.readLock().lock();
+        try {
+            int index = indexOf(rule.id().value());
+            return index < 0 ? null : find(slots[index], rule);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the specified entry, replacing any stored entry equal to it.
+     *
+     * @param entry flow entry
+     * @return replaced flow entry, or null if none
+     */
+    StoredFlowEntry put(StoredFlowEntry entry) {
+        checkNotNull(entry);
+        lock.writeLock().lock();
+        try {
+            long flowId = entry.id().value();
+            int index = indexOf(flowId);
+            if (index < 0) {
+                index = -index - 1;
+                flowIds[index] = flowId;
+                slots[index] = entry;
+                markRounds[index] = round;
+                markBits[index] = 1L;
+                usedSlots++;
+                size++;
+                if (usedSlots * 4 >= slots.length * 3) {
+                    rehash(slots.length * 2);
+                }
+                return null;
+            }
+
+            Object slot = slots[index];
+            if (slot instanceof StoredFlowEntry) {
+                StoredFlowEntry stored = (StoredFlowEntry) slot;
+                if (entry.equals(stored)) {
+                    slots[index] = entry;
+                    return stored;
+                }
+                slots[index] = new StoredFlowEntry[] {stored, entry};
+                markEntry(index, 1);
+                size++;
+                return null;
+            }
+
+            StoredFlowEntry[] entries = (StoredFlowEntry[]) slot;
+            for (int i = 0; i < entries.length; i++) {
+                if (entry.equals(entries[i])) {
+                    StoredFlowEntry stored = entries[i];
+                    entries[i] = entry;
+                    return stored;
+                }
+            }
+            entries = Arrays.copyOf(entries, entries.length + 1);
+            entries[entries.length - 1] = entry;
+            slots[index] = entries;
+            markEntry(index, entries.length - 1);
+            size++;
+            return null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the stored entry equal to the specified rule if it satisfies
+     * the given test.
+     *
+     * @param rule      flow rule
+     * @param entryTest predicate evaluated against the stored entry; true
+     *                  implies the entry should be removed
+     * @return removed flow entry, or null if none
+     */
+    StoredFlowEntry remove(FlowRule rule, Predicate<StoredFlowEntry> entryTest) {
+        lock.writeLock().lock();
+        try {
+            int index = indexOf(rule.id().value());
+            if (index < 0) {
+                return null;
+            }
+            Object slot = slots[index];
+            if (slot instanceof StoredFlowEntry) {
+                StoredFlowEntry stored = (StoredFlowEntry) slot;
+                if (!rule.equals(stored) || !entryTest.test(stored)) {
+                    return null;
+                }
+                deleteSlot(index);
+                size--;
+                return stored;
+            }
+
+            StoredFlowEntry[] entries = (StoredFlowEntry[]) slot;
+            for (int i = 0; i < entries.length; i++) {
+                if (rule.equals(entries[i])) {
+                    StoredFlowEntry stored = entries[i];
+                    if (!entryTest.test(stored)) {
+                        return null;
+                    }
+                    if (entries.length == 2) {
+                        slots[index] = entries[1 - i];
+                    } else {
+                        StoredFlowEntry[] remaining = new StoredFlowEntry[entries.length - 1];
+                        System.arraycopy(entries, 0, remaining, 0, i);
+                        System.arraycopy(entries, i + 1, remaining, i, remaining.length - i);
+                        slots[index] = remaining;
+                    }
+                    markBits[index] = withoutBit(markBits[index], i);
+                    size--;
+                    return stored;
+                }
+            }
+            return null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of all stored entries.
+     *
+     * @return list of flow entries
+     */
+    ImmutableList<StoredFlowEntry> entries() {
+        lock.readLock().lock();
+        try {
+            StoredFlowEntry[] result = new StoredFlowEntry[size];
+            int count = 0;
+            for (Object slot : slots) {
+                if (slot instanceof StoredFlowEntry) {
+                    result[count++] = (StoredFlowEntry) slot;
+                } else if (slot != null) {
+                    StoredFlowEntry[] entries = (StoredFlowEntry[]) slot;
+                    System.arraycopy(entries, 0, result, count, entries.length);
+                    count += entries.length;
+                }
+            }
+            return ImmutableList.copyOf(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the stored entries with the specified flow id.
+     *
+     * @param flowId flow identifier
+     * @return list of flow entries
+     */
+    List<StoredFlowEntry> entries(FlowId flowId) {
+        lock.readLock().lock();
+        try {
+            int index = indexOf(flowId.value());
+            if (index < 0) {
+                return ImmutableList.of();
+            }
+            Object slot = slots[index];
+            return slot instanceof StoredFlowEntry ?
+                    ImmutableList.of((StoredFlowEntry) slot) :
+                    ImmutableList.copyOf((StoredFlowEntry[]) slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of stored entries.
+     *
+     * @return number of flow entries
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all stored entries.
+     */
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            flowIds = new long[INITIAL_CAPACITY];
+            slots = new Object[INITIAL_CAPACITY];
+            markRounds = new long[INITIAL_CAPACITY];
+            markBits = new long[INITIAL_CAPACITY];
+            usedSlots = 0;
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reconciles the stored entries with the entries reported by the device.
+     * Each reported entry is passed to the handler along with the stored entry
+     * equal to it, or null if none; the handler is invoked without holding
+     * the table lock. Reconciliations of the table are serialized.
+     *
+     * @param reported entries reported by the device
+     * @param handler  receives each reported entry and its stored entry
+     * @param <T>      type of the reported entries
+     * @return stored entries which were not reported
+     */
+    synchronized <T extends FlowRule> List<StoredFlowEntry> reconcile(Iterable<T> reported,
+                                                                     BiConsumer<T, StoredFlowEntry> handler) {
+        long current = beginRound();
+        for (T rule : reported) {
+            handler.accept(rule, mark(rule));
+        }
+        return unmarked(current);
+    }
+
+    private long beginRound() {
+        lock.writeLock().lock();
+        try {
+            return ++round;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns the stored entry equal to the rule, marking it in the current round.
+    private StoredFlowEntry mark(FlowRule rule) {
+        lock.writeLock().lock();
+        try {
+            int index = indexOf(rule.id().value());
+            if (index < 0) {
+                return null;
+            }
+            Object slot = slots[index];
+            if (slot instanceof StoredFlowEntry) {
+                if (!rule.equals(slot)) {
+                    return null;
+                }
+                markEntry(index, 0);
+                return (StoredFlowEntry) slot;
+            }
+            StoredFlowEntry[] entries = (StoredFlowEntry[]) slot;
+            for (int i = 0; i < entries.length; i++) {
+                if (rule.equals(entries[i])) {
+                    markEntry(index, i);
+                    return entries[i];
+                }
+            }
+            return null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns the entries not marked in the given round.
+    private List<StoredFlowEntry> unmarked(long current) {
+        lock.readLock().lock();
+        try {
+            List<StoredFlowEntry> result = null;
+            for (int index = 0; index < slots.length; index++) {
+                Object slot = slots[index];
+                if (slot == null) {
+                    continue;
+                }
+                StoredFlowEntry[] entries = slot instanceof StoredFlowEntry ?
+                        null : (StoredFlowEntry[]) slot;
+                int count = entries == null ? 1 : entries.length;
+                for (int i = 0; i < count; i++) {
+                    if (!isMarked(index, i, current)) {
+                        if (result == null) {
+                            result = new ArrayList<>();
+                        }
+                        result.add(entries == null ? (StoredFlowEntry) slot : entries[i]);
+                    }
+                }
+            }
+            return result == null ? ImmutableList.of() : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void markEntry(int index, int position) {
+        if (position >= Long.SIZE) {
+            return;
+        }
+        if (markRounds[index] != round) {
+            markRounds[index] = round;
+            markBits[index] = 0L;
+        }
+        markBits[index] |= 1L << position;
+    }
+
+    // Entries beyond the capacity of the mark bits are never reported missing.
+    private boolean isMarked(int index, int position, long current) {
+        return position >= Long.SIZE ||
+                (markRounds[index] == current && (markBits[index] & (1L << position)) != 0);
+    }
+
+    // Removes the bit at the given position, shifting the higher bits down.
+    private static long withoutBit(long bits, int position) {
+        if (position >= Long.SIZE) {
+            return bits;
+        }
+        long low = bits & ((1L << position) - 1);
+        long high = position + 1 < Long.SIZE ? (bits >>> (position + 1)) << position : 0L;
+        return low | high;
+    }
+
+    private static StoredFlowEntry find(Object slot, FlowRule rule) {
+        if (slot instanceof StoredFlowEntry) {
+            return rule.equals(slot) ? (StoredFlowEntry) slot : null;
+        }
+        for (StoredFlowEntry entry : (StoredFlowEntry[]) slot) {
+            if (rule.equals(entry)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static int home(long flowId, int mask) {
+        // flow ids carry structure in their bit fields; spread them before masking
+        long h = flowId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    // Returns the slot holding the flow id, or -(free slot) - 1 if absent.
+    private int indexOf(long flowId) {
+        int mask = slots.length - 1;
+        for (int i = home(flowId, mask); ; i = (i + 1) & mask) {
+            if (slots[i] == null) {
+                return -i - 1;
+            }
+            if (flowIds[i] == flowId) {
+                return i;
+            }
+        }
+    }
+
+    // Backward shift deletion keeps probe sequences intact without tombstones.
+    private void deleteSlot(int index) {
+        int mask = slots.length - 1;
+        int hole = index;
+        slots[hole] = null;
+        for (int i = (hole + 1) & mask; slots[i] != null; i = (i + 1) & mask) {
+            int home = home(flowIds[i], mask);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                flowIds[hole] = flowIds[i];
+                slots[hole] = slots[i];
+                markRounds[hole] = markRounds[i];
+                markBits[hole] = markBits[i];
+                slots[i] = null;
+                hole = i;
+            }
+        }
+        usedSlots--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldFlowIds = flowIds;
+        Object[] oldSlots = slots;
+        long[] oldMarkRounds = markRounds;
+        long[] oldMarkBits = markBits;
+        flowIds = new long[capacity];
+        slots = new Object[capacity];
+        markRounds = new long[capacity];
+        markBits = new long[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != null) {
+                int j = home(oldFlowIds[i], mask);
+                while (slots[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                flowIds[j] = oldFlowIds[i];
+                slots[j] = oldSlots[i];
+                markRounds[j] = oldMarkRounds[i];
+                markBits[j] = oldMarkBits[i];
+            }
+        }
+    }
+}
@@ -16,7 +16,6 @@
 package org.onosproject.store.flow.impl;
 
  import com.google.common.collect.ImmutableList;
- import com.google.common.collect.ImmutableMap;
  import com.google.common.collect.Iterables;
  import com.google.common.collect.Maps;
  import com.google.common.collect.Sets;
@@ -78,6 +77,7 @@ package org.onosproject.store.flow.impl;
  import org.osgi.service.component.ComponentContext;
  import org.slf4j.Logger;
 
+ import java.util.Collection;
  import java.util.Collections;
  import java.util.Dictionary;
  import java.util.HashSet;
@@ -91,7 +91,7 @@ package org.onosproject.store.flow.impl;
  import java.util.concurrent.ScheduledFuture;
  import java.util.concurrent.TimeUnit;
  import java.util.concurrent.atomic.AtomicInteger;
- import java.util.concurrent.atomic.AtomicReference;
+ import java.util.function.BiConsumer;
  import java.util.stream.Collectors;
 
  import static com.google.common.base.Strings.isNullOrEmpty;
@@ -117,8 +117,8 @@ public class DistributedFlowRuleStore
     private static final boolean DEFAULT_PERSISTENCE_ENABLED = false;
     private static final int DEFAULT_BACKUP_PERIOD_MILLIS = 2000;
     private static final long FLOW_RULE_STORE_TIMEOUT_MILLIS = 5000;
-    // number of devices whose flow entries will be backed up in one communication round
-    private static final int FLOW_TABLE_BACKUP_BATCH_SIZE = 1;
+    // number of coalesced changes kept per device before falling back to a full backup
+    private static final int MAX_BACKUP_LOG_SIZE = 10000;
 
     @Property(name = "msgHandlerPoolSize", intValue = MESSAGE_HANDLER_THREAD_POOL_SIZE,
             label = "Number of threads in the message handler pool")
@@ -180,6 +180,7 @@ public class DistributedFlowRuleStore
             KryoNamespace.newBuilder()
                     .register(DistributedStoreSerializers.STORE_COMMON)
                     .nextId(DistributedStoreSerializers.STORE_CUSTOM_BEGIN)
+                    .register(FlowTableBackup.class)
                     .build("FlowRuleStore"));
 
     protected static final KryoNamespace.Builder SERIALIZER_BUILDER = KryoNamespace.newBuilder()
@@ -406,6 +407,16 @@ public class DistributedFlowRuleStore
                                Collections.emptyList());
     }
 
+    @Override
+    public Collection<FlowEntry> reconcileFlowEntries(DeviceId deviceId,
+                                                      Iterable<FlowEntry> reported,
+                                                      BiConsumer<FlowEntry, FlowEntry> handler) {
+        if (!Objects.equals(local, mastershipService.getMasterFor(deviceId))) {
+            return FlowRuleStore.super.reconcileFlowEntries(deviceId, reported, handler);
+        }
+        return ImmutableList.copyOf(flowTable.reconcile(deviceId, reported, handler));
+    }
+
     @Override
     public void storeFlowRule(FlowRule rule) {
         storeBatch(new FlowRuleBatchOperation(
@@ -499,6 +510,7 @@ public class DistributedFlowRuleStore
                             if (entry != null) {
                                 //FIXME modification of "stored" flow entry outside of flow table
                                 entry.setState(FlowEntryState.PENDING_REMOVE);
+                                flowTable.updated(entry);
                                 log.debug("Setting state of rule to pending remove: {}", entry);
                                 return op;
                             }
@@ -531,6 +543,7 @@ public class DistributedFlowRuleStore
             if (stored != null &&
                     stored.state() != FlowEntryState.PENDING_ADD) {
                 stored.setState(FlowEntryState.PENDING_ADD);
+                flowTable.updated(stored);
                 return new FlowRuleEvent(Type.RULE_UPDATED, rule);
             }
         }
@@ -560,6 +573,7 @@ public class DistributedFlowRuleStore
             stored.setLastSeen();
             if (stored.state() == FlowEntryState.PENDING_ADD) {
                 stored.setState(FlowEntryState.ADDED);
+                flowTable.updated(stored);
                 return new FlowRuleEvent(Type.RULE_ADDED, rule);
             }
             return new FlowRuleEvent(Type.RULE_UPDATED, rule);
@@ -657,13 +671,16 @@ public class DistributedFlowRuleStore
 
     private class InternalFlowTable implements ReplicaInfoEventListener {
 
-        //TODO replace the Map<V,V> with ExtendedSet
+        private final Map<DeviceId, DeviceFlowTable> flowEntries = Maps.newConcurrentMap();
+        // on-disk copies of the flow tables, present only if persistence is enabled
         private final Map<DeviceId, Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>>
-                flowEntries = Maps.newConcurrentMap();
+                persistentFlowEntries = Maps.newConcurrentMap();
 
-        private final Map<DeviceId, Long> lastBackupTimes = Maps.newConcurrentMap();
-        private final Map<DeviceId, Long> lastUpdateTimes = Maps.newConcurrentMap();
-        private final Map<DeviceId, NodeId> lastBackupNodes = Maps.newConcurrentMap();
+        // changes not yet replicated, for devices this node is the master of
+        private final Map<DeviceId, FlowChangeLog> changeLogs = Maps.newConcurrentMap();
+        // change log position of backup copies held on behalf of other masters
+        private final Map<DeviceId, Long> backupEpochs = Maps.newConcurrentMap();
+        private final Map<DeviceId, Long> backupSequences = Maps.newConcurrentMap();
 
         @Override
         public void event(ReplicaInfoEvent event) {
@@ -671,6 +688,17 @@ public class DistributedFlowRuleStore
         }
 
         private void handleEvent(ReplicaInfoEvent event) {
+            if (event.type() == ReplicaInfoEvent.Type.MASTER_CHANGED) {
+                // Change logs and backup positions only hold within the mastership
+                // term they were built in. A former master's log must not resume
+                // with its old epoch, and a backup copy may have diverged, so both
+                // sides start over and the next backup is a full one.
+                DeviceId deviceId = event.subject();
+                changeLogs.remove(deviceId);
+                backupEpochs.remove(deviceId);
+                backupSequences.remove(deviceId);
+                return;
+            }
             if (!backupEnabled) {
                 return;
             }
@@ -682,7 +710,7 @@ public class DistributedFlowRuleStore
                     return;
                 }
                 NodeId newBackupNode = getBackupNode(deviceId);
-                NodeId currentBackupNode = lastBackupNodes.get(deviceId);
+                NodeId currentBackupNode = getChangeLog(deviceId).backupNode();
                 if (Objects.equals(newBackupNode, currentBackupNode)) {
                     // ignore since backup location hasn't changed.
                     return;
@@ -694,149 +722,172 @@ public class DistributedFlowRuleStore
                     // is chosen.
                     log.warn("Lost backup location {} for deviceId {} and no alternate backup node exists. "
                             + "Flows can be lost if the master goes down", currentBackupNode, deviceId);
-                    lastBackupNodes.remove(deviceId);
-                    lastBackupTimes.remove(deviceId);
+                    getChangeLog(deviceId).resetBackupNode();
                     return;
                     // TODO: Pick any available node as backup and ensure hand-off occurs when
                     // a new master is elected.
                 }
                 log.debug("Backup location for {} has changed from {} to {}.",
                         deviceId, currentBackupNode, newBackupNode);
-                backupSenderExecutor.schedule(() -> backupFlowEntries(newBackupNode, Sets.newHashSet(deviceId)),
+                backupSenderExecutor.schedule(() -> backupFlowTable(newBackupNode, deviceId),
                         0,
                         TimeUnit.SECONDS);
             }
         }
 
         private void sendBackups(NodeId nodeId, Set<DeviceId> deviceIds) {
-            // split up the devices into smaller batches and send them separately.
-            Iterables.partition(deviceIds, FLOW_TABLE_BACKUP_BATCH_SIZE)
-                     .forEach(ids -> backupFlowEntries(nodeId, Sets.newHashSet(ids)));
+            // each device is backed up in a message of its own
+            deviceIds.forEach(id -> backupFlowTable(nodeId, id));
         }
 
-        private void backupFlowEntries(NodeId nodeId, Set<DeviceId> deviceIds) {
-            if (deviceIds.isEmpty()) {
+        private void backupFlowTable(NodeId nodeId, DeviceId deviceId) {
+            FlowChangeLog changeLog = getChangeLog(deviceId);
+            FlowTableBackup backup = changeLog.prepareBackup(nodeId, () -> getStoredFlowEntries(deviceId));
+            if (backup == null) {
+                // previous backup still in flight; retried on the next run
                 return;
             }
-            log.debug("Sending flowEntries for devices {} to {} as backup.", deviceIds, nodeId);
-            Map<DeviceId, Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>>
-                    deviceFlowEntries = Maps.newConcurrentMap();
-            deviceIds.forEach(id -> deviceFlowEntries.put(id, ImmutableMap.copyOf(getFlowTable(id))));
-            clusterCommunicator.<Map<DeviceId,
-                                 Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>>,
-                                 Set<DeviceId>>
-                    sendAndReceive(deviceFlowEntries,
-                                   FLOW_TABLE_BACKUP,
-                                   SERIALIZER::encode,
-                                   SERIALIZER::decode,
-                                   nodeId)
-                    .whenComplete((backedupDevices, error) -> {
-                        Set<DeviceId> devicesNotBackedup = error != null ?
-                            deviceFlowEntries.keySet() :
-                            Sets.difference(deviceFlowEntries.keySet(), backedupDevices);
-                        if (devicesNotBackedup.size() > 0) {
-                            log.warn("Failed to backup devices: {}. Reason: {}",
-                                     devicesNotBackedup, error.getMessage());
-                        }
-                        if (backedupDevices != null) {
-                            backedupDevices.forEach(id -> {
-                                lastBackupTimes.put(id, System.currentTimeMillis());
-                                lastBackupNodes.put(id, nodeId);
-                            });
+            log.debug("Sending {} to {}", backup, nodeId);
+            clusterCommunicator.<FlowTableBackup, Boolean>sendAndReceive(backup,
+                                                                         FLOW_TABLE_BACKUP,
+                                                                         SERIALIZER::encode,
+                                                                         SERIALIZER::decode,
+                                                                         nodeId)
+                    .whenComplete((accepted, error) -> {
+                        if (error != null) {
+                            log.warn("Failed to backup device: {}. Reason: {}", deviceId, error.getMessage());
+                        } else if (!Boolean.TRUE.equals(accepted)) {
+                            log.debug("Backup of {} rejected by {}; falling back to full backup",
+                                      deviceId, nodeId);
                         }
+                        changeLog.backupCompleted(backup, error == null && Boolean.TRUE.equals(accepted));
                     });
         }
 
+        private FlowChangeLog getChangeLog(DeviceId deviceId) {
+            return changeLogs.computeIfAbsent(deviceId, id -> new FlowChangeLog(id, MAX_BACKUP_LOG_SIZE));
+        }
+
+        /**
+         * Records that a stored flow entry was modified in place.
+         *
+         * @param entry modified flow entry
+         */
+        public void updated(StoredFlowEntry entry) {
+            getChangeLog(entry.deviceId()).updated(entry);
+        }
+
         /**
          * Returns the flow table for specified device.
          *
          * @param deviceId identifier of the device
-         * @return Map representing Flow Table of given device.
+         * @return flow table of given device.
          */
-        private Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> getFlowTable(DeviceId deviceId) {
-            if (persistenceEnabled) {
-                return flowEntries.computeIfAbsent(deviceId, id -> persistenceService
-                        .<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>persistentMapBuilder()
-                        .withName("FlowTable:" + deviceId.toString())
-                        .withSerializer(new Serializer() {
-                            @Override
-                            public <T> byte[] encode(T object) {
-                                return SERIALIZER.encode(object);
-                            }
+        private DeviceFlowTable getFlowTable(DeviceId deviceId) {
+            return flowEntries.computeIfAbsent(deviceId, id -> {
+                DeviceFlowTable table = new DeviceFlowTable();
+                if (persistenceEnabled) {
+                    getPersistentFlowTable(id).values()
+                            .forEach(entries -> entries.values().forEach(table::put));
+                }
+                return table;
+            });
+        }
+
+        private Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> getPersistentFlowTable(DeviceId deviceId) {
+            return persistentFlowEntries.computeIfAbsent(deviceId, id -> persistenceService
+                    .<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>persistentMapBuilder()
+                    .withName("FlowTable:" + deviceId.toString())
+                    .withSerializer(new Serializer() {
+                        @Override
+                        public <T> byte[] encode(T object) {
+                            return SERIALIZER.encode(object);
+                        }
 
-                            @Override
-                            public <T> T decode(byte[] bytes) {
-                                return SERIALIZER.decode(bytes);
-                            }
-                        })
-                        .build());
-            } else {
-                return flowEntries.computeIfAbsent(deviceId, id -> Maps.newConcurrentMap());
-            }
+                        @Override
+                        public <T> T decode(byte[] bytes) {
+                            return SERIALIZER.decode(bytes);
+                        }
+                    })
+                    .build());
         }
 
-        private Map<StoredFlowEntry, StoredFlowEntry> getFlowEntriesInternal(DeviceId deviceId, FlowId flowId) {
-            return getFlowTable(deviceId).computeIfAbsent(flowId, id -> Maps.newConcurrentMap());
+        /**
+         * Writes the entries with the given flow id through to disk, if
+         * persistence is enabled.
+         *
+         * @param deviceId identifier of the device
+         * @param flowId   flow identifier
+         */
+        private void persist(DeviceId deviceId, FlowId flowId) {
+            if (!persistenceEnabled) {
+                return;
+            }
+            List<StoredFlowEntry> entries = getFlowTable(deviceId).entries(flowId);
+            if (entries.isEmpty()) {
+                getPersistentFlowTable(deviceId).remove(flowId);
+            } else {
+                getPersistentFlowTable(deviceId).put(flowId, Maps.newHashMap(
+                        Maps.uniqueIndex(entries, entry -> entry)));
+            }
         }
 
         private StoredFlowEntry getFlowEntryInternal(FlowRule rule) {
-            return getFlowEntriesInternal(rule.deviceId(), rule.id()).get(rule);
+            return getFlowTable(rule.deviceId()).get(rule);
         }
 
-        private Set<FlowEntry> getFlowEntriesInternal(DeviceId deviceId) {
-            return getFlowTable(deviceId).values().stream()
-                        .flatMap(m -> m.values().stream())
-                        .collect(Collectors.toSet());
+        private List<StoredFlowEntry> getStoredFlowEntries(DeviceId deviceId) {
+            return getFlowTable(deviceId).entries();
         }
 
         public StoredFlowEntry getFlowEntry(FlowRule rule) {
             return getFlowEntryInternal(rule);
         }
 
-        public Set<FlowEntry> getFlowEntries(DeviceId deviceId) {
-            return getFlowEntriesInternal(deviceId);
+        public List<FlowEntry> getFlowEntries(DeviceId deviceId) {
+            // the snapshot is shared as is, without copying it into a set
+            return ImmutableList.copyOf(getFlowTable(deviceId).entries());
+        }
+
+        public List<StoredFlowEntry> reconcile(DeviceId deviceId, Iterable<FlowEntry> reported,
+                                               BiConsumer<FlowEntry, FlowEntry> handler) {
+            return getFlowTable(deviceId).reconcile(reported, handler::accept);
         }
 
         public void add(FlowEntry rule) {
-            getFlowEntriesInternal(rule.deviceId(), rule.id())
-                    .compute((StoredFlowEntry) rule, (k, stored) -> {
-                        //TODO compare stored and rule timestamps
-                        //TODO the key is not updated
-                        return (StoredFlowEntry) rule;
-                    });
-            lastUpdateTimes.put(rule.deviceId(), System.currentTimeMillis());
+            //TODO compare stored and rule timestamps
+            getFlowTable(rule.deviceId()).put((StoredFlowEntry) rule);
+            persist(rule.deviceId(), rule.id());
+            getChangeLog(rule.deviceId()).updated((StoredFlowEntry) rule);
         }
 
         public FlowEntry remove(DeviceId deviceId, FlowEntry rule) {
-            final AtomicReference<FlowEntry> removedRule = new AtomicReference<>();
-            getFlowEntriesInternal(rule.deviceId(), rule.id())
-                .computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
-                    if (rule instanceof DefaultFlowEntry) {
-                        DefaultFlowEntry toRemove = (DefaultFlowEntry) rule;
-                        if (stored instanceof DefaultFlowEntry) {
-                            DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
-                            if (toRemove.created() < storedEntry.created()) {
-                                log.debug("Trying to remove more recent flow entry {} (stored: {})",
-                                          toRemove, stored);
-                                // the key is not updated, removedRule remains null
-                                return stored;
-                            }
-                        }
+            StoredFlowEntry removed = getFlowTable(rule.deviceId()).remove(rule, stored -> {
+                if (rule instanceof DefaultFlowEntry && stored instanceof DefaultFlowEntry) {
+                    DefaultFlowEntry toRemove = (DefaultFlowEntry) rule;
+                    DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
+                    if (toRemove.created() < storedEntry.created()) {
+                        log.debug("Trying to remove more recent flow entry {} (stored: {})",
+                                  toRemove, stored);
+                        return false;
                     }
-                    removedRule.set(stored);
-                    return null;
-                });
+                }
+                return true;
+            });
 
-            if (removedRule.get() != null) {
-                lastUpdateTimes.put(deviceId, System.currentTimeMillis());
-                return removedRule.get();
-            } else {
-                return null;
+            if (removed != null) {
+                persist(rule.deviceId(), rule.id());
+                getChangeLog(deviceId).removed(removed);
             }
+            return removed;
         }
 
         public void purgeFlowRule(DeviceId deviceId) {
             flowEntries.remove(deviceId);
+            persistentFlowEntries.remove(deviceId);
+            changeLogs.remove(deviceId);
+            backupEpochs.remove(deviceId);
+            backupSequences.remove(deviceId);
         }
 
         private NodeId getBackupNode(DeviceId deviceId) {
@@ -855,13 +906,8 @@ public class DistributedFlowRuleStore
                             .stream()
                             .filter(mastershipService::isLocalMaster)
                             .filter(deviceId -> {
-                                Long lastBackupTime = lastBackupTimes.get(deviceId);
-                                Long lastUpdateTime = lastUpdateTimes.get(deviceId);
-                                NodeId lastBackupNode = lastBackupNodes.get(deviceId);
                                 NodeId newBackupNode = getBackupNode(deviceId);
-                                return lastBackupTime == null
-                                        ||  !Objects.equals(lastBackupNode, newBackupNode)
-                                        || (lastUpdateTime != null && lastUpdateTime > lastBackupTime);
+                                return newBackupNode != null && getChangeLog(deviceId).needsBackup(newBackupNode);
                             })
                             .collect(Collectors.toSet());
 
@@ -881,25 +927,40 @@ public class DistributedFlowRuleStore
             }
         }
 
-        private Set<DeviceId> onBackupReceipt(Map<DeviceId,
-                Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>> flowTables) {
-            log.debug("Received flowEntries for {} to backup", flowTables.keySet());
-            Set<DeviceId> backedupDevices = Sets.newHashSet();
+        private Boolean onBackupReceipt(FlowTableBackup backup) {
+            DeviceId deviceId = backup.deviceId();
+            log.debug("Received {} to backup", backup);
+            // Only process those devices are that not managed by the local node.
+            if (Objects.equals(local, mastershipService.getMasterFor(deviceId))) {
+                return false;
+            }
             try {
-                flowTables.forEach((deviceId, deviceFlowTable) -> {
-                    // Only process those devices are that not managed by the local node.
-                    if (!Objects.equals(local, mastershipService.getMasterFor(deviceId))) {
-                        Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> backupFlowTable =
-                                getFlowTable(deviceId);
-                        backupFlowTable.clear();
-                        backupFlowTable.putAll(deviceFlowTable);
-                        backedupDevices.add(deviceId);
+                DeviceFlowTable backupFlowTable = getFlowTable(deviceId);
+                if (backup.isFull()) {
+                    backupFlowTable.clear();
+                    if (persistenceEnabled) {
+                        getPersistentFlowTable(deviceId).clear();
                     }
-                });
+                    backup.updated().forEach(backupFlowTable::put);
+                } else {
+                    // a delta only applies on top of the copy it was computed against
+                    if (!Objects.equals(backupEpochs.get(deviceId), backup.epoch())
+                            || !Objects.equals(backupSequences.get(deviceId), backup.baseSequence())) {
+                        return false;
+                    }
+                    backup.removed().forEach(entry -> backupFlowTable.remove(entry, stored -> true));
+                    backup.updated().forEach(backupFlowTable::put);
+                }
+                backup.removed().forEach(entry -> persist(deviceId, entry.id()));
+                backup.updated().forEach(entry -> persist(deviceId, entry.id()));
+                backupEpochs.put(deviceId, backup.epoch());
+                backupSequences.put(deviceId, backup.sequence());
+                return true;
             } catch (Exception e) {
                 log.warn("Failure processing backup request", e);
+                backupSequences.remove(deviceId);
+                return false;
             }
-            return backedupDevices;
         }
     }
 
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.Maps;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Log of flow table changes of a single device which have not yet been
+ * replicated to the backup node.
+ * <p>
+ * Changes are coalesced per flow entry, so the log never holds more than one
+ * record for any entry. Once the number of records exceeds the configured
+ * capacity the log is discarded and the next backup falls back to a full copy
+ * of the flow table.
+ */
+final class FlowChangeLog {
+
+    /**
+     * Sequence number denoting that the backup node holds no usable copy.
+     */
+    static final long NO_SEQUENCE = -1;
+
+    private final DeviceId deviceId;
+    private final int capacity;
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+
+    private final Map<StoredFlowEntry, StoredFlowEntry> updated = Maps.newHashMap();
+    private final Map<StoredFlowEntry, StoredFlowEntry> removed = Maps.newHashMap();
+    private long sequence = 0;
+    private long backupSequence = NO_SEQUENCE;
+    private NodeId backupNode;
+    private boolean inFlight;
+    private boolean overflowed;
+
+    /**
+     * Creates a change log for the specified device.
+     *
+     * @param deviceId device identifier
+     * @param capacity maximum number of change records to retain
+     */
+    FlowChangeLog(DeviceId deviceId, int capacity) {
+        this.deviceId = deviceId;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records that a flow entry was added or updated.
+     *
+     * @param entry flow entry
+     */
+    synchronized void updated(StoredFlowEntry entry) {
+        sequence++;
+        if (isRecording()) {
+            removed.remove(entry);
+            updated.put(entry, entry);
+            checkCapacity();
+        }
+    }
+
+    /**
+     * Records that a flow entry was removed.
+     *
+     * @param entry flow entry
+     */
+    synchronized void removed(StoredFlowEntry entry) {
+        sequence++;
+        if (isRecording()) {
+            updated.remove(entry);
+            removed.put(entry, entry);
+            checkCapacity();
+        }
+    }
+
+    // Changes are only worth keeping if they can be shipped as a delta on top
+    // of a copy the backup node holds or is about to hold.
+    private boolean isRecording() {
+        return !overflowed && (backupSequence != NO_SEQUENCE || inFlight);
+    }
+
+    private void checkCapacity() {
+        if (updated.size() + removed.size() > capacity) {
+            overflowed = true;
+            backupSequence = NO_SEQUENCE;
+            updated.clear();
+            removed.clear();
+        }
+    }
+
+    /**
+     * Returns whether a backup to the specified node is due.
+     *
+     * @param node backup node
+     * @return true if the backup node is missing changes
+     */
+    synchronized boolean needsBackup(NodeId node) {
+        return !inFlight && (!Objects.equals(backupNode, node) || backupSequence != sequence);
+    }
+
+    /**
+     * Prepares the next backup message for the specified node and marks the
+     * backup as in flight. The result is a delta if the node is known to hold
+     * an up to date base copy, a full backup otherwise.
+     *
+     * @param node    backup node
+     * @param entries supplier of all current flow entries, used for full backups
+     * @return backup message, or null if a backup is already in flight
+     */
+    FlowTableBackup prepareBackup(NodeId node, Supplier<Collection<StoredFlowEntry>> entries) {
+        long snapshotSequence;
+        synchronized (this) {
+            if (inFlight) {
+                return null;
+            }
+            inFlight = true;
+            if (Objects.equals(backupNode, node) && backupSequence != NO_SEQUENCE) {
+                FlowTableBackup delta = FlowTableBackup.delta(deviceId, epoch, backupSequence, sequence,
+                                                              updated.values(), removed.values());
+                updated.clear();
+                removed.clear();
+                return delta;
+            }
+            backupNode = node;
+            backupSequence = NO_SEQUENCE;
+            overflowed = false;
+            updated.clear();
+            removed.clear();
+            snapshotSequence = sequence;
+        }
+        // Changes made while the table is copied are also recorded and sent
+        // again with the next delta, which is safe as applying them is idempotent.
+        return FlowTableBackup.full(deviceId, epoch, snapshotSequence, entries.get());
+    }
+
+    /**
+     * Records the outcome of a backup produced by {@link #prepareBackup}.
+     *
+     * @param backup   backup message that was sent
+     * @param accepted true if the backup node applied the message
+     */
+    synchronized void backupCompleted(FlowTableBackup backup, boolean accepted) {
+        inFlight = false;
+        if (accepted && !overflowed && backupNode != null) {
+            backupSequence = backup.sequence();
+        } else {
+            invalidate();
+        }
+    }
+
+    /**
+     * Discards the log, forcing the next backup to be a full copy.
+     */
+    synchronized void invalidate() {
+        backupSequence = NO_SEQUENCE;
+        overflowed = false;
+        updated.clear();
+        removed.clear();
+    }
+
+    /**
+     * Forgets the backup node, e.g. when it has been lost.
+     */
+    synchronized void resetBackupNode() {
+        backupNode = null;
+        invalidate();
+    }
+
+    /**
+     * Returns the node the log is replicated to.
+     *
+     * @return backup node, or null if none
+     */
+    synchronized NodeId backupNode() {
+        return backupNode;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import java.util.Collection;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Flow table backup message sent by a device master to its backup node.
+ * <p>
+ * A full backup replaces the backup copy of the flow table. A delta backup
+ * carries only the entries updated or removed since the sequence number the
+ * backup node is expected to hold, and must be rejected by the backup node if
+ * its copy is not at that sequence number.
+ */
+final class FlowTableBackup {
+
+    private final DeviceId deviceId;
+    private final long epoch;
+    private final long baseSequence;
+    private final long sequence;
+    private final boolean full;
+    private final List<StoredFlowEntry> updated;
+    private final List<StoredFlowEntry> removed;
+
+    private FlowTableBackup(DeviceId deviceId, long epoch, long baseSequence, long sequence,
+                            boolean full, Collection<StoredFlowEntry> updated,
+                            Collection<StoredFlowEntry> removed) {
+        this.deviceId = checkNotNull(deviceId);
+        this.epoch = epoch;
+        this.baseSequence = baseSequence;
+        this.sequence = sequence;
+        this.full = full;
+        this.updated = ImmutableList.copyOf(updated);
+        this.removed = ImmutableList.copyOf(removed);
+    }
+
+    /**
+     * Creates a backup message which replaces the entire backup flow table.
+     *
+     * @param deviceId device identifier
+     * @param epoch    epoch of the change log on the master
+     * @param sequence sequence number the backup copy will be at
+     * @param entries  all flow entries of the device
+     * @return full backup message
+     */
+    static FlowTableBackup full(DeviceId deviceId, long epoch, long sequence,
+                                Collection<StoredFlowEntry> entries) {
+        return new FlowTableBackup(deviceId, epoch, FlowChangeLog.NO_SEQUENCE, sequence,
+                                   true, entries, ImmutableList.of());
+    }
+
+    /**
+     * Creates a backup message carrying changes since the given sequence number.
+     *
+     * @param deviceId     device identifier
+     * @param epoch        epoch of the change log on the master
+     * @param baseSequence sequence number the backup copy must be at
+     * @param sequence     sequence number the backup copy will be at
+     * @param updated      flow entries added or updated since base sequence
+     * @param removed      flow entries removed since base sequence
+     * @return delta backup message
+     */
+    static FlowTableBackup delta(DeviceId deviceId, long epoch, long baseSequence, long sequence,
+                                 Collection<StoredFlowEntry> updated,
+                                 Collection<StoredFlowEntry> removed) {
+        return new FlowTableBackup(deviceId, epoch, baseSequence, sequence, false, updated, removed);
+    }
+
+    /**
+     * Returns the device whose flow table is backed up.
+     *
+     * @return device identifier
+     */
+    DeviceId deviceId() {
+        return deviceId;
+    }
+
+    /**
+     * Returns the epoch of the change log the sequence numbers belong to.
+     *
+     * @return change log epoch
+     */
+    long epoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns the sequence number the backup copy must be at for a delta to apply.
+     *
+     * @return base sequence number
+     */
+    long baseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * Returns the sequence number the backup copy is at once this is applied.
+     *
+     * @return sequence number
+     */
+    long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns whether this replaces the entire backup flow table.
+     *
+     * @return true for a full backup
+     */
+    boolean isFull() {
+        return full;
+    }
+
+    /**
+     * Returns the flow entries to add or update.
+     *
+     * @return updated flow entries
+     */
+    List<StoredFlowEntry> updated() {
+        return updated;
+    }
+
+    /**
+     * Returns the flow entries to remove.
+     *
+     * @return removed flow entries
+     */
+    List<StoredFlowEntry> removed() {
+        return removed;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("deviceId", deviceId)
+                .add("epoch", epoch)
+                .add("baseSequence", baseSequence)
+                .add("sequence", sequence)
+                .add("full", full)
+                .add("updated", updated.size())
+                .add("removed", removed.size())
+                .toString();
+    }
+}
@@ -24,13 +24,17 @@ import org.onosproject.net.resource.ResourceAllocation;
 import org.onosproject.net.resource.ResourceConsumerId;
 import org.onosproject.net.resource.Resources;
 import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.TransactionContext;
 import org.onosproject.store.service.Versioned;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.onosproject.store.resource.impl.ConsistentResourceStore.SERIALIZER;
@@ -38,6 +42,7 @@ import static org.onosproject.store.resource.impl.ConsistentResourceStore.SERIAL
 class ConsistentDiscreteResourceSubStore {
     private ConsistentMap<DiscreteResourceId, ResourceConsumerId> consumers;
     private ConsistentMap<DiscreteResourceId, DiscreteResources> childMap;
+    private final EncodedAllocationCache allocationCache = new EncodedAllocationCache();
 
     ConsistentDiscreteResourceSubStore(StorageService service) {
         this.consumers = service.<DiscreteResourceId, ResourceConsumerId>consistentMapBuilder()
@@ -47,9 +52,19 @@ class ConsistentDiscreteResourceSubStore {
         this.childMap = service.<DiscreteResourceId, DiscreteResources>consistentMapBuilder()
                 .withName(MapNames.DISCRETE_CHILD_MAP)
                 .withSerializer(SERIALIZER)
+                .withRelaxedReadConsistency()
                 .build();
 
         childMap.put(Resource.ROOT.id(), DiscreteResources.empty());
+
+        consumers.addListener(event -> {
+            if (event.type() == MapEvent.Type.REMOVE) {
+                allocationCache.released(event.key());
+            } else {
+                allocationCache.allocated(event.key());
+            }
+        });
+        consumers.keySet().forEach(allocationCache::allocated);
     }
 
     TransactionalDiscreteResourceSubStore transactional(TransactionContext tx) {
@@ -90,6 +105,22 @@ class ConsistentDiscreteResourceSubStore {
         return getResourceAllocations(resource.id()).isEmpty();
     }
 
+    // computational complexity: O(n) where n is the number of the children of the parent,
+    // without reading the consumer map for children whose values are encodable
+    <T> Set<DiscreteResource> getAvailableResources(DiscreteResourceId parent, Class<T> cls) {
+        return getChildResources(parent, cls).stream()
+                .filter(x -> allocationCache.isTracked(x) ? !allocationCache.isAllocated(x) : isAvailable(x))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    void allocated(Collection<DiscreteResource> resources) {
+        resources.forEach(x -> allocationCache.allocated(x.id()));
+    }
+
+    void released(Collection<DiscreteResource> resources) {
+        resources.forEach(x -> allocationCache.released(x.id()));
+    }
+
     <T> Stream<DiscreteResource> getAllocatedResources(DiscreteResourceId parent, Class<T> cls) {
         Set<DiscreteResource> children = getChildResources(parent);
         if (children.isEmpty()) {
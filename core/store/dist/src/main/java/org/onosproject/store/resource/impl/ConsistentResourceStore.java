@@ -225,7 +225,14 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
             }
         }
 
-        return tx.commit().join() == CommitStatus.SUCCESS;
+        if (tx.commit().join() != CommitStatus.SUCCESS) {
+            return false;
+        }
+
+        // reflect the allocations locally without waiting for map events,
+        // so that subsequent queries on this instance don't offer them again
+        discreteStore.allocated(discreteResources(resources.stream()));
+        return true;
     }
 
     @Override
@@ -252,7 +259,12 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
             }
         }
 
-        return tx.commit().join() == CommitStatus.SUCCESS;
+        if (tx.commit().join() != CommitStatus.SUCCESS) {
+            return false;
+        }
+
+        discreteStore.released(discreteResources(allocations.stream().map(ResourceAllocation::resource)));
+        return true;
     }
 
     // computational complexity: O(1) if the resource is discrete type.
@@ -319,6 +331,26 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         return Stream.concat(discrete, continuous).collect(Collectors.toList());
     }
 
+    // computational complexity: O(n) where n is the number of the children of the parent
+    @Override
+    public <T> Set<Resource> getAvailableResources(DiscreteResourceId parent, Class<T> cls) {
+        checkNotNull(parent);
+        checkNotNull(cls);
+
+        Set<Resource> available = new LinkedHashSet<>(discreteStore.getAvailableResources(parent, cls));
+        continuousStore.getChildResources(parent, cls).stream()
+                .filter(continuousStore::isAvailable)
+                .forEach(available::add);
+        return available;
+    }
+
+    private List<DiscreteResource> discreteResources(Stream<Resource> resources) {
+        return resources
+                .filter(x -> x instanceof DiscreteResource)
+                .map(x -> (DiscreteResource) x)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Abort the transaction.
      *
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import org.onosproject.net.resource.DiscreteResource;
+import org.onosproject.net.resource.DiscreteResourceCodec;
+import org.onosproject.net.resource.DiscreteResourceId;
+import org.onosproject.net.resource.Resources;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local view of the allocation state of discrete resources which can be
+ * encoded as integers, such as VLAN IDs and MPLS labels.
+ * <p>
+ * The encoded values of allocated resources are kept in a bitmap per parent
+ * and value type, so that available resources are found without reading the
+ * consumer map for each of them. The view follows the consumer map and may
+ * lag behind allocations made by other instances for a moment; allocations
+ * themselves are still checked in a transaction.
+ * </p>
+ */
+final class EncodedAllocationCache {
+    private static final Codecs CODECS = Codecs.getInstance();
+
+    private final Map<DiscreteResourceId, Map<Class<?>, Bitmap>> bitmaps = new ConcurrentHashMap<>();
+
+    /**
+     * Returns if the allocation state of the specified resource is tracked.
+     *
+     * @param resource resource
+     * @return true if the resource can be encoded as an integer, otherwise false
+     */
+    boolean isTracked(DiscreteResource resource) {
+        return resource.parent().isPresent() && CODECS.isEncodable(resource);
+    }
+
+    /**
+     * Returns if the specified resource is known to be allocated.
+     * The resource must be tracked.
+     *
+     * @param resource resource
+     * @return true if the resource is allocated, otherwise false
+     */
+    boolean isAllocated(DiscreteResource resource) {
+        Map<Class<?>, Bitmap> byClass = bitmaps.get(resource.parent().get().id());
+        if (byClass == null) {
+            return false;
+        }
+
+        Object value = resource.valueAs(Object.class).get();
+        Bitmap bitmap = byClass.get(value.getClass());
+        return bitmap != null && bitmap.get(encode(value));
+    }
+
+    /**
+     * Records that the specified resource has been allocated.
+     * Resources which are not tracked are ignored.
+     *
+     * @param id resource ID
+     */
+    void allocated(DiscreteResourceId id) {
+        update(id, true);
+    }
+
+    /**
+     * Records that the specified resource has been released.
+     * Resources which are not tracked are ignored.
+     *
+     * @param id resource ID
+     */
+    void released(DiscreteResourceId id) {
+        update(id, false);
+    }
+
+    private void update(DiscreteResourceId id, boolean allocated) {
+        DiscreteResource resource = Resources.discrete(id).resource();
+        if (!isTracked(resource)) {
+            return;
+        }
+
+        Object value = resource.valueAs(Object.class).get();
+        bitmaps.computeIfAbsent(id.parent().get(), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(value.getClass(), k -> new Bitmap())
+                .set(encode(value), allocated);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int encode(Object value) {
+        DiscreteResourceCodec<Object> codec = (DiscreteResourceCodec<Object>) CODECS.getCodec(value.getClass());
+        return codec.encode(value);
+    }
+
+    /**
+     * Set of integers; negative values are kept apart as codecs may encode
+     * unsigned values, such as port numbers, as negative integers.
+     */
+    private static final class Bitmap {
+        private final BitSet nonNegative = new BitSet();
+        private final BitSet negative = new BitSet();
+
+        synchronized boolean get(int value) {
+            return value >= 0 ? nonNegative.get(value) : negative.get(~value);
+        }
+
+        synchronized void set(int value, boolean present) {
+            if (value >= 0) {
+                nonNegative.set(value, present);
+            } else {
+                negative.set(~value, present);
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
 import org.onlab.graph.GraphPathSearch;
+import org.onlab.graph.IndexedDijkstraGraphSearch;
 import org.onlab.util.KryoNamespace;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.common.DefaultTopology;
@@ -43,6 +44,7 @@ import org.onosproject.net.topology.GeoDistanceLinkWeight;
 import org.onosproject.net.topology.GraphDescription;
 import org.onosproject.net.topology.LinkWeight;
 import org.onosproject.net.topology.MetricLinkWeight;
+import org.onosproject.net.topology.PathCacheStatistics;
 import org.onosproject.net.topology.PathAdminService;
 import org.onosproject.net.topology.Topology;
 import org.onosproject.net.topology.TopologyCluster;
@@ -68,10 +70,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static org.onlab.util.Tools.get;
+import static org.onlab.util.Tools.getIntegerProperty;
+import static org.onlab.util.Tools.isPropertyEnabled;
 import static org.onlab.util.Tools.isNullOrEmpty;
 import static org.onosproject.net.topology.TopologyEvent.Type.TOPOLOGY_CHANGED;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -91,7 +96,9 @@ public class DistributedTopologyStore
 
     private final Logger log = getLogger(getClass());
 
-    private static final String FORMAT = "Settings: linkWeightFunction={}";
+    private static final String FORMAT =
+            "Settings: linkWeightFunction={}, graphPathSearch={}, pathCacheSize={}, " +
+                    "precomputePaths={}, incrementalCompute={}";
 
     private volatile DefaultTopology current =
             new DefaultTopology(ProviderId.NONE,
@@ -123,6 +130,29 @@ public class DistributedTopologyStore
             label = "Default link-weight function: hopCount, linkMetric, geoDistance")
     private String linkWeightFunction = DEFAULT_LINK_WEIGHT_FUNCTION;
 
+    private static final String DIJKSTRA = "dijkstra";
+    private static final String INDEXED_DIJKSTRA = "indexedDijkstra";
+
+    private static final String DEFAULT_GRAPH_PATH_SEARCH = DIJKSTRA;
+    @Property(name = "graphPathSearch", value = DEFAULT_GRAPH_PATH_SEARCH,
+            label = "Default path search algorithm: dijkstra, indexedDijkstra")
+    private String graphPathSearch = DEFAULT_GRAPH_PATH_SEARCH;
+
+    private static final int DEFAULT_PATH_CACHE_SIZE = 128;
+    @Property(name = "pathCacheSize", intValue = DEFAULT_PATH_CACHE_SIZE,
+            label = "Maximum number of shortest path trees cached per topology; 0 to disable")
+    private int pathCacheSize = DEFAULT_PATH_CACHE_SIZE;
+
+    private static final boolean DEFAULT_PRECOMPUTE_PATHS = false;
+    @Property(name = "precomputePaths", boolValue = DEFAULT_PRECOMPUTE_PATHS,
+            label = "Compute shortest path trees in the background for each new topology")
+    private boolean precomputePaths = DEFAULT_PRECOMPUTE_PATHS;
+
+    private static final boolean DEFAULT_INCREMENTAL_COMPUTE = false;
+    @Property(name = "incrementalCompute", boolValue = DEFAULT_INCREMENTAL_COMPUTE,
+            label = "Derive clusters and broadcast trees of each new topology from the previous one")
+    private boolean incrementalCompute = DEFAULT_INCREMENTAL_COMPUTE;
+
     // Cluster root to broadcast points bindings to allow convergence to
     // a shared broadcast tree; node that is the master of the cluster root
     // is the primary.
@@ -168,7 +198,33 @@ public class DistributedTopologyStore
                             new GeoDistanceLinkWeight(deviceService) : null;
             setDefaultLinkWeight(weight);
         }
-        log.info(FORMAT, linkWeightFunction);
+
+        String newGraphPathSearch = get(properties, "graphPathSearch");
+        if (newGraphPathSearch != null &&
+                !Objects.equals(newGraphPathSearch, graphPathSearch)) {
+            graphPathSearch = newGraphPathSearch;
+            setDefaultGraphPathSearch(graphPathSearch.equals(INDEXED_DIJKSTRA) ?
+                    new IndexedDijkstraGraphSearch<>() : null);
+        }
+
+        Integer newPathCacheSize = getIntegerProperty(properties, "pathCacheSize");
+        if (newPathCacheSize != null && newPathCacheSize >= 0 &&
+                newPathCacheSize != pathCacheSize) {
+            pathCacheSize = newPathCacheSize;
+            DefaultTopology.setPathCacheSize(pathCacheSize);
+        }
+
+        Boolean newPrecomputePaths = isPropertyEnabled(properties, "precomputePaths");
+        if (newPrecomputePaths != null) {
+            precomputePaths = newPrecomputePaths;
+        }
+
+        Boolean newIncrementalCompute = isPropertyEnabled(properties, "incrementalCompute");
+        if (newIncrementalCompute != null) {
+            incrementalCompute = newIncrementalCompute;
+        }
+        log.info(FORMAT, linkWeightFunction, graphPathSearch, pathCacheSize,
+                 precomputePaths, incrementalCompute);
     }
 
     @Override
@@ -241,6 +297,11 @@ public class DistributedTopologyStore
         return defaultTopology(topology).getDisjointPaths(src, dst, weight, riskProfile);
     }
 
+    @Override
+    public PathCacheStatistics getPathCacheStatistics(Topology topology) {
+        return defaultTopology(topology).getPathCacheStatistics();
+    }
+
     @Override
     public boolean isInfrastructure(Topology topology, ConnectPoint connectPoint) {
         return defaultTopology(topology).isInfrastructure(connectPoint);
@@ -277,10 +338,15 @@ public class DistributedTopologyStore
             return null;
         }
 
-        // Have the default topology construct self from the description data.
+        // Have the default topology construct self from the description data,
+        // building on the current topology if so configured.
         DefaultTopology newTopology =
-                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint);
+                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint,
+                                    incrementalCompute ? current : null);
         updateBroadcastPoints(newTopology);
+        if (precomputePaths) {
+            ForkJoinPool.commonPool().execute(newTopology::precomputePaths);
+        }
 
         // Promote the new topology to current and return a ready-to-send event.
         synchronized (this) {
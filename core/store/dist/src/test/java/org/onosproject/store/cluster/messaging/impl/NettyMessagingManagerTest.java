@@ -15,8 +15,11 @@
  */
 package org.onosproject.store.cluster.messaging.impl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -122,6 +125,46 @@ public class NettyMessagingManagerTest {
         assertEquals(ep1, sender.get());
     }
 
+    @Test
+    public void testSendAsyncWithBatching() {
+        netty1.enableNettyBatching = true;
+        netty1.batchMaxMessages = 8;
+        int count = 100;
+        CountDownLatch latch = new CountDownLatch(count);
+        List<String> received = new CopyOnWriteArrayList<>();
+        netty2.registerHandler("test-subject", (ep, data) -> {
+            received.add(new String(data));
+            latch.countDown();
+        }, MoreExecutors.directExecutor());
+
+        List<CompletableFuture<Void>> responses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            responses.add(netty1.sendAsync(ep2, "test-subject", String.valueOf(i).getBytes()));
+        }
+        responses.forEach(CompletableFuture::join);
+        Uninterruptibles.awaitUninterruptibly(latch);
+
+        assertEquals(count, received.size());
+        for (int i = 0; i < count; i++) {
+            assertTrue(received.contains(String.valueOf(i)));
+        }
+    }
+
+    @Test
+    public void testSendAndReceiveWithBatchWindow() {
+        netty1.enableNettyBatching = true;
+        netty1.batchWindowMicros = 100;
+        netty2.enableNettyBatching = true;
+        netty2.batchWindowMicros = 100;
+
+        netty2.registerHandler("test-subject", (ep, data) -> data, MoreExecutors.directExecutor());
+        for (int i = 0; i < 10; i++) {
+            byte[] request = String.valueOf(i).getBytes();
+            CompletableFuture<byte[]> response = netty1.sendAndReceive(ep2, "test-subject", request);
+            assertTrue(Arrays.equals(request, response.join()));
+        }
+    }
+
     /*
      * Supplies executors when registering a handler and calling sendAndReceive and verifies the request handling
      * and response completion occurs on the expected thread.
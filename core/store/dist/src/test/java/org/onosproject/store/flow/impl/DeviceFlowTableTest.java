@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.MacAddress;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the per-device flow table.
+ */
+public class DeviceFlowTableTest {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:1");
+
+    private DeviceFlowTable table;
+
+    private static StoredFlowEntry entry(long flowId, int mac) {
+        return new DefaultFlowEntry(DefaultFlowRule.builder()
+                .forDevice(DID)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchEthDst(MacAddress.valueOf(mac)).build())
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .withPriority(10)
+                .withCookie(flowId)
+                .makePermanent()
+                .build());
+    }
+
+    @Before
+    public void setUp() {
+        table = new DeviceFlowTable();
+    }
+
+    @Test
+    public void putGetRemove() {
+        StoredFlowEntry e1 = entry(1, 1);
+        StoredFlowEntry e1Copy = entry(1, 1);
+        StoredFlowEntry e2 = entry(2, 2);
+
+        assertNull(table.put(e1));
+        assertNull(table.put(e2));
+        assertEquals(2, table.size());
+        assertSame(e1, table.get(e1Copy));
+
+        assertSame(e1, table.put(e1Copy));
+        assertSame(e1Copy, table.get(e1));
+        assertEquals(2, table.size());
+
+        assertNull(table.remove(e1, stored -> false));
+        assertSame(e1Copy, table.remove(e1, stored -> true));
+        assertNull(table.get(e1));
+        assertNull(table.remove(e1, stored -> true));
+        assertEquals(ImmutableSet.of(e2), ImmutableSet.copyOf(table.entries()));
+    }
+
+    @Test
+    public void sharedFlowId() {
+        StoredFlowEntry e1 = entry(7, 1);
+        StoredFlowEntry e2 = entry(7, 2);
+        StoredFlowEntry e3 = entry(7, 3);
+        table.put(e1);
+        table.put(e2);
+        table.put(e3);
+
+        assertEquals(3, table.size());
+        assertEquals(3, table.entries(FlowId.valueOf(7)).size());
+        assertSame(e2, table.get(e2));
+
+        assertSame(e2, table.remove(e2, stored -> true));
+        assertSame(e1, table.get(e1));
+        assertSame(e3, table.get(e3));
+        assertSame(e1, table.remove(e1, stored -> true));
+        assertEquals(ImmutableSet.of(e3), ImmutableSet.copyOf(table.entries(FlowId.valueOf(7))));
+        assertSame(e3, table.remove(e3, stored -> true));
+        assertTrue(table.entries().isEmpty());
+    }
+
+    @Test
+    public void randomOperations() {
+        Map<StoredFlowEntry, StoredFlowEntry> expected = Maps.newHashMap();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            // equal rules share a flow id; some distinct rules share one too
+            int mac = random.nextInt(2000);
+            StoredFlowEntry entry = entry(mac % 700, mac);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(entry), table.remove(entry, stored -> true));
+            } else {
+                assertEquals(expected.put(entry, entry), table.put(entry));
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        assertEquals(expected.keySet(), ImmutableSet.copyOf(table.entries()));
+        expected.keySet().forEach(entry -> assertSame(expected.get(entry), table.get(entry)));
+
+        table.clear();
+        assertEquals(0, table.size());
+        assertTrue(table.entries().isEmpty());
+    }
+
+    @Test
+    public void reconcile() {
+        StoredFlowEntry e1 = entry(1, 1);
+        StoredFlowEntry e2 = entry(7, 2);
+        StoredFlowEntry e3 = entry(7, 3);
+        StoredFlowEntry e4 = entry(4, 4);
+        table.put(e1);
+        table.put(e2);
+        table.put(e3);
+        table.put(e4);
+
+        StoredFlowEntry extra = entry(5, 5);
+        Map<StoredFlowEntry, StoredFlowEntry> matched = Maps.newHashMap();
+        List<StoredFlowEntry> missing = table.reconcile(
+                ImmutableList.of(entry(1, 1), entry(7, 3), extra),
+                (reported, stored) -> {
+                    if (stored != null) {
+                        matched.put(reported, stored);
+                    } else {
+                        assertSame(extra, reported);
+                    }
+                });
+        assertSame(e1, matched.get(e1));
+        assertSame(e3, matched.get(e3));
+        assertEquals(ImmutableSet.of(e2, e4), ImmutableSet.copyOf(missing));
+
+        // marks of earlier rounds don't count, and removals keep the other marks in place
+        missing = table.reconcile(ImmutableList.of(e2, e3, e4), (reported, stored) -> {
+            if (reported.equals(e2)) {
+                table.remove(e2, entry -> true);
+            }
+        });
+        assertEquals(ImmutableList.of(e1), missing);
+
+        // entries added during a round aren't missing
+        StoredFlowEntry e6 = entry(7, 6);
+        missing = table.reconcile(ImmutableList.of(e1, e3, e4), (reported, stored) -> table.put(e6));
+        assertTrue(missing.isEmpty());
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.MacAddress;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the flow table change log.
+ */
+public class FlowChangeLogTest {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:1");
+    private static final NodeId NODE1 = new NodeId("node1");
+    private static final NodeId NODE2 = new NodeId("node2");
+
+    private static final StoredFlowEntry E1 = entry(1);
+    private static final StoredFlowEntry E2 = entry(2);
+    private static final StoredFlowEntry E3 = entry(3);
+
+    private FlowChangeLog changeLog;
+    private List<StoredFlowEntry> table;
+
+    private static StoredFlowEntry entry(int mac) {
+        return new DefaultFlowEntry(DefaultFlowRule.builder()
+                .forDevice(DID)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchEthDst(MacAddress.valueOf(mac)).build())
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .withPriority(10)
+                .fromApp(new DefaultApplicationId(1, "test"))
+                .makePermanent()
+                .build());
+    }
+
+    @Before
+    public void setUp() {
+        changeLog = new FlowChangeLog(DID, 2);
+        table = ImmutableList.of(E1, E2);
+        changeLog.updated(E1);
+        changeLog.updated(E2);
+    }
+
+    private FlowTableBackup backup(NodeId node) {
+        FlowTableBackup backup = changeLog.prepareBackup(node, () -> table);
+        assertNotNull(backup);
+        return backup;
+    }
+
+    @Test
+    public void firstBackupIsFull() {
+        assertTrue(changeLog.needsBackup(NODE1));
+        FlowTableBackup backup = backup(NODE1);
+        assertTrue(backup.isFull());
+        assertEquals(table, backup.updated());
+        assertEquals(2, backup.sequence());
+
+        assertNull("backup already in flight", changeLog.prepareBackup(NODE1, () -> table));
+        assertFalse(changeLog.needsBackup(NODE1));
+
+        changeLog.backupCompleted(backup, true);
+        assertFalse(changeLog.needsBackup(NODE1));
+        assertTrue(changeLog.needsBackup(NODE2));
+    }
+
+    @Test
+    public void deltaCarriesChangesSinceLastBackup() {
+        FlowTableBackup full = backup(NODE1);
+        // recorded while the full backup is in flight
+        changeLog.updated(E3);
+        changeLog.backupCompleted(full, true);
+        assertTrue(changeLog.needsBackup(NODE1));
+
+        changeLog.removed(E1);
+        FlowTableBackup delta = backup(NODE1);
+        assertFalse(delta.isFull());
+        assertEquals(full.epoch(), delta.epoch());
+        assertEquals(full.sequence(), delta.baseSequence());
+        assertEquals(4, delta.sequence());
+        assertEquals(ImmutableList.of(E3), delta.updated());
+        assertEquals(ImmutableList.of(E1), delta.removed());
+        changeLog.backupCompleted(delta, true);
+        assertFalse(changeLog.needsBackup(NODE1));
+    }
+
+    @Test
+    public void changesAreCoalesced() {
+        changeLog.backupCompleted(backup(NODE1), true);
+        changeLog.removed(E1);
+        changeLog.updated(E1);
+        changeLog.updated(E1);
+
+        FlowTableBackup delta = backup(NODE1);
+        assertEquals(ImmutableList.of(E1), delta.updated());
+        assertTrue(delta.removed().isEmpty());
+    }
+
+    @Test
+    public void rejectedDeltaFallsBackToFull() {
+        changeLog.backupCompleted(backup(NODE1), true);
+        changeLog.updated(E3);
+        FlowTableBackup delta = backup(NODE1);
+        assertFalse(delta.isFull());
+        changeLog.backupCompleted(delta, false);
+
+        assertTrue(changeLog.needsBackup(NODE1));
+        assertTrue(backup(NODE1).isFull());
+    }
+
+    @Test
+    public void overflowFallsBackToFull() {
+        changeLog.backupCompleted(backup(NODE1), true);
+        changeLog.updated(E1);
+        changeLog.updated(E2);
+        changeLog.updated(E3);
+
+        assertTrue(backup(NODE1).isFull());
+    }
+
+    @Test
+    public void newBackupNodeGetsFull() {
+        changeLog.backupCompleted(backup(NODE1), true);
+        changeLog.updated(E3);
+        FlowTableBackup backup = backup(NODE2);
+        assertTrue(backup.isFull());
+        assertEquals(NODE2, changeLog.backupNode());
+
+        changeLog.resetBackupNode();
+        changeLog.backupCompleted(backup, true);
+        assertTrue(changeLog.needsBackup(NODE2));
+    }
+}
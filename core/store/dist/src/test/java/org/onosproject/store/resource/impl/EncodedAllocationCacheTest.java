@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import org.junit.Test;
+import org.onlab.packet.MplsLabel;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.resource.DiscreteResource;
+import org.onosproject.net.resource.Resources;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class EncodedAllocationCacheTest {
+    private static final DeviceId DID = DeviceId.deviceId("device1");
+    private static final PortNumber PN = PortNumber.portNumber(1);
+    private static final VlanId VID1 = VlanId.vlanId((short) 1);
+    private static final VlanId VID2 = VlanId.vlanId((short) 2);
+    private static final MplsLabel LABEL1 = MplsLabel.mplsLabel(1);
+
+    private final EncodedAllocationCache sut = new EncodedAllocationCache();
+
+    @Test
+    public void testAllocateAndRelease() {
+        DiscreteResource res1 = Resources.discrete(DID, PN, VID1).resource();
+        DiscreteResource res2 = Resources.discrete(DID, PN, VID2).resource();
+        DiscreteResource label = Resources.discrete(DID, PN, LABEL1).resource();
+
+        sut.allocated(res1.id());
+
+        assertThat(sut.isAllocated(res1), is(true));
+        assertThat(sut.isAllocated(res2), is(false));
+        // same encoded value, different type
+        assertThat(sut.isAllocated(label), is(false));
+
+        sut.released(res1.id());
+
+        assertThat(sut.isAllocated(res1), is(false));
+    }
+
+    @Test
+    public void testNegativeEncodedValue() {
+        DiscreteResource local = Resources.discrete(DID, PortNumber.LOCAL).resource();
+        // LOCAL is encoded as -2, whose complement is 1
+        DiscreteResource port = Resources.discrete(DID, PortNumber.portNumber(1)).resource();
+
+        sut.allocated(local.id());
+
+        assertThat(sut.isAllocated(local), is(true));
+        assertThat(sut.isAllocated(port), is(false));
+    }
+
+    @Test
+    public void testTracked() {
+        assertThat(sut.isTracked(Resources.discrete(DID, PN, VID1).resource()), is(true));
+        assertThat(sut.isTracked(Resources.discrete(DID).resource()), is(false));
+    }
+}
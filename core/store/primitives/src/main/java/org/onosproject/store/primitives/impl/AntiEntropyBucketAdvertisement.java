@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.cluster.NodeId;
+
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Anti-entropy advertisement message for the entries of an eventually
+ * consistent map in some of the buckets of its digest tree.
+ *
+ * @param <K> map key type
+ */
+final class AntiEntropyBucketAdvertisement<K> {
+
+    private final NodeId sender;
+    private final Map<K, MapValue.Digest> digest;
+    private final Set<Integer> buckets;
+
+    /**
+     * Creates a new bucket advertisement message.
+     *
+     * @param sender the sender's node ID
+     * @param digest for map entries in the given buckets
+     * @param buckets digest tree buckets covered by the advertisement
+     */
+    public AntiEntropyBucketAdvertisement(NodeId sender,
+                                          Map<K, MapValue.Digest> digest,
+                                          Set<Integer> buckets) {
+        this.sender = checkNotNull(sender);
+        this.digest = ImmutableMap.copyOf(checkNotNull(digest));
+        this.buckets = ImmutableSet.copyOf(checkNotNull(buckets));
+    }
+
+    /**
+     * Returns the sender's node ID.
+     *
+     * @return the sender's node ID
+     */
+    public NodeId sender() {
+        return sender;
+    }
+
+    /**
+     * Returns the digest for map entries in the covered buckets.
+     *
+     * @return mapping from key to associated digest
+     */
+    public Map<K, MapValue.Digest> digest() {
+        return digest;
+    }
+
+    /**
+     * Returns the digest tree buckets covered by this advertisement.
+     *
+     * @return bucket indexes
+     */
+    public Set<Integer> buckets() {
+        return buckets;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("sender", sender)
+                .add("totalEntries", digest.size())
+                .add("buckets", buckets.size())
+                .toString();
+    }
+
+    @SuppressWarnings("unused")
+    private AntiEntropyBucketAdvertisement() {
+        this.sender = null;
+        this.digest = null;
+        this.buckets = null;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import com.google.common.base.MoreObjects;
+import org.onosproject.cluster.NodeId;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Anti-entropy advertisement message carrying the bucket digests of an
+ * eventually consistent map's digest tree.
+ */
+final class AntiEntropyTreeAdvertisement {
+
+    private final NodeId sender;
+    private final long[] bucketDigests;
+
+    /**
+     * Creates a new digest tree advertisement message.
+     *
+     * @param sender the sender's node ID
+     * @param bucketDigests digests of the map buckets
+     */
+    public AntiEntropyTreeAdvertisement(NodeId sender, long[] bucketDigests) {
+        this.sender = checkNotNull(sender);
+        this.bucketDigests = checkNotNull(bucketDigests);
+    }
+
+    /**
+     * Returns the sender's node ID.
+     *
+     * @return the sender's node ID
+     */
+    public NodeId sender() {
+        return sender;
+    }
+
+    /**
+     * Returns the digests of the map buckets.
+     *
+     * @return bucket digests
+     */
+    public long[] bucketDigests() {
+        return bucketDigests;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("sender", sender)
+                .add("buckets", bucketDigests.length)
+                .toString();
+    }
+
+    @SuppressWarnings("unused")
+    private AntiEntropyTreeAdvertisement() {
+        this.sender = null;
+        this.bucketDigests = null;
+    }
+}
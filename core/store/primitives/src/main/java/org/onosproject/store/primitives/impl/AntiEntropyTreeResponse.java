@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reply to a digest tree advertisement, identifying the buckets in which the
+ * receiver's map differs from the sender's.
+ */
+final class AntiEntropyTreeResponse {
+
+    private final AntiEntropyResponse status;
+    private final Set<Integer> buckets;
+
+    /**
+     * Creates a new digest tree response.
+     *
+     * @param status status of the exchange
+     * @param buckets indexes of the buckets that differ
+     */
+    public AntiEntropyTreeResponse(AntiEntropyResponse status, Set<Integer> buckets) {
+        this.status = checkNotNull(status);
+        this.buckets = ImmutableSet.copyOf(buckets);
+    }
+
+    /**
+     * Returns the status of the exchange.
+     *
+     * @return anti-entropy response status
+     */
+    public AntiEntropyResponse status() {
+        return status;
+    }
+
+    /**
+     * Returns the indexes of the buckets that differ.
+     *
+     * @return bucket indexes; empty if the maps are in sync
+     */
+    public Set<Integer> buckets() {
+        return buckets;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("status", status)
+                .add("buckets", buckets.size())
+                .toString();
+    }
+
+    @SuppressWarnings("unused")
+    private AntiEntropyTreeResponse() {
+        this.status = null;
+        this.buckets = null;
+    }
+}
@@ -17,19 +17,37 @@ package org.onosproject.store.primitives.impl;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import org.onosproject.store.primitives.MapUpdate;
+import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.MapTransaction;
 import org.onosproject.store.service.Versioned;
 import org.slf4j.Logger;
 
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 
 import static org.onosproject.store.service.DistributedPrimitive.Status.INACTIVE;
 import static org.onosproject.store.service.DistributedPrimitive.Status.SUSPENDED;
@@ -39,8 +57,16 @@ import static org.onosproject.store.service.DistributedPrimitive.Status.SUSPENDE
  * <p>
  * The cache entries are automatically invalidated when updates are detected either locally or
  * remotely.
- * <p> This implementation only attempts to serve cached entries for {@link AsyncConsistentMap#get get}
- * calls. All other calls skip the cache and directly go the backing map.
+ * <p>
+ * Individual entries are cached on {@link AsyncConsistentMap#get get} and
+ * {@link AsyncConsistentMap#containsKey containsKey} in a size bounded, least recently used cache.
+ * In addition, as long as the map holds no more entries than the cache size, a snapshot of the
+ * whole map is kept to serve {@code size}, {@code isEmpty}, {@code containsValue}, {@code keySet},
+ * {@code values} and {@code entrySet} locally. Both are kept up to date by applying map events,
+ * using the entry versions to discard stale updates. Completed local updates are applied to the
+ * snapshot as well where their results carry the new version; otherwise the snapshot is kept only
+ * if the map event of the update has already been applied to it, so that reads following a
+ * completed update observe its effect.
  *
  * @param <K> key type
  * @param <V> value type
@@ -49,8 +75,16 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
     private static final int DEFAULT_CACHE_SIZE = 10000;
     private final Logger log = getLogger(getClass());
 
+    private final int cacheSize;
     private final LoadingCache<K, CompletableFuture<Versioned<V>>> cache;
 
+    // Snapshot of the whole map, or null if not loaded. Guarded by this.
+    private Map<K, Versioned<V>> snapshot;
+    // Incremented whenever the map may have changed, to reject stale snapshot loads. Guarded by this.
+    private long generation;
+    private final AtomicLong snapshotHits = new AtomicLong();
+    private final AtomicLong snapshotMisses = new AtomicLong();
+
     private final MapEventListener<K, V> cacheUpdater;
     private final Consumer<Status> statusListener;
 
@@ -71,37 +105,177 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
      */
     public CachingAsyncConsistentMap(AsyncConsistentMap<K, V> backingMap, int cacheSize) {
         super(backingMap);
+        this.cacheSize = cacheSize;
         cache = CacheBuilder.newBuilder()
                             .maximumSize(cacheSize)
+                            .recordStats()
                             .build(CacheLoader.from(CachingAsyncConsistentMap.super::get));
-        cacheUpdater = event -> {
-            Versioned<V> newValue = event.newValue();
-            if (newValue == null) {
-                cache.invalidate(event.key());
-            } else {
-                cache.put(event.key(), CompletableFuture.completedFuture(newValue));
-            }
-        };
+        cacheUpdater = this::applyEvent;
         statusListener = status -> {
             log.debug("{} status changed to {}", this.name(), status);
             // If the status of the underlying map is SUSPENDED or INACTIVE
             // we can no longer guarantee that the cache will be in sync.
             if (status == SUSPENDED || status == INACTIVE) {
-                cache.invalidateAll();
+                invalidateAll();
             }
         };
         super.addListener(cacheUpdater);
         super.addStatusChangeListener(statusListener);
     }
 
+    /**
+     * Returns the hit and miss statistics of the cache, including reads
+     * served from or loading the map snapshot.
+     *
+     * @return cache statistics
+     */
+    public CacheStats cacheStats() {
+        return cache.stats().plus(new CacheStats(snapshotHits.get(), snapshotMisses.get(), 0, 0, 0, 0));
+    }
+
+    private void applyEvent(MapEvent<K, V> event) {
+        K key = event.key();
+        Versioned<V> newValue = event.newValue();
+        updateSnapshot(key, event.oldValue(), newValue);
+        if (newValue == null) {
+            cache.invalidate(key);
+            return;
+        }
+        // not counted in the cache statistics, unlike getIfPresent
+        CompletableFuture<Versioned<V>> cached = cache.asMap().get(key);
+        if (cached == null || !cached.isDone() || cached.isCompletedExceptionally()
+                || !isNewer(cached.join(), newValue)) {
+            cache.put(key, CompletableFuture.completedFuture(newValue));
+        }
+    }
+
+    // Applies an update of the key to the snapshot, unless the snapshot holds a newer entry.
+    private synchronized void updateSnapshot(K key, Versioned<V> oldValue, Versioned<V> newValue) {
+        generation++;
+        if (snapshot == null) {
+            return;
+        }
+        Versioned<V> current = snapshot.get(key);
+        if (newValue == null) {
+            if (current != null && !isNewer(current, oldValue)) {
+                snapshot.remove(key);
+            }
+        } else if (!isNewer(current, newValue)) {
+            snapshot.put(key, newValue);
+            if (snapshot.size() > cacheSize) {
+                snapshot = null;
+            }
+        }
+    }
+
+    // Versions are assigned to updates in increasing order by the partition
+    // state machine, so they order updates of an entry.
+    private static boolean isNewer(Versioned<?> current, Versioned<?> update) {
+        return current != null && update != null && current.version() > update.version();
+    }
+
+    // Accounts for a completed local update whose result carries the new entry, or null if the
+    // key was removed along with the given old entry.
+    private void updated(K key, Versioned<V> oldValue, Versioned<V> newValue) {
+        updateSnapshot(key, oldValue, newValue);
+        cache.invalidate(key);
+    }
+
+    // Accounts for a completed local update whose new version is unknown. The snapshot is kept
+    // if it already reflects the update, as the map event of an update normally arrives ahead
+    // of its result, and is discarded otherwise.
+    private void updated(K key, Predicate<Versioned<V>> reflected) {
+        synchronized (this) {
+            generation++;
+            if (snapshot != null && !reflected.test(snapshot.get(key))) {
+                snapshot = null;
+            }
+        }
+        cache.invalidate(key);
+    }
+
+    private void invalidate(K key) {
+        synchronized (this) {
+            generation++;
+            snapshot = null;
+        }
+        cache.invalidate(key);
+    }
+
+    private void invalidateAll() {
+        synchronized (this) {
+            generation++;
+            snapshot = null;
+        }
+        cache.invalidateAll();
+    }
+
+    // Reads from the snapshot if present, or otherwise from the backing map.
+    private <T> CompletableFuture<T> readSnapshot(Function<Map<K, Versioned<V>>, T> reader,
+                                                  Supplier<CompletableFuture<T>> fallback) {
+        synchronized (this) {
+            if (snapshot != null) {
+                snapshotHits.incrementAndGet();
+                return CompletableFuture.completedFuture(reader.apply(snapshot));
+            }
+        }
+        snapshotMisses.incrementAndGet();
+        return fallback.get();
+    }
+
+    // Reads all entries from the backing map and retains them as the new
+    // snapshot, unless the map changed while they were being read.
+    private <T> CompletableFuture<T> loadSnapshot(Function<Map<K, Versioned<V>>, T> reader) {
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+        }
+        return super.entrySet().thenApply(entries -> {
+            Map<K, Versioned<V>> loaded = Maps.newHashMapWithExpectedSize(entries.size());
+            entries.forEach(entry -> loaded.put(entry.getKey(), entry.getValue()));
+            synchronized (this) {
+                if (loaded.size() <= cacheSize && generation == loadGeneration) {
+                    snapshot = loaded;
+                }
+                return reader.apply(loaded);
+            }
+        });
+    }
+
     @Override
     public CompletableFuture<Void> destroy() {
         super.removeStatusChangeListener(statusListener);
         return super.destroy().thenCompose(v -> removeListener(cacheUpdater));
     }
 
+    @Override
+    public CompletableFuture<Integer> size() {
+        return readSnapshot(Map::size, super::size);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isEmpty() {
+        return readSnapshot(Map::isEmpty, super::isEmpty);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> containsKey(K key) {
+        return readSnapshot(entries -> entries.containsKey(key),
+                            () -> getCached(key).thenApply(value -> value != null));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> containsValue(V value) {
+        return readSnapshot(entries -> entries.values().stream().anyMatch(v -> Objects.equals(v.value(), value)),
+                            () -> super.containsValue(value));
+    }
+
     @Override
     public CompletableFuture<Versioned<V>> get(K key) {
+        return readSnapshot(entries -> entries.get(key), () -> getCached(key));
+    }
+
+    private CompletableFuture<Versioned<V>> getCached(K key) {
         return cache.getUnchecked(key)
                 .whenComplete((r, e) -> {
                     if (e != null) {
@@ -110,44 +284,104 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
                 });
     }
 
+    @Override
+    public CompletableFuture<Set<K>> keySet() {
+        Function<Map<K, Versioned<V>>, Set<K>> reader = entries -> ImmutableSet.copyOf(entries.keySet());
+        return readSnapshot(reader, () -> loadSnapshot(reader));
+    }
+
+    @Override
+    public CompletableFuture<Collection<Versioned<V>>> values() {
+        Function<Map<K, Versioned<V>>, Collection<Versioned<V>>> reader =
+                entries -> ImmutableList.copyOf(entries.values());
+        return readSnapshot(reader, () -> loadSnapshot(reader));
+    }
+
+    @Override
+    public CompletableFuture<Set<Entry<K, Versioned<V>>>> entrySet() {
+        Function<Map<K, Versioned<V>>, Set<Entry<K, Versioned<V>>>> reader =
+                entries -> ImmutableMap.copyOf(entries).entrySet();
+        return readSnapshot(reader, () -> loadSnapshot(reader));
+    }
+
     @Override
     public CompletableFuture<Versioned<V>> computeIf(K key,
             Predicate<? super V> condition,
             BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
         return super.computeIf(key, condition, remappingFunction)
-                .whenComplete((r, e) -> cache.invalidate(key));
+                .whenComplete((r, e) -> {
+                    if (e != null) {
+                        invalidate(key);
+                    } else if (r != null) {
+                        updated(key, null, r);
+                    } else {
+                        updated(key, Objects::isNull);
+                    }
+                });
     }
 
     @Override
     public CompletableFuture<Versioned<V>> put(K key, V value) {
         return super.put(key, value)
-                .whenComplete((r, e) -> cache.invalidate(key));
+                .whenComplete((r, e) -> {
+                    if (e != null) {
+                        invalidate(key);
+                    } else {
+                        updated(key, v -> v != null && (r == null || v.version() > r.version()));
+                    }
+                });
     }
 
     @Override
     public CompletableFuture<Versioned<V>> putAndGet(K key, V value) {
         return super.putAndGet(key, value)
-                .whenComplete((r, e) -> cache.invalidate(key));
+                .whenComplete((r, e) -> {
+                    if (e != null) {
+                        invalidate(key);
+                    } else {
+                        updated(key, null, r);
+                    }
+                });
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
+        return super.putIfAbsent(key, value)
+                .whenComplete((r, e) -> {
+                    if (e != null) {
+                        invalidate(key);
+                    } else if (r == null) {
+                        updated(key, Objects::nonNull);
+                    }
+                });
     }
 
     @Override
     public CompletableFuture<Versioned<V>> remove(K key) {
         return super.remove(key)
-                .whenComplete((r, e) -> cache.invalidate(key));
+                .whenComplete((r, e) -> {
+                    if (e != null) {
+                        invalidate(key);
+                    } else if (r != null) {
+                        updated(key, r, null);
+                    }
+                });
     }
 
     @Override
     public CompletableFuture<Void> clear() {
         return super.clear()
-                .whenComplete((r, e) -> cache.invalidateAll());
+                .whenComplete((r, e) -> invalidateAll());
     }
 
     @Override
     public CompletableFuture<Boolean> remove(K key, V value) {
         return super.remove(key, value)
                 .whenComplete((r, e) -> {
-                    if (r) {
-                        cache.invalidate(key);
+                    if (e != null) {
+                        invalidate(key);
+                    } else if (r) {
+                        updated(key, Objects::isNull);
                     }
                 });
     }
@@ -156,8 +390,10 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
     public CompletableFuture<Boolean> remove(K key, long version) {
         return super.remove(key, version)
                 .whenComplete((r, e) -> {
-                    if (r) {
-                        cache.invalidate(key);
+                    if (e != null) {
+                        invalidate(key);
+                    } else if (r) {
+                        updated(key, v -> v == null || v.version() > version);
                     }
                 });
     }
@@ -165,15 +401,26 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
     @Override
     public CompletableFuture<Versioned<V>> replace(K key, V value) {
         return super.replace(key, value)
-                .whenComplete((r, e) -> cache.invalidate(key));
+                .whenComplete((r, e) -> {
+                    if (e != null) {
+                        invalidate(key);
+                    } else if (r != null) {
+                        updated(key, v -> v != null && v.version() > r.version());
+                    }
+                });
     }
 
     @Override
     public CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
         return super.replace(key, oldValue, newValue)
                 .whenComplete((r, e) -> {
-                    if (r) {
-                        cache.invalidate(key);
+                    if (e != null) {
+                        invalidate(key);
+                    } else if (r) {
+                        // the entry held the old value before the update, so holding the
+                        // new one means the update has been applied
+                        updated(key, v -> v != null && !Objects.equals(oldValue, newValue)
+                                && Objects.equals(v.value(), newValue));
                     }
                 });
     }
@@ -182,9 +429,25 @@ public class CachingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
     public CompletableFuture<Boolean> replace(K key, long oldVersion, V newValue) {
         return super.replace(key, oldVersion, newValue)
                 .whenComplete((r, e) -> {
-                    if (r) {
-                        cache.invalidate(key);
+                    if (e != null) {
+                        invalidate(key);
+                    } else if (r) {
+                        updated(key, v -> v != null && v.version() > oldVersion);
                     }
                 });
     }
+
+    @Override
+    public CompletableFuture<Void> commit(TransactionId transactionId) {
+        return super.commit(transactionId)
+                .whenComplete((r, e) -> invalidateAll());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> prepareAndCommit(MapTransaction<K, V> transaction) {
+        return super.prepareAndCommit(transaction)
+                .whenComplete((r, e) -> transaction.updates().stream()
+                        .map(MapUpdate::key)
+                        .forEach(this::invalidate));
+    }
 }
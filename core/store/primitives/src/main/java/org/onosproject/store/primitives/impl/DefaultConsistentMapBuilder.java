@@ -15,11 +15,18 @@
  */
 package org.onosproject.store.primitives.impl;
 
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onlab.osgi.DefaultServiceDirectory;
 import org.onosproject.store.primitives.DistributedPrimitiveCreator;
 import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.ConsistentMap;
 import org.onosproject.store.service.ConsistentMapBuilder;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
 /**
  * Default {@link AsyncConsistentMap} builder.
  *
@@ -28,6 +35,8 @@ import org.onosproject.store.service.ConsistentMapBuilder;
  */
 public class DefaultConsistentMapBuilder<K, V> extends ConsistentMapBuilder<K, V> {
 
+    private static final String CACHE_METRICS = "consistentMapCache";
+
     private final DistributedPrimitiveCreator primitiveCreator;
 
     public DefaultConsistentMapBuilder(DistributedPrimitiveCreator primitiveCreator) {
@@ -42,8 +51,29 @@ public class DefaultConsistentMapBuilder<K, V> extends ConsistentMapBuilder<K, V
     @Override
     public AsyncConsistentMap<K, V> buildAsyncMap() {
         AsyncConsistentMap<K, V> map = primitiveCreator.newAsyncConsistentMap(name(), serializer());
-        map = relaxedReadConsistency() ? DistributedPrimitives.newCachingMap(map) : map;
+        if (relaxedReadConsistency()) {
+            CachingAsyncConsistentMap<K, V> cachingMap = new CachingAsyncConsistentMap<>(map);
+            if (meteringEnabled()) {
+                registerCacheMetrics(cachingMap);
+            }
+            map = cachingMap;
+        }
         map = readOnly() ? DistributedPrimitives.newUnmodifiableMap(map) : map;
         return meteringEnabled() ? DistributedPrimitives.newMeteredMap(map) : map;
     }
+
+    // Exposes the cache statistics of the map, replacing those of an earlier map of the same name.
+    private void registerCacheMetrics(CachingAsyncConsistentMap<K, V> map) {
+        MetricsService metricsService = DefaultServiceDirectory.getService(MetricsService.class);
+        MetricsComponent component = metricsService.registerComponent(CACHE_METRICS);
+        MetricsFeature feature = component.registerFeature(name());
+        String prefix = MetricRegistry.name(component.getName(), feature.getName()) + ".";
+        metricsService.removeMatching((metricName, metric) -> metricName.startsWith(prefix));
+        metricsService.registerMetric(component, feature, "hits",
+                                      (Gauge<Long>) () -> map.cacheStats().hitCount());
+        metricsService.registerMetric(component, feature, "misses",
+                                      (Gauge<Long>) () -> map.cacheStats().missCount());
+        metricsService.registerMetric(component, feature, "hitRate",
+                                      (Gauge<Double>) () -> map.cacheStats().hitRate());
+    }
 }
\ No newline at end of file
@@ -67,6 +67,11 @@ public class DelegatingAsyncConsistentMap<K, V> implements AsyncConsistentMap<K,
         return delegateMap.size();
     }
 
+    @Override
+    public CompletableFuture<Boolean> isEmpty() {
+        return delegateMap.isEmpty();
+    }
+
     @Override
     public CompletableFuture<Boolean> containsKey(K key) {
         return delegateMap.containsKey(key);
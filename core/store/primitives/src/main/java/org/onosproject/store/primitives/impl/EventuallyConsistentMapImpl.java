@@ -18,6 +18,7 @@ package org.onosproject.store.primitives.impl;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -33,6 +34,7 @@ import org.onosproject.store.LogicalTimestamp;
 import org.onosproject.store.Timestamp;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.cluster.messaging.MessagingException;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.serializers.StoreSerializer;
 import org.onosproject.store.service.EventuallyConsistentMap;
@@ -52,12 +54,15 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.Timer;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
@@ -90,6 +95,8 @@ public class EventuallyConsistentMapImpl<K, V>
 
     private final MessageSubject updateMessageSubject;
     private final MessageSubject antiEntropyAdvertisementSubject;
+    private final MessageSubject antiEntropyTreeAdvertisementSubject;
+    private final MessageSubject antiEntropyBucketAdvertisementSubject;
     private final MessageSubject updateRequestSubject;
 
     private final Set<EventuallyConsistentMapListener<K, V>> listeners
@@ -102,8 +109,12 @@ public class EventuallyConsistentMapImpl<K, V>
     private final ExecutorService communicationExecutor;
     private final Map<NodeId, EventAccumulator> senderPending;
 
+    private final MapDigestTree<K> digestTree;
+
     private long previousTombstonePurgeTime;
     private final Map<NodeId, Long> antiEntropyTimes = Maps.newConcurrentMap();
+    // Peers running a version without digest tree anti-entropy
+    private final Set<NodeId> legacyPeers = Sets.newConcurrentHashSet();
 
     private final String mapName;
 
@@ -173,6 +184,7 @@ public class EventuallyConsistentMapImpl<K, V>
                                 PersistenceService persistenceService) {
         this.mapName = mapName;
         this.serializer = createSerializer(ns);
+        this.digestTree = new MapDigestTree<>(serializer::encode);
         this.persistenceService = persistenceService;
         this.persistent =
                 persistent;
@@ -181,6 +193,7 @@ public class EventuallyConsistentMapImpl<K, V>
                     .withName(PERSISTENT_LOCAL_MAP_NAME)
                     .withSerializer(this.serializer)
                     .build();
+            items.forEach((key, value) -> digestTree.update(key, null, value));
         } else {
             items = Maps.newConcurrentMap();
         }
@@ -245,6 +258,20 @@ public class EventuallyConsistentMapImpl<K, V>
                                           serializer::encode,
                                           this.backgroundExecutor);
 
+        antiEntropyTreeAdvertisementSubject = new MessageSubject("ecm-" + mapName + "-anti-entropy-tree");
+        clusterCommunicator.addSubscriber(antiEntropyTreeAdvertisementSubject,
+                                          serializer::decode,
+                                          this::handleAntiEntropyTreeAdvertisement,
+                                          serializer::encode,
+                                          this.backgroundExecutor);
+
+        antiEntropyBucketAdvertisementSubject = new MessageSubject("ecm-" + mapName + "-anti-entropy-buckets");
+        clusterCommunicator.addSubscriber(antiEntropyBucketAdvertisementSubject,
+                                          serializer::decode,
+                                          this::handleAntiEntropyBucketAdvertisement,
+                                          serializer::encode,
+                                          this.backgroundExecutor);
+
         updateRequestSubject = new MessageSubject("ecm-" + mapName + "-update-request");
         clusterCommunicator.addSubscriber(updateRequestSubject,
                                           serializer::decode,
@@ -281,6 +308,11 @@ public class EventuallyConsistentMapImpl<K, V>
                          .register(MapValue.class)
                          .register(MapValue.Digest.class)
                          .register(UpdateRequest.class)
+                         // registered last to keep the IDs of the classes
+                         // above, which peers of earlier versions rely on
+                         .register(AntiEntropyTreeAdvertisement.class)
+                         .register(AntiEntropyTreeResponse.class)
+                         .register(AntiEntropyBucketAdvertisement.class)
                          .build(name() + "-ecmap"));
     }
 
@@ -397,6 +429,7 @@ public class EventuallyConsistentMapImpl<K, V>
             }
             if (updated.get()) {
                 previousValue.set(existing);
+                digestTree.update(k, existing, tombstone.orElse(null));
                 return tombstone.orElse(null);
             } else {
                 return existing;
@@ -421,7 +454,9 @@ public class EventuallyConsistentMapImpl<K, V>
                 updated.set(true);
                 // We return a copy to ensure updates to peers can be serialized.
                 // This prevents replica divergence due to serialization failures.
-                return serializer.copy(newValue);
+                MapValue<V> copy = serializer.copy(newValue);
+                digestTree.update(k, mv, copy);
+                return copy;
             } else {
                 return mv;
             }
@@ -492,6 +527,7 @@ public class EventuallyConsistentMapImpl<K, V>
         items.compute(key, (k, existing) -> {
             if (existing == null || newValue.isNewerThan(existing)) {
                 updated.set(true);
+                digestTree.update(k, existing, newValue);
                 return newValue;
             }
             return existing;
@@ -520,12 +556,15 @@ public class EventuallyConsistentMapImpl<K, V>
         executor.shutdown();
         backgroundExecutor.shutdown();
         communicationExecutor.shutdown();
+        counter.destroy();
 
         listeners.clear();
 
         clusterCommunicator.removeSubscriber(updateMessageSubject);
         clusterCommunicator.removeSubscriber(updateRequestSubject);
         clusterCommunicator.removeSubscriber(antiEntropyAdvertisementSubject);
+        clusterCommunicator.removeSubscriber(antiEntropyTreeAdvertisementSubject);
+        clusterCommunicator.removeSubscriber(antiEntropyBucketAdvertisementSubject);
         return CompletableFuture.completedFuture(null);
     }
 
@@ -576,7 +615,61 @@ public class EventuallyConsistentMapImpl<K, V>
 
     private void sendAdvertisementToPeer(NodeId peer) {
         long adCreationTime = System.currentTimeMillis();
-        AntiEntropyAdvertisement<K> ad = createAdvertisement();
+        if (items.size() < digestTree.bucketCount() || legacyPeers.contains(peer)) {
+            // Small maps are cheaper to advertise entry by entry
+            sendAdvertisementToPeer(peer, createAdvertisement(), adCreationTime);
+            return;
+        }
+        AntiEntropyTreeAdvertisement ad = new AntiEntropyTreeAdvertisement(localNodeId,
+                                                                           digestTree.bucketDigests());
+        clusterCommunicator.<AntiEntropyTreeAdvertisement, AntiEntropyTreeResponse>sendAndReceive(ad,
+                antiEntropyTreeAdvertisementSubject,
+                serializer::encode,
+                serializer::decode,
+                peer)
+                .whenCompleteAsync((result, error) -> {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof MessagingException.NoRemoteHandler) {
+                        // the peer does not know digest trees yet, e.g. during a rolling upgrade
+                        log.debug("Falling back to full anti-entropy advertisements for {}", peer);
+                        legacyPeers.add(peer);
+                        sendAdvertisementToPeer(peer, createAdvertisement(), adCreationTime);
+                    } else if (error != null) {
+                        log.debug("Failed to send anti-entropy tree advertisement to {}", peer, error);
+                    } else if (result.status() == AntiEntropyResponse.PROCESSED) {
+                        log.debug("Anti-entropy with {} for {} found {} of {} buckets out of sync",
+                                  peer, mapName, result.buckets().size(), digestTree.bucketCount());
+                        if (result.buckets().isEmpty()) {
+                            antiEntropyTimes.put(peer, adCreationTime);
+                        } else {
+                            sendBucketAdvertisementToPeer(peer, createAdvertisement(result.buckets()),
+                                                          adCreationTime);
+                        }
+                    }
+                }, backgroundExecutor);
+    }
+
+    private void sendBucketAdvertisementToPeer(NodeId peer, AntiEntropyBucketAdvertisement<K> ad,
+                                               long adCreationTime) {
+        log.debug("Sending anti-entropy advertisement to {} for {} with {} entries in {} buckets",
+                  peer, mapName, ad.digest().size(), ad.buckets().size());
+        clusterCommunicator.sendAndReceive(ad,
+                antiEntropyBucketAdvertisementSubject,
+                serializer::encode,
+                serializer::decode,
+                peer)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.debug("Failed to send anti-entropy advertisement to {}", peer, error);
+                    } else if (result == AntiEntropyResponse.PROCESSED) {
+                        antiEntropyTimes.put(peer, adCreationTime);
+                    }
+                });
+    }
+
+    private void sendAdvertisementToPeer(NodeId peer, AntiEntropyAdvertisement<K> ad, long adCreationTime) {
+        log.debug("Sending anti-entropy advertisement to {} for {} with {} entries",
+                  peer, mapName, ad.digest().size());
         clusterCommunicator.sendAndReceive(ad,
                 antiEntropyAdvertisementSubject,
                 serializer::encode,
@@ -609,16 +702,55 @@ public class EventuallyConsistentMapImpl<K, V>
                 ImmutableMap.copyOf(Maps.transformValues(items, MapValue::digest)));
     }
 
+    private AntiEntropyBucketAdvertisement<K> createAdvertisement(Set<Integer> buckets) {
+        Map<K, MapValue.Digest> digest = Maps.newHashMap();
+        forEachItem(buckets, (key, value) -> digest.put(key, value.digest()));
+        return new AntiEntropyBucketAdvertisement<>(localNodeId, digest, buckets);
+    }
+
+    // Applies the given action to the items in the given digest tree buckets,
+    // or to all items if no buckets are given
+    private void forEachItem(Set<Integer> buckets, BiConsumer<K, MapValue<V>> action) {
+        if (buckets == null) {
+            items.forEach(action);
+            return;
+        }
+        buckets.forEach(bucket -> digestTree.keys(bucket).forEach(key -> {
+            MapValue<V> value = items.get(key);
+            if (value != null) {
+                action.accept(key, value);
+            }
+        }));
+    }
+
+    private AntiEntropyTreeResponse handleAntiEntropyTreeAdvertisement(AntiEntropyTreeAdvertisement ad) {
+        legacyPeers.remove(ad.sender());
+        if (destroyed || underHighLoad()) {
+            return new AntiEntropyTreeResponse(AntiEntropyResponse.IGNORED, ImmutableSet.of());
+        }
+        return new AntiEntropyTreeResponse(AntiEntropyResponse.PROCESSED, digestTree.diff(ad.bucketDigests()));
+    }
+
     private AntiEntropyResponse handleAntiEntropyAdvertisement(AntiEntropyAdvertisement<K> ad) {
+        return processAntiEntropyAdvertisement(ad.sender(), ad.digest(), null);
+    }
+
+    private AntiEntropyResponse handleAntiEntropyBucketAdvertisement(AntiEntropyBucketAdvertisement<K> ad) {
+        return processAntiEntropyAdvertisement(ad.sender(), ad.digest(), ad.buckets());
+    }
+
+    private AntiEntropyResponse processAntiEntropyAdvertisement(NodeId sender,
+                                                                Map<K, MapValue.Digest> digest,
+                                                                Set<Integer> buckets) {
         if (destroyed || underHighLoad()) {
             return AntiEntropyResponse.IGNORED;
         }
         try {
             if (log.isTraceEnabled()) {
                 log.trace("Received anti-entropy advertisement from {} for {} with {} entries in it",
-                        ad.sender(), mapName, ad.digest().size());
+                        sender, mapName, digest.size());
             }
-            antiEntropyCheckLocalItems(ad).forEach(this::notifyListeners);
+            antiEntropyCheckLocalItems(sender, digest, buckets).forEach(this::notifyListeners);
         } catch (Exception e) {
             log.warn("Error handling anti-entropy advertisement", e);
             return AntiEntropyResponse.FAILED;
@@ -633,19 +765,21 @@ public class EventuallyConsistentMapImpl<K, V>
      * timestamp than the local entry, update local state.
      */
     private List<EventuallyConsistentMapEvent<K, V>> antiEntropyCheckLocalItems(
-            AntiEntropyAdvertisement<K> ad) {
+            NodeId sender, Map<K, MapValue.Digest> digest, Set<Integer> buckets) {
         final List<EventuallyConsistentMapEvent<K, V>> externalEvents = Lists.newLinkedList();
-        final NodeId sender = ad.sender();
         final List<NodeId> peers = ImmutableList.of(sender);
         Set<K> staleOrMissing = new HashSet<>();
-        Set<K> locallyUnknown = new HashSet<>(ad.digest().keySet());
+        Set<K> locallyUnknown = new HashSet<>(digest.keySet());
+        AtomicInteger pushed = new AtomicInteger();
 
-        items.forEach((key, localValue) -> {
+        // only entries covered by the advertisement are checked
+        forEachItem(buckets, (key, localValue) -> {
             locallyUnknown.remove(key);
-            MapValue.Digest remoteValueDigest = ad.digest().get(key);
+            MapValue.Digest remoteValueDigest = digest.get(key);
             if (remoteValueDigest == null || localValue.isNewerThan(remoteValueDigest.timestamp())) {
                 // local value is more recent, push to sender
                 queueUpdate(new UpdateEntry<>(key, localValue), peers);
+                pushed.incrementAndGet();
             } else if (remoteValueDigest != null
                     && remoteValueDigest.isNewerThan(localValue.digest())
                     && remoteValueDigest.isTombstone()) {
@@ -664,6 +798,9 @@ public class EventuallyConsistentMapImpl<K, V>
         });
         // Keys missing in local map
         staleOrMissing.addAll(locallyUnknown);
+        log.debug("Anti-entropy with {} for {} repaired {} entries: pushed {}, requested {}, removed {}",
+                  sender, mapName, pushed.get() + staleOrMissing.size() + externalEvents.size(),
+                  pushed.get(), staleOrMissing.size(), externalEvents.size());
         // Request updates that we missed out on
         sendUpdateRequestToPeer(sender, staleOrMissing);
         return externalEvents;
@@ -703,7 +840,11 @@ public class EventuallyConsistentMapImpl<K, V>
                                           .filter(e -> e.getValue().creationTime() <= currentSafeTombstonePurgeTime)
                                           .collect(Collectors.toList());
         previousTombstonePurgeTime = currentSafeTombstonePurgeTime;
-        tombStonesToDelete.forEach(entry -> items.remove(entry.getKey(), entry.getValue()));
+        tombStonesToDelete.forEach(entry -> {
+            if (items.remove(entry.getKey(), entry.getValue())) {
+                digestTree.update(entry.getKey(), entry.getValue(), null);
+            }
+        });
     }
 
     private void processUpdates(Collection<UpdateEntry<K, V>> updates) {
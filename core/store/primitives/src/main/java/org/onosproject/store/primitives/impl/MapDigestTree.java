@@ -0,0 +1,216 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Two-level hash tree summarizing the contents of an eventually consistent
+ * map for anti-entropy purposes.
+ * <p>
+ * Keys are spread over a fixed number of buckets, each of which holds the sum
+ * of the hashes of its entries. Bucket digests are kept up to date
+ * incrementally as entries change, so that two replicas can find the buckets
+ * in which they diverge without exchanging a digest for every key.
+ * </p>
+ * <p>
+ * Keys are hashed over their serialized form rather than their hash codes,
+ * which may differ between JVMs, e.g. for enums or keys relying on identity
+ * hash codes. The hash of each key is computed once, when the key is first
+ * added, and the keys of each bucket are tracked so that the entries of the
+ * buckets that differ can be found without walking the whole map.
+ * </p>
+ *
+ * @param <K> map key type
+ */
+final class MapDigestTree<K> {
+
+    /**
+     * Default number of buckets.
+     */
+    static final int DEFAULT_BUCKETS = 1024;
+
+    private final AtomicLongArray buckets;
+    private final List<Set<K>> bucketKeys;
+    private final Map<K, Long> keyHashes = Maps.newConcurrentMap();
+    private final int mask;
+    private final Function<? super K, byte[]> keyEncoder;
+
+    /**
+     * Creates a new digest tree with the default number of buckets.
+     *
+     * @param keyEncoder function serializing map keys
+     */
+    MapDigestTree(Function<? super K, byte[]> keyEncoder) {
+        this(DEFAULT_BUCKETS, keyEncoder);
+    }
+
+    /**
+     * Creates a new digest tree.
+     *
+     * @param bucketCount number of buckets; must be a power of two
+     * @param keyEncoder function serializing map keys
+     */
+    MapDigestTree(int bucketCount, Function<? super K, byte[]> keyEncoder) {
+        checkArgument(bucketCount > 0 && Integer.bitCount(bucketCount) == 1,
+                      "Bucket count must be a power of two");
+        this.buckets = new AtomicLongArray(bucketCount);
+        ImmutableList.Builder<Set<K>> keys = ImmutableList.builder();
+        for (int i = 0; i < bucketCount; i++) {
+            keys.add(ConcurrentHashMap.newKeySet());
+        }
+        this.bucketKeys = keys.build();
+        this.mask = bucketCount - 1;
+        this.keyEncoder = checkNotNull(keyEncoder);
+    }
+
+    /**
+     * Returns the number of buckets.
+     *
+     * @return bucket count
+     */
+    int bucketCount() {
+        return buckets.length();
+    }
+
+    /**
+     * Returns the bucket the given key belongs to.
+     *
+     * @param key map key
+     * @return bucket index
+     */
+    int bucket(K key) {
+        Long keyHash = keyHashes.get(key);
+        return bucketOf(keyHash != null ? keyHash : keyHash(key));
+    }
+
+    /**
+     * Returns the keys in the given bucket, including those of tombstones.
+     * The returned set is a live view, which reflects concurrent updates.
+     *
+     * @param bucket bucket index
+     * @return keys in the bucket
+     */
+    Set<K> keys(int bucket) {
+        return Collections.unmodifiableSet(bucketKeys.get(bucket));
+    }
+
+    /**
+     * Accounts for the value of a key changing from one value to another.
+     * Updates of a given key must not run concurrently.
+     *
+     * @param key map key
+     * @param oldValue previous value, including tombstones; null if none
+     * @param newValue new value, including tombstones; null if none
+     */
+    void update(K key, MapValue<?> oldValue, MapValue<?> newValue) {
+        if (oldValue == null && newValue == null) {
+            return;
+        }
+        long keyHash;
+        if (newValue != null) {
+            keyHash = keyHashes.computeIfAbsent(key, this::keyHash);
+            bucketKeys.get(bucketOf(keyHash)).add(key);
+        } else {
+            Long cached = keyHashes.remove(key);
+            keyHash = cached != null ? cached : keyHash(key);
+            bucketKeys.get(bucketOf(keyHash)).remove(key);
+        }
+        long delta = entryHash(keyHash, newValue) - entryHash(keyHash, oldValue);
+        if (delta != 0) {
+            buckets.addAndGet(bucketOf(keyHash), delta);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the bucket digests.
+     *
+     * @return array of bucket digests
+     */
+    long[] bucketDigests() {
+        long[] digests = new long[buckets.length()];
+        for (int i = 0; i < digests.length; i++) {
+            digests[i] = buckets.get(i);
+        }
+        return digests;
+    }
+
+    /**
+     * Returns the buckets whose digests differ from the given ones. If the
+     * given digests come from a tree of a different shape, all buckets are
+     * considered to differ.
+     *
+     * @param remoteDigests bucket digests of a remote replica
+     * @return indexes of the buckets that differ
+     */
+    Set<Integer> diff(long[] remoteDigests) {
+        ImmutableSet.Builder<Integer> differing = ImmutableSet.builder();
+        boolean sameShape = remoteDigests.length == buckets.length();
+        for (int i = 0; i < buckets.length(); i++) {
+            if (!sameShape || buckets.get(i) != remoteDigests[i]) {
+                differing.add(i);
+            }
+        }
+        return differing.build();
+    }
+
+    private int bucketOf(long keyHash) {
+        return (int) (mix(keyHash) & mask);
+    }
+
+    // Hash of the serialized key, which is the same on every node.
+    private long keyHash(K key) {
+        long hash = 1;
+        for (byte b : keyEncoder.apply(key)) {
+            hash = 31 * hash + b;
+        }
+        return hash;
+    }
+
+    // Hash of a single entry; absent entries do not contribute to the digest.
+    private static long entryHash(long keyHash, MapValue<?> value) {
+        if (value == null) {
+            return 0;
+        }
+        long hash = 31L * keyHash + Objects.hashCode(value.timestamp());
+        return mix(2 * hash + (value.isTombstone() ? 1 : 0));
+    }
+
+    // MurmurHash3 64-bit finalizer, used to spread hash codes evenly.
+    private static long mix(long hash) {
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -25,7 +25,9 @@ import io.atomix.catalyst.util.Assert;
 import io.atomix.copycat.Command;
 import io.atomix.copycat.Query;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -425,6 +427,61 @@ public final class AtomixConsistentMapCommands {
         }
     }
 
+    /**
+     * Batch of map update commands applied in order within a single commit.
+     */
+    @SuppressWarnings("serial")
+    public static class BatchUpdate extends MapCommand<List<MapEntryUpdateResult<String, byte[]>>> {
+        private List<UpdateAndGet> updates;
+
+        public BatchUpdate() {
+        }
+
+        public BatchUpdate(List<UpdateAndGet> updates) {
+            this.updates = updates;
+        }
+
+        /**
+         * Returns the updates.
+         * @return updates
+         */
+        public List<UpdateAndGet> updates() {
+            return updates;
+        }
+
+        @Override
+        public CompactionMode compaction() {
+          // like a single remove, a batch holding a remove must not be compacted
+          // before the entries it removes
+          return updates.stream().anyMatch(update -> update.value() == null) ?
+                  CompactionMode.FULL : CompactionMode.QUORUM;
+        }
+
+        @Override
+        public void writeObject(BufferOutput<?> buffer, Serializer serializer) {
+            super.writeObject(buffer, serializer);
+            buffer.writeInt(updates.size());
+            updates.forEach(update -> serializer.writeObject(update, buffer));
+        }
+
+        @Override
+        public void readObject(BufferInput<?> buffer, Serializer serializer) {
+            super.readObject(buffer, serializer);
+            int size = buffer.readInt();
+            updates = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                updates.add(serializer.readObject(buffer));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("updates", updates.size())
+                    .toString();
+        }
+    }
+
     /**
      * Get query.
      */
@@ -535,6 +592,7 @@ public final class AtomixConsistentMapCommands {
             registry.register(TransactionRollback.class, -774);
             registry.register(TransactionPrepareAndCommit.class, -775);
             registry.register(UpdateAndGet.class, -776);
+            registry.register(BatchUpdate.class, -777);
         }
     }
 }
@@ -36,12 +36,14 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.onlab.util.CountDownCompleter;
 import org.onlab.util.Match;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.BatchUpdate;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Clear;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.ContainsKey;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.ContainsValue;
@@ -112,6 +114,7 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         executor.register(Values.class, this::values);
         // Commands
         executor.register(UpdateAndGet.class, this::updateAndGet);
+        executor.register(BatchUpdate.class, this::batchUpdate);
         executor.register(AtomixConsistentMapCommands.Clear.class, this::clear);
         executor.register(TransactionPrepare.class, this::prepare);
         executor.register(TransactionCommit.class, this::commit);
@@ -260,42 +263,91 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
      */
     protected MapEntryUpdateResult<String, byte[]> updateAndGet(Commit<? extends UpdateAndGet> commit) {
         try {
-            MapEntryUpdateResult.Status updateStatus = validate(commit.operation());
-            String key = commit.operation().key();
-            MapEntryValue oldCommitValue = mapEntries.get(commit.operation().key());
-            Versioned<byte[]> oldMapValue = toVersioned(oldCommitValue);
-
-            if (updateStatus != MapEntryUpdateResult.Status.OK) {
+            List<MapEvent<String, byte[]>> events = Lists.newArrayList();
+            MapEntryUpdateResult<String, byte[]> result = applyUpdate(commit.operation(),
+                    version -> new NonTransactionalCommit(version, commit), events);
+            if (!isRetained(result, commit.operation())) {
                 commit.close();
-                return new MapEntryUpdateResult<>(updateStatus, "", key,
-                        oldMapValue, oldMapValue);
             }
+            publish(events);
+            return result;
+        } catch (Exception e) {
+            log.error("State machine operation failed", e);
+            throw Throwables.propagate(e);
+        }
+    }
 
-            byte[] newValue = commit.operation().value();
-            long newVersion = versionCounter.incrementAndGet();
-            Versioned<byte[]> newMapValue = newValue == null ? null
-                    : new Versioned<>(newValue, newVersion);
-
-            MapEvent.Type updateType = newValue == null ? REMOVE
-                    : oldCommitValue == null ? INSERT : UPDATE;
-            if (updateType == REMOVE || updateType == UPDATE) {
-                mapEntries.remove(key);
-                oldCommitValue.discard();
-            }
-            if (updateType == INSERT || updateType == UPDATE) {
-                mapEntries.put(key, new NonTransactionalCommit(newVersion, commit));
-            } else {
-                commit.close();
+    /**
+     * Handles a batch update commit.
+     *
+     * @param commit batchUpdate commit
+     * @return update results, in the order of the updates in the batch
+     */
+    protected List<MapEntryUpdateResult<String, byte[]>> batchUpdate(Commit<? extends BatchUpdate> commit) {
+        try {
+            // the commit stays open for as long as any entry written by the batch is live
+            CommitReference reference = new CommitReference(commit);
+            List<MapEvent<String, byte[]>> events = Lists.newArrayList();
+            List<MapEntryUpdateResult<String, byte[]>> results = Lists.newArrayList();
+            List<UpdateAndGet> updates = commit.operation().updates();
+            for (int i = 0; i < updates.size(); i++) {
+                int index = i;
+                results.add(applyUpdate(updates.get(i),
+                        version -> new BatchedCommit(index, version, reference.retain()), events));
             }
-            publish(Lists.newArrayList(new MapEvent<>("", key, newMapValue, oldMapValue)));
-            return new MapEntryUpdateResult<>(updateStatus, "", key, oldMapValue,
-                    newMapValue);
+            reference.release();
+            publish(events);
+            return results;
         } catch (Exception e) {
             log.error("State machine operation failed", e);
             throw Throwables.propagate(e);
         }
     }
 
+    private boolean isRetained(MapEntryUpdateResult<String, byte[]> result, UpdateAndGet update) {
+        return result.status() == MapEntryUpdateResult.Status.OK && update.value() != null;
+    }
+
+    /**
+     * Applies an update to the map entries.
+     *
+     * @param update       update to apply
+     * @param valueFactory creates the entry value retaining the update for a given version
+     * @param events       list to add the resulting map event to
+     * @return update result
+     */
+    private MapEntryUpdateResult<String, byte[]> applyUpdate(UpdateAndGet update,
+                                                             Function<Long, MapEntryValue> valueFactory,
+                                                             List<MapEvent<String, byte[]>> events) {
+        MapEntryUpdateResult.Status updateStatus = validate(update);
+        String key = update.key();
+        MapEntryValue oldCommitValue = mapEntries.get(key);
+        Versioned<byte[]> oldMapValue = toVersioned(oldCommitValue);
+
+        if (updateStatus != MapEntryUpdateResult.Status.OK) {
+            return new MapEntryUpdateResult<>(updateStatus, "", key,
+                    oldMapValue, oldMapValue);
+        }
+
+        byte[] newValue = update.value();
+        long newVersion = versionCounter.incrementAndGet();
+        Versioned<byte[]> newMapValue = newValue == null ? null
+                : new Versioned<>(newValue, newVersion);
+
+        MapEvent.Type updateType = newValue == null ? REMOVE
+                : oldCommitValue == null ? INSERT : UPDATE;
+        if (updateType == REMOVE || updateType == UPDATE) {
+            mapEntries.remove(key);
+            oldCommitValue.discard();
+        }
+        if (updateType == INSERT || updateType == UPDATE) {
+            mapEntries.put(key, valueFactory.apply(newVersion));
+        }
+        events.add(new MapEvent<>("", key, newMapValue, oldMapValue));
+        return new MapEntryUpdateResult<>(updateStatus, "", key, oldMapValue,
+                newMapValue);
+    }
+
     /**
      * Handles a clear commit.
      *
@@ -535,6 +587,9 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
      * @param events list of map event to publish
      */
     private void publish(List<MapEvent<String, byte[]>> events) {
+        if (events.isEmpty()) {
+            return;
+        }
         listeners.values().forEach(commit -> commit.session().publish(AtomixConsistentMap.CHANGE_SUBJECT, events));
     }
 
@@ -617,6 +672,61 @@ public class AtomixConsistentMapState extends ResourceStateMachine implements Se
         }
     }
 
+    /**
+     * Reference count over a batch commit which is closed once no map entry
+     * written by the batch remains.
+     */
+    private static class CommitReference {
+        private final Commit<? extends BatchUpdate> commit;
+        private int references = 1;
+
+        CommitReference(Commit<? extends BatchUpdate> commit) {
+            this.commit = commit;
+        }
+
+        CommitReference retain() {
+            references++;
+            return this;
+        }
+
+        void release() {
+            if (--references == 0) {
+                commit.close();
+            }
+        }
+    }
+
+    /**
+     * A {@code MapEntryValue} that is derived from one of the updates of a
+     * batch update.
+     */
+    private class BatchedCommit implements MapEntryValue {
+        private final int index;
+        private final long version;
+        private final CommitReference reference;
+
+        public BatchedCommit(int index, long version, CommitReference reference) {
+            this.index = index;
+            this.version = version;
+            this.reference = reference;
+        }
+
+        @Override
+        public byte[] value() {
+            return reference.commit.operation().updates().get(index).value();
+        }
+
+        @Override
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public void discard() {
+            reference.release();
+        }
+    }
+
     /**
      * A {@code MapEntryValue} that is derived from updates submitted via a
      * transaction.
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.resources.impl;
+
+import io.atomix.copycat.Command;
+import io.atomix.copycat.Operation;
+import io.atomix.copycat.Query;
+import io.atomix.copycat.client.CopycatClient;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.BatchUpdate;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.UpdateAndGet;
+
+import com.google.common.collect.Lists;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Submits map operations to a partition with a bounded number of updates
+ * in flight.
+ * <p>
+ * Operations are submitted in the order they are received, so the session
+ * ordering guarantees of the map are unaffected. While the in-flight limit is
+ * reached, updates queue up; consecutive queued updates are then sent to
+ * the partition as a single {@link BatchUpdate} command, replacing one Raft
+ * round-trip per update with one per batch. An idle pipeline adds no latency.
+ * </p>
+ * <p>
+ * Other operations, such as queries, listener registrations and transaction
+ * commands, have nothing to coalesce and do not count against the limit.
+ * They are sent as soon as the updates submitted before them have been sent.
+ * </p>
+ */
+final class MapCommandPipeline {
+
+    static final int DEFAULT_MAX_IN_FLIGHT = 8;
+    static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    private final CopycatClient client;
+    private final int maxInFlight;
+    private final int maxBatchSize;
+    private final Queue<PendingOperation<?>> pending = new ArrayDeque<>();
+    private int inFlight;
+
+    /**
+     * Creates a pipeline with default limits.
+     *
+     * @param client copycat client of the partition
+     */
+    MapCommandPipeline(CopycatClient client) {
+        this(client, DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param client       copycat client of the partition
+     * @param maxInFlight  maximum number of submissions awaiting completion
+     * @param maxBatchSize maximum number of updates in a batch
+     */
+    MapCommandPipeline(CopycatClient client, int maxInFlight, int maxBatchSize) {
+        checkArgument(maxInFlight > 0, "maxInFlight must be positive");
+        checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Submits an operation.
+     *
+     * @param operation command or query to submit
+     * @param <T> operation result type
+     * @return future completed with the operation result
+     */
+    <T> CompletableFuture<T> submit(Operation<T> operation) {
+        PendingOperation<T> op = new PendingOperation<>(operation);
+        synchronized (this) {
+            pending.add(op);
+            drain();
+        }
+        return op.future;
+    }
+
+    // Must be called while holding the lock so that submission order is kept.
+    private void drain() {
+        while (!pending.isEmpty()) {
+            PendingOperation<?> head = pending.peek();
+            if (!isUpdate(head)) {
+                send(pending.poll(), false);
+                continue;
+            }
+            if (inFlight >= maxInFlight) {
+                return;
+            }
+            inFlight++;
+            pending.poll();
+            if (isUpdate(pending.peek())) {
+                List<PendingOperation<?>> batch = Lists.newArrayList(head);
+                while (batch.size() < maxBatchSize && isUpdate(pending.peek())) {
+                    batch.add(pending.poll());
+                }
+                sendBatch(batch);
+            } else {
+                send(head, true);
+            }
+        }
+    }
+
+    private static boolean isUpdate(PendingOperation<?> op) {
+        return op != null && op.operation instanceof UpdateAndGet;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void send(PendingOperation<T> op, boolean counted) {
+        CompletableFuture<T> future = op.operation instanceof Command ?
+                client.submit((Command<T>) op.operation) :
+                client.submit((Query<T>) op.operation);
+        future.whenComplete((result, error) -> {
+            if (counted) {
+                completed();
+            }
+            if (error != null) {
+                op.future.completeExceptionally(error);
+            } else {
+                op.future.complete(result);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sendBatch(List<PendingOperation<?>> batch) {
+        List<UpdateAndGet> updates = Lists.transform(batch, op -> (UpdateAndGet) op.operation);
+        client.submit(new BatchUpdate(Lists.newArrayList(updates))).whenComplete((results, error) -> {
+            completed();
+            for (int i = 0; i < batch.size(); i++) {
+                CompletableFuture<MapEntryUpdateResult<String, byte[]>> future =
+                        (CompletableFuture<MapEntryUpdateResult<String, byte[]>>) batch.get(i).future;
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else {
+                    future.complete(results.get(i));
+                }
+            }
+        });
+    }
+
+    private void completed() {
+        synchronized (this) {
+            inFlight--;
+            drain();
+        }
+    }
+
+    private static final class PendingOperation<T> {
+        private final Operation<T> operation;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private PendingOperation(Operation<T> operation) {
+            this.operation = operation;
+        }
+    }
+}
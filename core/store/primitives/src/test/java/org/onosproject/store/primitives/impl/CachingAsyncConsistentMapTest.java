@@ -0,0 +1,374 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.MapEvent;
+import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.MapTransaction;
+import org.onosproject.store.service.Versioned;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Unit tests for CachingAsyncConsistentMap.
+ */
+public class CachingAsyncConsistentMapTest {
+
+    private TestAsyncConsistentMap backingMap;
+    private CachingAsyncConsistentMap<String, String> map;
+
+    @Before
+    public void setUp() {
+        backingMap = new TestAsyncConsistentMap();
+        map = new CachingAsyncConsistentMap<>(backingMap, 100);
+        map.put("a", "1").join();
+        map.put("b", "2").join();
+    }
+
+    @Test
+    public void testSnapshotReads() {
+        assertEquals(ImmutableSet.of("a", "b"), map.keySet().join());
+        assertEquals(1, backingMap.entrySetCalls);
+
+        assertEquals(2, (int) map.size().join());
+        assertFalse(map.isEmpty().join());
+        assertTrue(map.containsValue("2").join());
+        assertFalse(map.containsKey("c").join());
+        assertEquals("1", map.get("a").join().value());
+        assertEquals(1, backingMap.entrySetCalls);
+        assertEquals(0, backingMap.sizeCalls);
+    }
+
+    @Test
+    public void testLocalWritesKeepSnapshot() {
+        map.entrySet().join();
+
+        map.put("c", "3").join();
+        map.put("a", "4").join();
+        map.putAndGet("d", "5").join();
+        map.putIfAbsent("e", "6").join();
+        map.remove("b").join();
+        assertTrue(map.replace("c", "3", "7").join());
+        assertTrue(map.replace("d", map.get("d").join().version(), "8").join());
+        assertTrue(map.remove("e", "6").join());
+        map.computeIf("f", Objects::isNull, (k, v) -> "9").join();
+
+        assertEquals(ImmutableSet.of("a", "c", "d", "f"), map.keySet().join());
+        assertEquals("4", map.get("a").join().value());
+        assertEquals("7", map.get("c").join().value());
+        assertEquals("8", map.get("d").join().value());
+        assertEquals(backingMap.entries, snapshot());
+        assertEquals(1, backingMap.entrySetCalls);
+    }
+
+    @Test
+    public void testLateEventsDiscardSnapshot() {
+        map.entrySet().join();
+        backingMap.deferEvents = true;
+
+        // results carrying the new entry update the snapshot
+        map.putAndGet("c", "3").join();
+        map.remove("a").join();
+        assertEquals(ImmutableSet.of("b", "c"), map.keySet().join());
+        assertEquals(1, backingMap.entrySetCalls);
+
+        // other results are not reflected in the snapshot until their events arrive
+        map.put("b", "4").join();
+        assertEquals("4", snapshot().get("b").value());
+        assertEquals(2, backingMap.entrySetCalls);
+
+        backingMap.deliverEvents();
+        assertEquals(backingMap.entries, snapshot());
+        assertEquals(2, backingMap.entrySetCalls);
+    }
+
+    @Test
+    public void testIsEmptyFallback() {
+        assertFalse(map.isEmpty().join());
+        assertEquals(1, backingMap.isEmptyCalls);
+        assertEquals(0, backingMap.sizeCalls);
+        assertEquals(0, backingMap.entrySetCalls);
+    }
+
+    @Test
+    public void testCacheStats() {
+        map.get("a").join();
+        map.get("a").join();
+        map.size().join();
+        CacheStats stats = map.cacheStats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(4, stats.missCount());
+
+        map.values().join();
+        map.containsKey("a").join();
+        map.get("b").join();
+        stats = map.cacheStats();
+        assertEquals(3, stats.hitCount());
+        assertEquals(5, stats.missCount());
+    }
+
+    @Test
+    public void testEventsFromOtherNodes() {
+        map.entrySet().join();
+        backingMap.update("c", "3");
+        backingMap.update("a", null);
+        assertEquals(ImmutableSet.of("b", "c"), map.keySet().join());
+        assertNull(map.get("a").join());
+        assertEquals(1, backingMap.entrySetCalls);
+    }
+
+    private Map<String, Versioned<String>> snapshot() {
+        return map.entrySet().join().stream()
+                .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
+    }
+
+    /**
+     * In-memory map that, like the partitioned map, publishes the events of
+     * updates before completing them.
+     */
+    private static class TestAsyncConsistentMap implements AsyncConsistentMap<String, String> {
+        private final Map<String, Versioned<String>> entries = Maps.newHashMap();
+        private final Set<MapEventListener<String, String>> listeners = Sets.newIdentityHashSet();
+        private final List<MapEvent<String, String>> deferred = Lists.newArrayList();
+        private long version;
+        private boolean deferEvents;
+        private int entrySetCalls;
+        private int sizeCalls;
+        private int isEmptyCalls;
+
+        // Applies an update and returns the previous entry.
+        private Versioned<String> update(String key, String value) {
+            Versioned<String> oldValue = entries.get(key);
+            Versioned<String> newValue = value == null ? null : new Versioned<>(value, ++version);
+            if (newValue == null) {
+                entries.remove(key);
+            } else {
+                entries.put(key, newValue);
+            }
+            MapEvent<String, String> event = new MapEvent<>(name(), key, newValue, oldValue);
+            if (deferEvents) {
+                deferred.add(event);
+            } else {
+                listeners.forEach(listener -> listener.event(event));
+            }
+            return oldValue;
+        }
+
+        private void deliverEvents() {
+            deferred.forEach(event -> listeners.forEach(listener -> listener.event(event)));
+            deferred.clear();
+        }
+
+        @Override
+        public String name() {
+            return "test";
+        }
+
+        @Override
+        public CompletableFuture<Integer> size() {
+            sizeCalls++;
+            return CompletableFuture.completedFuture(entries.size());
+        }
+
+        @Override
+        public CompletableFuture<Boolean> isEmpty() {
+            isEmptyCalls++;
+            return CompletableFuture.completedFuture(entries.isEmpty());
+        }
+
+        @Override
+        public CompletableFuture<Boolean> containsKey(String key) {
+            return CompletableFuture.completedFuture(entries.containsKey(key));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> containsValue(String value) {
+            return CompletableFuture.completedFuture(
+                    entries.values().stream().anyMatch(v -> v.value().equals(value)));
+        }
+
+        @Override
+        public CompletableFuture<Versioned<String>> get(String key) {
+            return CompletableFuture.completedFuture(entries.get(key));
+        }
+
+        @Override
+        public CompletableFuture<Versioned<String>> computeIf(String key,
+                Predicate<? super String> condition,
+                BiFunction<? super String, ? super String, ? extends String> remappingFunction) {
+            Versioned<String> current = entries.get(key);
+            String value = current == null ? null : current.value();
+            if (condition.test(value)) {
+                update(key, remappingFunction.apply(key, value));
+            }
+            return CompletableFuture.completedFuture(entries.get(key));
+        }
+
+        @Override
+        public CompletableFuture<Versioned<String>> put(String key, String value) {
+            return CompletableFuture.completedFuture(update(key, value));
+        }
+
+        @Override
+        public CompletableFuture<Versioned<String>> putAndGet(String key, String value) {
+            update(key, value);
+            return CompletableFuture.completedFuture(entries.get(key));
+        }
+
+        @Override
+        public CompletableFuture<Versioned<String>> remove(String key) {
+            return CompletableFuture.completedFuture(entries.containsKey(key) ? update(key, null) : null);
+        }
+
+        @Override
+        public CompletableFuture<Void> clear() {
+            Lists.newArrayList(entries.keySet()).forEach(key -> update(key, null));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Set<String>> keySet() {
+            return CompletableFuture.completedFuture(ImmutableSet.copyOf(entries.keySet()));
+        }
+
+        @Override
+        public CompletableFuture<Collection<Versioned<String>>> values() {
+            return CompletableFuture.completedFuture(Lists.newArrayList(entries.values()));
+        }
+
+        @Override
+        public CompletableFuture<Set<Entry<String, Versioned<String>>>> entrySet() {
+            entrySetCalls++;
+            return CompletableFuture.completedFuture(ImmutableSet.copyOf(entries.entrySet()));
+        }
+
+        @Override
+        public CompletableFuture<Versioned<String>> putIfAbsent(String key, String value) {
+            Versioned<String> current = entries.get(key);
+            if (current == null) {
+                update(key, value);
+            }
+            return CompletableFuture.completedFuture(current);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> remove(String key, String value) {
+            Versioned<String> current = entries.get(key);
+            boolean removed = current != null && current.value().equals(value);
+            if (removed) {
+                update(key, null);
+            }
+            return CompletableFuture.completedFuture(removed);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> remove(String key, long version) {
+            Versioned<String> current = entries.get(key);
+            boolean removed = current != null && current.version() == version;
+            if (removed) {
+                update(key, null);
+            }
+            return CompletableFuture.completedFuture(removed);
+        }
+
+        @Override
+        public CompletableFuture<Versioned<String>> replace(String key, String value) {
+            Versioned<String> current = entries.get(key);
+            if (current != null) {
+                update(key, value);
+            }
+            return CompletableFuture.completedFuture(current);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> replace(String key, String oldValue, String newValue) {
+            Versioned<String> current = entries.get(key);
+            boolean replaced = current != null && current.value().equals(oldValue);
+            if (replaced) {
+                update(key, newValue);
+            }
+            return CompletableFuture.completedFuture(replaced);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> replace(String key, long oldVersion, String newValue) {
+            Versioned<String> current = entries.get(key);
+            boolean replaced = current != null && current.version() == oldVersion;
+            if (replaced) {
+                update(key, newValue);
+            }
+            return CompletableFuture.completedFuture(replaced);
+        }
+
+        @Override
+        public CompletableFuture<Void> addListener(MapEventListener<String, String> listener,
+                                                   Executor executor) {
+            listeners.add(listener);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> removeListener(MapEventListener<String, String> listener) {
+            listeners.remove(listener);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> prepare(MapTransaction<String, String> transaction) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Void> commit(TransactionId transactionId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Void> rollback(TransactionId transactionId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Boolean> prepareAndCommit(MapTransaction<String, String> transaction) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.onosproject.store.primitives.impl;
 import static com.google.common.base.Preconditions.checkArgument;
 import static junit.framework.TestCase.assertFalse;
 import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
@@ -46,6 +47,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import org.easymock.Capture;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -63,6 +65,7 @@ import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapte
 import org.onosproject.store.cluster.messaging.MessageSubject;
 import org.onosproject.store.persistence.TestPersistenceService;
 import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.serializers.StoreSerializer;
 import org.onosproject.store.service.EventuallyConsistentMap;
 import org.onosproject.store.service.EventuallyConsistentMapEvent;
 import org.onosproject.store.service.EventuallyConsistentMapListener;
@@ -88,6 +91,10 @@ public class EventuallyConsistentMapImplTest {
             = new MessageSubject("ecm-" + MAP_NAME + "-update");
     private static final MessageSubject ANTI_ENTROPY_MESSAGE_SUBJECT
             = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy");
+    private static final MessageSubject ANTI_ENTROPY_TREE_MESSAGE_SUBJECT
+            = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy-tree");
+    private static final MessageSubject ANTI_ENTROPY_BUCKET_MESSAGE_SUBJECT
+            = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy-buckets");
     private static final MessageSubject UPDATE_REQUEST_SUBJECT
             = new MessageSubject("ecm-" + MAP_NAME + "-update-request");
 
@@ -102,6 +109,8 @@ public class EventuallyConsistentMapImplTest {
     private Consumer<Collection<UpdateEntry<String, String>>> updateHandler;
     private Consumer<Collection<UpdateRequest<String>>> requestHandler;
     private Function<AntiEntropyAdvertisement<String>, AntiEntropyResponse> antiEntropyHandler;
+    private Function<AntiEntropyTreeAdvertisement, AntiEntropyTreeResponse> antiEntropyTreeHandler;
+    private Function<AntiEntropyBucketAdvertisement<String>, AntiEntropyResponse> antiEntropyBucketHandler;
 
     @Before
     public void setUp() throws Exception {
@@ -125,7 +134,7 @@ public class EventuallyConsistentMapImplTest {
                                                           anyObject(Function.class),
                                                           anyObject(Function.class),
                                                           anyObject(Executor.class));
-        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(3);
         clusterCommunicator.<Object>addSubscriber(anyObject(MessageSubject.class),
                 anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
         expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
@@ -657,6 +666,62 @@ public class EventuallyConsistentMapImplTest {
         }
     }
 
+    @Test
+    public void testAntiEntropyTreeAdvertisement() throws Exception {
+        NodeId peer = new NodeId("peer");
+        long[] emptyDigests = new long[MapDigestTree.DEFAULT_BUCKETS];
+
+        AntiEntropyTreeResponse response =
+                antiEntropyTreeHandler.apply(new AntiEntropyTreeAdvertisement(peer, emptyDigests));
+        assertEquals(AntiEntropyResponse.PROCESSED, response.status());
+        assertTrue(response.buckets().isEmpty());
+
+        expectPeerMessage(clusterCommunicator);
+        ecMap.put(KEY1, VALUE1);
+
+        MapDigestTree<String> tree = new MapDigestTree<>(StoreSerializer.using(KryoNamespaces.API)::encode);
+        response = antiEntropyTreeHandler.apply(new AntiEntropyTreeAdvertisement(peer, emptyDigests));
+        assertEquals(AntiEntropyResponse.PROCESSED, response.status());
+        assertEquals(ImmutableSet.of(tree.bucket(KEY1)), response.buckets());
+    }
+
+    @Test
+    public void testPartialAntiEntropyAdvertisement() throws Exception {
+        NodeId peer = new NodeId("peer");
+        MapDigestTree<String> tree = new MapDigestTree<>(StoreSerializer.using(KryoNamespaces.API)::encode);
+        String otherKey = KEY2;
+        for (int i = 0; tree.bucket(otherKey) == tree.bucket(KEY1); i++) {
+            otherKey = KEY2 + i;
+        }
+
+        expectPeerMessage(clusterCommunicator);
+        ecMap.put(KEY1, VALUE1);
+        ecMap.put(otherKey, VALUE2);
+
+        // Advertise a newer KEY1 in its bucket only; the entry in the other
+        // bucket is not covered by the advertisement and must be left alone.
+        Capture<UpdateRequest<String>> request = new Capture<>();
+        reset(clusterCommunicator);
+        expect(clusterCommunicator.<UpdateRequest<String>>unicast(capture(request),
+                                                                  eq(UPDATE_REQUEST_SUBJECT),
+                                                                  anyObject(Function.class),
+                                                                  eq(peer)))
+                .andReturn(CompletableFuture.completedFuture(null))
+                .once();
+        replay(clusterCommunicator);
+
+        Map<String, MapValue.Digest> digest = new HashMap<>();
+        digest.put(KEY1, new MapValue.Digest(clockService.peekAtNextTimestamp(), false));
+        AntiEntropyBucketAdvertisement<String> ad = new AntiEntropyBucketAdvertisement<>(
+                peer, digest, ImmutableSet.of(tree.bucket(KEY1)));
+        assertEquals(AntiEntropyResponse.PROCESSED, antiEntropyBucketHandler.apply(ad));
+
+        verify(clusterCommunicator);
+        assertEquals(ImmutableSet.of(KEY1), request.getValue().keys());
+        assertEquals(VALUE1, ecMap.get(KEY1));
+        assertEquals(VALUE2, ecMap.get(otherKey));
+    }
+
     private UpdateEntry<String, String> generatePutMessage(String key, String value, Timestamp timestamp) {
         return new UpdateEntry<>(key, new MapValue<>(value, timestamp));
     }
@@ -793,6 +858,11 @@ public class EventuallyConsistentMapImplTest {
                 Function<byte[], M> decoder, Function<M, R> handler, Function<R, byte[]> encoder, Executor executor) {
             if (subject.equals(ANTI_ENTROPY_MESSAGE_SUBJECT)) {
                 antiEntropyHandler = (Function<AntiEntropyAdvertisement<String>, AntiEntropyResponse>) handler;
+            } else if (subject.equals(ANTI_ENTROPY_TREE_MESSAGE_SUBJECT)) {
+                antiEntropyTreeHandler = (Function<AntiEntropyTreeAdvertisement, AntiEntropyTreeResponse>) handler;
+            } else if (subject.equals(ANTI_ENTROPY_BUCKET_MESSAGE_SUBJECT)) {
+                antiEntropyBucketHandler =
+                        (Function<AntiEntropyBucketAdvertisement<String>, AntiEntropyResponse>) handler;
             } else {
                 throw new RuntimeException("Unexpected message subject " + subject.toString());
             }
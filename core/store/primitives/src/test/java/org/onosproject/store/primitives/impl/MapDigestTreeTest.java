@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.onosproject.store.LogicalTimestamp;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Unit tests for MapDigestTree.
+ */
+public class MapDigestTreeTest {
+
+    private static final int BUCKETS = 16;
+    private static final Function<Object, byte[]> ENCODER =
+            key -> key.toString().getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testEmptyTreesMatch() {
+        MapDigestTree<Object> tree1 = new MapDigestTree<>(BUCKETS, ENCODER);
+        MapDigestTree<Object> tree2 = new MapDigestTree<>(BUCKETS, ENCODER);
+        assertEquals(BUCKETS, tree1.bucketCount());
+        assertTrue(tree1.diff(tree2.bucketDigests()).isEmpty());
+    }
+
+    @Test
+    public void testInsertionOrderIndependence() {
+        MapDigestTree<Object> tree1 = new MapDigestTree<>(BUCKETS, ENCODER);
+        MapDigestTree<Object> tree2 = new MapDigestTree<>(BUCKETS, ENCODER);
+        for (int i = 0; i < 100; i++) {
+            tree1.update("key" + i, null, new MapValue<>("value" + i, new LogicalTimestamp(i)));
+        }
+        for (int i = 99; i >= 0; i--) {
+            tree2.update("key" + i, null, new MapValue<>("value" + i, new LogicalTimestamp(i)));
+        }
+        assertArrayEquals(tree1.bucketDigests(), tree2.bucketDigests());
+        assertTrue(tree1.diff(tree2.bucketDigests()).isEmpty());
+    }
+
+    @Test
+    public void testDivergentEntry() {
+        MapDigestTree<Object> tree1 = new MapDigestTree<>(BUCKETS, ENCODER);
+        MapDigestTree<Object> tree2 = new MapDigestTree<>(BUCKETS, ENCODER);
+        MapValue<String> value1 = new MapValue<>("foo", new LogicalTimestamp(1));
+        MapValue<String> value2 = new MapValue<>("bar", new LogicalTimestamp(2));
+        tree1.update("a", null, value1);
+        tree2.update("a", null, value1);
+        tree2.update("b", null, value1);
+        assertEquals(ImmutableSet.of(tree1.bucket("b")), tree1.diff(tree2.bucketDigests()));
+
+        tree1.update("b", null, value1);
+        assertTrue(tree1.diff(tree2.bucketDigests()).isEmpty());
+
+        tree1.update("a", value1, value2);
+        assertEquals(ImmutableSet.of(tree1.bucket("a")), tree1.diff(tree2.bucketDigests()));
+
+        tree2.update("a", value1, value2);
+        assertTrue(tree1.diff(tree2.bucketDigests()).isEmpty());
+    }
+
+    @Test
+    public void testTombstonesAndRemoval() {
+        MapDigestTree<Object> tree1 = new MapDigestTree<>(BUCKETS, ENCODER);
+        MapDigestTree<Object> tree2 = new MapDigestTree<>(BUCKETS, ENCODER);
+        MapValue<String> value = new MapValue<>("foo", new LogicalTimestamp(1));
+        MapValue<String> tombstone = MapValue.tombstone(new LogicalTimestamp(2));
+        tree1.update("a", null, value);
+        tree1.update("a", value, tombstone);
+        assertEquals(ImmutableSet.of(tree1.bucket("a")), tree1.diff(tree2.bucketDigests()));
+
+        tree2.update("a", null, tombstone);
+        assertTrue(tree1.diff(tree2.bucketDigests()).isEmpty());
+
+        tree1.update("a", tombstone, null);
+        tree2.update("a", tombstone, null);
+        assertArrayEquals(new long[BUCKETS], tree1.bucketDigests());
+    }
+
+    @Test
+    public void testBucketKeys() {
+        MapDigestTree<Object> tree = new MapDigestTree<>(BUCKETS, ENCODER);
+        MapValue<String> value = new MapValue<>("foo", new LogicalTimestamp(1));
+        MapValue<String> tombstone = MapValue.tombstone(new LogicalTimestamp(2));
+        for (int i = 0; i < 100; i++) {
+            tree.update("key" + i, null, value);
+        }
+        int total = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            for (Object key : tree.keys(bucket)) {
+                assertEquals(bucket, tree.bucket(key));
+            }
+            total += tree.keys(bucket).size();
+        }
+        assertEquals(100, total);
+
+        // Tombstones stay in their bucket until they are purged
+        int bucket = tree.bucket("key0");
+        tree.update("key0", value, tombstone);
+        assertTrue(tree.keys(bucket).contains("key0"));
+        tree.update("key0", tombstone, null);
+        assertFalse(tree.keys(bucket).contains("key0"));
+    }
+
+    @Test
+    public void testKeyEncodedOnce() {
+        AtomicInteger encodings = new AtomicInteger();
+        MapDigestTree<Object> tree = new MapDigestTree<>(BUCKETS, key -> {
+            encodings.incrementAndGet();
+            return ENCODER.apply(key);
+        });
+        MapValue<String> value1 = new MapValue<>("foo", new LogicalTimestamp(1));
+        MapValue<String> value2 = new MapValue<>("bar", new LogicalTimestamp(2));
+        tree.update("a", null, value1);
+        tree.update("a", value1, value2);
+        tree.bucket("a");
+        tree.update("a", value2, null);
+        assertEquals(1, encodings.get());
+    }
+
+    @Test
+    public void testIdentityHashedKeys() {
+        // Distinct instances stand in for the same key on different nodes,
+        // whose hash codes differ but whose serialized forms are equal
+        MapDigestTree<Object> tree1 = new MapDigestTree<>(BUCKETS, ENCODER);
+        MapDigestTree<Object> tree2 = new MapDigestTree<>(BUCKETS, ENCODER);
+        MapValue<String> value = new MapValue<>("foo", new LogicalTimestamp(1));
+        for (int i = 0; i < 100; i++) {
+            tree1.update(new IdentityKey("key" + i), null, value);
+            tree2.update(new IdentityKey("key" + i), null, value);
+        }
+        assertTrue(tree1.diff(tree2.bucketDigests()).isEmpty());
+    }
+
+    @Test
+    public void testShapeMismatch() {
+        MapDigestTree<Object> tree1 = new MapDigestTree<>(BUCKETS, ENCODER);
+        MapDigestTree<Object> tree2 = new MapDigestTree<>(2 * BUCKETS, ENCODER);
+        assertEquals(BUCKETS, tree1.diff(tree2.bucketDigests()).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadBucketCount() {
+        new MapDigestTree<Object>(BUCKETS + 1, ENCODER);
+    }
+
+    /**
+     * Key without value-based hash code.
+     */
+    private static final class IdentityKey {
+        private final String name;
+
+        private IdentityKey(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
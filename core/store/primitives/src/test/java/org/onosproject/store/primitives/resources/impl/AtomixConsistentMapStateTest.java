@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.resources.impl;
+
+import io.atomix.copycat.Command.CompactionMode;
+import io.atomix.copycat.Operation;
+import io.atomix.copycat.server.Commit;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.util.Match;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.BatchUpdate;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Get;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.UpdateAndGet;
+import org.onosproject.store.service.Versioned;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableList;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit tests for batch updates of the consistent map state machine.
+ */
+public class AtomixConsistentMapStateTest {
+
+    private AtomixConsistentMapState state;
+
+    @Before
+    public void setUp() {
+        state = new AtomixConsistentMapState(new Properties());
+    }
+
+    private static UpdateAndGet put(String key, String value) {
+        return new UpdateAndGet(key, value.getBytes(), Match.ANY, Match.ANY);
+    }
+
+    private static UpdateAndGet remove(String key) {
+        return new UpdateAndGet(key, null, Match.ANY, Match.ANY);
+    }
+
+    // Creates a commit of the given operation, counting the times it is closed.
+    @SuppressWarnings("unchecked")
+    private static <T extends Operation<?>> Commit<T> commit(T operation, AtomicInteger closed) {
+        Commit<T> commit = createMock(Commit.class);
+        expect(commit.operation()).andReturn(operation).anyTimes();
+        commit.close();
+        expectLastCall().andAnswer(() -> {
+            closed.incrementAndGet();
+            return null;
+        }).anyTimes();
+        replay(commit);
+        return commit;
+    }
+
+    private Versioned<byte[]> get(String key) {
+        return state.get(commit(new Get(key), new AtomicInteger()));
+    }
+
+    @Test
+    public void testCompaction() {
+        assertThat(new BatchUpdate(ImmutableList.of(put("a", "1"), put("b", "2"))).compaction(),
+                   is(CompactionMode.QUORUM));
+        assertThat(new BatchUpdate(ImmutableList.of(put("a", "1"), remove("b"))).compaction(),
+                   is(CompactionMode.FULL));
+        assertThat(new BatchUpdate(ImmutableList.of(remove("a"))).compaction(),
+                   is(CompactionMode.FULL));
+    }
+
+    @Test
+    public void testBatchUpdate() {
+        AtomicInteger closed = new AtomicInteger();
+        List<MapEntryUpdateResult<String, byte[]>> results = state.batchUpdate(
+                commit(new BatchUpdate(ImmutableList.of(put("a", "1"), put("b", "2"), remove("a"), remove("c"))),
+                       closed));
+
+        assertThat(results.size(), is(4));
+        assertThat(results.get(0).status(), is(MapEntryUpdateResult.Status.OK));
+        assertThat(results.get(1).status(), is(MapEntryUpdateResult.Status.OK));
+        assertThat(results.get(2).status(), is(MapEntryUpdateResult.Status.OK));
+        assertArrayEquals("1".getBytes(), results.get(2).oldValue().value());
+        assertThat(results.get(3).status(), is(MapEntryUpdateResult.Status.NOOP));
+
+        assertThat(get("a"), is(nullValue()));
+        assertArrayEquals("2".getBytes(), get("b").value());
+
+        // the batch is retained while the value it wrote for b is live
+        assertThat(closed.get(), is(0));
+        AtomicInteger removeClosed = new AtomicInteger();
+        state.updateAndGet(commit(remove("b"), removeClosed));
+        assertThat(closed.get(), is(1));
+        assertThat(removeClosed.get(), is(1));
+        assertThat(get("b"), is(nullValue()));
+    }
+
+    @Test
+    public void testBatchWithoutLiveValues() {
+        AtomicInteger closed = new AtomicInteger();
+        state.batchUpdate(commit(new BatchUpdate(ImmutableList.of(remove("a"))), closed));
+        assertThat(closed.get(), is(1));
+    }
+}
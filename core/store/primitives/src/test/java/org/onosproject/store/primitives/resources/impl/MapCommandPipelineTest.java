@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.resources.impl;
+
+import io.atomix.copycat.Command;
+import io.atomix.copycat.Operation;
+import io.atomix.copycat.Query;
+import io.atomix.copycat.client.CopycatClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.util.Match;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.BatchUpdate;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Get;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.Listen;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapCommands.UpdateAndGet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.common.collect.ImmutableList;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for MapCommandPipeline.
+ */
+public class MapCommandPipelineTest {
+
+    private final List<Operation<?>> submitted = new ArrayList<>();
+    private final List<CompletableFuture<Object>> futures = new ArrayList<>();
+    private CopycatClient client;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        client = createMock(CopycatClient.class);
+        expect(client.submit(anyObject(Command.class))).andAnswer(this::record).anyTimes();
+        expect(client.submit(anyObject(Query.class))).andAnswer(this::record).anyTimes();
+        replay(client);
+    }
+
+    // Records a submitted operation and returns the future completing it.
+    @SuppressWarnings("rawtypes")
+    private CompletableFuture record() {
+        submitted.add((Operation<?>) getCurrentArguments()[0]);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        futures.add(future);
+        return future;
+    }
+
+    private static UpdateAndGet put(String key) {
+        return new UpdateAndGet(key, key.getBytes(), Match.ANY, Match.ANY);
+    }
+
+    private static MapEntryUpdateResult<String, byte[]> result(String key) {
+        return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.OK, "", key, null, null);
+    }
+
+    @Test
+    public void testIdleSubmitsImmediately() {
+        MapCommandPipeline pipeline = new MapCommandPipeline(client, 1, 256);
+        CompletableFuture<MapEntryUpdateResult<String, byte[]>> future = pipeline.submit(put("a"));
+        assertThat(submitted.size(), is(1));
+        assertThat(submitted.get(0), instanceOf(UpdateAndGet.class));
+
+        MapEntryUpdateResult<String, byte[]> result = result("a");
+        futures.get(0).complete(result);
+        assertThat(future.join(), is(result));
+    }
+
+    @Test
+    public void testUpdatesBatchedWhileInFlight() {
+        MapCommandPipeline pipeline = new MapCommandPipeline(client, 1, 2);
+        pipeline.submit(put("a"));
+        CompletableFuture<MapEntryUpdateResult<String, byte[]>> b = pipeline.submit(put("b"));
+        CompletableFuture<MapEntryUpdateResult<String, byte[]>> c = pipeline.submit(put("c"));
+        CompletableFuture<MapEntryUpdateResult<String, byte[]>> d = pipeline.submit(put("d"));
+        assertThat(submitted.size(), is(1));
+
+        futures.get(0).complete(result("a"));
+        assertThat(submitted.size(), is(2));
+        assertThat(submitted.get(1), instanceOf(BatchUpdate.class));
+        assertThat(((BatchUpdate) submitted.get(1)).updates().size(), is(2));
+
+        MapEntryUpdateResult<String, byte[]> resultB = result("b");
+        MapEntryUpdateResult<String, byte[]> resultC = result("c");
+        futures.get(1).complete(ImmutableList.of(resultB, resultC));
+        assertThat(b.join(), is(resultB));
+        assertThat(c.join(), is(resultC));
+
+        // the last update was left alone in the queue, so it is not batched
+        assertThat(submitted.size(), is(3));
+        assertThat(submitted.get(2), instanceOf(UpdateAndGet.class));
+        assertThat(((UpdateAndGet) submitted.get(2)).key(), is("d"));
+        assertThat(d.isDone(), is(false));
+    }
+
+    @Test
+    public void testBatchFailure() {
+        MapCommandPipeline pipeline = new MapCommandPipeline(client, 1, 256);
+        pipeline.submit(put("a"));
+        CompletableFuture<MapEntryUpdateResult<String, byte[]>> b = pipeline.submit(put("b"));
+        CompletableFuture<MapEntryUpdateResult<String, byte[]>> c = pipeline.submit(put("c"));
+        futures.get(0).complete(result("a"));
+
+        futures.get(1).completeExceptionally(new IllegalStateException());
+        assertTrue(b.isCompletedExceptionally());
+        assertTrue(c.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testOtherOperationsNotThrottled() {
+        MapCommandPipeline pipeline = new MapCommandPipeline(client, 1, 256);
+        pipeline.submit(put("a"));
+        pipeline.submit(new Get("a"));
+        // the query is sent although the update limit is reached
+        assertThat(submitted.size(), is(2));
+        assertThat(submitted.get(1), instanceOf(Get.class));
+
+        // a listener registration waits for the update queued before it only
+        pipeline.submit(put("b"));
+        pipeline.submit(new Listen());
+        assertThat(submitted.size(), is(2));
+
+        futures.get(0).complete(result("a"));
+        assertThat(submitted.size(), is(4));
+        assertThat(submitted.get(2), instanceOf(UpdateAndGet.class));
+        assertThat(submitted.get(3), instanceOf(Listen.class));
+
+        // completing the query does not free an update slot
+        pipeline.submit(put("c"));
+        futures.get(1).complete(null);
+        assertThat(submitted.size(), is(4));
+    }
+}
@@ -27,6 +27,7 @@ import org.junit.Test;
 import org.onlab.packet.VlanId;
 import org.onlab.util.Bandwidth;
 import org.onlab.util.Frequency;
+import org.onlab.util.KryoNamespace;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.cluster.RoleInfo;
 import org.onosproject.core.DefaultApplicationId;
@@ -81,9 +82,14 @@ import org.onlab.packet.Ip4Prefix;
 import org.onlab.packet.Ip6Prefix;
 import org.onlab.packet.MacAddress;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.time.Duration;
 
 import static java.util.Arrays.asList;
@@ -414,6 +420,54 @@ public class KryoSerializerTest {
         testSerializedEquals(Collections.emptySet());
     }
 
+    @Test
+    public void testReusedBuffers() {
+        // alternate large and small objects so pooled buffers are reused,
+        // and buffers which grew past the default size are dropped
+        byte[] large = new byte[1024 * KryoNamespace.DEFAULT_BUFFER_SIZE];
+        Arrays.fill(large, (byte) 7);
+        byte[] medium = new byte[2 * KryoNamespace.DEFAULT_BUFFER_SIZE];
+        Arrays.fill(medium, (byte) 3);
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(large, serializer.decode(serializer.encode(large)));
+            assertArrayEquals(medium, serializer.decode(serializer.encode(medium)));
+            testSerializedEquals(new ConnectPoint(DID1, P1));
+        }
+    }
+
+    @Test
+    public void testConcurrentBuffers() throws InterruptedException {
+        // more threads than pooled buffers, so some buffers are dropped
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (int t = 0; t < 2 * KryoNamespace.MAX_POOLED_BUFFERS; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    ConnectPoint cp = new ConnectPoint(DID1, portNumber(i));
+                    if (!cp.equals(serializer.decode(serializer.encode(cp)))) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failures.get());
+    }
+
+    @Test
+    public void testStreams() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        serializer.encode(new ConnectPoint(DID1, P1), stream);
+        serializer.encode(new ConnectPoint(DID2, P2), stream);
+
+        ConnectPoint copy = serializer.decode(new ByteArrayInputStream(stream.toByteArray()));
+        assertEquals(new ConnectPoint(DID1, P1), copy);
+    }
+
     @Test
     public void testAnnotations() {
         // Annotations does not have equals defined, manually test equality
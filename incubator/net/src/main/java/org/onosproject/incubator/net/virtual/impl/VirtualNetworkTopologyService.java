@@ -29,6 +29,7 @@ import org.onosproject.net.Path;
 import org.onosproject.net.topology.ClusterId;
 import org.onosproject.net.topology.DefaultGraphDescription;
 import org.onosproject.net.topology.LinkWeight;
+import org.onosproject.net.topology.PathCacheStatistics;
 import org.onosproject.net.topology.Topology;
 import org.onosproject.net.topology.TopologyCluster;
 import org.onosproject.net.topology.TopologyEvent;
@@ -176,6 +177,11 @@ public class VirtualNetworkTopologyService extends AbstractListenerManager<Topol
         return defaultTopology(topology).getDisjointPaths(src, dst, weight, riskProfile);
     }
 
+    @Override
+    public PathCacheStatistics getPathCacheStatistics(Topology topology) {
+        return defaultTopology(topology).getPathCacheStatistics();
+    }
+
     @Override
     public boolean isInfrastructure(Topology topology, ConnectPoint connectPoint) {
         checkNotNull(connectPoint, CONNECTION_POINT_NULL);
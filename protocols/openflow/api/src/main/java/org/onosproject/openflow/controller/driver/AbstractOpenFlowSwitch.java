@@ -17,7 +17,7 @@
 package org.onosproject.openflow.controller.driver;
 
 import com.google.common.collect.Lists;
-import org.jboss.netty.channel.Channel;
+import io.netty.channel.Channel;
 import org.onlab.packet.IpAddress;
 import org.onosproject.net.Device;
 import org.onosproject.net.driver.AbstractHandlerBehaviour;
@@ -60,6 +60,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
     private Channel channel;
+    private OutboundMessageQueue outboundQueue;
     protected String channelId;
 
     private boolean connected;
@@ -148,14 +149,14 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
             } else {
                 // not transitioning to MASTER
                 log.warn("Dropping message for switch {} (role: {}, connected: {}): {}",
-                         dpid, role, channel.isConnected(), msgs);
+                         dpid, role, channel.isActive(), msgs);
             }
         }
     }
 
     private void sendMsgsOnChannel(List<OFMessage> msgs) {
-        if (channel.isConnected()) {
-            channel.write(msgs);
+        if (channel.isActive()) {
+            outboundQueue.enqueue(msgs);
             agent.processDownstreamMessage(dpid, msgs);
         } else {
             log.warn("Dropping messages for switch {} because channel is not connected: {}",
@@ -195,7 +196,8 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     @Override
     public final void setChannel(Channel channel) {
         this.channel = channel;
-        final SocketAddress address = channel.getRemoteAddress();
+        this.outboundQueue = new OutboundMessageQueue(channel);
+        final SocketAddress address = channel.remoteAddress();
         if (address instanceof InetSocketAddress) {
             final InetSocketAddress inetAddress = (InetSocketAddress) address;
             final IpAddress ipAddress = IpAddress.valueOf(inetAddress.getAddress());
@@ -212,6 +214,15 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
         return channelId;
     }
 
+    /**
+     * Returns the queue of the messages sent to this switch.
+     *
+     * @return outbound message queue, or null if no channel is set
+     */
+    public OutboundMessageQueue outboundQueue() {
+        return outboundQueue;
+    }
+
     //************************
     // Switch features related
     //************************
@@ -496,7 +507,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     @Override
     public String toString() {
         return this.getClass().getName() + " [" + ((channel != null)
-                ? channel.getRemoteAddress() : "?")
+                ? channel.remoteAddress() : "?")
                 + " DPID[" + ((getStringId() != null) ? getStringId() : "?") + "]]";
     }
 }
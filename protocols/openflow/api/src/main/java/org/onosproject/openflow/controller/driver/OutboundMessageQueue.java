@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.driver;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import org.onlab.util.LogBucketHistogram;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queue of the messages sent to a switch, which coalesces messages sent in
+ * quick succession into large writes on the switch channel.
+ * <p>
+ * Table modifications are held back for a short while, or until enough of
+ * them are queued, so that a batch of flow rules reaches the switch in a few
+ * large writes. Any other message, including barriers, is flushed right away
+ * along with the modifications queued before it.
+ * </p>
+ * <p>
+ * Messages are only written while the channel is writable. If the switch does
+ * not keep up with what is sent to it, they stay queued until the channel
+ * handler reports that the channel has become writable again.
+ * </p>
+ */
+public final class OutboundMessageQueue {
+
+    /**
+     * Channel attribute holding the histogram into which the channel encoder
+     * records the number of bytes of each write.
+     */
+    public static final AttributeKey<LogBucketHistogram> BYTES_PER_FLUSH =
+            AttributeKey.valueOf("onos.openflow.bytesPerFlush");
+
+    /**
+     * Channel attribute holding the queue of the messages to write on the
+     * channel.
+     */
+    public static final AttributeKey<OutboundMessageQueue> QUEUE =
+            AttributeKey.valueOf("onos.openflow.outboundQueue");
+
+    private static final Set<OFType> COALESCED_TYPES =
+            EnumSet.of(OFType.FLOW_MOD, OFType.GROUP_MOD, OFType.METER_MOD);
+
+    // Number of queued messages which triggers a flush
+    private static final int FLUSH_THRESHOLD = 256;
+    // Largest number of messages written at once
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final long FLUSH_DELAY_MICROS = 500;
+
+    private final Channel channel;
+    private final Queue<OFMessage> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean delayedFlushScheduled = new AtomicBoolean();
+
+    private final LogBucketHistogram messagesPerFlush = new LogBucketHistogram();
+    private final LogBucketHistogram bytesPerFlush = new LogBucketHistogram();
+
+    /**
+     * Creates a queue of the messages to write on the specified channel.
+     *
+     * @param channel switch channel
+     */
+    OutboundMessageQueue(Channel channel) {
+        this.channel = channel;
+        channel.attr(BYTES_PER_FLUSH).set(bytesPerFlush);
+        channel.attr(QUEUE).set(this);
+    }
+
+    /**
+     * Queues the specified messages and schedules their flush.
+     *
+     * @param msgs messages to send
+     */
+    void enqueue(List<OFMessage> msgs) {
+        boolean urgent = false;
+        int count = 0;
+        for (OFMessage msg : msgs) {
+            if (msg != null) {
+                queue.add(msg);
+                urgent |= !COALESCED_TYPES.contains(msg.getType());
+                count++;
+            }
+        }
+
+        int queued = depth.addAndGet(count);
+        if (urgent || queued >= FLUSH_THRESHOLD) {
+            scheduleFlush();
+        } else if (delayedFlushScheduled.compareAndSet(false, true)) {
+            channel.eventLoop().schedule(this::delayedFlush, FLUSH_DELAY_MICROS, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    /**
+     * Resumes writing the queued messages, to be called once the channel has
+     * become writable again.
+     */
+    public void channelWritable() {
+        if (!queue.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            channel.eventLoop().execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        drain();
+    }
+
+    private void delayedFlush() {
+        delayedFlushScheduled.set(false);
+        drain();
+    }
+
+    // Runs on the channel event loop, so the whole batch is encoded into a
+    // single buffer
+    private void drain() {
+        if (!channel.isWritable()) {
+            return;
+        }
+        List<OFMessage> batch = new ArrayList<>();
+        OFMessage msg;
+        while (batch.size() < MAX_BATCH_SIZE && (msg = queue.poll()) != null) {
+            batch.add(msg);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        depth.addAndGet(-batch.size());
+        messagesPerFlush.record(batch.size());
+        channel.writeAndFlush(batch);
+
+        if (!queue.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Returns the number of messages waiting to be written.
+     *
+     * @return queue depth
+     */
+    public int depth() {
+        return Math.max(depth.get(), 0);
+    }
+
+    /**
+     * Returns the distribution of the number of messages written per flush.
+     *
+     * @return histogram snapshot
+     */
+    public LogBucketHistogram.Snapshot messagesPerFlush() {
+        return messagesPerFlush.snapshot();
+    }
+
+    /**
+     * Returns the distribution of the number of bytes written per flush.
+     *
+     * @return histogram snapshot
+     */
+    public LogBucketHistogram.Snapshot bytesPerFlush() {
+        return bytesPerFlush.snapshot();
+    }
+}
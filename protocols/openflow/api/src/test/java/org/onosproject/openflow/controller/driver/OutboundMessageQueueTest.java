@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.driver;
+
+import com.google.common.collect.ImmutableList;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Before;
+import org.junit.Test;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the outbound message queue of a switch.
+ */
+public class OutboundMessageQueueTest {
+
+    private static final OFFactory FACTORY = OFFactories.getFactory(OFVersion.OF_13);
+
+    private EmbeddedChannel channel;
+    private OutboundMessageQueue queue;
+
+    @Before
+    public void setUp() {
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        queue = new OutboundMessageQueue(channel);
+    }
+
+    /**
+     * Tests that a barrier flushes the modifications queued before it.
+     */
+    @Test
+    public void flushOnBarrier() {
+        List<OFMessage> msgs = ImmutableList.of(FACTORY.buildFlowAdd().build(),
+                                                FACTORY.buildFlowDelete().build(),
+                                                FACTORY.buildBarrierRequest().build());
+        queue.enqueue(msgs);
+        assertThat(queue.depth(), is(3));
+
+        channel.runPendingTasks();
+        assertThat(channel.readOutbound(), is((Object) msgs));
+        assertThat(channel.readOutbound(), nullValue());
+        assertThat(queue.depth(), is(0));
+        assertThat(queue.messagesPerFlush().count(), is(1L));
+        assertThat(queue.messagesPerFlush().max(), is(3L));
+    }
+
+    /**
+     * Tests that enough queued modifications are flushed right away.
+     */
+    @Test
+    public void flushOnThreshold() {
+        List<OFMessage> msgs = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            msgs.add(FACTORY.buildFlowAdd().setXid(i).build());
+        }
+        queue.enqueue(msgs);
+
+        channel.runPendingTasks();
+        assertThat(channel.readOutbound(), is((Object) msgs));
+        assertThat(queue.depth(), is(0));
+    }
+
+    /**
+     * Tests that a few modifications are flushed once the flush delay has
+     * elapsed.
+     */
+    @Test
+    public void flushAfterDelay() throws InterruptedException {
+        List<OFMessage> msgs = ImmutableList.of(FACTORY.buildFlowAdd().build(),
+                                                FACTORY.buildFlowModify().build());
+        queue.enqueue(msgs);
+
+        channel.runPendingTasks();
+        assertThat(channel.readOutbound(), nullValue());
+        assertThat(queue.depth(), is(2));
+
+        // more than the 500us flush delay
+        Thread.sleep(5);
+        channel.runPendingTasks();
+        assertThat(channel.readOutbound(), is((Object) msgs));
+        assertThat(queue.depth(), is(0));
+        assertThat(queue.messagesPerFlush().count(), is(1L));
+    }
+
+    /**
+     * Tests that messages stay queued while the channel is not writable.
+     */
+    @Test
+    public void holdWhileNotWritable() {
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+        List<OFMessage> msgs = ImmutableList.of(FACTORY.buildFlowAdd().build(),
+                                                FACTORY.buildBarrierRequest().build());
+        queue.enqueue(msgs);
+
+        channel.runPendingTasks();
+        assertThat(channel.readOutbound(), nullValue());
+        assertThat(queue.depth(), is(2));
+
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+        queue.channelWritable();
+        channel.runPendingTasks();
+        assertThat(channel.readOutbound(), is((Object) msgs));
+        assertThat(queue.depth(), is(0));
+    }
+}
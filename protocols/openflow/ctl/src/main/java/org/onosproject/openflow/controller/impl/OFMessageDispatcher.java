@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.openflow.controller.Dpid;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFStatsReply;
+import org.projectfloodlight.openflow.protocol.OFStatsType;
+import org.projectfloodlight.openflow.protocol.OFType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onlab.util.Tools.groupedThreads;
+
+/**
+ * Dispatches the messages received from switches to their handler.
+ * <p>
+ * Each switch is pinned to one of a fixed set of single threaded lanes, so
+ * the messages of a switch are handled in the order they were received and
+ * switches sharing a lane take turns. Messages wait for their lane in a
+ * bounded mailbox per switch; once it is full, further flow statistics
+ * replies of the switch are dropped, as the next poll replaces them. Other
+ * messages are always admitted.
+ * </p>
+ * <p>
+ * Barrier replies and errors, which flow rule operations wait for, are
+ * handled ahead of the other messages waiting in the mailbox of the switch,
+ * in the order they were received.
+ * </p>
+ */
+final class OFMessageDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OFMessageDispatcher.class);
+
+    // Number of messages a mailbox handles before yielding its lane
+    private static final int BATCH_SIZE = 64;
+
+    // Messages handled ahead of the others waiting in a mailbox
+    private static final Set<OFType> PRIORITY_TYPES = EnumSet.of(OFType.BARRIER_REPLY, OFType.ERROR);
+
+    private final List<ExecutorService> lanes;
+    private final int mailboxSize;
+    private final BiConsumer<Dpid, OFMessage> handler;
+    private final ConcurrentMap<Dpid, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a dispatcher with the specified number of lanes.
+     *
+     * @param laneCount   number of lanes
+     * @param mailboxSize number of messages a switch may have waiting
+     * @param handler     message handler
+     */
+    OFMessageDispatcher(int laneCount, int mailboxSize, BiConsumer<Dpid, OFMessage> handler) {
+        this(createLanes(laneCount), mailboxSize, handler);
+    }
+
+    /**
+     * Creates a dispatcher using the specified lanes.
+     *
+     * @param lanes       single threaded executors
+     * @param mailboxSize number of messages a switch may have waiting
+     * @param handler     message handler
+     */
+    OFMessageDispatcher(List<? extends ExecutorService> lanes, int mailboxSize,
+                        BiConsumer<Dpid, OFMessage> handler) {
+        checkArgument(!lanes.isEmpty(), "At least one lane is required");
+        checkArgument(mailboxSize > 0, "Mailbox size must be positive");
+        this.lanes = ImmutableList.copyOf(lanes);
+        this.mailboxSize = mailboxSize;
+        this.handler = handler;
+    }
+
+    private static List<ExecutorService> createLanes(int laneCount) {
+        checkArgument(laneCount > 0, "At least one lane is required");
+        ImmutableList.Builder<ExecutorService> lanes = ImmutableList.builder();
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(Executors.newSingleThreadExecutor(
+                    groupedThreads("onos/of", "event-lane-" + i, log)));
+        }
+        return lanes.build();
+    }
+
+    /**
+     * Dispatches a message received from the specified switch.
+     *
+     * @param dpid switch the message was received from
+     * @param msg  message
+     */
+    void dispatch(Dpid dpid, OFMessage msg) {
+        mailboxes.computeIfAbsent(dpid, Mailbox::new).post(msg);
+    }
+
+    /**
+     * Forgets the mailbox of a switch which disconnected. Messages already
+     * posted are still handled.
+     *
+     * @param dpid switch
+     */
+    void remove(Dpid dpid) {
+        mailboxes.remove(dpid);
+    }
+
+    /**
+     * Returns the number of messages of a switch waiting to be handled.
+     *
+     * @param dpid switch
+     * @return number of messages
+     */
+    int pending(Dpid dpid) {
+        Mailbox mailbox = mailboxes.get(dpid);
+        return mailbox == null ? 0 : mailbox.size.get();
+    }
+
+    /**
+     * Stops the lanes of this dispatcher.
+     */
+    void shutdown() {
+        lanes.forEach(ExecutorService::shutdown);
+        mailboxes.clear();
+    }
+
+    // Flow statistics replies answer periodic polls, so the next poll makes
+    // up for one which is dropped.
+    private static boolean isFlowStatsReply(OFMessage msg) {
+        return msg instanceof OFStatsReply && ((OFStatsReply) msg).getStatsType() == OFStatsType.FLOW;
+    }
+
+    /**
+     * Messages of a switch waiting to be handled on its lane.
+     */
+    private final class Mailbox implements Runnable {
+        private final Dpid dpid;
+        private final ExecutorService lane;
+        private final Queue<OFMessage> priorityQueue = new ConcurrentLinkedQueue<>();
+        private final Queue<OFMessage> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Mailbox(Dpid dpid) {
+            this.dpid = dpid;
+            this.lane = lanes.get(Math.floorMod(dpid.hashCode(), lanes.size()));
+        }
+
+        void post(OFMessage msg) {
+            if (size.incrementAndGet() > mailboxSize && isFlowStatsReply(msg)) {
+                size.decrementAndGet();
+                log.debug("Dropping flow stats reply from {}: {} messages pending", dpid, mailboxSize);
+                return;
+            }
+            if (PRIORITY_TYPES.contains(msg.getType())) {
+                priorityQueue.add(msg);
+            } else {
+                queue.add(msg);
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                lane.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                OFMessage msg = priorityQueue.poll();
+                if (msg == null) {
+                    msg = queue.poll();
+                }
+                if (msg == null) {
+                    break;
+                }
+                size.decrementAndGet();
+                try {
+                    handler.accept(dpid, msg);
+                } catch (RuntimeException e) {
+                    log.warn("Unable to handle message from {}: {}", dpid, msg, e);
+                }
+            }
+
+            scheduled.set(false);
+            if ((!priorityQueue.isEmpty() || !queue.isEmpty()) && scheduled.compareAndSet(false, true)) {
+                lane.execute(this);
+            }
+        }
+    }
+}
@@ -13,47 +13,54 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.onosproject.openflow.controller.impl;
 
 import java.util.List;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
-import org.jboss.netty.channel.Channel;
-import org.jboss.netty.channel.ChannelHandlerContext;
-import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
+import org.onlab.util.LogBucketHistogram;
+import org.onosproject.openflow.controller.driver.OutboundMessageQueue;
 import org.projectfloodlight.openflow.protocol.OFMessage;
 
 /**
- * Encode an openflow message for output into a ChannelBuffer, for use in a
- * netty pipeline.
+ * Encode a list of openflow messages for output into a ByteBuf, for use in a
+ * netty pipeline. Other objects are passed on unchanged.
  */
-public class OFMessageEncoder extends OneToOneEncoder {
+public class OFMessageEncoder extends MessageToByteEncoder<List<OFMessage>> {
 
-    @Override
-    protected Object encode(ChannelHandlerContext ctx, Channel channel,
-                            Object msg) throws Exception {
-        if (!(msg instanceof List)) {
-            return msg;
-        }
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    // openflowj writes to netty 3 buffers, so messages are serialized into
+    // a buffer reused by this channel before being copied into the pooled
+    // buffer handed to the transport
+    private final ChannelBuffer scratch = ChannelBuffers.dynamicBuffer(INITIAL_BUFFER_SIZE);
 
-        @SuppressWarnings("unchecked")
-        List<OFMessage> msglist = (List<OFMessage>) msg;
+    @Override
+    protected void encode(ChannelHandlerContext ctx, List<OFMessage> msglist,
+                          ByteBuf out) throws Exception {
         /* XXX S can't get length of OFMessage in loxigen's openflowj??
         int size = 0;
         for (OFMessage ofm : msglist) {
             size += ofm.getLengthU();
         }*/
 
-        ChannelBuffer buf = ChannelBuffers.dynamicBuffer();
-
+        scratch.clear();
         for (OFMessage ofm : msglist) {
             if (ofm != null) {
-                ofm.writeTo(buf);
+                ofm.writeTo(scratch);
             }
         }
-        return buf;
+        out.writeBytes(scratch.array(), scratch.arrayOffset() + scratch.readerIndex(),
+                       scratch.readableBytes());
+
+        LogBucketHistogram bytesPerFlush = ctx.channel().attr(OutboundMessageQueue.BYTES_PER_FLUSH).get();
+        if (bytesPerFlush != null) {
+            bytesPerFlush.record(scratch.readableBytes());
+        }
     }
 
 }
@@ -15,6 +15,7 @@
  */
 package org.onosproject.openflow.controller.impl;
 
+import com.codahale.metrics.Gauge;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
@@ -26,6 +27,10 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onlab.util.LogBucketHistogram;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.driver.DefaultDriverProviderService;
@@ -40,7 +45,9 @@ import org.onosproject.openflow.controller.OpenFlowSwitch;
 import org.onosproject.openflow.controller.OpenFlowSwitchListener;
 import org.onosproject.openflow.controller.PacketListener;
 import org.onosproject.openflow.controller.RoleState;
+import org.onosproject.openflow.controller.driver.AbstractOpenFlowSwitch;
 import org.onosproject.openflow.controller.driver.OpenFlowAgent;
+import org.onosproject.openflow.controller.driver.OutboundMessageQueue;
 import org.osgi.service.component.ComponentContext;
 import org.projectfloodlight.openflow.protocol.OFCalientFlowStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFCalientFlowStatsReply;
@@ -76,19 +83,22 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
-import static org.onlab.util.Tools.groupedThreads;
-
 @Component(immediate = true)
 @Service
 public class OpenFlowControllerImpl implements OpenFlowController {
     private static final String APP_ID = "org.onosproject.openflow-base";
     private static final String DEFAULT_OFPORT = "6633,6653";
     private static final int DEFAULT_WORKER_THREADS = 16;
+    private static final int EVENT_LANES = 32;
+    private static final int MAILBOX_SIZE = 1024;
+
+    private static final String METRICS_COMPONENT = "OpenFlowSwitch";
+    private static final String QUEUE_DEPTH = "outboundQueueDepth";
+    private static final String MESSAGES_PER_FLUSH = "messagesPerFlush";
+    private static final String BYTES_PER_FLUSH = "bytesPerFlush";
 
     private static final Logger log =
             LoggerFactory.getLogger(OpenFlowControllerImpl.class);
@@ -106,6 +116,9 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ComponentConfigService cfgService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
     @Property(name = "openflowPorts", value = DEFAULT_OFPORT,
             label = "Port numbers (comma separated) used by OpenFlow protocol; default is 6633,6653")
     private String openflowPorts = DEFAULT_OFPORT;
@@ -114,20 +127,11 @@ public class OpenFlowControllerImpl implements OpenFlowController {
             label = "Number of controller worker threads; default is 16")
     private int workerThreads = DEFAULT_WORKER_THREADS;
 
-    protected ExecutorService executorMsgs =
-        Executors.newFixedThreadPool(32, groupedThreads("onos/of", "event-stats-%d", log));
-
-    private final ExecutorService executorBarrier =
-        Executors.newFixedThreadPool(4, groupedThreads("onos/of", "event-barrier-%d", log));
+    // Messages of a switch are handled in order on the lane the switch is
+    // pinned to, which keeps error messages and the barrier replies of the
+    // failed transactions in sequence
+    protected OFMessageDispatcher dispatcher;
 
-    //Separate executor thread for handling error messages and barrier replies for same failed
-    // transactions to avoid context switching of thread
-    protected ExecutorService executorErrorMsgs =
-            Executors.newSingleThreadExecutor(groupedThreads("onos/of", "event-error-msg-%d", log));
-
-    //concurrent hashmap to track failed transactions
-    protected ConcurrentMap<Long, Boolean> errorMsgs =
-            new ConcurrentHashMap<>();
     protected ConcurrentMap<Dpid, OpenFlowSwitch> connectedSwitches =
             new ConcurrentHashMap<>();
     protected ConcurrentMap<Dpid, OpenFlowSwitch> activeMasterSwitches =
@@ -166,6 +170,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     public void activate(ComponentContext context) {
         coreService.registerApplication(APP_ID, this::cleanup);
         cfgService.registerProperties(getClass());
+        dispatcher = new OFMessageDispatcher(EVENT_LANES, MAILBOX_SIZE, this::notifyEventListeners);
         ctrl.setConfigParams(context.getProperties());
         ctrl.start(agent, driverService);
     }
@@ -185,6 +190,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         if (!connectedSwitches.isEmpty()) {
             cleanup();
         }
+        dispatcher.shutdown();
         cfgService.unregisterProperties(getClass(), false);
     }
 
@@ -299,15 +305,12 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                 p.handlePacket(pktCtx);
             }
             break;
-        // TODO: Consider using separate threadpool for sensitive messages.
-        //    ie. Back to back error could cause us to starve.
         case FLOW_REMOVED:
-            executorMsgs.execute(new OFMessageHandler(dpid, msg));
+            dispatcher.dispatch(dpid, msg);
             break;
         case ERROR:
             log.debug("Received error message from {}: {}", dpid, msg);
-            errorMsgs.putIfAbsent(msg.getXid(), true);
-            executorErrorMsgs.execute(new OFMessageHandler(dpid, msg));
+            dispatcher.dispatch(dpid, msg);
             break;
         case STATS_REPLY:
             OFStatsReply reply = (OFStatsReply) msg;
@@ -324,7 +327,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                                 OFFactories.getFactory(msg.getVersion()).buildFlowStatsReply();
                         rep.setEntries(Lists.newLinkedList(flowStats));
                         rep.setXid(reply.getXid());
-                        executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
+                        dispatcher.dispatch(dpid, rep.build());
                     }
                     break;
                 case TABLE:
@@ -333,7 +336,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                         OFTableStatsReply.Builder rep =
                                 OFFactories.getFactory(msg.getVersion()).buildTableStatsReply();
                         rep.setEntries(Lists.newLinkedList(tableStats));
-                        executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
+                        dispatcher.dispatch(dpid, rep.build());
                     }
                     break;
                 case GROUP:
@@ -343,7 +346,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                                 OFFactories.getFactory(msg.getVersion()).buildGroupStatsReply();
                         rep.setEntries(Lists.newLinkedList(groupStats));
                         rep.setXid(reply.getXid());
-                        executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
+                        dispatcher.dispatch(dpid, rep.build());
                     }
                     break;
                 case GROUP_DESC:
@@ -354,14 +357,14 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                                 OFFactories.getFactory(msg.getVersion()).buildGroupDescStatsReply();
                         rep.setEntries(Lists.newLinkedList(groupDescStats));
                         rep.setXid(reply.getXid());
-                        executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
+                        dispatcher.dispatch(dpid, rep.build());
                     }
                     break;
                 case PORT:
-                    executorMsgs.execute(new OFMessageHandler(dpid, reply));
+                    dispatcher.dispatch(dpid, reply);
                     break;
                 case METER:
-                    executorMsgs.execute(new OFMessageHandler(dpid, reply));
+                    dispatcher.dispatch(dpid, reply);
                     break;
                 case EXPERIMENTER:
                     if (reply instanceof OFCalientFlowStatsReply) {
@@ -403,10 +406,10 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                             OFFlowStatsReply.Builder rep =
                                     OFFactories.getFactory(msg.getVersion()).buildFlowStatsReply();
                             rep.setEntries(Lists.newLinkedList(flowStats));
-                            executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
+                            dispatcher.dispatch(dpid, rep.build());
                         }
                     } else {
-                        executorMsgs.execute(new OFMessageHandler(dpid, reply));
+                        dispatcher.dispatch(dpid, reply);
                     }
                     break;
                 default:
@@ -415,14 +418,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
             }
             break;
         case BARRIER_REPLY:
-            if (errorMsgs.containsKey(msg.getXid())) {
-                //To make oferror msg handling and corresponding barrier reply serialized,
-                // executorErrorMsgs is used for both transaction
-                errorMsgs.remove(msg.getXid());
-                executorErrorMsgs.execute(new OFMessageHandler(dpid, msg));
-            } else {
-                executorBarrier.execute(new OFMessageHandler(dpid, msg));
-            }
+            dispatcher.dispatch(dpid, msg);
             break;
         case EXPERIMENTER:
             long experimenter = ((OFExperimenter) msg).getExperimenter();
@@ -530,6 +526,9 @@ public class OpenFlowControllerImpl implements OpenFlowController {
             } else {
                 log.info("Added switch {}", dpid);
                 connectedSwitches.put(dpid, sw);
+                if (sw instanceof AbstractOpenFlowSwitch) {
+                    registerQueueMetrics(dpid, ((AbstractOpenFlowSwitch) sw).outboundQueue());
+                }
                 for (OpenFlowSwitchListener l : ofSwitchListener) {
                     l.switchAdded(dpid);
                 }
@@ -638,7 +637,10 @@ public class OpenFlowControllerImpl implements OpenFlowController {
 
         @Override
         public void removeConnectedSwitch(Dpid dpid) {
-            connectedSwitches.remove(dpid);
+            if (connectedSwitches.remove(dpid) instanceof AbstractOpenFlowSwitch) {
+                unregisterQueueMetrics(dpid);
+            }
+            dispatcher.remove(dpid);
             OpenFlowSwitch sw = activeMasterSwitches.remove(dpid);
             if (sw == null) {
                 log.debug("sw was null for {}", dpid);
@@ -674,24 +676,34 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         }
     }
 
-    /**
-     * OpenFlow message handler.
-     */
-    protected final class OFMessageHandler implements Runnable {
-
-        protected final OFMessage msg;
-        protected final Dpid dpid;
+    // Publishes the outbound queue statistics of a switch through the
+    // metrics service as OpenFlowSwitch.<dpid>.<metric>
+    private void registerQueueMetrics(Dpid dpid, OutboundMessageQueue queue) {
+        if (queue == null) {
+            return;
+        }
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(dpid.toString());
+        unregisterQueueMetrics(dpid);
+        metricsService.registerMetric(component, feature, QUEUE_DEPTH,
+                                      (Gauge<Integer>) queue::depth);
+        metricsService.registerMetric(component, feature, MESSAGES_PER_FLUSH,
+                                      (Gauge<LogBucketHistogram.Snapshot>) queue::messagesPerFlush);
+        metricsService.registerMetric(component, feature, BYTES_PER_FLUSH,
+                                      (Gauge<LogBucketHistogram.Snapshot>) queue::bytesPerFlush);
+    }
 
-        public OFMessageHandler(Dpid dpid, OFMessage msg) {
-            this.msg = msg;
-            this.dpid = dpid;
+    private void unregisterQueueMetrics(Dpid dpid) {
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(dpid.toString());
+        for (String name : new String[] {QUEUE_DEPTH, MESSAGES_PER_FLUSH, BYTES_PER_FLUSH}) {
+            metricsService.removeMetric(component, feature, name);
         }
+    }
 
-        @Override
-        public void run() {
-            for (OpenFlowEventListener listener : ofEventListener) {
-                listener.handleMessage(dpid, msg);
-            }
+    private void notifyEventListeners(Dpid dpid, OFMessage msg) {
+        for (OpenFlowEventListener listener : ofEventListener) {
+            listener.handleMessage(dpid, msg);
         }
     }
 }
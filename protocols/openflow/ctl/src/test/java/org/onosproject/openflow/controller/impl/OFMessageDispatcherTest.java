@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onosproject.openflow.ExecutorServiceAdapter;
+import org.onosproject.openflow.OfMessageAdapter;
+import org.onosproject.openflow.controller.Dpid;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for the dispatcher of the messages received from switches.
+ */
+public class OFMessageDispatcherTest {
+
+    private static final Dpid DPID1 = new Dpid(0);
+    private static final Dpid DPID2 = new Dpid(1);
+    private static final OFFactory FACTORY = OFFactories.getFactory(OFVersion.OF_13);
+
+    /**
+     * Mock lane which holds on to tasks until told to run them.
+     */
+    static class TestLane extends ExecutorServiceAdapter {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runTasks() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+
+    private final List<OFMessage> handled = new ArrayList<>();
+
+    /**
+     * Tests that the messages of a switch are handled in order, by a single
+     * task on the lane of the switch.
+     */
+    @Test
+    public void testInOrder() {
+        TestLane lane = new TestLane();
+        OFMessageDispatcher dispatcher =
+                new OFMessageDispatcher(ImmutableList.of(lane), 16, (dpid, msg) -> handled.add(msg));
+        OFMessage removed = new OfMessageAdapter(OFType.FLOW_REMOVED);
+        OFMessage portStatus = new OfMessageAdapter(OFType.PORT_STATUS);
+        OFMessage stats = new OfMessageAdapter(OFType.STATS_REPLY);
+
+        dispatcher.dispatch(DPID1, removed);
+        dispatcher.dispatch(DPID1, portStatus);
+        dispatcher.dispatch(DPID1, stats);
+        assertThat(lane.tasks, hasSize(1));
+        assertThat(dispatcher.pending(DPID1), is(3));
+
+        lane.runTasks();
+        assertThat(handled, contains(removed, portStatus, stats));
+        assertThat(dispatcher.pending(DPID1), is(0));
+    }
+
+    /**
+     * Tests that barrier replies and errors are handled ahead of the other
+     * messages waiting, in the order they were received.
+     */
+    @Test
+    public void testPriority() {
+        TestLane lane = new TestLane();
+        OFMessageDispatcher dispatcher =
+                new OFMessageDispatcher(ImmutableList.of(lane), 16, (dpid, msg) -> handled.add(msg));
+        OFMessage removed = new OfMessageAdapter(OFType.FLOW_REMOVED);
+        OFMessage error = new OfMessageAdapter(OFType.ERROR);
+        OFMessage barrier = new OfMessageAdapter(OFType.BARRIER_REPLY);
+
+        dispatcher.dispatch(DPID1, removed);
+        dispatcher.dispatch(DPID1, error);
+        dispatcher.dispatch(DPID1, barrier);
+        assertThat(dispatcher.pending(DPID1), is(3));
+
+        lane.runTasks();
+        assertThat(handled, contains(error, barrier, removed));
+        assertThat(dispatcher.pending(DPID1), is(0));
+    }
+
+    /**
+     * Tests that flow stats replies are dropped once the mailbox of a switch
+     * is full, while other messages, including other stats replies, are still
+     * admitted.
+     */
+    @Test
+    public void testStatsShedding() {
+        TestLane lane = new TestLane();
+        OFMessageDispatcher dispatcher =
+                new OFMessageDispatcher(ImmutableList.of(lane), 2, (dpid, msg) -> handled.add(msg));
+        OFMessage stats1 = FACTORY.buildFlowStatsReply().setXid(1).build();
+        OFMessage stats2 = FACTORY.buildFlowStatsReply().setXid(2).build();
+        OFMessage stats3 = FACTORY.buildFlowStatsReply().setXid(3).build();
+        OFMessage portStats = FACTORY.buildPortStatsReply().build();
+        OFMessage removed = new OfMessageAdapter(OFType.FLOW_REMOVED);
+
+        dispatcher.dispatch(DPID1, stats1);
+        dispatcher.dispatch(DPID1, stats2);
+        dispatcher.dispatch(DPID1, stats3);
+        dispatcher.dispatch(DPID1, portStats);
+        dispatcher.dispatch(DPID1, removed);
+
+        lane.runTasks();
+        assertThat(handled, contains(stats1, stats2, portStats, removed));
+    }
+
+    /**
+     * Tests that switches are spread over the lanes.
+     */
+    @Test
+    public void testLanes() {
+        TestLane lane1 = new TestLane();
+        TestLane lane2 = new TestLane();
+        OFMessageDispatcher dispatcher =
+                new OFMessageDispatcher(ImmutableList.of(lane1, lane2), 16, (dpid, msg) -> handled.add(msg));
+
+        dispatcher.dispatch(DPID1, new OfMessageAdapter(OFType.FLOW_REMOVED));
+        dispatcher.dispatch(DPID2, new OfMessageAdapter(OFType.FLOW_REMOVED));
+        assertThat(lane1.tasks, hasSize(1));
+        assertThat(lane2.tasks, hasSize(1));
+    }
+}
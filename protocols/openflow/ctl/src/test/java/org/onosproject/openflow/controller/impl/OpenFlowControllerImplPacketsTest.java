@@ -15,6 +15,7 @@
  */
 package org.onosproject.openflow.controller.impl;
 
+import com.google.common.collect.ImmutableList;
 import org.junit.Before;
 import org.junit.Test;
 import org.onosproject.openflow.ExecutorServiceAdapter;
@@ -51,8 +52,7 @@ public class OpenFlowControllerImplPacketsTest {
     OpenFlowSwitch switch1;
     OpenFlowSwitchListenerAdapter switchListener;
     TestPacketListener packetListener;
-    TestExecutorService statsExecutorService;
-    TestExecutorService errorMsgExecutorService;
+    List<OFMessage> dispatchedMessages;
     /**
      * Mock packet listener that accumulates packets.
      */
@@ -70,20 +70,12 @@ public class OpenFlowControllerImplPacketsTest {
     }
 
     /**
-     * Mock executor service that tracks submits.
+     * Mock executor service that runs tasks on the calling thread.
      */
     static class TestExecutorService extends ExecutorServiceAdapter {
-        private List<OFMessage> submittedMessages = new ArrayList<>();
-
-        List<OFMessage> submittedMessages() {
-            return submittedMessages;
-        }
-
         @Override
         public void execute(Runnable task) {
-            OpenFlowControllerImpl.OFMessageHandler handler =
-                    (OpenFlowControllerImpl.OFMessageHandler) task;
-            submittedMessages.add(handler.msg);
+            task.run();
         }
     }
 
@@ -108,11 +100,11 @@ public class OpenFlowControllerImplPacketsTest {
         packetListener = new TestPacketListener();
         controller.addPacketListener(100, packetListener);
 
-        statsExecutorService = new TestExecutorService();
-        errorMsgExecutorService = new TestExecutorService();
-
-        controller.executorMsgs = statsExecutorService;
-        controller.executorErrorMsgs = errorMsgExecutorService;
+        // The controller is not activated, so it has no dispatcher of its own
+        dispatchedMessages = new ArrayList<>();
+        controller.dispatcher =
+                new OFMessageDispatcher(ImmutableList.of(new TestExecutorService()), 16,
+                                        (dpid, msg) -> dispatchedMessages.add(msg));
     }
 
     /**
@@ -149,7 +141,7 @@ public class OpenFlowControllerImplPacketsTest {
         agent.addConnectedSwitch(dpid1, switch1);
         OfMessageAdapter errorPacket = new OfMessageAdapter(OFType.ERROR);
         controller.processPacket(dpid1, errorPacket);
-        assertThat(errorMsgExecutorService.submittedMessages(), hasSize(1));
-        assertThat(errorMsgExecutorService.submittedMessages().get(0), is(errorPacket));
+        assertThat(dispatchedMessages, hasSize(1));
+        assertThat(dispatchedMessages.get(0), is(errorPacket));
     }
 }
@@ -17,9 +17,14 @@
 package org.onosproject.provider.of.flow.impl;
 
 import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.onlab.util.SharedExecutors;
+import org.onlab.util.Timer;
 import org.onosproject.net.driver.DriverService;
 import org.onosproject.net.flow.DefaultTypedFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
@@ -32,28 +37,37 @@ import org.onosproject.net.flow.instructions.Instructions;
 import org.onosproject.openflow.controller.OpenFlowSwitch;
 import org.onosproject.openflow.controller.RoleState;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFVersion;
 import org.projectfloodlight.openflow.protocol.match.Match;
 import org.projectfloodlight.openflow.types.OFPort;
 import org.projectfloodlight.openflow.types.TableId;
+import org.projectfloodlight.openflow.types.U64;
 import org.slf4j.Logger;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static org.onlab.util.Tools.groupedThreads;
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
 import static org.onosproject.net.flow.TypedStoredFlowEntry.FlowLiveType;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Efficiently and adaptively collects flow statistics for the specified switch.
+ * <p>
+ * Polling of all switches is driven by the shared hashed-wheel timer and runs
+ * on the shared executor pool, so collectors do not hold threads of their own.
+ * Flows due for polling in the same table are asked for with a single
+ * table-scoped request when they make up most of the table. Otherwise they
+ * are asked for with a request per application, scoped by the application ID
+ * bits of the flow cookie, or with a request per flow on OpenFlow 1.0 switches.
+ * </p>
  */
 public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
     private final Logger log = getLogger(getClass());
@@ -77,12 +91,6 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
     private final DriverService driverService;
     private final OpenFlowSwitch sw;
 
-    private ScheduledExecutorService adaptiveFlowStatsScheduler =
-            Executors.newScheduledThreadPool(4, groupedThreads("onos/flow", "device-stats-collector-%d", log));
-    private ScheduledFuture<?> calAndShortFlowsThread;
-    private ScheduledFuture<?> midFlowsThread;
-    private ScheduledFuture<?> longFlowsThread;
-
     // Task that calculates all flowEntries' FlowLiveType and collects stats IMMEDIATE flows every calAndPollInterval
     private CalAndShortFlowsTask calAndShortFlowsTask;
     // Task that collects stats MID flows every 2*calAndPollInterval
@@ -163,43 +171,91 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
     synchronized void adjustCalAndPollInterval(int pollInterval) {
         initMemberVars(pollInterval);
 
-        if (calAndShortFlowsThread != null) {
-            calAndShortFlowsThread.cancel(false);
-        }
-        if (midFlowsThread != null) {
-            midFlowsThread.cancel(false);
-        }
-        if (longFlowsThread != null) {
-            longFlowsThread.cancel(false);
-        }
+        cancelTasks();
+        scheduleTasks(0);
 
+        log.debug("calAndPollInterval={} is adjusted", calAndPollInterval);
+    }
+
+    // schedule all poll tasks on the shared timer after the given delay in seconds
+    private void scheduleTasks(long delay) {
         calAndShortFlowsTask = new CalAndShortFlowsTask();
-        calAndShortFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
-                calAndShortFlowsTask,
-                0,
-                calAndPollInterval,
-                TimeUnit.SECONDS);
+        calAndShortFlowsTask.schedule(delay);
 
         midFlowsTask = new MidFlowsTask();
-        midFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
-                midFlowsTask,
-                0,
-                midPollInterval,
-                TimeUnit.SECONDS);
+        midFlowsTask.schedule(delay);
 
         longFlowsTask = new LongFlowsTask();
-        longFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
-                longFlowsTask,
-                0,
-                longPollInterval,
-                TimeUnit.SECONDS);
+        longFlowsTask.schedule(delay);
+    }
 
-        log.debug("calAndPollInterval={} is adjusted", calAndPollInterval);
+    private void cancelTasks() {
+        if (calAndShortFlowsTask != null) {
+            calAndShortFlowsTask.cancel();
+        }
+        if (midFlowsTask != null) {
+            midFlowsTask.cancel();
+        }
+        if (longFlowsTask != null) {
+            longFlowsTask.cancel();
+        }
     }
 
-    private class CalAndShortFlowsTask implements Runnable {
+    /**
+     * Poll task fired by the shared timer. Each time it fires, the poll is run
+     * on the shared executor pool, keeping the timer thread free for the tasks
+     * of other switches, and the task is armed again once the poll is done.
+     */
+    abstract class PollTask implements TimerTask {
+        private volatile boolean cancelled = false;
+        private volatile Timeout timeout;
+
+        // poll interval in seconds
+        abstract int interval();
+
+        abstract void poll();
+
+        void schedule(long delay) {
+            timeout = Timer.getTimer().newTimeout(this, delay, TimeUnit.SECONDS);
+        }
+
+        void cancel() {
+            cancelled = true;
+            Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+        }
+
         @Override
-        public void run() {
+        public void run(Timeout t) {
+            if (cancelled) {
+                return;
+            }
+            SharedExecutors.getPoolThreadExecutor().execute(() -> {
+                try {
+                    if (!cancelled) {
+                        poll();
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Failed to collect AdaptiveStats for {}", sw.getStringId(), e);
+                } finally {
+                    if (!cancelled) {
+                        schedule(interval());
+                    }
+                }
+            });
+        }
+    }
+
+    private class CalAndShortFlowsTask extends PollTask {
+        @Override
+        int interval() {
+            return calAndPollInterval;
+        }
+
+        @Override
+        void poll() {
             if (sw.getRole() == RoleState.MASTER) {
                 log.trace("CalAndShortFlowsTask Collecting AdaptiveStats for {}", sw.getStringId());
 
@@ -247,6 +303,52 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
         }
     }
 
+    // send openflow flow stats request messages for the given flow entries to a given switch sw.
+    // A table is asked for at once if at least half of its flows are due: its single reply then
+    // carries at most twice the entries needed, instead of one request and reply per flow.
+    // Otherwise each flow is asked for by its exact cookie, where the switch supports cookie masks.
+    private void ofFlowStatsRequestFlowsSend(Set<StoredFlowEntry> flows) {
+        Map<Integer, List<StoredFlowEntry>> flowsByTable = flows.stream()
+                .collect(groupingBy(FlowEntry::tableId));
+        Map<Integer, Long> tableSizes = deviceFlowTable.getTableSizes();
+
+        flowsByTable.forEach((tableId, entries) -> {
+            long tableSize = tableSizes.getOrDefault(tableId, Long.MAX_VALUE);
+            if (2L * entries.size() >= tableSize) {
+                ofFlowStatsRequestTableSend(tableId);
+            } else if (sw.factory().getVersion() != OFVersion.OF_10) {
+                entries.forEach(fe -> ofFlowStatsRequestCookieSend(tableId, fe.id().value()));
+            } else {
+                entries.forEach(this::ofFlowStatsRequestFlowSend);
+            }
+        });
+    }
+
+    // send openflow flow stats request message with getting all flow entries in the table to a given switch sw
+    private void ofFlowStatsRequestTableSend(int tableId) {
+        OFFlowStatsRequest request = sw.factory().buildFlowStatsRequest()
+                .setMatch(sw.factory().matchWildcardAll())
+                .setTableId(TableId.of(tableId))
+                .setOutPort(OFPort.NO_MASK)
+                .build();
+
+        ofFlowStatsRequestSend(request);
+    }
+
+    // send openflow flow stats request message with getting the flow entry in the table
+    // whose cookie, the flow ID, equals the given one to a given switch sw
+    private void ofFlowStatsRequestCookieSend(int tableId, long cookie) {
+        OFFlowStatsRequest request = sw.factory().buildFlowStatsRequest()
+                .setMatch(sw.factory().matchWildcardAll())
+                .setTableId(TableId.of(tableId))
+                .setOutPort(OFPort.NO_MASK)
+                .setCookie(U64.of(cookie))
+                .setCookieMask(U64.NO_MASK)
+                .build();
+
+        ofFlowStatsRequestSend(request);
+    }
+
     // send openflow flow stats request message with getting the specific flow entry(fe) to a given switch sw
     private void ofFlowStatsRequestFlowSend(FlowEntry fe) {
         // set find match
@@ -271,9 +373,14 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
                 .setOutPort(ofPort)
                 .build();
 
+        ofFlowStatsRequestSend(request);
+    }
+
+    // send openflow flow stats request message for part of the flow entries to a given switch sw
+    private void ofFlowStatsRequestSend(OFFlowStatsRequest request) {
         synchronized (this) {
             if (getFlowMissingXid() != NO_FLOW_MISSING_XID) {
-                log.debug("ofFlowStatsRequestFlowSend: previous FlowStatsRequestAll does not be processed yet,"
+                log.debug("ofFlowStatsRequestSend: previous FlowStatsRequestAll does not be processed yet,"
                                 + " set no flow missing xid anyway, for {}",
                         sw.getStringId());
                 setFlowMissingXid(NO_FLOW_MISSING_XID);
@@ -283,17 +390,20 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
         }
     }
 
-    private void calAndShortFlowsTaskInternal() {
+    void calAndShortFlowsTaskInternal() {
         deviceFlowTable.checkAndMoveLiveFlowAll();
 
-        deviceFlowTable.getShortFlows().forEach(fe -> {
-            ofFlowStatsRequestFlowSend(fe);
-        });
+        ofFlowStatsRequestFlowsSend(deviceFlowTable.getShortFlows());
     }
 
-    private class MidFlowsTask implements Runnable {
+    private class MidFlowsTask extends PollTask {
+        @Override
+        int interval() {
+            return midPollInterval;
+        }
+
         @Override
-        public void run() {
+        void poll() {
             if (sw.getRole() == RoleState.MASTER) {
                 log.trace("MidFlowsTask Collecting AdaptiveStats for {}", sw.getStringId());
 
@@ -309,14 +419,17 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
     }
 
     private void midFlowsTaskInternal() {
-        deviceFlowTable.getMidFlows().forEach(fe -> {
-            ofFlowStatsRequestFlowSend(fe);
-        });
+        ofFlowStatsRequestFlowsSend(deviceFlowTable.getMidFlows());
     }
 
-    private class LongFlowsTask implements Runnable {
+    private class LongFlowsTask extends PollTask {
+        @Override
+        int interval() {
+            return longPollInterval;
+        }
+
         @Override
-        public void run() {
+        void poll() {
             if (sw.getRole() == RoleState.MASTER) {
                 log.trace("LongFlowsTask Collecting AdaptiveStats for {}", sw.getStringId());
 
@@ -331,10 +444,8 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
         }
     }
 
-    private void longFlowsTaskInternal() {
-        deviceFlowTable.getLongFlows().forEach(fe -> {
-            ofFlowStatsRequestFlowSend(fe);
-        });
+    void longFlowsTaskInternal() {
+        ofFlowStatsRequestFlowsSend(deviceFlowTable.getLongFlows());
     }
 
     /**
@@ -349,26 +460,7 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
         isFirstTimeStart = true;
 
         // Initially start polling quickly. Then drop down to configured value
-        calAndShortFlowsTask = new CalAndShortFlowsTask();
-        calAndShortFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
-                calAndShortFlowsTask,
-                1,
-                calAndPollInterval,
-                TimeUnit.SECONDS);
-
-        midFlowsTask = new MidFlowsTask();
-        midFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
-                midFlowsTask,
-                1,
-                midPollInterval,
-                TimeUnit.SECONDS);
-
-        longFlowsTask = new LongFlowsTask();
-        longFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
-                longFlowsTask,
-                1,
-                longPollInterval,
-                TimeUnit.SECONDS);
+        scheduleTasks(1);
 
         log.info("Started");
     }
@@ -378,17 +470,7 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
      */
     public synchronized void stop() {
         log.debug("Stopping AdaptiveStats collection thread for {}", sw.getStringId());
-        if (calAndShortFlowsThread != null) {
-            calAndShortFlowsThread.cancel(true);
-        }
-        if (midFlowsThread != null) {
-            midFlowsThread.cancel(true);
-        }
-        if (longFlowsThread != null) {
-            longFlowsThread.cancel(true);
-        }
-
-        adaptiveFlowStatsScheduler.shutdownNow();
+        cancelTasks();
 
         isFirstTimeStart = false;
 
@@ -400,7 +482,7 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
      *
      * @param flowRules the flow rules
      */
-    public synchronized void addWithFlowRule(FlowRule... flowRules) {
+    public void addWithFlowRule(FlowRule... flowRules) {
         for (FlowRule fr : flowRules) {
             // First remove old entry unconditionally, if exist
             deviceFlowTable.remove(fr);
@@ -417,49 +499,52 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
      *
      * @param flowEntries the flow entries
      */
-    public synchronized void addOrUpdateFlows(FlowEntry... flowEntries) {
+    public void addOrUpdateFlows(FlowEntry... flowEntries) {
         for (FlowEntry fe : flowEntries) {
             // check if this new rule is an update to an existing entry
             TypedStoredFlowEntry stored = deviceFlowTable.getFlowEntry(fe);
 
             if (stored != null) {
-                // duplicated flow entry is collected!, just skip
-                if (fe.bytes() == stored.bytes() && fe.packets() == stored.packets()
-                        && fe.life() == stored.life()) {
-                    if (log.isTraceEnabled()) {
-                        log.trace("addOrUpdateFlows({}): flowId={},is DUPLICATED stats collection, just skip.",
-                                sw.getStringId(), fe.id());
+                // the entry is also read by the poll tasks, so it is updated under its lock
+                synchronized (stored) {
+                    // duplicated flow entry is collected!, just skip
+                    if (fe.bytes() == stored.bytes() && fe.packets() == stored.packets()
+                            && fe.life() == stored.life()) {
+                        if (log.isTraceEnabled()) {
+                            log.trace("addOrUpdateFlows({}): flowId={},is DUPLICATED stats collection, just skip.",
+                                    sw.getStringId(), fe.id());
+                        }
+
+                        //FIXME modification of "stored" flow entry outside of store
+                        stored.setLastSeen();
+                        continue;
+                    } else if (fe.life() < stored.life()) {
+                        // Invalid updates the stats values, i.e., bytes, packets, durations ...
+                        if (log.isDebugEnabled()) {
+                            log.debug(ADD_INVALID_LOG, fe.id(), stored.id(), fe.bytes(),
+                                    stored.bytes(), fe.life(), stored.life(),
+                                    fe.lastSeen(), stored.lastSeen());
+                        }
+                        // go next
+                        //FIXME modification of "stored" flow entry outside of store
+                        stored.setLastSeen();
+                        continue;
                     }
 
+                    // update now
                     //FIXME modification of "stored" flow entry outside of store
+                    stored.setLife(fe.life());
+                    stored.setPackets(fe.packets());
+                    stored.setBytes(fe.bytes());
                     stored.setLastSeen();
-                    continue;
-                } else if (fe.life() < stored.life()) {
-                    // Invalid updates the stats values, i.e., bytes, packets, durations ...
-                    if (log.isDebugEnabled()) {
-                        log.debug(ADD_INVALID_LOG, fe.id(), stored.id(), fe.bytes(),
-                                stored.bytes(), fe.life(), stored.life(),
-                                fe.lastSeen(), stored.lastSeen());
+                    if (stored.state() == FlowEntry.FlowEntryState.PENDING_ADD) {
+                        // flow is really RULE_ADDED
+                        stored.setState(FlowEntry.FlowEntryState.ADDED);
                     }
-                    // go next
-                    //FIXME modification of "stored" flow entry outside of store
-                    stored.setLastSeen();
+                    // flow is RULE_UPDATED, skip adding and just updating flow live table
+                    //deviceFlowTable.calAndSetFlowLiveType(stored);
                     continue;
                 }
-
-                // update now
-                //FIXME modification of "stored" flow entry outside of store
-                stored.setLife(fe.life());
-                stored.setPackets(fe.packets());
-                stored.setBytes(fe.bytes());
-                stored.setLastSeen();
-                if (stored.state() == FlowEntry.FlowEntryState.PENDING_ADD) {
-                    // flow is really RULE_ADDED
-                    stored.setState(FlowEntry.FlowEntryState.ADDED);
-                }
-                // flow is RULE_UPDATED, skip adding and just updating flow live table
-                //deviceFlowTable.calAndSetFlowLiveType(stored);
-                continue;
             }
 
             // add new flow entry, we suppose IMMEDIATE_FLOW
@@ -474,7 +559,7 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
      *
      * @param flowRules the flow entries
      */
-    public synchronized void removeFlows(FlowRule...  flowRules) {
+    public void removeFlows(FlowRule...  flowRules) {
         for (FlowRule rule : flowRules) {
             deviceFlowTable.remove(rule);
         }
@@ -523,25 +608,30 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
         private final Map<FlowId, Set<TypedStoredFlowEntry>>
                 flowEntries = Maps.newConcurrentMap();
 
-        private final Set<StoredFlowEntry> shortFlows = new HashSet<>();
-        private final Set<StoredFlowEntry> midFlows = new HashSet<>();
-        private final Set<StoredFlowEntry> longFlows = new HashSet<>();
+        // Flows are classified without locking, as the sets are concurrent
+        private final Set<StoredFlowEntry> shortFlows = ConcurrentHashMap.newKeySet();
+        private final Set<StoredFlowEntry> midFlows = ConcurrentHashMap.newKeySet();
+        private final Set<StoredFlowEntry> longFlows = ConcurrentHashMap.newKeySet();
+
+        // Number of flow entries per table, as of the last classification
+        private volatile Map<Integer, Long> tableSizes = ImmutableMap.of();
 
         // Assumed latency adjustment(default=500 millisecond) between FlowStatsRequest and Reply
         private final long latencyFlowStatsRequestAndReplyMillis = 500;
 
 
         // Statistics for table operation
-        private long addCount = 0, addWithSetFlowLiveTypeCount = 0;
-        private long removeCount = 0;
+        private final LongAdder addCount = new LongAdder();
+        private final LongAdder addWithSetFlowLiveTypeCount = new LongAdder();
+        private final LongAdder removeCount = new LongAdder();
 
         /**
          * Resets all count values to zero.
          */
         public void resetAllCount() {
-            addCount = 0;
-            addWithSetFlowLiveTypeCount = 0;
-            removeCount = 0;
+            addCount.reset();
+            addWithSetFlowLiveTypeCount.reset();
+            removeCount.reset();
         }
 
         // get set of flow entries for the given flowId
@@ -623,19 +713,29 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
             return ImmutableSet.copyOf(longFlows);
         }
 
+        /**
+         * Gets the number of flow entries in each table, as of the last
+         * check of the flow live types.
+         *
+         * @return the number of flow entries keyed by table ID
+         */
+        public Map<Integer, Long> getTableSizes() {
+            return tableSizes;
+        }
+
         /**
          * Add typed flow entry into table only.
          *
          * @param rule the flow rule
          */
-        public synchronized void add(TypedStoredFlowEntry rule) {
+        public void add(TypedStoredFlowEntry rule) {
             checkNotNull(rule);
 
             //rule have to be new DefaultTypedFlowEntry
             boolean result = getFlowEntriesInternal(rule.id()).add(rule);
 
             if (result) {
-                addCount++;
+                addCount.increment();
             }
         }
 
@@ -648,7 +748,11 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
         public void calAndSetFlowLiveType(TypedStoredFlowEntry rule) {
             checkNotNull(rule);
 
-            calAndSetFlowLiveTypeInternal(rule);
+            synchronized (rule) {
+                if (isTracked(rule)) {
+                    calAndSetFlowLiveTypeInternal(rule);
+                }
+            }
         }
 
         /**
@@ -657,18 +761,20 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
          *
          * @param rule the flow rule
          */
-        public synchronized void addWithCalAndSetFlowLiveType(TypedStoredFlowEntry rule) {
+        public void addWithCalAndSetFlowLiveType(TypedStoredFlowEntry rule) {
             checkNotNull(rule);
 
-            //rule have to be new DefaultTypedFlowEntry
-            boolean result = getFlowEntriesInternal(rule.id()).add(rule);
-            if (result) {
-                calAndSetFlowLiveTypeInternal(rule);
-                addWithSetFlowLiveTypeCount++;
-            } else {
-                if (log.isDebugEnabled()) {
-                    log.debug("FlowId {} ADD failed, it may already exist in table - {}",
-                            rule.id(), sw.getStringId());
+            synchronized (rule) {
+                //rule have to be new DefaultTypedFlowEntry
+                boolean result = getFlowEntriesInternal(rule.id()).add(rule);
+                if (result) {
+                    calAndSetFlowLiveTypeInternal(rule);
+                    addWithSetFlowLiveTypeCount.increment();
+                } else {
+                    if (log.isDebugEnabled()) {
+                        log.debug("FlowId {} ADD failed, it may already exist in table - {}",
+                                rule.id(), sw.getStringId());
+                    }
                 }
             }
         }
@@ -783,31 +889,36 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
 
             long calCurTime = System.currentTimeMillis();
             typedFlowEntries.forEach(fe -> {
-                if (!checkAndMoveLiveFlowInternal(fe, calCurTime)) {
-                    remove(fe);
+                synchronized (fe) {
+                    // skip flows removed since the snapshot was taken, so they are not put back into a tier
+                    if (isTracked(fe) && !checkAndMoveLiveFlowInternal(fe, calCurTime)) {
+                        remove(fe);
+                    }
                 }
             });
 
-            // print table counts for debug
+            tableSizes = ImmutableMap.copyOf(typedFlowEntries.stream()
+                    .collect(groupingBy(FlowEntry::tableId, counting())));
+
+            // print table counts for debug; counts may be slightly off while flows are updated
             if (log.isTraceEnabled()) {
-                synchronized (this) {
-                    long totalFlowCount = getFlowCount();
-                    long shortFlowCount = shortFlows.size();
-                    long midFlowCount = midFlows.size();
-                    long longFlowCount = longFlows.size();
-                    long immediateFlowCount = totalFlowCount - shortFlowCount - midFlowCount - longFlowCount;
-                    long calTotalCount = addCount + addWithSetFlowLiveTypeCount - removeCount;
-
-                    log.trace(CHECK_AND_MOVE_COUNT_LOG, totalFlowCount, calTotalCount,
-                            immediateFlowCount, shortFlowCount, midFlowCount, longFlowCount,
-                            addCount, addWithSetFlowLiveTypeCount, removeCount, sw.getStringId());
-
-                    if (totalFlowCount != calTotalCount) {
-                        log.error("Real total flow count and calculated total flow count do NOT match");
-                    }
-                    if (immediateFlowCount < 0) {
-                        log.error("Immediate flow count is negative");
-                    }
+                long totalFlowCount = getFlowCount();
+                long shortFlowCount = shortFlows.size();
+                long midFlowCount = midFlows.size();
+                long longFlowCount = longFlows.size();
+                long immediateFlowCount = totalFlowCount - shortFlowCount - midFlowCount - longFlowCount;
+                long calTotalCount = addCount.sum() + addWithSetFlowLiveTypeCount.sum() - removeCount.sum();
+
+                log.trace(CHECK_AND_MOVE_COUNT_LOG, totalFlowCount, calTotalCount,
+                        immediateFlowCount, shortFlowCount, midFlowCount, longFlowCount,
+                        addCount.sum(), addWithSetFlowLiveTypeCount.sum(), removeCount.sum(),
+                        sw.getStringId());
+
+                if (totalFlowCount != calTotalCount) {
+                    log.error("Real total flow count and calculated total flow count do NOT match");
+                }
+                if (immediateFlowCount < 0) {
+                    log.error("Immediate flow count is negative");
                 }
             }
             log.trace("checkAndMoveLiveFlowAll: adaptiveStats for {}", sw.getStringId());
@@ -818,39 +929,35 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
          *
          * @param rule the flow rule
          */
-        public synchronized void remove(FlowRule rule) {
+        public void remove(FlowRule rule) {
             checkNotNull(rule);
 
             TypedStoredFlowEntry removeStore = getFlowEntryInternal(rule);
             if (removeStore != null) {
-                removeLiveFlowsInternal(removeStore);
-                boolean result = getFlowEntriesInternal(rule.id()).remove(removeStore);
-
-                if (result) {
-                    removeCount++;
+                // Flows are classified under the same lock, and only while they are
+                // in the table, so the entry cannot be put back into a typed flow table
+                synchronized (removeStore) {
+                    boolean result = getFlowEntriesInternal(rule.id()).remove(removeStore);
+                    removeLiveFlowsInternal(removeStore);
+
+                    if (result) {
+                        removeCount.increment();
+                    }
                 }
             }
         }
 
-        // Remove the typed flow entry from corresponding table
+        // check if the given typed flow entry itself, not just an equal one, is in the table
+        private boolean isTracked(TypedStoredFlowEntry fe) {
+            Set<TypedStoredFlowEntry> entries = flowEntries.get(fe.id());
+            return entries != null && entries.stream().anyMatch(entry -> entry == fe);
+        }
+
+        // Remove the typed flow entry from all typed flow tables
         private void removeLiveFlowsInternal(TypedStoredFlowEntry fe) {
-            switch (fe.flowLiveType()) {
-            case IMMEDIATE_FLOW:
-                // do nothing
-                break;
-            case SHORT_FLOW:
-                shortFlows.remove(fe);
-                break;
-            case MID_FLOW:
-                midFlows.remove(fe);
-                break;
-            case LONG_FLOW:
-                longFlows.remove(fe);
-                break;
-            default: // error in Flow Live Type
-                log.error("removeLiveFlowsInternal: unknown live type error");
-                break;
-            }
+            shortFlows.remove(fe);
+            midFlows.remove(fe);
+            longFlows.remove(fe);
         }
     }
 }
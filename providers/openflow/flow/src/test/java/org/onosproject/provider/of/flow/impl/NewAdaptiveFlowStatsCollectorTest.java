@@ -0,0 +1,328 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Test;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.driver.DriverServiceAdapter;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.openflow.controller.OpenFlowSwitch;
+import org.onosproject.openflow.controller.RoleState;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFFlowStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFPortDesc;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.protocol.match.MatchField;
+import org.projectfloodlight.openflow.types.OFPort;
+import org.projectfloodlight.openflow.types.TableId;
+import org.projectfloodlight.openflow.types.U64;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.junit.TestTools.assertAfter;
+import static org.onlab.junit.TestTools.delay;
+
+/**
+ * Tests of the adaptive flow statistics collector.
+ */
+public class NewAdaptiveFlowStatsCollectorTest {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:0000000000000001");
+    private static final long LONG_LIFE = 100;
+    private static final long IMMEDIATE_LIFE = 0;
+
+    private final TestOpenFlowSwitch sw = new TestOpenFlowSwitch();
+    private NewAdaptiveFlowStatsCollector collector;
+
+    @After
+    public void tearDown() {
+        if (collector != null) {
+            collector.stop();
+        }
+    }
+
+    private void createCollector(OFVersion version) {
+        sw.factory = OFFactories.getFactory(version);
+        collector = new NewAdaptiveFlowStatsCollector(new DriverServiceAdapter(), sw, 5);
+    }
+
+    private static FlowEntry flowEntry(int appId, int inPort, long life) {
+        FlowRule rule = DefaultFlowRule.builder()
+                .forDevice(DID)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchInPort(PortNumber.portNumber(inPort)).build())
+                .withTreatment(DefaultTrafficTreatment.builder()
+                                       .setOutput(PortNumber.portNumber(100)).build())
+                .withPriority(10)
+                .fromApp(new DefaultApplicationId(appId, "app" + appId))
+                .makePermanent()
+                .forTable(0)
+                .build();
+        return new DefaultFlowEntry(rule, FlowEntry.FlowEntryState.ADDED, life, 0, 0);
+    }
+
+    // classifies the flows, then polls the long flows and returns the requests sent for them
+    private List<OFFlowStatsRequest> pollLongFlows() {
+        collector.calAndShortFlowsTaskInternal();
+        sw.sent.clear();
+        collector.longFlowsTaskInternal();
+        return sw.requests();
+    }
+
+    // adds two long flows of app 1, a long flow of app 2 and four immediate flows of app 3
+    private void addMixedFlows() {
+        collector.addOrUpdateFlows(flowEntry(1, 1, LONG_LIFE), flowEntry(1, 2, LONG_LIFE),
+                                   flowEntry(2, 3, LONG_LIFE));
+        for (int port = 4; port < 8; port++) {
+            collector.addOrUpdateFlows(flowEntry(3, port, IMMEDIATE_LIFE));
+        }
+    }
+
+    /**
+     * Tests that a single table-scoped request is sent when most flows of the table are due.
+     */
+    @Test
+    public void tableScopedRequest() {
+        createCollector(OFVersion.OF_13);
+        collector.addOrUpdateFlows(flowEntry(1, 1, LONG_LIFE), flowEntry(2, 2, LONG_LIFE),
+                                   flowEntry(3, 3, IMMEDIATE_LIFE));
+
+        List<OFFlowStatsRequest> requests = pollLongFlows();
+
+        assertEquals(1, requests.size());
+        OFFlowStatsRequest request = requests.get(0);
+        assertEquals(TableId.of(0), request.getTableId());
+        assertEquals(U64.ZERO, request.getCookieMask());
+        assertEquals(sw.factory.matchWildcardAll(), request.getMatch());
+    }
+
+    // returns the cookie the given flow entry is installed with
+    private static U64 cookie(FlowEntry entry) {
+        return U64.of(entry.id().value());
+    }
+
+    /**
+     * Tests that a request per flow, scoped by its exact cookie, is sent
+     * when few flows of the table are due.
+     */
+    @Test
+    public void cookieScopedRequests() {
+        createCollector(OFVersion.OF_13);
+        addMixedFlows();
+
+        List<OFFlowStatsRequest> requests = pollLongFlows();
+
+        assertEquals(3, requests.size());
+        requests.forEach(request -> {
+            assertEquals(TableId.of(0), request.getTableId());
+            assertEquals(U64.NO_MASK, request.getCookieMask());
+        });
+        Set<U64> cookies = requests.stream().map(OFFlowStatsRequest::getCookie).collect(toSet());
+        assertEquals(ImmutableSet.of(cookie(flowEntry(1, 1, LONG_LIFE)), cookie(flowEntry(1, 2, LONG_LIFE)),
+                                     cookie(flowEntry(2, 3, LONG_LIFE))),
+                     cookies);
+    }
+
+    /**
+     * Tests that a request per flow, scoped by its match, is sent to
+     * OpenFlow 1.0 switches when few flows of the table are due.
+     */
+    @Test
+    public void flowScopedRequestsOnOf10() {
+        createCollector(OFVersion.OF_10);
+        addMixedFlows();
+
+        List<OFFlowStatsRequest> requests = pollLongFlows();
+
+        assertEquals(3, requests.size());
+        Set<OFPort> inPorts = requests.stream()
+                .map(request -> request.getMatch().get(MatchField.IN_PORT))
+                .collect(toSet());
+        assertEquals(ImmutableSet.of(OFPort.of(1), OFPort.of(2), OFPort.of(3)), inPorts);
+    }
+
+    /**
+     * Tests that removed flows are no longer polled.
+     */
+    @Test
+    public void removedFlowsNotPolled() {
+        createCollector(OFVersion.OF_13);
+        addMixedFlows();
+        collector.removeFlows(flowEntry(2, 3, LONG_LIFE));
+
+        List<OFFlowStatsRequest> requests = pollLongFlows();
+
+        assertEquals(2, requests.size());
+        Set<U64> cookies = requests.stream().map(OFFlowStatsRequest::getCookie).collect(toSet());
+        assertEquals(ImmutableSet.of(cookie(flowEntry(1, 1, LONG_LIFE)), cookie(flowEntry(1, 2, LONG_LIFE))),
+                     cookies);
+    }
+
+    /**
+     * Tests that a poll task keeps re-arming itself, even if a poll fails,
+     * and stops once cancelled.
+     */
+    @Test
+    public void pollTaskRearmsUntilCancelled() {
+        createCollector(OFVersion.OF_13);
+        AtomicInteger polls = new AtomicInteger();
+        NewAdaptiveFlowStatsCollector.PollTask task = collector.new PollTask() {
+            @Override
+            int interval() {
+                return 0;
+            }
+
+            @Override
+            void poll() {
+                if (polls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("first poll fails");
+                }
+            }
+        };
+
+        task.schedule(0);
+        assertAfter(2000, () -> assertTrue(polls.get() >= 3));
+
+        task.cancel();
+        // let a poll already handed to the executor finish
+        delay(200);
+        int cancelledPolls = polls.get();
+        delay(500);
+        assertEquals(cancelledPolls, polls.get());
+    }
+
+    private static class TestOpenFlowSwitch implements OpenFlowSwitch {
+
+        final List<OFMessage> sent = new CopyOnWriteArrayList<>();
+        OFFactory factory;
+
+        List<OFFlowStatsRequest> requests() {
+            return sent.stream()
+                    .map(msg -> (OFFlowStatsRequest) msg)
+                    .collect(toList());
+        }
+
+        @Override
+        public void sendMsg(OFMessage msg) {
+            sent.add(msg);
+        }
+
+        @Override
+        public void sendMsg(List<OFMessage> msgs) {
+            sent.addAll(msgs);
+        }
+
+        @Override
+        public void handleMessage(OFMessage fromSwitch) {
+        }
+
+        @Override
+        public void setRole(RoleState role) {
+        }
+
+        @Override
+        public RoleState getRole() {
+            return RoleState.MASTER;
+        }
+
+        @Override
+        public List<OFPortDesc> getPorts() {
+            return null;
+        }
+
+        @Override
+        public OFFactory factory() {
+            return factory;
+        }
+
+        @Override
+        public String getStringId() {
+            return DID.toString();
+        }
+
+        @Override
+        public long getId() {
+            return 1;
+        }
+
+        @Override
+        public String manufacturerDescription() {
+            return null;
+        }
+
+        @Override
+        public String datapathDescription() {
+            return null;
+        }
+
+        @Override
+        public String hardwareDescription() {
+            return null;
+        }
+
+        @Override
+        public String softwareDescription() {
+            return null;
+        }
+
+        @Override
+        public String serialNumber() {
+            return null;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public void disconnectSwitch() {
+        }
+
+        @Override
+        public void returnRoleReply(RoleState requested, RoleState response) {
+        }
+
+        @Override
+        public Device.Type deviceType() {
+            return Device.Type.SWITCH;
+        }
+
+        @Override
+        public String channelId() {
+            return null;
+        }
+    }
+}
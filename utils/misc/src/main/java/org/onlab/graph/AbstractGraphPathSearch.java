@@ -66,6 +66,7 @@ public abstract class AbstractGraphPathSearch<V extends Vertex, E extends Edge<V
         protected final Map<V, Double> costs = new HashMap<>();
         protected final Map<V, Set<E>> parents = new HashMap<>();
         protected final int maxPaths;
+        private boolean pathsPending;
 
         /**
          * Creates the result of a single-path search.
@@ -103,7 +104,11 @@ public abstract class AbstractGraphPathSearch<V extends Vertex, E extends Edge<V
         }
 
         @Override
-        public Set<Path<V, E>> paths() {
+        public synchronized Set<Path<V, E>> paths() {
+            if (pathsPending) {
+                pathsPending = false;
+                buildPendingPaths();
+            }
             return paths;
         }
 
@@ -207,8 +212,18 @@ public abstract class AbstractGraphPathSearch<V extends Vertex, E extends Edge<V
 
         /**
          * Builds a set of paths for the specified src/dst vertex pair.
+         * <p>
+         * The paths are only enumerated once they are first requested, so
+         * that searches whose costs and parent edges are consumed directly,
+         * such as shortest path trees, do not pay for it.
+         * </p>
          */
-        protected void buildPaths() {
+        protected synchronized void buildPaths() {
+            pathsPending = true;
+        }
+
+        // Enumerates the paths between the source and requested destinations.
+        private void buildPendingPaths() {
             Set<V> destinations = new HashSet<>();
             if (dst == null) {
                 destinations.addAll(costs.keySet());
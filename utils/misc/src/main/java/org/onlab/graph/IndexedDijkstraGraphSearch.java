@@ -0,0 +1,315 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dijkstra shortest-path graph search algorithm capable of finding not just
+ * one, but all shortest paths between the source and destinations.
+ * <p>
+ * Produces the same results as {@link DijkstraGraphSearch}, but rather than
+ * working on the vertex and edge objects directly, the graph is first
+ * compiled into integer-indexed adjacency arrays and the search is driven
+ * by an indexed binary heap supporting decrease-key. Compiled forms of
+ * immutable {@link AdjacencyListsGraph} instances are retained, so that
+ * repeated searches over the same graph, as is typical for topology
+ * snapshots, only pay the compilation cost once. Working arrays are kept
+ * per thread and reused across searches.
+ * </p>
+ */
+public class IndexedDijkstraGraphSearch<V extends Vertex, E extends Edge<V>>
+        extends AbstractGraphPathSearch<V, E> {
+
+    private static final int NONE = -1;
+    private static final int SETTLED = -2;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    // Most recently compiled immutable graph; searches are typically issued
+    // in bursts against the same topology snapshot.
+    private volatile CompiledGraph<V, E> lastCompiled;
+
+    @Override
+    public Result<V, E> search(Graph<V, E> graph, V src, V dst,
+                               EdgeWeight<V, E> weight, int maxPaths) {
+        checkArguments(graph, src, dst);
+
+        DefaultResult result = new DefaultResult(src, dst, maxPaths);
+        result.updateVertex(src, null, 0.0, false);
+
+        if (graph.getEdges().isEmpty()) {
+            result.buildPaths();
+            return result;
+        }
+
+        CompiledGraph<V, E> compiled = compile(graph);
+        Scratch scratch = SCRATCH.get();
+        scratch.reset(compiled.vertexes.length, compiled.edges.length);
+
+        int source = compiled.index.get(src);
+        int target = dst == null ? NONE : compiled.index.get(dst);
+        search(compiled, scratch, source, target, weight, maxPaths);
+
+        // Transfer the reached vertexes, along with their parent edges in the
+        // order in which they were accrued, into the result.
+        for (int v = 0; v < compiled.vertexes.length; v++) {
+            if (v == source || scratch.cost[v] == Double.MAX_VALUE) {
+                continue;
+            }
+            V vertex = compiled.vertex(v);
+            result.updateVertex(vertex, null, scratch.cost[v], false);
+            for (int p = scratch.parentHead[v]; p != NONE; p = scratch.parentNext[p]) {
+                result.updateVertex(vertex, compiled.edge(scratch.parentEdge[p]), scratch.cost[v], false);
+            }
+        }
+
+        result.buildPaths();
+        return result;
+    }
+
+    // Runs the search over the compiled graph, leaving the vertex costs and
+    // parent edges in the scratch arrays.
+    private void search(CompiledGraph<V, E> graph, Scratch s, int source, int target,
+                        EdgeWeight<V, E> weight, int maxPaths) {
+        double threshold = samenessThreshold();
+        s.cost[source] = 0.0;
+        s.offer(source);
+
+        while (s.heapSize > 0) {
+            int nearest = s.poll();
+            if (nearest == target) {
+                break;
+            }
+
+            double cost = s.cost[nearest];
+            for (int e = graph.offsets[nearest]; e < graph.offsets[nearest + 1]; e++) {
+                double hopCost = weight == null ? 1.0 : weight.weight(graph.edge(e));
+                if (hopCost < 0) {
+                    continue;
+                }
+
+                int v = graph.targets[e];
+                double oldCost = s.cost[v];
+                double newCost = cost + hopCost;
+                boolean relaxed = newCost < oldCost;
+                boolean same = Math.abs(newCost - oldCost) <= threshold;
+                if (relaxed && !same) {
+                    s.cost[v] = newCost;
+                    s.setParent(v, e, maxPaths);
+                    if (s.position[v] == NONE) {
+                        s.offer(v);
+                    } else if (s.position[v] != SETTLED) {
+                        s.decreaseKey(v);
+                    }
+                } else if (same) {
+                    s.cost[v] = newCost;
+                    s.addParent(v, e, maxPaths);
+                    if (relaxed && s.position[v] >= 0) {
+                        s.decreaseKey(v);
+                    }
+                }
+            }
+        }
+    }
+
+    // Returns the compiled form of the given graph, reusing the most recent
+    // one if the graph is immutable and has been compiled before.
+    private CompiledGraph<V, E> compile(Graph<V, E> graph) {
+        CompiledGraph<V, E> compiled = lastCompiled;
+        if (compiled != null && compiled.graph == graph) {
+            return compiled;
+        }
+        compiled = new CompiledGraph<>(graph);
+        if (graph instanceof AdjacencyListsGraph) {
+            lastCompiled = compiled;
+        }
+        return compiled;
+    }
+
+    /**
+     * Graph flattened into compressed sparse row form: the egress edges of
+     * vertex {@code i} occupy slots {@code offsets[i]} through
+     * {@code offsets[i + 1] - 1} of the edge and target arrays.
+     */
+    private static final class CompiledGraph<V extends Vertex, E extends Edge<V>> {
+        private final Graph<V, E> graph;
+        private final Map<V, Integer> index;
+        private final Object[] vertexes;
+        private final Object[] edges;
+        private final int[] offsets;
+        private final int[] targets;
+
+        private CompiledGraph(Graph<V, E> graph) {
+            this.graph = graph;
+            vertexes = graph.getVertexes().toArray();
+            index = new HashMap<>(vertexes.length * 2);
+            for (int i = 0; i < vertexes.length; i++) {
+                index.put(vertex(i), i);
+            }
+            edges = new Object[graph.getEdges().size()];
+            targets = new int[edges.length];
+            offsets = new int[vertexes.length + 1];
+            int e = 0;
+            for (int i = 0; i < vertexes.length; i++) {
+                offsets[i] = e;
+                for (E edge : graph.getEdgesFrom(vertex(i))) {
+                    edges[e] = edge;
+                    targets[e] = index.get(edge.dst());
+                    e++;
+                }
+            }
+            offsets[vertexes.length] = e;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V vertex(int i) {
+            return (V) vertexes[i];
+        }
+
+        @SuppressWarnings("unchecked")
+        private E edge(int i) {
+            return (E) edges[i];
+        }
+    }
+
+    /**
+     * Per-thread working arrays of the search, grown as needed.
+     */
+    private static final class Scratch {
+        private double[] cost = new double[0];
+        private int[] heap = new int[0];
+        private int[] position = new int[0];
+        private int[] parentHead = new int[0];
+        private int[] parentTail = new int[0];
+        private int[] parentCount = new int[0];
+        private int[] parentEdge = new int[0];
+        private int[] parentNext = new int[0];
+        private int heapSize;
+        private int parentSize;
+
+        private void reset(int vertexCount, int edgeCount) {
+            if (cost.length < vertexCount) {
+                cost = new double[vertexCount];
+                heap = new int[vertexCount];
+                position = new int[vertexCount];
+                parentHead = new int[vertexCount];
+                parentTail = new int[vertexCount];
+                parentCount = new int[vertexCount];
+            }
+            if (parentEdge.length < edgeCount) {
+                parentEdge = new int[edgeCount];
+                parentNext = new int[edgeCount];
+            }
+            Arrays.fill(cost, 0, vertexCount, Double.MAX_VALUE);
+            Arrays.fill(position, 0, vertexCount, NONE);
+            Arrays.fill(parentHead, 0, vertexCount, NONE);
+            Arrays.fill(parentCount, 0, vertexCount, 0);
+            heapSize = 0;
+            parentSize = 0;
+        }
+
+        // Replaces any parent edges accrued so far with the given one.
+        private void setParent(int v, int edge, int maxPaths) {
+            parentHead[v] = NONE;
+            parentCount[v] = 0;
+            addParent(v, edge, maxPaths);
+        }
+
+        // Adds an equal-cost parent edge, subject to the path limit. Each
+        // edge is relaxed once, so the pool never holds more than all edges.
+        private void addParent(int v, int edge, int maxPaths) {
+            if (maxPaths != GraphPathSearch.ALL_PATHS && parentCount[v] >= maxPaths) {
+                return;
+            }
+            int p = parentSize++;
+            parentEdge[p] = edge;
+            parentNext[p] = NONE;
+            if (parentHead[v] == NONE) {
+                parentHead[v] = p;
+            } else {
+                parentNext[parentTail[v]] = p;
+            }
+            parentTail[v] = p;
+            parentCount[v]++;
+        }
+
+        private void offer(int v) {
+            heap[heapSize] = v;
+            position[v] = heapSize;
+            heapSize++;
+            siftUp(position[v]);
+        }
+
+        private int poll() {
+            int top = heap[0];
+            position[top] = SETTLED;
+            heapSize--;
+            if (heapSize > 0) {
+                heap[0] = heap[heapSize];
+                position[heap[0]] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        private void decreaseKey(int v) {
+            siftUp(position[v]);
+        }
+
+        private void siftUp(int i) {
+            int v = heap[i];
+            double c = cost[v];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                int u = heap[parent];
+                if (cost[u] <= c) {
+                    break;
+                }
+                heap[i] = u;
+                position[u] = i;
+                i = parent;
+            }
+            heap[i] = v;
+            position[v] = i;
+        }
+
+        private void siftDown(int i) {
+            int v = heap[i];
+            double c = cost[v];
+            int half = heapSize >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < heapSize && cost[heap[right]] < cost[heap[child]]) {
+                    child = right;
+                }
+                int u = heap[child];
+                if (c <= cost[u]) {
+                    break;
+                }
+                heap[i] = u;
+                position[u] = i;
+                i = child;
+            }
+            heap[i] = v;
+            position[v] = i;
+        }
+    }
+
+}
@@ -20,11 +20,21 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -34,26 +44,80 @@ import static org.slf4j.LoggerFactory.getLogger;
  * Runs K shortest paths algorithm on a provided directed graph.  Returns results in the form of an
  * InnerOrderedResult so iteration through the returned paths will return paths in ascending order according to the
  * provided EdgeWeight.
+ * <p>
+ * The spur paths of each iteration are searched in parallel on a fork-join pool. Spur nodes which cannot lead to
+ * any of the remaining paths are pruned up front using the costs of reaching the destination in the unmodified
+ * graph, which are obtained from a reverse shortest path tree retained across searches of the same immutable
+ * graph. Searches may further be bounded by a path cost and by a deadline.
+ * </p>
  */
 public class KShortestPathsSearch<V extends Vertex, E extends Edge<V>> extends AbstractGraphPathSearch<V, E> {
 
     private final Logger log = getLogger(getClass());
 
+    private final GraphPathSearch<V, E> spurSearch = new IndexedDijkstraGraphSearch<>();
+    private final ForkJoinPool pool;
+
+    // Most recently computed reverse shortest path tree
+    private volatile ReverseTree<V, E> lastReverseTree;
+
+    /**
+     * Creates a K shortest paths search which searches spur paths on the
+     * common fork-join pool.
+     */
+    public KShortestPathsSearch() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a K shortest paths search which searches spur paths on the
+     * specified fork-join pool.
+     *
+     * @param pool fork-join pool for spur path searches
+     */
+    public KShortestPathsSearch(ForkJoinPool pool) {
+        this.pool = checkNotNull(pool);
+    }
+
     @Override
     public Result<V, E> search(Graph<V, E> graph, V src, V dst, EdgeWeight<V, E> weight, int maxPaths) {
+        return search(graph, src, dst, weight, maxPaths, Double.MAX_VALUE, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Searches the specified graph for up to the given number of shortest
+     * paths between the source and destination, none of which exceeds the
+     * given cost. If the timeout elapses before all paths have been found,
+     * the paths found so far are returned.
+     *
+     * @param graph    graph to be searched
+     * @param src      source vertex
+     * @param dst      destination vertex
+     * @param weight   edge-weight entity
+     * @param maxPaths limit on number of paths
+     * @param maxCost  limit on the cost of any of the paths
+     * @param timeout  limit on the duration of the search; 0 for no limit
+     * @param unit     timeout unit
+     * @return search results
+     */
+    public Result<V, E> search(Graph<V, E> graph, V src, V dst, EdgeWeight<V, E> weight, int maxPaths,
+                               double maxCost, long timeout, TimeUnit unit) {
         checkNotNull(src);
         checkNotNull(dst);
-        //The modified edge weight removes any need to modify the original graph
-        InnerEdgeWeighter modifiedWeighter = new InnerEdgeWeighter(checkNotNull(weight));
+        checkNotNull(weight);
         checkArgument(maxPaths > 0);
         Graph<V, E> originalGraph = checkNotNull(graph);
+        long deadline = timeout > 0 ? System.nanoTime() + unit.toNanos(timeout) : 0;
         //the result contains the set of eventual results
         InnerOrderedResult result = new InnerOrderedResult(src, dst, maxPaths);
         ArrayList<Path<V, E>> resultPaths = new ArrayList<>(maxPaths);
-        ArrayList<Path<V, E>> potentialPaths = Lists.newArrayList();
+        List<Path<V, E>> potentialPaths = Lists.newArrayList();
 
-        DijkstraGraphSearch<V, E> dijkstraSearch = new DijkstraGraphSearch<>();
-        Set<Path<V, E>> dijkstraResults = dijkstraSearch.search(originalGraph, src, dst, modifiedWeighter, 1).paths();
+        //Costs of the shortest paths to the destination in the unmodified graph bound the cost of any spur path
+        Map<V, Double> costsToDst = costsTo(originalGraph, dst, weight);
+        Double shortestCost = costsToDst.get(src);
+        Set<Path<V, E>> dijkstraResults = shortestCost == null || shortestCost > maxCost ? ImmutableSet.of() :
+                spurSearch.search(originalGraph, src, dst, new InnerEdgeWeighter(weight), 1).paths();
         //Checks if the dst was reachable
         if (dijkstraResults.size() == 0) {
             log.warn("No path was found.");
@@ -63,41 +127,38 @@ public class KShortestPathsSearch<V extends Vertex, E extends Edge<V>> extends A
         resultPaths.add(dijkstraResults.iterator().next());
 
         for (int k = 1; k < maxPaths; k++) {
+            if (expired(deadline)) {
+                log.debug("Search for paths from {} to {} timed out", src, dst);
+                break;
+            }
 
-            for (int i = 0; i < (resultPaths.get(k - 1).edges().size() - 1); i++) {
-                V spurNode = resultPaths.get(k - 1).edges().get(i).src();
-                List<E> rootPathEdgeList = resultPaths.get(k - 1).edges().subList(0, i);
-
-                for (Path<V, E> path : resultPaths) {
-                    if (edgeListsAreEqual(rootPathEdgeList, path.edges().subList(0, i))) {
-                        modifiedWeighter.removedEdges.add(path.edges().get(i));
-                    }
-                }
-
-                //Effectively remove all nodes from the source path
-                for (E edge : rootPathEdgeList) {
-                    originalGraph.getEdgesFrom(edge.src()).forEach(e -> modifiedWeighter.removedEdges.add(e));
-                    originalGraph.getEdgesTo(edge.src()).forEach(e -> modifiedWeighter.removedEdges.add(e));
-                }
-
-                dijkstraResults = dijkstraSearch.search(originalGraph, spurNode, dst, modifiedWeighter, 1).paths();
-                if (dijkstraResults.size() != 0) {
-                    Path<V, E> spurPath = dijkstraResults.iterator().next();
-                    List<E> totalPath = new ArrayList<>(rootPathEdgeList);
-                    spurPath.edges().forEach(e -> totalPath.add(e));
-                    //The following line must use the original weighter not the modified weighter because the modified
-                    //weighter will count -1 values used for modifying the graph and return an inaccurate cost.
-                    potentialPaths.add(new DefaultPath<V, E>(totalPath,
-                                                             calculatePathCost(weight, totalPath)));
+            //Spur paths which cannot beat the cheapest candidates still needed can be pruned up front
+            double bound = Math.min(maxCost, costBound(potentialPaths, maxPaths - k));
+            Path<V, E> lastPath = resultPaths.get(k - 1);
+            List<Path<V, E>> spurPaths;
+            try {
+                spurPaths = pool.submit(() -> IntStream.range(0, lastPath.edges().size() - 1)
+                        .parallel()
+                        .mapToObj(i -> spurPath(originalGraph, dst, weight, resultPaths, lastPath, i,
+                                                costsToDst, bound, deadline))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList())).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Unable to search for spur paths", e.getCause());
+            }
+            for (Path<V, E> spurPath : spurPaths) {
+                if (potentialPaths.stream().noneMatch(p -> edgeListsAreEqual(p.edges(), spurPath.edges()))) {
+                    potentialPaths.add(spurPath);
                 }
-
-                //Restore all removed paths and nodes
-                modifiedWeighter.removedEdges.clear();
             }
+
             if (potentialPaths.isEmpty()) {
                 break;
             }
-            potentialPaths.sort(new InnerPathComparator());
+            potentialPaths.sort(Comparator.comparingDouble(Path::cost));
             resultPaths.add(potentialPaths.get(0));
             potentialPaths.remove(0);
         }
@@ -105,6 +166,111 @@ public class KShortestPathsSearch<V extends Vertex, E extends Edge<V>> extends A
 
         return result;
     }
+
+    // Searches for the shortest path which deviates from the given path at
+    // its i-th vertex; returns null if there is none within the cost bound.
+    private Path<V, E> spurPath(Graph<V, E> graph, V dst, EdgeWeight<V, E> weight,
+                                List<Path<V, E>> resultPaths, Path<V, E> lastPath, int i,
+                                Map<V, Double> costsToDst, double bound, long deadline) {
+        V spurNode = lastPath.edges().get(i).src();
+        List<E> rootPathEdgeList = lastPath.edges().subList(0, i);
+        Double spurCost = costsToDst.get(spurNode);
+        if (spurCost == null || calculatePathCost(weight, rootPathEdgeList) + spurCost > bound ||
+                expired(deadline)) {
+            return null;
+        }
+
+        InnerEdgeWeighter modifiedWeighter = new InnerEdgeWeighter(weight);
+        for (Path<V, E> path : resultPaths) {
+            if (path.edges().size() > i && edgeListsAreEqual(rootPathEdgeList, path.edges().subList(0, i))) {
+                modifiedWeighter.removedEdges.add(path.edges().get(i));
+            }
+        }
+
+        //Effectively remove all nodes from the source path
+        for (E edge : rootPathEdgeList) {
+            modifiedWeighter.removedEdges.addAll(graph.getEdgesFrom(edge.src()));
+            modifiedWeighter.removedEdges.addAll(graph.getEdgesTo(edge.src()));
+        }
+
+        Set<Path<V, E>> dijkstraResults = spurSearch.search(graph, spurNode, dst, modifiedWeighter, 1).paths();
+        if (dijkstraResults.isEmpty()) {
+            return null;
+        }
+        Path<V, E> spurPath = dijkstraResults.iterator().next();
+        List<E> totalPath = new ArrayList<>(rootPathEdgeList);
+        totalPath.addAll(spurPath.edges());
+        //The following line must use the original weighter not the modified weighter because the modified
+        //weighter will count -1 values used for modifying the graph and return an inaccurate cost.
+        double cost = calculatePathCost(weight, totalPath);
+        return cost > bound ? null : new DefaultPath<>(totalPath, cost);
+    }
+
+    // Returns the cost of the n-th cheapest candidate path, if there are
+    // that many; otherwise there is no bound.
+    private double costBound(List<Path<V, E>> candidates, int n) {
+        if (candidates.size() < n) {
+            return Double.MAX_VALUE;
+        }
+        return candidates.stream().mapToDouble(Path::cost).sorted().skip(n - 1).findFirst().getAsDouble();
+    }
+
+    private static boolean expired(long deadline) {
+        return deadline != 0 && System.nanoTime() - deadline > 0;
+    }
+
+    // Returns the costs of the shortest paths from all vertexes to the
+    // destination, searching the graph backwards from it.
+    private Map<V, Double> costsTo(Graph<V, E> graph, V dst, EdgeWeight<V, E> weight) {
+        ReverseTree<V, E> tree = lastReverseTree;
+        if (tree != null && tree.graph == graph && tree.dst.equals(dst) && tree.weight == weight) {
+            return tree.costs;
+        }
+
+        Map<V, Double> costs = new HashMap<>();
+        PriorityQueue<Map.Entry<V, Double>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+        costs.put(dst, 0.0);
+        queue.add(new SimpleImmutableEntry<>(dst, 0.0));
+        while (!queue.isEmpty()) {
+            Map.Entry<V, Double> nearest = queue.poll();
+            if (nearest.getValue() > costs.get(nearest.getKey())) {
+                continue;
+            }
+            for (E edge : graph.getEdgesTo(nearest.getKey())) {
+                double hopCost = weight.weight(edge);
+                if (hopCost < 0) {
+                    continue;
+                }
+                double cost = nearest.getValue() + hopCost;
+                Double oldCost = costs.get(edge.src());
+                if (oldCost == null || cost < oldCost) {
+                    costs.put(edge.src(), cost);
+                    queue.add(new SimpleImmutableEntry<>(edge.src(), cost));
+                }
+            }
+        }
+
+        if (graph instanceof AdjacencyListsGraph) {
+            lastReverseTree = new ReverseTree<>(graph, dst, weight, costs);
+        }
+        return costs;
+    }
+
+    // Costs of reaching a destination from all vertexes of a graph.
+    private static final class ReverseTree<V extends Vertex, E extends Edge<V>> {
+        private final Graph<V, E> graph;
+        private final V dst;
+        private final EdgeWeight<V, E> weight;
+        private final Map<V, Double> costs;
+
+        private ReverseTree(Graph<V, E> graph, V dst, EdgeWeight<V, E> weight, Map<V, Double> costs) {
+            this.graph = graph;
+            this.dst = dst;
+            this.weight = weight;
+            this.costs = costs;
+        }
+    }
+
     //Edge list equality is judges by shared endpoints, and shared endpoints should be the same
     private boolean edgeListsAreEqual(List<E> edgeListOne, List<E> edgeListTwo) {
         if (edgeListOne.size() != edgeListTwo.size()) {
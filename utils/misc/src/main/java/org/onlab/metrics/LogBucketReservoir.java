@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.metrics;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import org.onlab.util.LogBucketHistogram;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reservoir counting all values ever recorded in logarithmic buckets.
+ * <p>
+ * Values are kept in a {@link LogBucketHistogram}, so the values reported by
+ * snapshots are within 1/16 of the values recorded, and recording neither
+ * allocates nor locks, which makes the reservoir suitable for measurements on
+ * hot paths.
+ * </p>
+ */
+public final class LogBucketReservoir implements Reservoir {
+
+    private final LogBucketHistogram histogram = new LogBucketHistogram();
+
+    @Override
+    public int size() {
+        return (int) Math.min(histogram.count(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void update(long value) {
+        histogram.record(value);
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        return new BucketSnapshot(histogram.snapshot());
+    }
+
+    /**
+     * Snapshot of the buckets of a reservoir.
+     */
+    private static final class BucketSnapshot extends Snapshot {
+        private final LogBucketHistogram.Snapshot snapshot;
+
+        private BucketSnapshot(LogBucketHistogram.Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public double getValue(double quantile) {
+            return snapshot.valueAt(quantile);
+        }
+
+        @Override
+        public long[] getValues() {
+            return snapshot.values();
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(snapshot.count(), Integer.MAX_VALUE);
+        }
+
+        @Override
+        public long getMax() {
+            return snapshot.max();
+        }
+
+        @Override
+        public double getMean() {
+            return snapshot.mean();
+        }
+
+        @Override
+        public long getMin() {
+            return snapshot.min();
+        }
+
+        @Override
+        public double getStdDev() {
+            return snapshot.stdDev();
+        }
+
+        @Override
+        public void dump(OutputStream output) {
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                for (long value : getValues()) {
+                    out.printf("%d%n", value);
+                }
+            }
+        }
+    }
+}
@@ -167,6 +167,31 @@ public class MetricsManager implements MetricsService {
         return metricsRegistry.histogram(name);
     }
 
+    /**
+     * Creates a Histogram metric which counts values in logarithmic buckets.
+     *
+     * @param component component the Histogram is defined in
+     * @param feature feature the Histogram is defined in
+     * @param metricName local name of the metric
+     * @return the created Histogram Metric
+     */
+    @Override
+    public Histogram createLatencyHistogram(final MetricsComponent component,
+                                            final MetricsFeature feature,
+                                            final String metricName) {
+        final String name = generateName(component, feature, metricName);
+        final Histogram existing = metricsRegistry.getHistograms().get(name);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            return metricsRegistry.register(name, new Histogram(new LogBucketReservoir()));
+        } catch (IllegalArgumentException e) {
+            // registered concurrently by someone else
+            return metricsRegistry.getHistograms().get(name);
+        }
+    }
+
     /**
      * Creates a Timer metric.
      *
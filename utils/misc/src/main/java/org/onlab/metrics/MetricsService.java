@@ -70,6 +70,20 @@ public interface MetricsService {
             MetricsFeature feature,
             String metricName);
 
+    /**
+     * Creates a Histogram metric which counts values in logarithmic buckets.
+     * Recording values into it neither allocates nor locks, which suits
+     * latencies measured on hot paths.
+     *
+     * @param component component the Histogram is defined in
+     * @param feature feature the Histogram is defined in
+     * @param metricName local name of the metric
+     * @return the created Histogram Metric
+     */
+    Histogram createLatencyHistogram(MetricsComponent component,
+            MetricsFeature feature,
+            String metricName);
+
     /**
      * Creates a Timer metric.
      *
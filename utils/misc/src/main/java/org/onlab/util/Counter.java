@@ -16,18 +16,23 @@
 package org.onlab.util;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Counting mechanism capable of tracking occurrences and rates.
+ * <p>
+ * Occurrences are added without locking, so the counter may be shared by
+ * many threads on hot paths.
+ * </p>
  */
 public class Counter {
 
-    private long total = 0;
-    private long start = System.currentTimeMillis();
-    private long end = 0;
+    private final LongAdder total = new LongAdder();
+    private volatile long start = System.currentTimeMillis();
+    private volatile long end = 0;
 
     /**
      * Creates a new counter.
@@ -47,7 +52,7 @@ public class Counter {
         checkArgument(start <= end, "Malformed interval: start > end");
         checkArgument(total >= 0, "Total must be non-negative");
         this.start = start;
-        this.total = total;
+        this.total.add(total);
         this.end = end;
     }
 
@@ -56,7 +61,7 @@ public class Counter {
      */
     public synchronized void reset() {
         end = 0;
-        total = 0;
+        total.reset();
         start = System.currentTimeMillis();
     }
 
@@ -73,10 +78,10 @@ public class Counter {
      *
      * @param count number of occurrences
      */
-    public synchronized void add(long count) {
+    public void add(long count) {
         checkArgument(count >= 0, "Count must be non-negative");
         if (end == 0L) {
-            total += count;
+            total.add(count);
         }
     }
 
@@ -85,8 +90,8 @@ public class Counter {
      *
      * @return throughput in occurrences per second
      */
-    public synchronized double throughput() {
-        return total / duration();
+    public double throughput() {
+        return total() / duration();
     }
 
     /**
@@ -94,8 +99,8 @@ public class Counter {
      *
      * @return number of counted occurrences
      */
-    public synchronized long total() {
-        return total;
+    public long total() {
+        return total.sum();
     }
 
     /**
@@ -103,15 +108,16 @@ public class Counter {
      *
      * @return fractional number of seconds since the last reset
      */
-    public synchronized double duration() {
+    public double duration() {
         //  Protect against 0 return by artificially setting duration to 1ms
-        long duration = (end == 0L ? System.currentTimeMillis() : end) - start;
+        long stop = end;
+        long duration = (stop == 0L ? System.currentTimeMillis() : stop) - start;
         return (duration == 0 ? 1 : duration) / 1000.0;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(total, start, end);
+        return Objects.hash(total(), start, end);
     }
 
     @Override
@@ -121,7 +127,7 @@ public class Counter {
         }
         if (obj instanceof Counter) {
             final Counter other = (Counter) obj;
-            return Objects.equals(this.total, other.total) &&
+            return Objects.equals(this.total(), other.total()) &&
                     Objects.equals(this.start, other.start) &&
                     Objects.equals(this.end, other.end);
         }
@@ -131,7 +137,7 @@ public class Counter {
     @Override
     public String toString() {
         return toStringHelper(this)
-                .add("total", total)
+                .add("total", total())
                 .add("start", start)
                 .add("end", end)
                 .toString();
@@ -21,6 +21,7 @@ import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.ByteBufferOutput;
 import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.pool.KryoCallback;
 import com.esotericsoftware.kryo.pool.KryoFactory;
 import com.esotericsoftware.kryo.pool.KryoPool;
@@ -36,6 +37,8 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -54,6 +57,13 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
     public static final int DEFAULT_BUFFER_SIZE = 4096;
     public static final int MAX_BUFFER_SIZE = 100 * 1000 * 1000;
 
+    /**
+     * Largest number of idle buffers of each kind kept for reuse. Only
+     * buffers of at most {@link #DEFAULT_BUFFER_SIZE} bytes are kept, so that
+     * a burst of large objects does not stay pinned in memory.
+     */
+    public static final int MAX_POOLED_BUFFERS = 16;
+
     /**
      * ID to use if this KryoNamespace does not define registration id.
      */
@@ -74,6 +84,8 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
                                         .softReferences()
                                         .build();
 
+    private final Queue<Output> outputPool = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+    private final Queue<Input> inputPool = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
     private final ImmutableList<RegistrationBlock> registeredBlocks;
 
     private final boolean registrationRequired;
@@ -272,7 +284,7 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @return serialized bytes
      */
     public byte[] serialize(final Object obj, final int bufferSize) {
-        ByteBufferOutput out = new ByteBufferOutput(bufferSize, MAX_BUFFER_SIZE);
+        Output out = borrowOutput(bufferSize);
         try {
             Kryo kryo = borrow();
             try {
@@ -283,7 +295,7 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
                 release(kryo);
             }
         } finally {
-            out.release();
+            releaseOutput(out);
         }
     }
 
@@ -322,13 +334,18 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @param bufferSize size of the buffer in front of the stream
      */
     public void serialize(final Object obj, final OutputStream stream, final int bufferSize) {
-        ByteBufferOutput out = new ByteBufferOutput(stream, bufferSize);
-        Kryo kryo = borrow();
+        Output out = borrowOutput(bufferSize);
+        out.setOutputStream(stream);
         try {
-            kryo.writeClassAndObject(out, obj);
-            out.flush();
+            Kryo kryo = borrow();
+            try {
+                kryo.writeClassAndObject(out, obj);
+                out.flush();
+            } finally {
+                release(kryo);
+            }
         } finally {
-            release(kryo);
+            releaseOutput(out);
         }
     }
 
@@ -390,14 +407,76 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @param bufferSize size of the buffer in front of the stream
      */
     public <T> T deserialize(final InputStream stream, final int bufferSize) {
-        ByteBufferInput in = new ByteBufferInput(stream, bufferSize);
-        Kryo kryo = borrow();
+        Input in = borrowInput(bufferSize);
+        in.setInputStream(stream);
         try {
-            @SuppressWarnings("unchecked")
-            T obj = (T) kryo.readClassAndObject(in);
-            return obj;
+            Kryo kryo = borrow();
+            try {
+                @SuppressWarnings("unchecked")
+                T obj = (T) kryo.readClassAndObject(in);
+                return obj;
+            } finally {
+                release(kryo);
+            }
         } finally {
-            release(kryo);
+            releaseInput(in);
+        }
+    }
+
+    /**
+     * Takes a buffered output from the pool, or creates one if none with
+     * enough capacity is available.
+     *
+     * @param bufferSize initial buffer size for a newly created output
+     * @return output ready to be written to
+     */
+    private Output borrowOutput(int bufferSize) {
+        Output out = bufferSize <= DEFAULT_BUFFER_SIZE ? outputPool.poll() : null;
+        if (out == null || out.getBuffer().length < bufferSize) {
+            return new Output(bufferSize, MAX_BUFFER_SIZE);
+        }
+        out.clear();
+        return out;
+    }
+
+    /**
+     * Returns a buffered output to the pool, unless its buffer grew past the
+     * default size or the pool is full.
+     *
+     * @param out output to return
+     */
+    private void releaseOutput(Output out) {
+        out.setOutputStream(null);
+        if (out.getBuffer().length <= DEFAULT_BUFFER_SIZE) {
+            outputPool.offer(out);
+        }
+    }
+
+    /**
+     * Takes a buffered input from the pool, or creates one if none with
+     * enough capacity is available.
+     *
+     * @param bufferSize buffer size for a newly created input
+     * @return input ready to be attached to a stream
+     */
+    private Input borrowInput(int bufferSize) {
+        Input in = bufferSize <= DEFAULT_BUFFER_SIZE ? inputPool.poll() : null;
+        if (in == null || in.getBuffer().length < bufferSize) {
+            return new Input(bufferSize);
+        }
+        return in;
+    }
+
+    /**
+     * Returns a buffered input to the pool, unless its buffer is larger than
+     * the default size or the pool is full.
+     *
+     * @param in input to return
+     */
+    private void releaseInput(Input in) {
+        in.setInputStream(null);
+        if (in.getBuffer().length <= DEFAULT_BUFFER_SIZE) {
+            inputPool.offer(in);
         }
     }
 
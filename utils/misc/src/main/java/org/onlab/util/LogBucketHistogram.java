@@ -0,0 +1,256 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Histogram of non-negative values, such as latencies, counted in logarithmic
+ * buckets.
+ * <p>
+ * Each power of two range is split into eight equally sized buckets, so the
+ * values reported are within 1/16 of the values recorded. Values are recorded
+ * with a few atomic operations and without allocating or locking, which makes
+ * the histogram suitable for measurements on hot paths. Negative values are
+ * recorded as zero.
+ * </p>
+ */
+public final class LogBucketHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Records the specified value.
+     *
+     * @param value value to record
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        counts.incrementAndGet(bucket(v));
+        long current = min.get();
+        while (v < current && !min.compareAndSet(current, v)) {
+            current = min.get();
+        }
+        current = max.get();
+        while (v > current && !max.compareAndSet(current, v)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Returns the number of values recorded so far.
+     *
+     * @return number of values
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns a snapshot of the values recorded so far.
+     *
+     * @return histogram snapshot
+     */
+    public Snapshot snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return new Snapshot(snapshot, min.get(), max.get());
+    }
+
+    // Returns the index of the bucket holding the given non-negative value.
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Returns the smallest value held by the given bucket.
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    // Returns the value reported for the values held by the given bucket.
+    private static long midpoint(int bucket) {
+        long lower = lowerBound(bucket);
+        long upper = bucket + 1 < BUCKETS ? lowerBound(bucket + 1) - 1 : Long.MAX_VALUE;
+        return lower + (upper - lower) / 2;
+    }
+
+    /**
+     * Immutable view of the values recorded by a histogram.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long min;
+        private final long max;
+
+        private Snapshot(long[] counts, long min, long max) {
+            this.counts = counts;
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            this.count = total;
+            this.min = total == 0 ? 0 : min;
+            this.max = total == 0 ? 0 : max;
+        }
+
+        // Returns the value reported for the given bucket, bounded by the
+        // extremes actually recorded.
+        private long value(int bucket) {
+            return Math.min(Math.max(midpoint(bucket), min), max);
+        }
+
+        /**
+         * Returns the number of values in this snapshot.
+         *
+         * @return number of values
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the smallest value recorded, or 0 if there is none.
+         *
+         * @return smallest value
+         */
+        public long min() {
+            return min;
+        }
+
+        /**
+         * Returns the largest value recorded, or 0 if there is none.
+         *
+         * @return largest value
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * Returns the value at the specified quantile, or 0 if there is none.
+         *
+         * @param quantile quantile in [0..1]
+         * @return value at the quantile
+         */
+        public long valueAt(double quantile) {
+            checkArgument(quantile >= 0.0 && quantile <= 1.0, "%s is not in [0..1]", quantile);
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            if (rank >= count) {
+                return max;
+            }
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0) {
+                    return value(i);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Returns the arithmetic mean of the values, or 0 if there is none.
+         *
+         * @return mean value
+         */
+        public double mean() {
+            if (count == 0) {
+                return 0.0;
+            }
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                sum += (double) counts[i] * value(i);
+            }
+            return sum / count;
+        }
+
+        /**
+         * Returns the standard deviation of the values.
+         *
+         * @return standard deviation
+         */
+        public double stdDev() {
+            if (count <= 1) {
+                return 0.0;
+            }
+            double mean = mean();
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                double diff = value(i) - mean;
+                sum += counts[i] * diff * diff;
+            }
+            return Math.sqrt(sum / (count - 1));
+        }
+
+        /**
+         * Returns the values in ascending order, as reported by their buckets.
+         * At most {@link Integer#MAX_VALUE} values are returned.
+         *
+         * @return values
+         */
+        public long[] values() {
+            long[] values = new long[(int) Math.min(count, Integer.MAX_VALUE)];
+            int v = 0;
+            for (int i = 0; i < counts.length && v < values.length; i++) {
+                for (long c = 0; c < counts[i] && v < values.length; c++) {
+                    values[v++] = value(i);
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public String toString() {
+            return toStringHelper(this)
+                    .add("count", count)
+                    .add("min", min)
+                    .add("median", valueAt(0.5))
+                    .add("p99", valueAt(0.99))
+                    .add("max", max)
+                    .toString();
+        }
+    }
+}
@@ -15,14 +15,9 @@
  */
 package org.onlab.util;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -32,15 +27,20 @@ import static com.google.common.base.Preconditions.checkArgument;
  * increment the value in the current window slot. Periodically the window
  * slides and the oldest value count is dropped. Calls to #get() will get the
  * total count for the last N window slots.
+ * <p>
+ * Each slot is a striped {@link LongAdder}, so concurrent increments do not
+ * contend with each other, and the window is slid by the shared scheduled
+ * executor rather than by a thread of its own.
+ * </p>
  */
 public final class SlidingWindowCounter {
 
     private volatile int headSlot;
     private final int windowSlots;
 
-    private final List<AtomicLong> counters;
+    private final LongAdder[] counters;
 
-    private final ScheduledExecutorService background;
+    private final ScheduledFuture<?> slider;
 
     private static final int SLIDE_WINDOW_PERIOD_SECONDS = 1;
 
@@ -56,22 +56,21 @@ public final class SlidingWindowCounter {
         this.windowSlots = windowSlots;
         this.headSlot = 0;
 
-        // Initialize each item in the list to an AtomicLong of 0
-        this.counters = Collections.nCopies(windowSlots, 0)
-                .stream()
-                .map(AtomicLong::new)
-                .collect(Collectors.toCollection(ArrayList::new));
+        this.counters = new LongAdder[windowSlots];
+        for (int i = 0; i < windowSlots; i++) {
+            counters[i] = new LongAdder();
+        }
 
-        background = Executors.newSingleThreadScheduledExecutor();
-        background.scheduleWithFixedDelay(this::advanceHead, 0,
-                                          SLIDE_WINDOW_PERIOD_SECONDS, TimeUnit.SECONDS);
+        slider = SharedScheduledExecutors.getSingleThreadExecutor()
+                .scheduleWithFixedDelay(this::advanceHead, 0,
+                                        SLIDE_WINDOW_PERIOD_SECONDS, TimeUnit.SECONDS);
     }
 
     /**
      * Releases resources used by the SlidingWindowCounter.
      */
     public void destroy() {
-        background.shutdownNow();
+        slider.cancel(false);
     }
 
     /**
@@ -91,7 +90,7 @@ public final class SlidingWindowCounter {
     }
 
     private void incrementCount(int slot, long value) {
-        counters.get(slot).addAndGet(value);
+        counters[slot].add(value);
     }
 
     /**
@@ -109,16 +108,16 @@ public final class SlidingWindowCounter {
         for (int i = 0; i < slots; i++) {
             int currentIndex = headSlot - i;
             if (currentIndex < 0) {
-                currentIndex = counters.size() + currentIndex;
+                currentIndex = counters.length + currentIndex;
             }
-            sum += counters.get(currentIndex).get();
+            sum += counters[currentIndex].sum();
         }
 
         return sum;
     }
 
     void advanceHead() {
-        counters.get(slotAfter(headSlot)).set(0);
+        counters[slotAfter(headSlot)].reset();
         headSlot = slotAfter(headSlot);
     }
 
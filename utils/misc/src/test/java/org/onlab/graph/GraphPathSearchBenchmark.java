@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
+/**
+ * Benchmarks of the graph path search algorithms over a leaf-spine fabric
+ * graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class GraphPathSearchBenchmark {
+
+    @Param({"dijkstra", "indexedDijkstra"})
+    private String algorithm;
+
+    @Param({"200", "2000"})
+    private int vertexCount;
+
+    @Param({"4"})
+    private int spineCount;
+
+    private GraphPathSearch<TestVertex, TestEdge> search;
+    private Graph<TestVertex, TestEdge> graph;
+    private TestVertex[] vertexes;
+
+    @Setup
+    public void setUp() {
+        search = algorithm.equals("indexedDijkstra") ?
+                new IndexedDijkstraGraphSearch<>() : new DijkstraGraphSearch<>();
+
+        vertexes = new TestVertex[vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            vertexes[i] = new TestVertex("v" + i);
+        }
+
+        // Every leaf is wired to every spine in both directions.
+        Set<TestEdge> edges = new HashSet<>();
+        for (int leaf = spineCount; leaf < vertexCount; leaf++) {
+            for (int spine = 0; spine < spineCount; spine++) {
+                edges.add(new TestEdge(vertexes[leaf], vertexes[spine], 1));
+                edges.add(new TestEdge(vertexes[spine], vertexes[leaf], 1));
+            }
+        }
+        graph = new AdjacencyListsGraph<>(new HashSet<>(Arrays.asList(vertexes)), edges);
+    }
+
+    private TestVertex randomVertex() {
+        return vertexes[ThreadLocalRandom.current().nextInt(vertexCount)];
+    }
+
+    /**
+     * Computes all shortest paths between a random pair of vertexes, as done
+     * when serving path queries.
+     */
+    @Benchmark
+    public GraphPathSearch.Result<TestVertex, TestEdge> pairPaths() {
+        return search.search(graph, randomVertex(), randomVertex(), null, ALL_PATHS);
+    }
+
+    /**
+     * Computes the shortest path tree from a random vertex to all others, as
+     * done when building broadcast trees.
+     */
+    @Benchmark
+    public GraphPathSearch.Result<TestVertex, TestEdge> pathTree() {
+        return search.search(graph, randomVertex(), null, null, 1);
+    }
+}
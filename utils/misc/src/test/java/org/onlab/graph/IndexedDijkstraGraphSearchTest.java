@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+
+/**
+ * Test of the indexed-heap Dijkstra algorithm.
+ */
+public class IndexedDijkstraGraphSearchTest extends DijkstraGraphSearchTest {
+
+    @Override
+    protected AbstractGraphPathSearch<TestVertex, TestEdge> graphSearch() {
+        return new IndexedDijkstraGraphSearch<>();
+    }
+
+    @Test
+    public void sameAsDijkstra() {
+        Random random = new Random(17);
+        TestVertex[] vertexes = new TestVertex[100];
+        for (int i = 0; i < vertexes.length; i++) {
+            vertexes[i] = new TestVertex("v" + i);
+        }
+        Set<TestEdge> edges = new HashSet<>();
+        for (int i = 0; i < 400; i++) {
+            TestVertex src = vertexes[random.nextInt(vertexes.length)];
+            TestVertex dst = vertexes[random.nextInt(vertexes.length)];
+            if (!src.equals(dst)) {
+                edges.add(new TestEdge(src, dst, 1 + random.nextInt(3)));
+            }
+        }
+        graph = new AdjacencyListsGraph<>(new HashSet<>(Arrays.asList(vertexes)), edges);
+
+        GraphPathSearch<TestVertex, TestEdge> reference = new DijkstraGraphSearch<>();
+        GraphPathSearch<TestVertex, TestEdge> search = graphSearch();
+        for (int i = 0; i < 20; i++) {
+            TestVertex src = vertexes[random.nextInt(vertexes.length)];
+            TestVertex dst = i % 2 == 0 ? null : vertexes[random.nextInt(vertexes.length)];
+            GraphPathSearch.Result<TestVertex, TestEdge> expected =
+                    reference.search(graph, src, dst, weight, ALL_PATHS);
+            GraphPathSearch.Result<TestVertex, TestEdge> actual =
+                    search.search(graph, src, dst, weight, ALL_PATHS);
+            assertEquals("incorrect paths", expected.paths(), actual.paths());
+            if (dst == null) {
+                assertEquals("incorrect costs", expected.costs(), actual.costs());
+                assertEquals("incorrect parents", expected.parents(), actual.parents());
+            }
+        }
+    }
+
+}
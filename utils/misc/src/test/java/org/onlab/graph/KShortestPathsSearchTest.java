@@ -22,6 +22,8 @@ import org.junit.Test;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.collect.ImmutableSet.of;
 import static org.junit.Assert.assertEquals;
@@ -141,6 +143,43 @@ public class KShortestPathsSearchTest<V extends Vertex, E extends Edge<V>> exten
         assertTrue("There are an unexpected number of paths.", result.paths().size() == 1);
     }
 
+    @Test
+    public void testCostBound() {
+        //Tests that paths costing more than the bound are not returned
+        result = kShortestPathsSearch.search(graph, A, E, weight, 5, 4, 0, TimeUnit.SECONDS);
+        assertEquals("incorrect paths count", 3, result.paths().size());
+        result.paths().forEach(path -> assertTrue("path exceeds cost bound", path.cost() <= 4));
+        result = kShortestPathsSearch.search(graph, A, E, weight, 5, 2, 0, TimeUnit.SECONDS);
+        assertTrue("There should not be any paths.", result.paths().isEmpty());
+    }
+
+    @Test
+    public void testDeadline() {
+        //Tests that the shortest path is still returned once the deadline has passed
+        result = kShortestPathsSearch.search(graph, A, E, weight, 5, Double.MAX_VALUE, 1, TimeUnit.NANOSECONDS);
+        assertEquals("incorrect paths count", 1, result.paths().size());
+        assertEquals("incorrect path cost", 3, result.paths().iterator().next().cost(), 0.0);
+    }
+
+    @Test
+    public void testDedicatedPool() {
+        //Tests that searching spur paths on a dedicated pool yields the same paths
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            KShortestPathsSearch<TestVertex, TestEdge> search = new KShortestPathsSearch<>(pool);
+            for (TestVertex src : vertexes()) {
+                for (TestVertex dst : vertexes()) {
+                    if (!src.equals(dst)) {
+                        assertEquals("paths differ", kShortestPathsSearch.search(graph, src, dst, weight, 5).paths(),
+                                     search.search(graph, src, dst, weight, 5).paths());
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     private boolean edgeListsAreEqual(List<TestEdge> edgeListOne, List<TestEdge> edgeListTwo) {
         if (edgeListOne.size() != edgeListTwo.size()) {
             return false;
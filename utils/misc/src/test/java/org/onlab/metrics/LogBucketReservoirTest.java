@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.metrics;
+
+import com.codahale.metrics.Snapshot;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the logarithmic bucket reservoir.
+ */
+public class LogBucketReservoirTest {
+
+    @Test
+    public void empty() {
+        Snapshot snapshot = new LogBucketReservoir().getSnapshot();
+        assertEquals(0, snapshot.size());
+        assertEquals(0, snapshot.getMin());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0.0, snapshot.getValue(0.5), 0.0);
+        assertEquals(0.0, snapshot.getMean(), 0.0);
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LogBucketReservoir reservoir = new LogBucketReservoir();
+        for (int i = 0; i < 8; i++) {
+            reservoir.update(i);
+        }
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertEquals(8, reservoir.size());
+        assertEquals(0, snapshot.getMin());
+        assertEquals(7, snapshot.getMax());
+        assertEquals(3.5, snapshot.getMean(), 0.0);
+        assertEquals(3.0, snapshot.getValue(0.5), 0.0);
+        assertEquals(8, snapshot.getValues().length);
+    }
+
+    @Test
+    public void quantilesWithinBucketError() {
+        LogBucketReservoir reservoir = new LogBucketReservoir();
+        for (long v = 1; v <= 100000; v++) {
+            reservoir.update(v * 1000);
+        }
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertEquals(1000, snapshot.getMin());
+        assertEquals(100000000, snapshot.getMax());
+        for (double q : new double[] {0.1, 0.5, 0.9, 0.99, 0.999}) {
+            double expected = q * 100000000;
+            double error = Math.abs(snapshot.getValue(q) - expected) / expected;
+            assertTrue("quantile " + q + " off by " + error, error <= 1.0 / 16);
+        }
+        assertEquals(50000500, snapshot.getMean(), 50000500 / 16.0);
+    }
+
+    @Test
+    public void extremeValues() {
+        LogBucketReservoir reservoir = new LogBucketReservoir();
+        reservoir.update(-5);
+        reservoir.update(Long.MAX_VALUE);
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertEquals(0, snapshot.getMin());
+        assertEquals(Long.MAX_VALUE, snapshot.getMax());
+        assertEquals(Long.MAX_VALUE, snapshot.getValue(1.0), 0.0);
+    }
+}
@@ -56,6 +56,12 @@ public class MetricsServiceAdapter implements MetricsService {
         return null;
     }
 
+    @Override
+    public Histogram createLatencyHistogram(MetricsComponent component,
+                                            MetricsFeature feature, String metricName) {
+        return null;
+    }
+
     @Override
     public Timer createTimer(MetricsComponent component,
                              MetricsFeature feature, String metricName) {
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the logarithmic bucket histogram.
+ */
+public class LogBucketHistogramTest {
+
+    @Test
+    public void quantiles() {
+        LogBucketHistogram histogram = new LogBucketHistogram();
+        for (long v = 1; v <= 1000; v++) {
+            histogram.record(v * 1000);
+        }
+        LogBucketHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        assertEquals(1000, snapshot.min());
+        assertEquals(1000000, snapshot.max());
+        assertEquals(1000000, snapshot.valueAt(1.0));
+        for (double q : new double[] {0.5, 0.9, 0.99}) {
+            double expected = q * 1000000;
+            double error = Math.abs(snapshot.valueAt(q) - expected) / expected;
+            assertTrue("quantile " + q + " off by " + error, error <= 1.0 / 16);
+        }
+    }
+
+    @Test
+    public void concurrentRecording() throws InterruptedException {
+        LogBucketHistogram histogram = new LogBucketHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        LogBucketHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(40000, histogram.count());
+        assertEquals(0, snapshot.min());
+        assertEquals(9999, snapshot.max());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidQuantile() {
+        new LogBucketHistogram().snapshot().valueAt(1.5);
+    }
+}
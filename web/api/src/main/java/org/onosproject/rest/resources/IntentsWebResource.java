@@ -15,7 +15,9 @@
  */
 package org.onosproject.rest.resources;
 
+import com.codahale.metrics.Metric;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.intent.HostToHostIntent;
@@ -44,6 +46,7 @@ import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -64,6 +67,7 @@ public class IntentsWebResource extends AbstractWebResource {
     private static final int WITHDRAW_EVENT_TIMEOUT_SECONDS = 5;
 
     private static final String INTENT_NOT_FOUND = "Intent is not found";
+    private static final String LATENCY_PREFIX = "IntentManager.Latency.";
 
     /**
      * Gets all intents.
@@ -80,6 +84,26 @@ public class IntentsWebResource extends AbstractWebResource {
         return ok(root).build();
     }
 
+    /**
+     * Gets intent processing latencies.
+     * Returns the histograms of the time, in nanoseconds, intents spend in
+     * each stage of their processing.
+     *
+     * @return 200 OK with the latency histogram of each stage
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("latency")
+    public Response getIntentLatencies() {
+        final ObjectNode root = mapper().createObjectNode();
+        final ObjectNode latency = root.putObject("latency");
+        new TreeMap<>(get(MetricsService.class)
+                .getHistograms((name, metric) -> name.startsWith(LATENCY_PREFIX)))
+                .forEach((name, histogram) -> latency.set(name.substring(LATENCY_PREFIX.length()),
+                                                          codec(Metric.class).encode(histogram, this)));
+        return ok(root).build();
+    }
+
     /**
      * Gets intent by application and key.
      * Returns details of the specified intent.